@@ -0,0 +1,130 @@
+package com.chrisdufort.cli;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chrisdufort.evaluator.ExpressionCache;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.evaluator.StreamEvaluator;
+
+/**
+ * Command line entry point of the shaded jar, evaluating newline delimited expressions from files or
+ * standard input to standard output through a StreamEvaluator.
+ *
+ * Usage: java -jar Evaluator-1.0.0-RELEASE.jar [options] [file ...]
+ * No file, or -, reads standard input. Options:
+ * --workers N		threads evaluating lines, one per processor by default
+ * --batch N		lines handed to a worker at once, 256 by default
+ * --cache N		keep the last N distinct expressions compiled, for inputs repeating expressions
+ * --scale N		round every operation to N places HALF_EVEN instead of the standard rounding
+ * --functions		accept the operators and functions of OperatorRegistry.standard()
+ *
+ * Exit status is 0 once every line was evaluated, a line may still hold an error, 1 on an input or output
+ * failure and 2 on a usage error.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.StreamEvaluator
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class EvaluatorCli {
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private EvaluatorCli(){
+		/*This class is only a main entry point, therefore the constructor is private.*/
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args));
+	}
+
+	/**
+	 * Runs the command line without exiting the JVM.
+	 *
+	 * @param args
+	 * 			Options and files, as given to main.
+	 * @return	The exit status.
+	 */
+	public static int run(String[] args) {
+		StreamEvaluator.Builder builder = StreamEvaluator.builder();
+		boolean functions = false;
+		int cacheSize = 0;
+		List<String> files = new ArrayList<String>();
+		try{
+			for (int index = 0; index < args.length; index++)
+			{
+				String arg = args[index];
+				switch (arg){
+				case "--workers":
+					builder.workers(Integer.parseInt(value(args, ++index, arg)));
+					break;
+				case "--batch":
+					builder.batchLines(Integer.parseInt(value(args, ++index, arg)));
+					break;
+				case "--cache":
+					cacheSize = Integer.parseInt(value(args, ++index, arg));
+					break;
+				case "--scale":
+					builder.policy(PrecisionPolicy.fixedScale(Integer.parseInt(value(args, ++index, arg)), RoundingMode.HALF_EVEN));
+					break;
+				case "--functions":
+					functions = true;
+					break;
+				default:
+					if (arg.startsWith("--"))
+						throw new IllegalArgumentException("Unknown option: " + arg);
+					files.add(arg);
+					break;
+				}
+			}
+			//The built in operators are the default of both builders.
+			ExpressionCache.Builder cache = ExpressionCache.builder();
+			if (functions)
+			{
+				builder.registry(OperatorRegistry.standard());
+				cache.registry(OperatorRegistry.standard());
+			}
+			if (cacheSize > 0)
+				builder.cache(cache.maximumSize(cacheSize).build());
+		}catch(IllegalArgumentException ex){
+			//NumberFormatException included.
+			System.err.println(ex.getMessage());
+			System.err.println("Usage: [--workers N] [--batch N] [--cache N] [--scale N] [--functions] [file ...]");
+			return 2;
+		}
+
+		StreamEvaluator evaluator = builder.build();
+		if (files.isEmpty())
+			files.add("-");
+		FileChannel output = new FileOutputStream(FileDescriptor.out).getChannel();
+		try{
+			for (String file : files)
+			{
+				if ("-".equals(file))
+					evaluator.evaluate(new FileInputStream(FileDescriptor.in).getChannel(), output);
+				else
+					evaluator.evaluate(Paths.get(file), output);
+			}
+		}catch(IOException ex){
+			System.err.println(ex.getMessage());
+			return 1;
+		}
+		return 0;
+	}
+
+	private static String value(String[] args, int index, String option) {
+		if (index >= args.length)
+			throw new IllegalArgumentException("Missing value for " + option);
+		return args[index];
+	}
+}
@@ -0,0 +1,200 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Batch evaluation Utility Class running one CompiledExpression over columns of variable bindings.
+ * The expression is parsed once, then every row of the columns is evaluated and written to a caller
+ * supplied output array.
+ *
+ * Columns are indexed like the variables of the expression (see CompiledExpression.variables()),
+ * columns[slot][row] is the value of that variable on that row. The number of rows is the length of the output.
+ *
+ * The double form runs column at a time: each postfix instruction is applied to a block of rows in a tight loop,
+ * only the scratch blocks of one call are allocated, nothing per row. The loops run on SIMD lanes when the module
+ * was built with the vector profile, see columnKernel().
+ * The BigDecimal form runs row at a time and reuses its row and stack arrays, only the results themselves are new.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class BatchEvaluator {
+
+	//Rows processed per block by the columnar double evaluation, small enough to stay in cache.
+	static final int BLOCK_SIZE = 1024;
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private BatchEvaluator(){
+		/*This class is a utility class, therefore the constructor is private.*/
+	}
+
+	/**
+	 * Evaluates the expression with double arithmetic over every row of the columns.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, at least as long as the output.
+	 * @param output
+	 * 			Array receiving one result per row.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing or too short.
+	 */
+	public static void evaluate(CompiledExpression expression, double[][] columns, double[] output) throws InvalidExpressionFormatException {
+		evaluate(expression, columns, output, 0, output.length);
+	}
+
+	/**
+	 * Evaluates the expression with double arithmetic over a range of rows of the columns.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, covering the range.
+	 * @param output
+	 * 			Array receiving one result per row, at the same positions.
+	 * @param from
+	 * 			First row to evaluate.
+	 * @param to
+	 * 			Row after the last one to evaluate.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing or too short.
+	 */
+	public static void evaluate(CompiledExpression expression, double[][] columns, double[] output, int from, int to)
+			throws InvalidExpressionFormatException {
+		checkColumns(expression, columns, to);
+		evaluateRange(expression, columns, output, from, to);
+	}
+
+	/**
+	 * Package level double range evaluation, the columns must have been checked by the caller.
+	 */
+	static void evaluateRange(CompiledExpression expression, double[][] columns, double[] output, int from, int to) {
+		double[][] operandStack = new double[expression.maxDepth()][Math.min(BLOCK_SIZE, Math.max(to - from, 0))];
+		for (int block = from; block < to; block += BLOCK_SIZE)
+		{
+			expression.evaluateColumns(columns, block, Math.min(BLOCK_SIZE, to - block), operandStack, output);
+		}
+	}
+
+	/**
+	 * @return	Name of the kernel running the double columns, scalar or vector followed by its lane count.
+	 */
+	public static String columnKernel() {
+		return ColumnKernel.DEFAULT.name();
+	}
+
+	/**
+	 * Evaluates the expression with BigDecimal arithmetic over every row of the columns.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, at least as long as the output.
+	 * @param output
+	 * 			Array receiving one result per row.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed, a column is missing or too short, or a row divides by zero.
+	 */
+	public static void evaluate(CompiledExpression expression, BigDecimal[][] columns, BigDecimal[] output) throws InvalidExpressionFormatException {
+		evaluate(expression, columns, output, 0, output.length);
+	}
+
+	/**
+	 * Evaluates the expression with BigDecimal arithmetic over a range of rows of the columns.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, covering the range.
+	 * @param output
+	 * 			Array receiving one result per row, at the same positions.
+	 * @param from
+	 * 			First row to evaluate.
+	 * @param to
+	 * 			Row after the last one to evaluate.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed, a column is missing or too short, or a row divides by zero.
+	 */
+	public static void evaluate(CompiledExpression expression, BigDecimal[][] columns, BigDecimal[] output, int from, int to)
+			throws InvalidExpressionFormatException {
+		checkColumns(expression, columns, to);
+		evaluateRange(expression, columns, output, from, to);
+	}
+
+	/**
+	 * Package level BigDecimal range evaluation, the columns must have been checked by the caller.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If a row divides by zero.
+	 */
+	static void evaluateRange(CompiledExpression expression, BigDecimal[][] columns, BigDecimal[] output, int from, int to)
+			throws InvalidExpressionFormatException {
+		int variables = expression.variableCount();
+		BigDecimal[] row = new BigDecimal[variables];
+		BigDecimal[] operandStack = new BigDecimal[expression.maxDepth()];
+		for (int index = from; index < to; index++)
+		{
+			for (int slot = 0; slot < variables; slot++)
+				row[slot] = columns[slot][index];
+			output[index] = expression.evaluate(row, operandStack);
+		}
+	}
+
+	/**
+	 * Package level check that the expression is well formed and every variable has a long enough column.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable.
+	 * @param rows
+	 * 			Number of rows that will be read.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	static void checkColumns(CompiledExpression expression, double[][] columns, int rows) throws InvalidExpressionFormatException {
+		expression.checkStructure();
+		expression.checkBindings(columns.length);
+		for (int slot = 0; slot < expression.variableCount(); slot++)
+		{
+			if (columns[slot].length < rows)
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE,
+						"Column too short for variable: " + expression.variables().get(slot), -1);
+		}
+	}
+
+	/**
+	 * Package level check that the expression is well formed and every variable has a long enough column.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable.
+	 * @param rows
+	 * 			Number of rows that will be read.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	static void checkColumns(CompiledExpression expression, BigDecimal[][] columns, int rows) throws InvalidExpressionFormatException {
+		expression.checkStructure();
+		expression.checkBindings(columns.length);
+		for (int slot = 0; slot < expression.variableCount(); slot++)
+		{
+			if (columns[slot].length < rows)
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE,
+						"Column too short for variable: " + expression.variables().get(slot), -1);
+		}
+	}
+}
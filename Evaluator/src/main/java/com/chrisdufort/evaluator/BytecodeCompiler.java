@@ -0,0 +1,438 @@
+package com.chrisdufort.evaluator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Package level backend turning a postfix program into a JVM class, so that hot expressions run as
+ * straight line code the JIT can inline, instead of the interpreter loop dispatching on every instruction.
+ *
+ * The generated class implements Program with one method per mode, every instruction becomes a constant load,
+ * a variable load or one arithmetic instruction (BigDecimal calls match doMath, divisions are 16 places HALF_UP).
+ * The class file is written directly, there is no bytecode library, and is defined by its own class loader
+ * so it is unloaded with the expression. Java 8 has no hidden classes, a class loader works on every version.
+ *
+ * Programs whose code would pass MAX_CODE_LENGTH are not generated, HotSpot does not compile huge methods
+ * and an interpreted generated method is slower than the interpreter loop. Those stay interpreted.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#jit()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class BytecodeCompiler {
+
+	//Evaluations after which CompiledExpression generates its class, negative never, 0 at the first evaluation.
+	static final int THRESHOLD = Integer.getInteger("com.chrisdufort.evaluator.jitThreshold", 10000);
+	//HotSpot's HugeMethodLimit, longer methods are never compiled to native code.
+	static final int MAX_CODE_LENGTH = 8000;
+
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	private static final String BIG_DECIMAL = "java/math/BigDecimal";
+	private static final String BIG_DECIMAL_TYPE = "Ljava/math/BigDecimal;";
+	private static final String BINARY = "(" + BIG_DECIMAL_TYPE + ")" + BIG_DECIMAL_TYPE;
+
+	//Opcodes used by the generated code.
+	private static final int ICONST_0 = 0x03;
+	private static final int BIPUSH = 0x10;
+	private static final int SIPUSH = 0x11;
+	private static final int LDC_W = 0x13;
+	private static final int LDC2_W = 0x14;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int DALOAD = 0x31;
+	private static final int AALOAD = 0x32;
+	private static final int DADD = 0x63;
+	private static final int DSUB = 0x67;
+	private static final int DMUL = 0x6b;
+	private static final int DDIV = 0x6f;
+	private static final int DRETURN = 0xaf;
+	private static final int ARETURN = 0xb0;
+	private static final int RETURN = 0xb1;
+	private static final int GETSTATIC = 0xb2;
+	private static final int GETFIELD = 0xb4;
+	private static final int PUTFIELD = 0xb5;
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESPECIAL = 0xb7;
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private BytecodeCompiler(){
+		/*This class is a utility class, therefore the constructor is private.*/
+	}
+
+	/**
+	 * Generated form of a program.
+	 * Public only because generated classes are defined by their own class loader, in another runtime package.
+	 * Structure and bindings are checked by CompiledExpression before calling.
+	 */
+	public interface Program {
+
+		/**
+		 * @param values
+		 * 			Value of each variable.
+		 * @return	The BigDecimal solution rounded to DECIMAL64, as CompiledExpression.evaluate.
+		 */
+		BigDecimal evaluate(BigDecimal[] values);
+
+		/**
+		 * @param values
+		 * 			Value of each variable.
+		 * @return	The double solution, as CompiledExpression.evaluateDouble.
+		 */
+		double evaluateDouble(double[] values);
+	}
+
+	/**
+	 * Generates and loads the class of a well formed program.
+	 *
+	 * @param operators
+	 * 			Operator of each instruction, null where it pushes an operand.
+	 * @param operands
+	 * 			Parsed constant of each instruction, null where it is an operator or a variable.
+	 * @param doubleOperands
+	 * 			Constants as doubles.
+	 * @param variableSlots
+	 * 			Variable number of each instruction, -1 where it is not a variable.
+	 * @param maxDepth
+	 * 			Deepest the operand stack gets.
+	 * @return	The generated Program, null if the program is too long.
+	 */
+	static Program compile(Operator[] operators, BigDecimal[] operands, double[] doubleOperands, int[] variableSlots, int maxDepth) {
+		try{
+			ClassWriter writer = new ClassWriter("com/chrisdufort/evaluator/GeneratedExpression" + SEQUENCE.incrementAndGet());
+			byte[] bigDecimalCode = bigDecimalCode(writer, operators, variableSlots);
+			byte[] doubleCode = doubleCode(writer, operators, doubleOperands, variableSlots);
+			if (bigDecimalCode == null || doubleCode == null)
+				return null;
+			if (bigDecimalCode.length > MAX_CODE_LENGTH || doubleCode.length > MAX_CODE_LENGTH)
+				return null;
+			byte[] classFile = writer.toByteArray(bigDecimalCode, maxDepth + 3, doubleCode, 2 * maxDepth + 2);
+			Class<?> generated = new GeneratedLoader(BytecodeCompiler.class.getClassLoader()).define(writer.binaryName(), classFile);
+			return (Program) generated.getConstructor(BigDecimal[].class).newInstance((Object) operands);
+		}catch(IOException | ReflectiveOperationException | LinkageError ex){
+			//Never fail an evaluation because of the backend, the interpreter remains.
+			return null;
+		}
+	}
+
+	/**
+	 * Code of evaluate(BigDecimal[]), constants are read from the field holding the parsed operands.
+	 */
+	private static byte[] bigDecimalCode(ClassWriter writer, Operator[] operators, int[] variableSlots) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream code = new DataOutputStream(bytes);
+		int constants = writer.fieldref(writer.thisClass, "constants", "[" + BIG_DECIMAL_TYPE);
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator == null)
+			{
+				if (variableSlots[index] < 0)
+				{
+					code.writeByte(ALOAD_0);
+					code.writeByte(GETFIELD);
+					code.writeShort(constants);
+					pushInt(writer, code, index);
+				}
+				else
+				{
+					code.writeByte(ALOAD_1);
+					pushInt(writer, code, variableSlots[index]);
+				}
+				code.writeByte(AALOAD);
+				continue;
+			}
+			switch (operator){
+			case SUBTRACT:
+				invoke(writer, code, "subtract", BINARY);
+				break;
+			case ADD:
+				invoke(writer, code, "add", BINARY);
+				break;
+			case MULTIPLY:
+				invoke(writer, code, "multiply", BINARY);
+				break;
+			case DIVIDE:
+				pushInt(writer, code, 16);
+				code.writeByte(GETSTATIC);
+				code.writeShort(writer.fieldref(writer.classRef("java/math/RoundingMode"), "HALF_UP", "Ljava/math/RoundingMode;"));
+				invoke(writer, code, "divide", "(" + BIG_DECIMAL_TYPE + "ILjava/math/RoundingMode;)" + BIG_DECIMAL_TYPE);
+				break;
+			default:
+				return null;
+			}
+		}
+		code.writeByte(GETSTATIC);
+		code.writeShort(writer.fieldref(writer.classRef("java/math/MathContext"), "DECIMAL64", "Ljava/math/MathContext;"));
+		invoke(writer, code, "round", "(Ljava/math/MathContext;)" + BIG_DECIMAL_TYPE);
+		code.writeByte(ARETURN);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Code of evaluateDouble(double[]), constants are inlined in the constant pool.
+	 */
+	private static byte[] doubleCode(ClassWriter writer, Operator[] operators, double[] doubleOperands, int[] variableSlots) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream code = new DataOutputStream(bytes);
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator == null)
+			{
+				if (variableSlots[index] < 0)
+				{
+					code.writeByte(LDC2_W);
+					code.writeShort(writer.doubleConstant(doubleOperands[index]));
+				}
+				else
+				{
+					code.writeByte(ALOAD_1);
+					pushInt(writer, code, variableSlots[index]);
+					code.writeByte(DALOAD);
+				}
+				continue;
+			}
+			switch (operator){
+			case SUBTRACT:
+				code.writeByte(DSUB);
+				break;
+			case ADD:
+				code.writeByte(DADD);
+				break;
+			case MULTIPLY:
+				code.writeByte(DMUL);
+				break;
+			case DIVIDE:
+				code.writeByte(DDIV);
+				break;
+			default:
+				return null;
+			}
+		}
+		code.writeByte(DRETURN);
+		return bytes.toByteArray();
+	}
+
+	private static void invoke(ClassWriter writer, DataOutputStream code, String name, String descriptor) throws IOException {
+		code.writeByte(INVOKEVIRTUAL);
+		code.writeShort(writer.methodref(writer.classRef(BIG_DECIMAL), name, descriptor));
+	}
+
+	private static void pushInt(ClassWriter writer, DataOutputStream code, int value) throws IOException {
+		if (value <= 5)
+		{
+			code.writeByte(ICONST_0 + value);
+		}
+		else if (value <= Byte.MAX_VALUE)
+		{
+			code.writeByte(BIPUSH);
+			code.writeByte(value);
+		}
+		else if (value <= Short.MAX_VALUE)
+		{
+			code.writeByte(SIPUSH);
+			code.writeShort(value);
+		}
+		else
+		{
+			code.writeByte(LDC_W);
+			code.writeShort(writer.intConstant(value));
+		}
+	}
+
+	/**
+	 * Minimal class file writer: a constant pool, one field, a constructor and the two evaluation methods.
+	 * Straight line code needs no stack map frames, the class is written as Java 8 (version 52).
+	 */
+	private static final class ClassWriter {
+		private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+		private final DataOutputStream pool = new DataOutputStream(poolBytes);
+		private final Map<String, Integer> entries = new HashMap<String, Integer>();
+		private final String name;
+		private int poolCount = 1;
+		final int thisClass;
+
+		ClassWriter(String name) throws IOException {
+			this.name = name;
+			this.thisClass = classRef(name);
+		}
+
+		String binaryName() {
+			return name.replace('/', '.');
+		}
+
+		int utf8(String value) throws IOException {
+			Integer index = entries.get("U" + value);
+			if (index != null)
+				return index;
+			pool.writeByte(1);
+			pool.writeUTF(value);
+			return add("U" + value, 1);
+		}
+
+		int classRef(String internalName) throws IOException {
+			Integer index = entries.get("C" + internalName);
+			if (index != null)
+				return index;
+			int nameIndex = utf8(internalName);
+			pool.writeByte(7);
+			pool.writeShort(nameIndex);
+			return add("C" + internalName, 1);
+		}
+
+		int intConstant(int value) throws IOException {
+			Integer index = entries.get("I" + value);
+			if (index != null)
+				return index;
+			pool.writeByte(3);
+			pool.writeInt(value);
+			return add("I" + value, 1);
+		}
+
+		int doubleConstant(double value) throws IOException {
+			long bits = Double.doubleToRawLongBits(value);
+			Integer index = entries.get("D" + bits);
+			if (index != null)
+				return index;
+			pool.writeByte(6);
+			pool.writeLong(bits);
+			//Doubles take two entries of the pool.
+			return add("D" + bits, 2);
+		}
+
+		int fieldref(int owner, String member, String descriptor) throws IOException {
+			return memberRef(9, owner, member, descriptor);
+		}
+
+		int methodref(int owner, String member, String descriptor) throws IOException {
+			return memberRef(10, owner, member, descriptor);
+		}
+
+		private int memberRef(int tag, int owner, String member, String descriptor) throws IOException {
+			String key = tag + ":" + owner + "." + member + descriptor;
+			Integer index = entries.get(key);
+			if (index != null)
+				return index;
+			int nameIndex = utf8(member);
+			int descriptorIndex = utf8(descriptor);
+			Integer nameAndType = entries.get("N" + member + descriptor);
+			if (nameAndType == null)
+			{
+				pool.writeByte(12);
+				pool.writeShort(nameIndex);
+				pool.writeShort(descriptorIndex);
+				nameAndType = add("N" + member + descriptor, 1);
+			}
+			pool.writeByte(tag);
+			pool.writeShort(owner);
+			pool.writeShort(nameAndType);
+			return add(key, 1);
+		}
+
+		private int add(String key, int size) {
+			int index = poolCount;
+			entries.put(key, index);
+			poolCount += size;
+			return index;
+		}
+
+		/**
+		 * Writes the class, every pool entry has to be created before calling this method.
+		 */
+		byte[] toByteArray(byte[] bigDecimalCode, int bigDecimalStack, byte[] doubleCode, int doubleStack) throws IOException {
+			int object = classRef("java/lang/Object");
+			int program = classRef("com/chrisdufort/evaluator/BytecodeCompiler$Program");
+			int constantsField = fieldref(thisClass, "constants", "[" + BIG_DECIMAL_TYPE);
+			int objectInit = methodref(object, "<init>", "()V");
+			int codeName = utf8("Code");
+			int constantsName = utf8("constants");
+			int constantsType = utf8("[" + BIG_DECIMAL_TYPE);
+			int initName = utf8("<init>");
+			int initType = utf8("([" + BIG_DECIMAL_TYPE + ")V");
+			int evaluateName = utf8("evaluate");
+			int evaluateType = utf8("([" + BIG_DECIMAL_TYPE + ")" + BIG_DECIMAL_TYPE);
+			int evaluateDoubleName = utf8("evaluateDouble");
+			int evaluateDoubleType = utf8("([D)D");
+
+			ByteArrayOutputStream constructorBytes = new ByteArrayOutputStream();
+			DataOutputStream constructor = new DataOutputStream(constructorBytes);
+			constructor.writeByte(ALOAD_0);
+			constructor.writeByte(INVOKESPECIAL);
+			constructor.writeShort(objectInit);
+			constructor.writeByte(ALOAD_0);
+			constructor.writeByte(ALOAD_1);
+			constructor.writeByte(PUTFIELD);
+			constructor.writeShort(constantsField);
+			constructor.writeByte(RETURN);
+
+			ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(classBytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(52);
+			out.writeShort(poolCount);
+			pool.flush();
+			poolBytes.writeTo(out);
+			//public final super
+			out.writeShort(0x0031);
+			out.writeShort(thisClass);
+			out.writeShort(object);
+			out.writeShort(1);
+			out.writeShort(program);
+			//private final BigDecimal[] constants
+			out.writeShort(1);
+			out.writeShort(0x0012);
+			out.writeShort(constantsName);
+			out.writeShort(constantsType);
+			out.writeShort(0);
+			out.writeShort(3);
+			method(out, initName, initType, codeName, constructorBytes.toByteArray(), 2);
+			method(out, evaluateName, evaluateType, codeName, bigDecimalCode, bigDecimalStack);
+			method(out, evaluateDoubleName, evaluateDoubleType, codeName, doubleCode, doubleStack);
+			//No class attributes
+			out.writeShort(0);
+			return classBytes.toByteArray();
+		}
+
+		private static void method(DataOutputStream out, int name, int descriptor, int codeName, byte[] code, int maxStack) throws IOException {
+			//public
+			out.writeShort(0x0001);
+			out.writeShort(name);
+			out.writeShort(descriptor);
+			out.writeShort(1);
+			out.writeShort(codeName);
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			//this and the argument
+			out.writeShort(2);
+			out.writeInt(code.length);
+			out.write(code);
+			//No exception table, no code attributes
+			out.writeShort(0);
+			out.writeShort(0);
+		}
+	}
+
+	/**
+	 * Class loader of a single generated class.
+	 */
+	private static final class GeneratedLoader extends ClassLoader {
+
+		GeneratedLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] classFile) {
+			return defineClass(name, classFile, 0, classFile.length);
+		}
+	}
+}
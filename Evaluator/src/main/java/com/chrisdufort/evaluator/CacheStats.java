@@ -0,0 +1,82 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Immutable snapshot of the counters of an ExpressionCache.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.ExpressionCache#stats()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class CacheStats {
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long expirationCount;
+	private final int size;
+
+	CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount, int size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expirationCount = expirationCount;
+		this.size = size;
+	}
+
+	/**
+	 * @return	Number of lookups answered from the cache.
+	 */
+	public long hitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return	Number of lookups that had to compile the expression.
+	 */
+	public long missCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return	Number of expressions removed, or refused admission, because the cache was full.
+	 */
+	public long evictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return	Number of expressions removed because they were idle for longer than the expiry.
+	 */
+	public long expirationCount() {
+		return expirationCount;
+	}
+
+	/**
+	 * @return	Number of expressions held when the snapshot was taken.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return	Total number of lookups.
+	 */
+	public long requestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * @return	Ratio of lookups answered from the cache, 1.0 when there was no lookup.
+	 */
+	public double hitRate() {
+		long requests = requestCount();
+		return requests == 0 ? 1.0 : (double) hitCount / requests;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats[hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+				+ ", expirations=" + expirationCount + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,108 @@
+package com.chrisdufort.evaluator;
+
+import java.util.Arrays;
+
+/**
+ * Package level arithmetic applied by the columnar double evaluation to a whole block of rows at once,
+ * one call per postfix instruction (see CompiledExpression.evaluateColumns).
+ *
+ * The scalar kernel is always available. A SIMD kernel using jdk.incubator.vector is compiled only by the
+ * vector Maven profile and used when its class is present and the JVM was started with
+ * --add-modules jdk.incubator.vector, the system property com.chrisdufort.evaluator.vector=false disables it.
+ * Both kernels apply the IEEE 754 operations lane by lane, so their results are identical.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.BatchEvaluator
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+interface ColumnKernel {
+
+	/**
+	 * Kernel used by every batch, chosen once when the class is initialized.
+	 */
+	ColumnKernel DEFAULT = Loader.load();
+
+	/**
+	 * Applies left[row] operator right[row] into left[row] for the first count rows.
+	 *
+	 * @param operator
+	 * 			The Operator, null for an unknown operator which results in 0.
+	 * @param left
+	 * 			Left hand operands, receiving the results.
+	 * @param right
+	 * 			Right hand operands.
+	 * @param count
+	 * 			Number of rows.
+	 */
+	void apply(Operator operator, double[] left, double[] right, int count);
+
+	/**
+	 * @return	A short name of the kernel, for reports.
+	 */
+	String name();
+
+	/**
+	 * Plain loops, one row at a time, left for the JIT to unroll or auto-vectorize.
+	 */
+	final class Scalar implements ColumnKernel {
+
+		@Override
+		public void apply(Operator operator, double[] left, double[] right, int count) {
+			if (operator == null)
+			{
+				Arrays.fill(left, 0, count, 0.0);
+				return;
+			}
+			switch (operator){
+			case SUBTRACT:
+				for (int row = 0; row < count; row++)
+					left[row] = left[row] - right[row];
+				break;
+			case ADD:
+				for (int row = 0; row < count; row++)
+					left[row] = left[row] + right[row];
+				break;
+			case MULTIPLY:
+				for (int row = 0; row < count; row++)
+					left[row] = left[row] * right[row];
+				break;
+			case DIVIDE:
+				for (int row = 0; row < count; row++)
+					left[row] = left[row] / right[row];
+				break;
+			}
+		}
+
+		@Override
+		public String name() {
+			return "scalar";
+		}
+	}
+
+	/**
+	 * Finds the vector kernel by name so this interface still compiles and loads on Java 8.
+	 */
+	final class Loader {
+
+		private static final String VECTOR_KERNEL = "com.chrisdufort.evaluator.VectorColumnKernel";
+
+		private Loader() {
+		}
+
+		static ColumnKernel load() {
+			if (!"false".equals(System.getProperty("com.chrisdufort.evaluator.vector")))
+			{
+				try{
+					ColumnKernel kernel = (ColumnKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+					//Runs once so a missing incubator module shows up here rather than in a batch.
+					kernel.apply(Operator.ADD, new double[1], new double[1], 1);
+					return kernel;
+				}catch(ReflectiveOperationException | LinkageError ex){
+					//Not built with the vector profile or module not added, the scalar kernel takes over.
+				}
+			}
+			return new Scalar();
+		}
+	}
+}
@@ -0,0 +1,1154 @@
+package com.chrisdufort.evaluator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Immutable, reusable form of an infix expression.
+ * The infix expression is transformed into postfix exactly once, when the CompiledExpression is created,
+ * and the resulting instructions are kept in an array that is never modified afterwards.
+ *
+ * Unlike EvaluatorUtilities.evaluatePostfix, evaluating a CompiledExpression does not consume anything,
+ * so the same instance may be evaluated any number of times and from any number of threads
+ * without re-parsing or copying a queue.
+ *
+ * Operands are parsed into BigDecimals at compile time and evaluation works on a typed operand stack,
+ * sized from the deepest point of the program, so no value is ever formatted back into a String.
+ *
+ * The same program can also be evaluated with primitive arithmetic, see NumericMode.
+ * The long mode is exact and falls back to BigDecimal as soon as a value stops being a long.
+ * The scaled long mode gives the BigDecimal results in fixed point on two primitive stacks, while the values fit in a long.
+ * Operand stacks are borrowed from an EvaluationContext, the one of the calling thread unless one is given,
+ * so the double mode does not allocate once warm.
+ *
+ * BigDecimal evaluation rounds as EvaluatorUtilities.evaluatePostfix does unless given a PrecisionPolicy.
+ *
+ * Expressions may contain named variables (rate, qty_2, _base), numbered in order of first appearance.
+ * Values are bound by that number when evaluating, see variables() and variableIndex(String).
+ *
+ * optimize() returns a copy with constant sub-expressions folded and identity operations dropped,
+ * explainOptimization() shows the program before and after.
+ *
+ * Hot expressions are promoted to generated bytecode (see BytecodeCompiler) once evaluated more than the
+ * com.chrisdufort.evaluator.jitThreshold system property times (10000 by default, negative to disable),
+ * or right away through jit(). The interpreter remains the fallback for programs that cannot be generated.
+ *
+ * toBytes() encodes the program with its operands already parsed, fromBytes rebuilds it without compiling,
+ * see FormulaStore to keep many expressions in one memory mapped file.
+ *
+ * compile(infix, registry) accepts the operators and functions of an OperatorRegistry. Each instruction is
+ * resolved to its Operation once, evaluation calls it in place on the operand stack in every NumericMode.
+ * Such programs stay interpreted, only the built in operators are generated.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorUtilities
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class CompiledExpression {
+
+	//Postfix instructions as written, never modified after construction.
+	private final String[] program;
+	//Postfix instructions before optimization, the program itself when not optimized.
+	private final String[] source;
+	//Operators and functions the program may call.
+	private final OperatorRegistry registry;
+	//Operator of each instruction, null where the instruction pushes an operand or calls an Operation.
+	private final Operator[] operators;
+	//Registry Operation of each instruction, null where none, the array itself is null if the program calls none.
+	private final Operation[] calls;
+	//Number of values each call takes from the operand stack.
+	private final int[] arities;
+	//Pre-parsed operand of each instruction, null where the instruction is an operator or a variable.
+	private final BigDecimal[] operands;
+	//Variable number of each instruction, -1 where the instruction is not a variable.
+	private final int[] variableSlots;
+	//Distinct variable names in order of first appearance.
+	private final String[] variables;
+	//Operands as doubles for the DOUBLE mode.
+	private final double[] doubleOperands;
+	//Operands as longs for the LONG mode, only meaningful when longOperandsExact is true.
+	private final long[] longOperands;
+	//True when every operand is an integer within the range of a long.
+	private final boolean longOperandsExact;
+	//Unscaled value and scale of each operand for the SCALED_LONG mode, only meaningful when scaledOperandsExact is true.
+	private final long[] scaledOperands;
+	private final int[] operandScales;
+	//True when the unscaled value of every operand fits in a long.
+	private final boolean scaledOperandsExact;
+	//Deepest the operand stack gets while evaluating the program.
+	private final int maxDepth;
+	//First structural problem of the program, null if the program is well formed.
+	//Stackless and without suppression, so the same instance is thrown by every evaluation.
+	private final InvalidExpressionFormatException structureError;
+	//Generated form of the program, null until promoted.
+	private volatile BytecodeCompiler.Program generated;
+	//True once generation was attempted, whether or not it produced a class.
+	private volatile boolean jitAttempted;
+	//Evaluations counted towards promotion, racy on purpose, a lost increment only delays promotion.
+	private int invocations;
+
+	//First instruction of the subtree ending at each instruction, null until ParallelBatchEvaluator asks for it.
+	private volatile int[] subtreeStarts;
+
+	private static final BigDecimal[] NO_VALUES = new BigDecimal[0];
+	private static final double[] NO_DOUBLES = new double[0];
+
+	/**
+	 * Private constructor, instances are created through the compile factory method.
+	 * Operands are parsed here, once, so that evaluation never touches a String.
+	 *
+	 * @param program
+	 * 			The postfix instructions this expression will evaluate.
+	 * @param source
+	 * 			The postfix instructions the program was optimized from, or the program itself.
+	 * @param registry
+	 * 			The operators and functions the program may call.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	private CompiledExpression(String[] program, String[] source, OperatorRegistry registry) throws InvalidExpressionFormatException {
+		this(program, source, registry, null);
+	}
+
+	/**
+	 * Private constructor taking operands already parsed, by ExpressionCodec.
+	 *
+	 * @param program
+	 * 			The postfix instructions this expression will evaluate.
+	 * @param source
+	 * 			The postfix instructions the program was optimized from, or the program itself.
+	 * @param registry
+	 * 			The operators and functions the program may call.
+	 * @param constants
+	 * 			Value of each operand instruction, null elsewhere, null to parse every operand.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	private CompiledExpression(String[] program, String[] source, OperatorRegistry registry, BigDecimal[] constants) throws InvalidExpressionFormatException {
+		this.program = program;
+		this.source = source;
+		this.registry = registry;
+		this.operators = new Operator[program.length];
+		this.arities = new int[program.length];
+		this.operands = new BigDecimal[program.length];
+		this.doubleOperands = new double[program.length];
+		this.longOperands = new long[program.length];
+		this.scaledOperands = new long[program.length];
+		this.operandScales = new int[program.length];
+		this.variableSlots = new int[program.length];
+
+		Operation[] resolved = new Operation[program.length];
+		boolean calling = false;
+		List<String> names = new ArrayList<String>();
+		boolean exact = true;
+		boolean scaledExact = true;
+		InvalidExpressionFormatException error = null;
+		//First value that is neither an operand nor an operator, reported after the structural problems.
+		String unknown = null;
+		int unknownIndex = -1;
+		int depth = 0;
+		int deepest = 1;
+		for (int index = 0; index < program.length; index++)
+		{
+			String value = program[index];
+			variableSlots[index] = -1;
+			Operation call = registry.isEmpty() ? null : registry.resolve(value);
+			if (call != null && (arities[index] = OperatorRegistry.arityOf(call, value)) >= 0)
+			{
+				resolved[index] = call;
+				calling = true;
+				if (error == null && depth < arities[index])
+					error = new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand for " + call.getName(), index);
+				depth = Math.max(depth - arities[index], 0) + 1;
+				deepest = Math.max(deepest, depth);
+			}
+			else if (EvaluatorUtilities.isVariable(value))
+			{
+				int slot = names.indexOf(value);
+				if (slot < 0)
+				{
+					slot = names.size();
+					names.add(value);
+				}
+				variableSlots[index] = slot;
+				deepest = Math.max(deepest, ++depth);
+			}
+			else if (EvaluatorUtilities.isOperand(value))
+			{
+				if (constants != null && constants[index] != null)
+				{
+					operands[index] = constants[index];
+				}
+				else
+				{
+					try{
+						operands[index] = new BigDecimal(value);
+					}catch(NumberFormatException ex){
+						throw new InvalidExpressionFormatException(ErrorCode.MALFORMED_NUMBER, "Invalid number: " + value, index);
+					}
+				}
+				doubleOperands[index] = operands[index].doubleValue();
+				//One inexact operand rules the LONG mode out, the others need not be tried.
+				if (exact)
+				{
+					try{
+						longOperands[index] = operands[index].longValueExact();
+					}catch(ArithmeticException ex){
+						exact = false;
+					}
+				}
+				if (operands[index].unscaledValue().bitLength() < 64)
+				{
+					scaledOperands[index] = operands[index].unscaledValue().longValue();
+					operandScales[index] = operands[index].scale();
+				}
+				else
+				{
+					scaledExact = false;
+				}
+				deepest = Math.max(deepest, ++depth);
+			}
+			else
+			{
+				operators[index] = Operator.of(value);
+				//Remember the first problem, reported with the same messages as evaluatePostfix.
+				if (error == null && depth == 0)
+					error = new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis", index);
+				else if (error == null && depth == 1)
+					error = new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis OR too many operators", index);
+				if (unknown == null && operators[index] == null)
+				{
+					unknown = value;
+					unknownIndex = index;
+				}
+				depth = Math.max(depth - 1, 1);
+			}
+		}
+		if (error == null && depth > 1)
+			error = new InvalidExpressionFormatException(ErrorCode.TOO_MANY_OPERANDS, "Too much operands", program.length);
+		else if (error == null && depth == 0)
+			error = new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand", program.length);
+		if (error == null && unknown != null)
+			error = new InvalidExpressionFormatException(ErrorCode.UNKNOWN_OPERATOR, "Unknown operator: " + unknown, unknownIndex);
+		this.calls = calling ? resolved : null;
+		this.variables = names.toArray(new String[names.size()]);
+		//Variables may hold any value, the long mode checks them when evaluating.
+		this.longOperandsExact = exact;
+		this.scaledOperandsExact = scaledExact;
+		this.maxDepth = deepest;
+		this.structureError = error;
+	}
+
+	/**
+	 * Factory method used to compile an infix expression into a reusable CompiledExpression.
+	 * The provided queue is left untouched.
+	 *
+	 * @param infix
+	 * 			A Queue of strings infix expression to be compiled.
+	 * @return	A CompiledExpression that can be evaluated repeatedly.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public static CompiledExpression compile(Queue<String> infix) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		try{
+			Queue<String> postfix = EvaluatorUtilities.postfixOf(new ArrayDeque<String>(infix));
+			String[] program = postfix.toArray(new String[postfix.size()]);
+			CompiledExpression compiled = new CompiledExpression(program, program, OperatorRegistry.builtIn());
+			EvaluatorMetrics.record(EvaluationPhase.COMPILE, started);
+			EvaluatorMetrics.tokens(infix.size());
+			return compiled;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.COMPILE, ex, started);
+		}
+	}
+
+	/**
+	 * Factory method used to compile an infix expression held in text into a reusable CompiledExpression.
+	 * The text is tokenized by an ExpressionLexer, see EvaluatorUtilities.infixToPostfix(CharSequence).
+	 *
+	 * @param infix
+	 * 			The infix expression to be compiled, a String, StringBuilder or CharBuffer.
+	 * @return	A CompiledExpression that can be evaluated repeatedly.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public static CompiledExpression compile(CharSequence infix) throws InvalidExpressionFormatException {
+		return compile(infix, OperatorRegistry.builtIn());
+	}
+
+	/**
+	 * Factory method used to compile an infix expression using the operators and functions of an OperatorRegistry,
+	 * see EvaluatorUtilities.infixToPostfix(CharSequence, OperatorRegistry).
+	 *
+	 * @param infix
+	 * 			The infix expression to be compiled, a String, StringBuilder or CharBuffer.
+	 * @param registry
+	 * 			The OperatorRegistry the expression may use.
+	 * @return	A CompiledExpression that can be evaluated repeatedly.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public static CompiledExpression compile(CharSequence infix, OperatorRegistry registry) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		ExpressionLexer lexer = new ExpressionLexer(infix, registry);
+		try{
+			Queue<String> postfix = EvaluatorUtilities.postfixOf(lexer, registry);
+			String[] program = postfix.toArray(new String[postfix.size()]);
+			CompiledExpression compiled = new CompiledExpression(program, program, registry);
+			EvaluatorMetrics.parsed(EvaluationPhase.COMPILE, started, lexer, infix, registry);
+			return compiled;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.COMPILE, ex, started);
+		}
+	}
+
+	/**
+	 * Returns an optimized copy of this expression: constant sub-expressions are folded with the same
+	 * BigDecimal arithmetic used by evaluate(), including 16 place divisions, and * 1 , + 0 , - 0 are dropped
+	 * where they cannot change the scale of the result.
+	 * BigDecimal results are unchanged and LONG results keep their value, though a folded division may now
+	 * fit a long where it fell back to BigDecimal before. DOUBLE results use the folded BigDecimal constants,
+	 * so they may differ from unoptimized double arithmetic in the last place.
+	 * Variables keep their numbers, values bound to this expression can be bound to the copy.
+	 *
+	 * @return	The optimized expression, this expression if nothing could be simplified.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public CompiledExpression optimize() throws InvalidExpressionFormatException {
+		String[] optimized = PostfixOptimizer.optimize(program, registry);
+		if (optimized == program)
+			return this;
+		return new CompiledExpression(optimized, source, registry);
+	}
+
+	/**
+	 * Returns a copy of this expression with every chain of additions or of multiplications, a + b + c + d,
+	 * regrouped into a balanced tree, (a + b) + (c + d), so ParallelBatchEvaluator.evaluateSubtrees can evaluate
+	 * the halves of a long chain on different workers. Operands keep their order and variables their numbers,
+	 * subtractions, divisions and registry calls keep their grouping.
+	 * Additions and multiplications are exact under every PrecisionPolicy but fixedScale, BigDecimal results
+	 * are then exactly the same, scale included. A fixedScale policy rounds every operation and may round
+	 * the regrouped chains differently, as DOUBLE results may differ in the last place.
+	 *
+	 * @return	The regrouped expression, this expression if no chain has more than three operands.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public CompiledExpression rebalance() throws InvalidExpressionFormatException {
+		String[] balanced = PostfixOptimizer.rebalance(program, registry);
+		if (balanced == program)
+			return this;
+		return new CompiledExpression(balanced, source, registry);
+	}
+
+	/**
+	 * Evaluates this expression with BigDecimal arithmetic.
+	 *
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or contains variables.
+	 */
+	public BigDecimal evaluate() throws InvalidExpressionFormatException {
+		return evaluate(NO_VALUES);
+	}
+
+	/**
+	 * Evaluates this expression with BigDecimal arithmetic, binding its variables by number.
+	 *
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public BigDecimal evaluate(BigDecimal... values) throws InvalidExpressionFormatException {
+		return evaluate(PrecisionPolicy.standard(), values);
+	}
+
+	//BigDecimal evaluation of evaluate(BigDecimal...), without the timing.
+	private BigDecimal evaluateDecimal(EvaluationContext context, BigDecimal[] values) throws InvalidExpressionFormatException {
+		checkStructure();
+		checkBindings(values.length);
+		BytecodeCompiler.Program compiled = promote();
+		if (compiled != null)
+		{
+			try{
+				return compiled.evaluate(values);
+			}catch(ArithmeticException ex){
+				//Generated code knows no instruction positions, the interpreter fails the same way with the position.
+			}
+		}
+		//Operands go here
+		return evaluate(values, decimalStack(context));
+	}
+
+	/**
+	 * Evaluates this expression with BigDecimal arithmetic rounded by a PrecisionPolicy, binding its variables by number.
+	 * Constants folded by optimize() were computed under the standard policy, optimize only expressions
+	 * evaluated with it.
+	 *
+	 * @param policy
+	 * 			Rounding of the divisions, of every operation or of the result.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	A BigDecimal representation of the solution, rounded by the policy.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public BigDecimal evaluate(PrecisionPolicy policy, BigDecimal... values) throws InvalidExpressionFormatException {
+		return evaluate(EvaluationContext.current(), policy, values);
+	}
+
+	/**
+	 * Evaluates this expression with BigDecimal arithmetic on the stack of an EvaluationContext,
+	 * the other evaluate methods use the context of the calling thread.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stack, used by one thread at a time.
+	 * @param policy
+	 * 			Rounding of the divisions, of every operation or of the result.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	A BigDecimal representation of the solution, rounded by the policy.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public BigDecimal evaluate(EvaluationContext context, PrecisionPolicy policy, BigDecimal... values) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		try{
+			BigDecimal result = evaluateDecimal(context, policy, values);
+			evaluated(started);
+			return result;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.EVALUATE, ex, started);
+		}
+	}
+
+	//BigDecimal evaluation of evaluate(PrecisionPolicy, BigDecimal...), without the timing.
+	private BigDecimal evaluateDecimal(EvaluationContext context, PrecisionPolicy policy, BigDecimal[] values) throws InvalidExpressionFormatException {
+		if (policy == PrecisionPolicy.standard())
+			return evaluateDecimal(context, values);
+		checkStructure();
+		checkBindings(values.length);
+		return evaluate(values, decimalStack(context), policy);
+	}
+
+	/**
+	 * Package level BigDecimal evaluation on a caller provided stack, used for batches.
+	 * Structure and bindings must have been checked by the caller.
+	 *
+	 * @param values
+	 * 			Value of each variable.
+	 * @param operandStack
+	 * 			Scratch stack of at least maxDepth() entries, left holding references afterwards.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	BigDecimal evaluate(BigDecimal[] values, BigDecimal[] operandStack) throws InvalidExpressionFormatException {
+		return evaluate(values, operandStack, PrecisionPolicy.standard());
+	}
+
+	//BigDecimal evaluation under a policy, structure and bindings checked by the caller.
+	private BigDecimal evaluate(BigDecimal[] values, BigDecimal[] operandStack, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		return policy.result(evaluateSubtree(values, operandStack, policy, 0, operators.length - 1));
+	}
+
+	/**
+	 * Package level BigDecimal evaluation of one subtree of the program, used by ParallelBatchEvaluator.
+	 * Structure and bindings must have been checked by the caller.
+	 *
+	 * @param values
+	 * 			Value of each variable.
+	 * @param operandStack
+	 * 			Scratch stack of at least maxDepth() entries, left holding references afterwards.
+	 * @param policy
+	 * 			Rounding of the built in operators.
+	 * @param from
+	 * 			First instruction of the subtree, see subtreeStarts().
+	 * @param to
+	 * 			Last instruction of the subtree, its root.
+	 * @return	The value of the subtree, before the rounding of the result.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	BigDecimal evaluateSubtree(BigDecimal[] values, BigDecimal[] operandStack, PrecisionPolicy policy, int from, int to)
+			throws InvalidExpressionFormatException {
+		int top = 0;
+
+		for (int index = from; index <= to; index++)
+		{
+			Operator operator = operators[index];
+			if (operator != null) //Instruction is an operator
+			{
+				try{
+					operandStack[top - 2] = policy.apply(operandStack[top - 2], operator, operandStack[top - 1]);
+				}catch(ArithmeticException ex){
+					throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage(), index);
+				}
+				top--;
+			}
+			else if (calls != null && calls[index] != null) //Instruction calls a registry Operation
+			{
+				top -= arities[index];
+				try{
+					operandStack[top] = calls[index].apply(operandStack, top, arities[index]);
+				}catch(ArithmeticException ex){
+					throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage(), index);
+				}
+				top++;
+			}
+			else //Instruction pushes an operand
+			{
+				int slot = variableSlots[index];
+				operandStack[top++] = slot < 0 ? operands[index] : values[slot];
+			}
+		}
+		return operandStack[0];
+	}
+
+	/**
+	 * Package level application of one instruction to the values of its arguments, used by ParallelBatchEvaluator
+	 * once the subtrees of the arguments are evaluated.
+	 *
+	 * @param index
+	 * 			Index of an operator or call instruction.
+	 * @param arguments
+	 * 			Value of each argument, arity(index) of them, in order.
+	 * @param policy
+	 * 			Rounding of the built in operators.
+	 * @return	The value of the instruction.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	BigDecimal apply(int index, BigDecimal[] arguments, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		try{
+			if (operators[index] != null)
+				return policy.apply(arguments[0], operators[index], arguments[1]);
+			return calls[index].apply(arguments, 0, arities[index]);
+		}catch(ArithmeticException ex){
+			throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage(), index);
+		}
+	}
+
+	/**
+	 * @param index
+	 * 			Index of an instruction.
+	 * @return	The number of values the instruction takes from the operand stack, 0 for an operand.
+	 */
+	int arity(int index) {
+		if (operators[index] != null)
+			return 2;
+		return calls != null && calls[index] != null ? arities[index] : 0;
+	}
+
+	/**
+	 * Index of the first instruction of the subtree ending at each instruction, computed on first use.
+	 * The arguments of an instruction are the subtrees ending right before it.
+	 *
+	 * @return	The first instruction of each subtree, not to be modified, null if the program is malformed.
+	 */
+	int[] subtreeStarts() {
+		int[] starts = subtreeStarts;
+		if (starts == null)
+		{
+			starts = PostfixOptimizer.subtreeStarts(program, registry, new Operator[program.length], new int[program.length]);
+			subtreeStarts = starts;
+		}
+		return starts;
+	}
+
+	/**
+	 * Evaluates this expression with primitive double arithmetic.
+	 * The operand stack is reused per thread so steady state evaluation does not allocate.
+	 *
+	 * @return	The double solution, following IEEE 754 semantics.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or contains variables.
+	 */
+	public double evaluateDouble() throws InvalidExpressionFormatException {
+		return evaluateDouble(NO_DOUBLES);
+	}
+
+	/**
+	 * Evaluates this expression with primitive double arithmetic, binding its variables by number.
+	 * The operand stack is reused per thread so steady state evaluation does not allocate.
+	 *
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The double solution, following IEEE 754 semantics.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public double evaluateDouble(double... values) throws InvalidExpressionFormatException {
+		return evaluateDouble(EvaluationContext.current(), values);
+	}
+
+	/**
+	 * Evaluates this expression with primitive double arithmetic on the stack of an EvaluationContext.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stack, used by one thread at a time.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The double solution, following IEEE 754 semantics.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public double evaluateDouble(EvaluationContext context, double... values) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		try{
+			double result = evaluateDoubles(context, values);
+			evaluated(started);
+			return result;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.EVALUATE, ex, started);
+		}
+	}
+
+	//Double evaluation of evaluateDouble(double...), without the timing.
+	private double evaluateDoubles(EvaluationContext context, double[] values) throws InvalidExpressionFormatException {
+		checkStructure();
+		checkBindings(values.length);
+		BytecodeCompiler.Program compiled = promote();
+		if (compiled != null)
+			return compiled.evaluateDouble(values);
+		//Operations may evaluate other expressions on the same thread, programs calling them get their own stack.
+		double[] operandStack = calls == null ? context.doubles(maxDepth) : new double[maxDepth];
+		int top = 0;
+
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator != null)
+			{
+				top--;
+				operandStack[top - 1] = EvaluatorUtilities.doMath(operandStack[top - 1], operator, operandStack[top]);
+			}
+			else if (calls != null && calls[index] != null)
+			{
+				top -= arities[index];
+				operandStack[top] = calls[index].apply(operandStack, top, arities[index]);
+				top++;
+			}
+			else
+			{
+				int slot = variableSlots[index];
+				operandStack[top++] = slot < 0 ? doubleOperands[index] : values[slot];
+			}
+		}
+		return operandStack[0];
+	}
+
+	/**
+	 * Package level columnar double evaluation used for batches.
+	 * Every instruction is applied to a whole run of rows before moving to the next one,
+	 * so operator dispatch happens once per instruction instead of once per row.
+	 * Operators run on the ColumnKernel, vectorized when the SIMD kernel is available.
+	 * Structure and bindings must have been checked by the caller.
+	 *
+	 * @param columns
+	 * 			Column of values of each variable, indexed as in variables().
+	 * @param from
+	 * 			First row to evaluate.
+	 * @param count
+	 * 			Number of rows to evaluate, at most the length of the stack rows.
+	 * @param operandStack
+	 * 			Scratch stack of at least maxDepth() rows of count values each.
+	 * @param output
+	 * 			Array receiving the results, at the same row positions.
+	 */
+	void evaluateColumns(double[][] columns, int from, int count, double[][] operandStack, double[] output) {
+		int top = 0;
+
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator == null && calls != null && calls[index] != null)
+			{
+				//Registry calls take their arguments row by row from a scratch array.
+				int arity = arities[index];
+				top -= arity;
+				double[] arguments = new double[arity];
+				for (int row = 0; row < count; row++)
+				{
+					for (int argument = 0; argument < arity; argument++)
+						arguments[argument] = operandStack[top + argument][row];
+					operandStack[top][row] = calls[index].apply(arguments, 0, arity);
+				}
+				top++;
+			}
+			else if (operator == null)
+			{
+				int slot = variableSlots[index];
+				if (slot < 0)
+					Arrays.fill(operandStack[top], 0, count, doubleOperands[index]);
+				else
+					System.arraycopy(columns[slot], from, operandStack[top], 0, count);
+				top++;
+			}
+			else
+			{
+				top--;
+				ColumnKernel.DEFAULT.apply(operator, operandStack[top - 1], operandStack[top], count);
+			}
+		}
+		System.arraycopy(operandStack[0], 0, output, from, count);
+	}
+
+	/**
+	 * Evaluates this expression using the requested NumericMode.
+	 * The LONG mode falls back to BIG_DECIMAL when an operand is not an integer, an intermediate
+	 * result overflows or a division leaves a remainder, the returned result tells which mode was used.
+	 *
+	 * @param mode
+	 * 			The NumericMode to evaluate with.
+	 * @return	The solution and the NumericMode that produced it.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public EvaluationResult evaluate(NumericMode mode) throws InvalidExpressionFormatException {
+		return evaluate(mode, PrecisionPolicy.standard());
+	}
+
+	/**
+	 * Evaluates this expression using the requested NumericMode and PrecisionPolicy.
+	 * The policy rounds the BIG_DECIMAL and SCALED_LONG modes, DOUBLE ignores it and LONG is only used
+	 * with the standard policy. SCALED_LONG falls back to BIG_DECIMAL when a value does not fit in a long,
+	 * the policy rounds to a MathContext or the program calls a registry Operation.
+	 *
+	 * @param mode
+	 * 			The NumericMode to evaluate with.
+	 * @param policy
+	 * 			Rounding of the decimal modes.
+	 * @return	The solution and the NumericMode that produced it.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public EvaluationResult evaluate(NumericMode mode, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		return evaluate(EvaluationContext.current(), mode, policy);
+	}
+
+	/**
+	 * Evaluates this expression using the requested NumericMode and PrecisionPolicy on the stacks of an EvaluationContext.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stacks, used by one thread at a time.
+	 * @param mode
+	 * 			The NumericMode to evaluate with.
+	 * @param policy
+	 * 			Rounding of the decimal modes.
+	 * @return	The solution and the NumericMode that produced it.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	public EvaluationResult evaluate(EvaluationContext context, NumericMode mode, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		try{
+			EvaluationResult result = evaluateIn(context, mode, policy);
+			evaluated(started);
+			return result;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.EVALUATE, ex, started);
+		}
+	}
+
+	//Evaluation of evaluate(NumericMode, PrecisionPolicy), without the timing.
+	private EvaluationResult evaluateIn(EvaluationContext context, NumericMode mode, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		switch (mode){
+		case DOUBLE:
+			return EvaluationResult.ofDouble(evaluateDoubles(context, NO_DOUBLES));
+		case SCALED_LONG:
+			if (scaledOperandsExact && calls == null && policy.isFixedPoint())
+			{
+				checkStructure();
+				checkBindings(0);
+				try{
+					return EvaluationResult.ofScaledLong(evaluateScaled(context, policy));
+				}catch(ArithmeticException ex){
+					//Not representable in fixed point, fall through to BigDecimal.
+				}
+			}
+			return EvaluationResult.ofBigDecimal(evaluateDecimal(context, policy, NO_VALUES));
+		case LONG:
+			if (longOperandsExact && policy == PrecisionPolicy.standard())
+			{
+				checkStructure();
+				checkBindings(0);
+				try{
+					return EvaluationResult.ofLong(evaluateLong(context));
+				}catch(ArithmeticException ex){
+					//Not representable as a long, fall through to BigDecimal.
+				}
+			}
+			return EvaluationResult.ofBigDecimal(evaluateDecimal(context, policy, NO_VALUES));
+		default:
+			return EvaluationResult.ofBigDecimal(evaluateDecimal(context, policy, NO_VALUES));
+		}
+	}
+
+	//Records an evaluation that succeeded, the stack of this program always reaches maxDepth.
+	private void evaluated(long started) {
+		if (started != 0L)
+		{
+			EvaluatorMetrics.record(EvaluationPhase.EVALUATE, started);
+			EvaluatorMetrics.depth(maxDepth);
+		}
+	}
+
+	/**
+	 * Package level stack of the BigDecimal evaluation, from the context unless the program calls registry
+	 * Operations, which may evaluate other expressions on the same thread.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stack.
+	 * @return	A stack of at least maxDepth() entries.
+	 */
+	BigDecimal[] decimalStack(EvaluationContext context) {
+		return calls == null ? context.decimals(maxDepth) : new BigDecimal[maxDepth];
+	}
+
+	/**
+	 * Exact long evaluation, throws an ArithmeticException as soon as a result is not a long.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stack.
+	 * @return	The exact long solution.
+	 */
+	private long evaluateLong(EvaluationContext context) {
+		//Operations may evaluate other expressions on the same thread, programs calling them get their own stack.
+		long[] operandStack = calls == null ? context.longs(maxDepth) : new long[maxDepth];
+		int top = 0;
+
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator != null)
+			{
+				top--;
+				operandStack[top - 1] = EvaluatorUtilities.doMath(operandStack[top - 1], operator, operandStack[top]);
+			}
+			else if (calls != null && calls[index] != null)
+			{
+				top -= arities[index];
+				operandStack[top] = calls[index].apply(operandStack, top, arities[index]);
+				top++;
+			}
+			else
+			{
+				operandStack[top++] = longOperands[index];
+			}
+		}
+		return operandStack[0];
+	}
+
+	/**
+	 * Fixed point evaluation, throws an ArithmeticException as soon as a value does not fit in a long.
+	 *
+	 * @param context
+	 * 			The EvaluationContext lending its stacks.
+	 * @param policy
+	 * 			A fixed point PrecisionPolicy.
+	 * @return	The solution, equal to the BIG_DECIMAL one under the same policy.
+	 */
+	private BigDecimal evaluateScaled(EvaluationContext context, PrecisionPolicy policy) {
+		//Only programs without calls get here.
+		long[] unscaled = context.longs(maxDepth);
+		int[] scales = context.scales(maxDepth);
+		int top = 0;
+
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator != null)
+			{
+				top--;
+				ScaledDecimal.apply(operator, unscaled, scales, top - 1, policy);
+			}
+			else
+			{
+				unscaled[top] = scaledOperands[index];
+				scales[top++] = operandScales[index];
+			}
+		}
+		return policy.result(BigDecimal.valueOf(unscaled[0], scales[0]));
+	}
+
+	/**
+	 * @return	True when every operand fits the fixed point engine and the program calls no registry Operation.
+	 */
+	boolean isScaledExact() {
+		return scaledOperandsExact && calls == null;
+	}
+
+	/**
+	 * Package level fixed point evaluation of one row of fixed scale values, used by MappedBatchEvaluator.
+	 * Only programs for which isScaledExact() is true get here, structure and bindings must have been checked
+	 * by the caller. Throws an ArithmeticException as soon as a value does not fit in a long.
+	 *
+	 * @param values
+	 * 			Unscaled value of each variable.
+	 * @param valueScales
+	 * 			Scale of each variable.
+	 * @param unscaled
+	 * 			Scratch stack of at least maxDepth() entries, holding the unscaled result at 0 afterwards.
+	 * @param scales
+	 * 			Scratch stack parallel to unscaled, holding the scale of the result at 0 afterwards.
+	 * @param policy
+	 * 			A fixed point PrecisionPolicy.
+	 */
+	void evaluateScaled(long[] values, int[] valueScales, long[] unscaled, int[] scales, PrecisionPolicy policy) {
+		int top = 0;
+
+		for (int index = 0; index < operators.length; index++)
+		{
+			Operator operator = operators[index];
+			if (operator != null)
+			{
+				top--;
+				ScaledDecimal.apply(operator, unscaled, scales, top - 1, policy);
+			}
+			else
+			{
+				int slot = variableSlots[index];
+				unscaled[top] = slot < 0 ? scaledOperands[index] : values[slot];
+				scales[top++] = slot < 0 ? operandScales[index] : valueScales[slot];
+			}
+		}
+	}
+
+	/**
+	 * Generates the bytecode form of this expression now, instead of waiting for the jit threshold.
+	 * Malformed programs, programs too long for the JIT, unknown operators and registry calls stay interpreted.
+	 *
+	 * @return	This expression.
+	 */
+	public CompiledExpression jit() {
+		if (structureError == null)
+			generate();
+		return this;
+	}
+
+	/**
+	 * @return	True if evaluations of this expression run generated bytecode.
+	 */
+	public boolean isJitCompiled() {
+		return generated != null;
+	}
+
+	//Counts an evaluation of a well formed program and promotes it past the threshold.
+	private BytecodeCompiler.Program promote() {
+		BytecodeCompiler.Program compiled = generated;
+		if (compiled == null && !jitAttempted && BytecodeCompiler.THRESHOLD >= 0 && ++invocations > BytecodeCompiler.THRESHOLD)
+			compiled = generate();
+		return compiled;
+	}
+
+	private synchronized BytecodeCompiler.Program generate() {
+		if (!jitAttempted)
+		{
+			//The generated class only knows the built in operators.
+			if (calls == null)
+				generated = BytecodeCompiler.compile(operators, operands, doubleOperands, variableSlots, maxDepth);
+			jitAttempted = true;
+		}
+		return generated;
+	}
+
+	/**
+	 * Throws the structural problem found at compile time, if any.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	void checkStructure() throws InvalidExpressionFormatException {
+		if (structureError != null)
+			throw structureError;
+	}
+
+	/**
+	 * Throws if fewer values than variables are provided.
+	 *
+	 * @param count
+	 * 			Number of values provided.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	void checkBindings(int count) throws InvalidExpressionFormatException {
+		if (count < variables.length)
+			throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + variables[count], -1);
+	}
+
+	/**
+	 * Package level factory used by ExpressionCodec to rebuild an expression without parsing its operands.
+	 *
+	 * @param program
+	 * 			The postfix instructions.
+	 * @param source
+	 * 			The postfix instructions the program was optimized from, or the program itself.
+	 * @param constants
+	 * 			Value of each operand instruction of the program, null elsewhere.
+	 * @param registry
+	 * 			The operators and functions the program may call.
+	 * @return	The CompiledExpression.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 */
+	static CompiledExpression of(String[] program, String[] source, BigDecimal[] constants, OperatorRegistry registry) throws InvalidExpressionFormatException {
+		return new CompiledExpression(program, source, registry, constants);
+	}
+
+	/**
+	 * @return	The postfix instructions, not to be modified.
+	 */
+	String[] program() {
+		return program;
+	}
+
+	/**
+	 * @return	The postfix instructions before optimization, the program itself when not optimized.
+	 */
+	String[] source() {
+		return source;
+	}
+
+	/**
+	 * @param index
+	 * 			Index of an instruction.
+	 * @return	The parsed operand of the instruction, null if it is not a number.
+	 */
+	BigDecimal operand(int index) {
+		return operands[index];
+	}
+
+	/**
+	 * Encodes this expression in the compact binary form of ExpressionCodec, for a FormulaStore
+	 * or any byte oriented storage. The registry is not encoded, only the names of the functions called.
+	 *
+	 * @return	The encoded expression.
+	 */
+	public byte[] toBytes() {
+		return ExpressionCodec.encode(this);
+	}
+
+	/**
+	 * Rebuilds an expression encoded by toBytes() without converting nor parsing it again.
+	 *
+	 * @param bytes
+	 * 			The encoded expression.
+	 * @param registry
+	 * 			The operators and functions the expression was compiled with, OperatorRegistry.standard() or
+	 * 			an equivalent registry, functions it lacks are reported as unknown operators when evaluating.
+	 * @return	The CompiledExpression.
+	 *
+	 * @throws IOException
+	 * 			If the bytes are not an encoded expression or were written by a newer format version.
+	 */
+	public static CompiledExpression fromBytes(byte[] bytes, OperatorRegistry registry) throws IOException {
+		return ExpressionCodec.decode(ByteBuffer.wrap(bytes), registry);
+	}
+
+	/**
+	 * @return	Deepest the operand stack gets while evaluating the program.
+	 */
+	int maxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return	The operators and functions this expression was compiled with.
+	 */
+	OperatorRegistry registry() {
+		return registry;
+	}
+
+	/**
+	 * @return	The distinct variable names of this expression, in order of first appearance.
+	 */
+	public List<String> variables() {
+		return Collections.unmodifiableList(Arrays.asList(variables));
+	}
+
+	/**
+	 * @return	The number of distinct variables of this expression.
+	 */
+	public int variableCount() {
+		return variables.length;
+	}
+
+	/**
+	 * @param name
+	 * 			Name of a variable.
+	 * @return	The number used to bind the variable, -1 if the expression does not use it.
+	 */
+	public int variableIndex(String name) {
+		for (int slot = 0; slot < variables.length; slot++)
+		{
+			if (variables[slot].equals(name))
+				return slot;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return	The number of postfix instructions in this expression.
+	 */
+	public int size() {
+		return program.length;
+	}
+
+	/**
+	 * @return	A fresh Queue holding the postfix form of this expression.
+	 */
+	public Queue<String> toPostfix() {
+		Queue<String> postfix = new ArrayDeque<String>(program.length);
+		for (String value : program)
+		{
+			postfix.offer(value);
+		}
+		return postfix;
+	}
+
+	/**
+	 * @return	The infix form of this expression, with only the parenthesis evaluation order requires.
+	 */
+	public String toInfix() {
+		return PostfixOptimizer.toInfix(program, registry);
+	}
+
+	/**
+	 * Debug view of the optimization, the program before and after in infix and postfix forms.
+	 *
+	 * @return	Two lines, before: and after:, identical when the expression was not optimized.
+	 */
+	public String explainOptimization() {
+		return "before: " + describe(source) + "\nafter:  " + describe(program);
+	}
+
+	private String describe(String[] instructions) {
+		return PostfixOptimizer.toInfix(instructions, registry) + "  [postfix: " + String.join(" ", instructions)
+				+ " , " + instructions.length + " instructions]";
+	}
+
+	/**
+	 * @return	The postfix instructions separated by spaces.
+	 */
+	@Override
+	public String toString() {
+		return String.join(" ", program);
+	}
+}
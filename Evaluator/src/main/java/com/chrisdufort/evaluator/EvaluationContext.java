@@ -0,0 +1,130 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Scratch memory of evaluations: operand stacks of every NumericMode, and the lexer and stacks of
+ * single pass text evaluation, kept between calls so steady state evaluation does not allocate them again.
+ * Stacks grow to the deepest expression seen and are never shrunk nor reallocated afterwards.
+ *
+ * Every thread has its own context, current(), used by the evaluation methods that take none.
+ * A context can also be created and handed explicitly, by a worker owning it for instance:
+ *
+ * EvaluationContext context = new EvaluationContext();
+ * double total = expression.evaluateDouble(context, rate, qty);
+ *
+ * A context is not thread safe, it is used by one evaluation at a time. Programs calling registry Operations
+ * take their stacks from the heap instead, as an Operation may itself evaluate expressions on the same thread.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#evaluateDouble(EvaluationContext, double...)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class EvaluationContext {
+
+	private static final int INITIAL_DEPTH = 16;
+
+	private static final ThreadLocal<EvaluationContext> CURRENT = new ThreadLocal<EvaluationContext>() {
+		@Override
+		protected EvaluationContext initialValue() {
+			return new EvaluationContext();
+		}
+	};
+
+	private BigDecimal[] decimals = new BigDecimal[INITIAL_DEPTH];
+	private double[] doubles = new double[INITIAL_DEPTH];
+	private long[] longs = new long[INITIAL_DEPTH];
+	private int[] scales = new int[INITIAL_DEPTH];
+	//Single pass text evaluation, created on first use.
+	private ExpressionLexer lexer;
+	private InfixEvaluator infix;
+
+	/**
+	 * Creates a context with small stacks, grown by the first deep expressions.
+	 */
+	public EvaluationContext() {
+	}
+
+	/**
+	 * @return	The context of the calling thread.
+	 */
+	public static EvaluationContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Drops the references to the BigDecimals of past evaluations, so a context kept for long does not hold
+	 * on to them. The stacks keep their size.
+	 */
+	public void clear() {
+		Arrays.fill(decimals, null);
+		if (infix != null)
+			infix.clear();
+	}
+
+	/**
+	 * @param depth
+	 * 			Number of entries needed.
+	 * @return	The BigDecimal stack, of at least depth entries, left holding references afterwards.
+	 */
+	BigDecimal[] decimals(int depth) {
+		if (decimals.length < depth)
+			decimals = new BigDecimal[Math.max(depth, decimals.length * 2)];
+		return decimals;
+	}
+
+	/**
+	 * @param depth
+	 * 			Number of entries needed.
+	 * @return	The double stack, of at least depth entries.
+	 */
+	double[] doubles(int depth) {
+		if (doubles.length < depth)
+			doubles = new double[Math.max(depth, doubles.length * 2)];
+		return doubles;
+	}
+
+	/**
+	 * @param depth
+	 * 			Number of entries needed.
+	 * @return	The long stack, of at least depth entries, holding unscaled values in the SCALED_LONG mode.
+	 */
+	long[] longs(int depth) {
+		if (longs.length < depth)
+			longs = new long[Math.max(depth, longs.length * 2)];
+		return longs;
+	}
+
+	/**
+	 * @param depth
+	 * 			Number of entries needed.
+	 * @return	The scale stack of the SCALED_LONG mode, of at least depth entries.
+	 */
+	int[] scales(int depth) {
+		if (scales.length < depth)
+			scales = new int[Math.max(depth, scales.length * 2)];
+		return scales;
+	}
+
+	/**
+	 * @param text
+	 * 			Infix text to read with the built in operators.
+	 * @return	The lexer of this context, reset over the text.
+	 */
+	ExpressionLexer lexer(CharSequence text) {
+		if (lexer == null)
+			lexer = new ExpressionLexer(text);
+		return lexer.reset(text);
+	}
+
+	/**
+	 * @return	The single pass evaluator of this context.
+	 */
+	InfixEvaluator infix() {
+		if (infix == null)
+			infix = new InfixEvaluator();
+		return infix;
+	}
+}
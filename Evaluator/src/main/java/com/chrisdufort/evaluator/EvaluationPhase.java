@@ -0,0 +1,43 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Phases of the evaluator timed by EvaluatorMetrics, one per public entry point.
+ * Phases do not nest, compiling counts as COMPILE only even though it converts to postfix.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorMetrics
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum EvaluationPhase {
+
+	/**
+	 * Lexing of infix text alone, timed by lexing again the text of one parse in 16.
+	 */
+	TOKENIZE,
+
+	/**
+	 * EvaluatorUtilities.infixToPostfix, from a Queue or from text.
+	 */
+	INFIX_TO_POSTFIX,
+
+	/**
+	 * EvaluatorUtilities.evaluatePostfix.
+	 */
+	EVALUATE_POSTFIX,
+
+	/**
+	 * EvaluatorUtilities.evaluateInfix, single pass evaluation of text.
+	 */
+	EVALUATE_INFIX,
+
+	/**
+	 * CompiledExpression.compile, from a Queue or from text.
+	 */
+	COMPILE,
+
+	/**
+	 * Evaluation of a CompiledExpression, in any NumericMode.
+	 */
+	EVALUATE
+}
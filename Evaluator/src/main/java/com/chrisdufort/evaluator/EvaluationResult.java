@@ -0,0 +1,104 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of evaluating a CompiledExpression together with the NumericMode that actually produced it.
+ * The mode may differ from the requested one when the LONG or SCALED_LONG mode had to fall back to BIG_DECIMAL.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#evaluate(NumericMode)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class EvaluationResult {
+
+	private final NumericMode mode;
+	private final BigDecimal decimalValue;
+	private final double doubleValue;
+	private final long longValue;
+
+	private EvaluationResult(NumericMode mode, BigDecimal decimalValue, double doubleValue, long longValue) {
+		this.mode = mode;
+		this.decimalValue = decimalValue;
+		this.doubleValue = doubleValue;
+		this.longValue = longValue;
+	}
+
+	static EvaluationResult ofBigDecimal(BigDecimal value) {
+		return new EvaluationResult(NumericMode.BIG_DECIMAL, value, 0.0, 0L);
+	}
+
+	static EvaluationResult ofScaledLong(BigDecimal value) {
+		return new EvaluationResult(NumericMode.SCALED_LONG, value, 0.0, 0L);
+	}
+
+	static EvaluationResult ofDouble(double value) {
+		return new EvaluationResult(NumericMode.DOUBLE, null, value, 0L);
+	}
+
+	static EvaluationResult ofLong(long value) {
+		return new EvaluationResult(NumericMode.LONG, null, 0.0, value);
+	}
+
+	/**
+	 * @return	The NumericMode that produced this result.
+	 */
+	public NumericMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return	The result as a BigDecimal, exact for the BIG_DECIMAL, LONG and SCALED_LONG modes.
+	 */
+	public BigDecimal bigDecimalValue() {
+		switch (mode){
+		case DOUBLE:
+			return new BigDecimal(doubleValue);
+		case LONG:
+			return BigDecimal.valueOf(longValue);
+		default:
+			return decimalValue;
+		}
+	}
+
+	/**
+	 * @return	The result as a double, possibly rounded.
+	 */
+	public double doubleValue() {
+		switch (mode){
+		case DOUBLE:
+			return doubleValue;
+		case LONG:
+			return longValue;
+		default:
+			return decimalValue.doubleValue();
+		}
+	}
+
+	/**
+	 * @return	The result as a long, any fractional part is discarded.
+	 */
+	public long longValue() {
+		switch (mode){
+		case DOUBLE:
+			return (long) doubleValue;
+		case LONG:
+			return longValue;
+		default:
+			return decimalValue.longValue();
+		}
+	}
+
+	@Override
+	public String toString() {
+		switch (mode){
+		case DOUBLE:
+			return mode + ":" + doubleValue;
+		case LONG:
+			return mode + ":" + longValue;
+		default:
+			return mode + ":" + decimalValue;
+		}
+	}
+}
@@ -0,0 +1,552 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Embeddable asynchronous front end of the evaluator: requests are submitted from any number of threads and
+ * answered through CompletableFutures, so callers no longer wrap the static methods in their own pools.
+ *
+ * Requests go through an in-process queue to one dispatcher thread. The dispatcher takes whatever is queued,
+ * waiting up to the batch delay for more, up to the maximum batch, and groups the requests by CompiledExpression:
+ * concurrent requests for the same expression are evaluated together by the BatchEvaluator, columns of values
+ * in, one result per request out. Each group runs on its own thread, a virtual thread when the JVM has them
+ * (JDK 21 and later, found by reflection as this library targets Java 8), otherwise a pooled daemon thread.
+ * A request failing within a batch, by a division by zero for instance, fails alone, the batch is then
+ * evaluated request by request.
+ *
+ * Admission is bounded: at most queueCapacity requests are queued or running at once. Past that, submit waits up
+ * to the admission timeout for room, which pushes back on callers, then fails the request with a
+ * RejectedExecutionException rather than letting the queue grow, so an overloaded service sheds load.
+ *
+ * Futures complete on the thread of their batch, dependent stages run there unless given an executor.
+ * close() stops admission, dispatches what is queued and lets running batches finish.
+ *
+ * Instances are created through the Builder:
+ * EvaluationService.builder().queueCapacity(10000).batchDelay(100, TimeUnit.MICROSECONDS).build()
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.BatchEvaluator
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class EvaluationService implements AutoCloseable {
+
+	//Queued by close() to wake the dispatcher up.
+	private static final Request CLOSE = new Request(null, null, null, null);
+
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+	//Room left for requests, taken by submit and given back once a request is answered.
+	private final Semaphore admission;
+	private final int queueCapacity;
+	private final int maximumBatch;
+	private final long batchDelayNanos;
+	private final long admissionTimeoutNanos;
+	private final ExpressionCache cache;
+	private final Executor executor;
+	//Executor created for this service, shut down by close, null when given by the caller.
+	private final ExecutorService ownExecutor;
+	private final Thread dispatcher;
+	private volatile boolean closed;
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+
+	private EvaluationService(Builder builder) {
+		this.admission = new Semaphore(builder.queueCapacity);
+		this.queueCapacity = builder.queueCapacity;
+		this.maximumBatch = builder.maximumBatch;
+		this.batchDelayNanos = builder.batchDelayNanos;
+		this.admissionTimeoutNanos = builder.admissionTimeoutNanos;
+		this.cache = builder.cache != null ? builder.cache : ExpressionCache.builder().build();
+		if (builder.executor != null)
+		{
+			this.executor = builder.executor;
+			this.ownExecutor = null;
+		}
+		else
+		{
+			ThreadFactory virtual = virtualThreads();
+			if (virtual != null)
+			{
+				this.executor = task -> virtual.newThread(task).start();
+				this.ownExecutor = null;
+			}
+			else
+			{
+				this.ownExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+						new SynchronousQueue<Runnable>(), daemonThreads("evaluation-"));
+				this.executor = ownExecutor;
+			}
+		}
+		this.dispatcher = daemonThreads("evaluation-dispatcher").newThread(this::dispatch);
+		dispatcher.start();
+	}
+
+	/**
+	 * @return	A Builder for an EvaluationService, by default 4096 requests admitted and batches of up to 256.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Evaluates an expression with BigDecimal arithmetic, batched with concurrent requests for the same instance.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The future result, failed with the InvalidExpressionFormatException of the evaluation or
+	 * 			a RejectedExecutionException if the service is full or closed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			If the expression or the values array is null.
+	 */
+	public CompletableFuture<BigDecimal> submit(CompiledExpression expression, BigDecimal... values) {
+		if (expression == null || values == null)
+			throw new IllegalArgumentException("Expression and values must not be null");
+		CompletableFuture<BigDecimal> future = new CompletableFuture<BigDecimal>();
+		admit(new Request(expression, values, null, future));
+		return future;
+	}
+
+	/**
+	 * Compiles an expression through the cache of the service then evaluates it with BigDecimal arithmetic,
+	 * batched with concurrent requests for the same text.
+	 *
+	 * @param infix
+	 * 			The infix expression.
+	 * @param values
+	 * 			Value of each variable, in order of first appearance.
+	 * @return	The future result, failed with the InvalidExpressionFormatException of the compilation or
+	 * 			evaluation or a RejectedExecutionException if the service is full or closed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			If the values array is null.
+	 */
+	public CompletableFuture<BigDecimal> submit(CharSequence infix, BigDecimal... values) {
+		try{
+			return submit(cache.get(infix), values);
+		}catch(InvalidExpressionFormatException ex){
+			CompletableFuture<BigDecimal> future = new CompletableFuture<BigDecimal>();
+			future.completeExceptionally(ex);
+			return future;
+		}
+	}
+
+	/**
+	 * Evaluates an expression with double arithmetic, batched with concurrent requests for the same instance.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The future result, failed with the InvalidExpressionFormatException of the evaluation or
+	 * 			a RejectedExecutionException if the service is full or closed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			If the expression or the values array is null.
+	 */
+	public CompletableFuture<Double> submitDouble(CompiledExpression expression, double... values) {
+		if (expression == null || values == null)
+			throw new IllegalArgumentException("Expression and values must not be null");
+		CompletableFuture<Double> future = new CompletableFuture<Double>();
+		admit(new Request(expression, null, values, future));
+		return future;
+	}
+
+	/**
+	 * @return	A snapshot of the counters of this service.
+	 */
+	public ServiceStats stats() {
+		return new ServiceStats(submitted.sum(), rejected.sum(), completed.sum(), failed.sum(), batches.sum(),
+				queueCapacity - admission.availablePermits());
+	}
+
+	/**
+	 * Stops admitting requests, dispatches the requests already queued and returns once they are handed to
+	 * their batches, which finish on their own threads.
+	 */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		queue.offer(CLOSE);
+		boolean interrupted = false;
+		while (dispatcher.isAlive())
+		{
+			try{
+				dispatcher.join();
+			}catch(InterruptedException ex){
+				interrupted = true;
+			}
+		}
+		if (ownExecutor != null)
+			ownExecutor.shutdown();
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	//Takes room for the request, waiting up to the admission timeout, and queues it.
+	private void admit(Request request) {
+		submitted.increment();
+		boolean admitted = false;
+		if (!closed)
+		{
+			try{
+				admitted = admissionTimeoutNanos == 0 ? admission.tryAcquire()
+						: admission.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+			}catch(InterruptedException ex){
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (!admitted)
+		{
+			rejected.increment();
+			request.future.completeExceptionally(new RejectedExecutionException(closed ? "Evaluation service closed"
+					: "Evaluation service full, " + stats().pending() + " requests pending"));
+			return;
+		}
+		queue.offer(request);
+		//Closed while admitting, the dispatcher may be gone, answer it here.
+		if (closed && queue.remove(request))
+		{
+			admission.release();
+			rejected.increment();
+			request.future.completeExceptionally(new RejectedExecutionException("Evaluation service closed"));
+		}
+	}
+
+	private void dispatch() {
+		List<Request> drained = new ArrayList<Request>(maximumBatch);
+		boolean closing = false;
+		while (!closing || !queue.isEmpty())
+		{
+			try{
+				Request first = closing ? queue.poll() : queue.take();
+				if (first == null)
+					break;
+				if (first == CLOSE)
+				{
+					closing = true;
+					continue;
+				}
+				drained.add(first);
+				long deadline = System.nanoTime() + batchDelayNanos;
+				while (drained.size() < maximumBatch)
+				{
+					long wait = deadline - System.nanoTime();
+					Request next = wait > 0 && !closing ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null)
+						break;
+					if (next == CLOSE)
+						closing = true;
+					else
+						drained.add(next);
+				}
+			}catch(InterruptedException ex){
+				//Only close() stops the dispatcher.
+			}
+			if (!drained.isEmpty())
+			{
+				group(drained);
+				drained.clear();
+			}
+		}
+	}
+
+	//Hands every group of requests for the same expression and arithmetic to a thread of its own.
+	private void group(List<Request> drained) {
+		Map<Object, List<Request>> groups = new LinkedHashMap<Object, List<Request>>();
+		for (Request request : drained)
+		{
+			//Double requests of an expression are keyed by its variables list, never equal to the expression itself.
+			Object key = request.doubles == null ? request.expression : new DoubleKey(request.expression);
+			List<Request> group = groups.get(key);
+			if (group == null)
+			{
+				group = new ArrayList<Request>();
+				groups.put(key, group);
+			}
+			group.add(request);
+		}
+		for (final List<Request> group : groups.values())
+		{
+			batches.increment();
+			try{
+				executor.execute(() -> evaluate(group));
+			}catch(RejectedExecutionException ex){
+				for (Request request : group)
+					answer(request, null, ex);
+			}
+		}
+	}
+
+	//Evaluates a group, whatever is thrown answers the requests left so none waits or holds its room forever.
+	private void evaluate(List<Request> group) {
+		try{
+			evaluateGroup(group);
+		}catch(Throwable ex){
+			for (Request request : group)
+			{
+				if (!request.answered)
+					answer(request, null, ex);
+			}
+			if (ex instanceof Error)
+				throw (Error) ex;
+		}
+	}
+
+	//Evaluates a group as one batch, or request by request if any of them fails.
+	private void evaluateGroup(List<Request> group) {
+		CompiledExpression expression = group.get(0).expression;
+		int variables = expression.variableCount();
+		boolean bound = group.size() > 1;
+		for (int row = 0; row < group.size() && bound; row++)
+			bound = (group.get(row).doubles == null ? group.get(row).values.length : group.get(row).doubles.length) >= variables;
+		if (bound)
+		{
+			try{
+				if (group.get(0).doubles == null)
+				{
+					BigDecimal[][] columns = new BigDecimal[variables][group.size()];
+					for (int row = 0; row < group.size(); row++)
+					{
+						for (int slot = 0; slot < variables; slot++)
+							columns[slot][row] = group.get(row).values[slot];
+					}
+					BigDecimal[] output = new BigDecimal[group.size()];
+					BatchEvaluator.evaluate(expression, columns, output);
+					for (int row = 0; row < group.size(); row++)
+						answer(group.get(row), output[row], null);
+				}
+				else
+				{
+					double[][] columns = new double[variables][group.size()];
+					for (int row = 0; row < group.size(); row++)
+					{
+						for (int slot = 0; slot < variables; slot++)
+							columns[slot][row] = group.get(row).doubles[slot];
+					}
+					double[] output = new double[group.size()];
+					BatchEvaluator.evaluate(expression, columns, output);
+					for (int row = 0; row < group.size(); row++)
+						answer(group.get(row), output[row], null);
+				}
+				return;
+			}catch(InvalidExpressionFormatException | RuntimeException ex){
+				//Find out which requests fail below.
+			}
+		}
+		for (Request request : group)
+		{
+			try{
+				if (request.doubles == null)
+					answer(request, expression.evaluate(request.values), null);
+				else
+					answer(request, expression.evaluateDouble(request.doubles), null);
+			}catch(InvalidExpressionFormatException | RuntimeException ex){
+				answer(request, null, ex);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void answer(Request request, Object result, Throwable failure) {
+		request.answered = true;
+		admission.release();
+		if (failure == null)
+		{
+			completed.increment();
+			((CompletableFuture<Object>) request.future).complete(result);
+		}
+		else
+		{
+			failed.increment();
+			request.future.completeExceptionally(failure);
+		}
+	}
+
+	/**
+	 * Finds the virtual thread builder of JDK 21 and later by name, this class still compiles and runs on Java 8.
+	 *
+	 * @return	A factory of virtual threads, null if the JVM has none.
+	 */
+	static ThreadFactory virtualThreads() {
+		try{
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> type = Class.forName("java.lang.Thread$Builder");
+			builder = type.getMethod("name", String.class, long.class).invoke(builder, "evaluation-", 0L);
+			return (ThreadFactory) type.getMethod("factory").invoke(builder);
+		}catch(ReflectiveOperationException | RuntimeException ex){
+			return null;
+		}
+	}
+
+	private static ThreadFactory daemonThreads(final String prefix) {
+		final AtomicInteger count = new AtomicInteger();
+		return task -> {
+			Thread thread = new Thread(task, prefix.endsWith("-") ? prefix + count.getAndIncrement() : prefix);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * One submitted evaluation, values for BigDecimal arithmetic or doubles for double arithmetic.
+	 */
+	private static final class Request {
+		private final CompiledExpression expression;
+		private final BigDecimal[] values;
+		private final double[] doubles;
+		private final CompletableFuture<?> future;
+		//Set once the request is answered, only read and written by the thread of its batch.
+		private boolean answered;
+
+		Request(CompiledExpression expression, BigDecimal[] values, double[] doubles, CompletableFuture<?> future) {
+			this.expression = expression;
+			this.values = values;
+			this.doubles = doubles;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * Groups the double requests of an expression apart from its BigDecimal ones.
+	 */
+	private static final class DoubleKey {
+		private final CompiledExpression expression;
+
+		DoubleKey(CompiledExpression expression) {
+			this.expression = expression;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof DoubleKey && ((DoubleKey) other).expression == expression;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(expression);
+		}
+	}
+
+	/**
+	 * Builder used to configure an EvaluationService.
+	 */
+	public static final class Builder {
+
+		private int queueCapacity = 4096;
+		private int maximumBatch = 256;
+		private long batchDelayNanos = TimeUnit.MICROSECONDS.toNanos(100);
+		private long admissionTimeoutNanos;
+		private ExpressionCache cache;
+		private Executor executor;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param queueCapacity
+		 * 			Number of requests queued or running at once, past which submit pushes back then rejects.
+		 * @return	This Builder.
+		 */
+		public Builder queueCapacity(int queueCapacity) {
+			if (queueCapacity < 1)
+				throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		/**
+		 * @param maximumBatch
+		 * 			Number of requests the dispatcher takes at once, spread over the batches of their expressions.
+		 * @return	This Builder.
+		 */
+		public Builder maximumBatch(int maximumBatch) {
+			if (maximumBatch < 1)
+				throw new IllegalArgumentException("Maximum batch must be positive: " + maximumBatch);
+			this.maximumBatch = maximumBatch;
+			return this;
+		}
+
+		/**
+		 * @param delay
+		 * 			Longest the dispatcher waits for more requests once it has one, 0 to take only those queued.
+		 * @param unit
+		 * 			Unit of the delay.
+		 * @return	This Builder.
+		 */
+		public Builder batchDelay(long delay, TimeUnit unit) {
+			if (delay < 0)
+				throw new IllegalArgumentException("Batch delay must not be negative: " + delay);
+			this.batchDelayNanos = unit.toNanos(delay);
+			return this;
+		}
+
+		/**
+		 * @param timeout
+		 * 			Longest submit waits for room in a full service before rejecting, 0 to reject at once.
+		 * @param unit
+		 * 			Unit of the timeout.
+		 * @return	This Builder.
+		 */
+		public Builder admissionTimeout(long timeout, TimeUnit unit) {
+			if (timeout < 0)
+				throw new IllegalArgumentException("Admission timeout must not be negative: " + timeout);
+			this.admissionTimeoutNanos = unit.toNanos(timeout);
+			return this;
+		}
+
+		/**
+		 * @param cache
+		 * 			The ExpressionCache compiling the expressions submitted as text, a new one by default.
+		 * @return	This Builder.
+		 */
+		public Builder cache(ExpressionCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
+		/**
+		 * @param executor
+		 * 			Runs the batches instead of virtual or pooled daemon threads, never shut down by the service.
+		 * @return	This Builder.
+		 */
+		public Builder executor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		/**
+		 * @return	A new EvaluationService, its dispatcher started.
+		 */
+		public EvaluationService build() {
+			return new EvaluationService(this);
+		}
+	}
+}
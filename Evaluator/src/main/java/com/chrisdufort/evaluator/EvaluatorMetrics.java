@@ -0,0 +1,359 @@
+package com.chrisdufort.evaluator;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Process wide metrics of the evaluator: latencies of each EvaluationPhase, tokens read, deepest operand stack,
+ * ExpressionCache hits and misses and errors by ErrorCode. Metrics are off by default, recording then costs
+ * a volatile read per call. Enable them with enable(), through JMX or with -Dcom.chrisdufort.evaluator.metrics=true.
+ *
+ * snapshot() pulls the current values, registerMBean() publishes them as an EvaluatorMetricsMXBean
+ * for jconsole or any JMX scraper. Counters are LongAdders, recording from many threads does not contend.
+ *
+ * Phases are timed at the public entry points and do not nest: CompiledExpression.compile counts as COMPILE only.
+ * Lexing is interleaved with parsing, so TOKENIZE is timed by lexing the text of one call in 16
+ * a second time, after the call was timed.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.MetricsSnapshot
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class EvaluatorMetrics {
+
+	/**
+	 * Name the EvaluatorMetricsMXBean is registered under.
+	 */
+	public static final String OBJECT_NAME = "com.chrisdufort.evaluator:type=EvaluatorMetrics";
+
+	//One call in sampleEvery of the text phases is lexed again to time TOKENIZE.
+	static final int SAMPLE_EVERY = 16;
+
+	private static final EvaluationPhase[] PHASES = EvaluationPhase.values();
+	private static final ErrorCode[] CODES = ErrorCode.values();
+
+	private static volatile boolean enabled = Boolean.getBoolean("com.chrisdufort.evaluator.metrics");
+
+	private static final LatencyHistogram[] latencies = new LatencyHistogram[PHASES.length];
+	private static final LongAdder[] errors = new LongAdder[CODES.length];
+	private static final LongAdder tokens = new LongAdder();
+	private static final LongAccumulator depth = new LongAccumulator(Math::max, 0L);
+	private static final LongAdder cacheHits = new LongAdder();
+	private static final LongAdder cacheMisses = new LongAdder();
+	//Racy on purpose, a lost increment only shifts the sample.
+	private static int calls;
+
+	static {
+		for (int phase = 0; phase < latencies.length; phase++)
+			latencies[phase] = new LatencyHistogram();
+		for (int code = 0; code < errors.length; code++)
+			errors[code] = new LongAdder();
+	}
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private EvaluatorMetrics() {
+	}
+
+	/**
+	 * Starts recording, the values recorded before are kept.
+	 */
+	public static void enable() {
+		enabled = true;
+	}
+
+	/**
+	 * Stops recording, the values recorded are kept until reset().
+	 */
+	public static void disable() {
+		enabled = false;
+	}
+
+	/**
+	 * @return	True while the metrics are recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets every metric back to zero. Calls in flight may still record into the new values.
+	 */
+	public static void reset() {
+		for (LatencyHistogram histogram : latencies)
+			histogram.reset();
+		for (LongAdder count : errors)
+			count.reset();
+		tokens.reset();
+		depth.reset();
+		cacheHits.reset();
+		cacheMisses.reset();
+	}
+
+	/**
+	 * @return	The current values of every metric. The values are read one by one while recording goes on,
+	 * 			so they may be off by the calls in flight.
+	 */
+	public static MetricsSnapshot snapshot() {
+		Map<EvaluationPhase, PhaseStats> phases = new EnumMap<EvaluationPhase, PhaseStats>(EvaluationPhase.class);
+		for (EvaluationPhase phase : PHASES)
+			phases.put(phase, latencies[phase.ordinal()].snapshot());
+		Map<ErrorCode, Long> codes = new EnumMap<ErrorCode, Long>(ErrorCode.class);
+		for (ErrorCode code : CODES)
+			codes.put(code, errors[code.ordinal()].sum());
+		return new MetricsSnapshot(phases, codes, tokens.sum(), (int) depth.get(), cacheHits.sum(), cacheMisses.sum());
+	}
+
+	/**
+	 * Registers the EvaluatorMetricsMXBean with the platform MBeanServer, once.
+	 *
+	 * @return	The name it is registered under, OBJECT_NAME.
+	 */
+	public static ObjectName registerMBean() {
+		try{
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			synchronized (EvaluatorMetrics.class)
+			{
+				if (!server.isRegistered(name))
+					server.registerMBean(new View(), name);
+			}
+			return name;
+		}catch(JMException ex){
+			throw new IllegalStateException("Cannot register " + OBJECT_NAME, ex);
+		}
+	}
+
+	/**
+	 * Removes the EvaluatorMetricsMXBean from the platform MBeanServer, if registered.
+	 */
+	public static void unregisterMBean() {
+		try{
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			synchronized (EvaluatorMetrics.class)
+			{
+				if (server.isRegistered(name))
+					server.unregisterMBean(name);
+			}
+		}catch(JMException ex){
+			throw new IllegalStateException("Cannot unregister " + OBJECT_NAME, ex);
+		}
+	}
+
+	/**
+	 * Package level hook called when a timed call starts.
+	 *
+	 * @return	The start time in nanoseconds, 0 when the metrics are off so the call is not recorded.
+	 */
+	static long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Package level hook recording a call that succeeded.
+	 *
+	 * @param phase
+	 * 			The phase of the call.
+	 * @param started
+	 * 			Value returned by start().
+	 */
+	static void record(EvaluationPhase phase, long started) {
+		if (started != 0L)
+			latencies[phase.ordinal()].record(System.nanoTime() - started, false);
+	}
+
+	/**
+	 * Package level hook recording a call that parsed infix text, then timing TOKENIZE on a sample of them.
+	 *
+	 * @param phase
+	 * 			The phase of the call.
+	 * @param started
+	 * 			Value returned by start().
+	 * @param lexer
+	 * 			The lexer the call read, for its token count.
+	 * @param infix
+	 * 			The text read, lexed again when sampled.
+	 * @param registry
+	 * 			The OperatorRegistry of the lexer.
+	 */
+	static void parsed(EvaluationPhase phase, long started, ExpressionLexer lexer, CharSequence infix, OperatorRegistry registry) {
+		if (started == 0L)
+			return;
+		latencies[phase.ordinal()].record(System.nanoTime() - started, false);
+		tokens.add(lexer.tokenCount());
+		if (++calls % SAMPLE_EVERY != 0)
+			return;
+		long lexed = System.nanoTime();
+		try{
+			ExpressionLexer sample = new ExpressionLexer(infix, registry);
+			while (sample.next() != TokenKind.END)
+			{
+				//Only the time taken matters.
+			}
+		}catch(InvalidExpressionFormatException ex){
+			//Already reported by the call.
+		}
+		latencies[EvaluationPhase.TOKENIZE.ordinal()].record(System.nanoTime() - lexed, false);
+	}
+
+	/**
+	 * Package level hook recording a call that failed and counting its ErrorCode.
+	 *
+	 * @param phase
+	 * 			The phase of the call.
+	 * @param ex
+	 * 			The exception thrown by the call.
+	 * @param started
+	 * 			Value returned by start().
+	 * @return	The exception, for the caller to rethrow.
+	 */
+	static InvalidExpressionFormatException failed(EvaluationPhase phase, InvalidExpressionFormatException ex, long started) {
+		if (started != 0L)
+		{
+			latencies[phase.ordinal()].record(System.nanoTime() - started, true);
+			errors[ex.getCode().ordinal()].increment();
+		}
+		return ex;
+	}
+
+	/**
+	 * Package level hook counting tokens that were not read through a lexer, the values of an infix Queue.
+	 *
+	 * @param count
+	 * 			Number of tokens read.
+	 */
+	static void tokens(int count) {
+		if (enabled)
+			tokens.add(count);
+	}
+
+	/**
+	 * Package level hook recording the deepest operand stack of an evaluation.
+	 *
+	 * @param deepest
+	 * 			Number of operands on the stack at its deepest.
+	 */
+	static void depth(int deepest) {
+		if (enabled)
+			depth.accumulate(deepest);
+	}
+
+	/**
+	 * Package level hook counting an ExpressionCache lookup answered from the cache.
+	 */
+	static void cacheHit() {
+		if (enabled)
+			cacheHits.increment();
+	}
+
+	/**
+	 * Package level hook counting an ExpressionCache lookup that had to compile.
+	 */
+	static void cacheMiss() {
+		if (enabled)
+			cacheMisses.increment();
+	}
+
+	/**
+	 * JMX view over the static metrics, each attribute reads a fresh snapshot.
+	 */
+	private static final class View implements EvaluatorMetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return EvaluatorMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			if (enabled)
+				enable();
+			else
+				disable();
+		}
+
+		@Override
+		public long getTokenCount() {
+			return tokens.sum();
+		}
+
+		@Override
+		public int getMaxStackDepth() {
+			return (int) depth.get();
+		}
+
+		@Override
+		public long getCacheHitCount() {
+			return cacheHits.sum();
+		}
+
+		@Override
+		public long getCacheMissCount() {
+			return cacheMisses.sum();
+		}
+
+		@Override
+		public double getCacheHitRate() {
+			return snapshot().cacheHitRate();
+		}
+
+		@Override
+		public Map<String, Long> getPhaseCounts() {
+			Map<String, Long> counts = new TreeMap<String, Long>();
+			for (EvaluationPhase phase : PHASES)
+				counts.put(phase.name(), latencies[phase.ordinal()].snapshot().count());
+			return counts;
+		}
+
+		@Override
+		public Map<String, Double> getPhaseMeanNanos() {
+			Map<String, Double> means = new TreeMap<String, Double>();
+			for (EvaluationPhase phase : PHASES)
+				means.put(phase.name(), latencies[phase.ordinal()].snapshot().meanNanos());
+			return means;
+		}
+
+		@Override
+		public Map<String, Long> getPhaseP99Nanos() {
+			Map<String, Long> percentiles = new TreeMap<String, Long>();
+			for (EvaluationPhase phase : PHASES)
+				percentiles.put(phase.name(), latencies[phase.ordinal()].snapshot().percentileNanos(99));
+			return percentiles;
+		}
+
+		@Override
+		public Map<String, Long> getPhaseMaxNanos() {
+			Map<String, Long> maximums = new TreeMap<String, Long>();
+			for (EvaluationPhase phase : PHASES)
+				maximums.put(phase.name(), latencies[phase.ordinal()].snapshot().maxNanos());
+			return maximums;
+		}
+
+		@Override
+		public Map<String, Long> getErrorCounts() {
+			Map<String, Long> counts = new TreeMap<String, Long>();
+			for (ErrorCode code : CODES)
+				counts.put(code.name(), errors[code.ordinal()].sum());
+			return counts;
+		}
+
+		@Override
+		public void reset() {
+			EvaluatorMetrics.reset();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.chrisdufort.evaluator;
+
+import java.util.Map;
+
+/**
+ * JMX view of the EvaluatorMetrics, registered by EvaluatorMetrics.registerMBean() as
+ * com.chrisdufort.evaluator:type=EvaluatorMetrics. Maps are keyed by phase or error code names.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorMetrics
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public interface EvaluatorMetricsMXBean {
+
+	/**
+	 * @return	True while the metrics are recorded.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * @param enabled
+	 * 			True to record the metrics, false to stop.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return	Number of tokens read from infix text.
+	 */
+	long getTokenCount();
+
+	/**
+	 * @return	Deepest operand stack reached by an evaluation.
+	 */
+	int getMaxStackDepth();
+
+	/**
+	 * @return	Number of ExpressionCache lookups answered from a cache.
+	 */
+	long getCacheHitCount();
+
+	/**
+	 * @return	Number of ExpressionCache lookups that had to compile.
+	 */
+	long getCacheMissCount();
+
+	/**
+	 * @return	Ratio of ExpressionCache lookups answered from a cache.
+	 */
+	double getCacheHitRate();
+
+	/**
+	 * @return	Number of calls of each phase.
+	 */
+	Map<String, Long> getPhaseCounts();
+
+	/**
+	 * @return	Mean latency of each phase, in nanoseconds.
+	 */
+	Map<String, Double> getPhaseMeanNanos();
+
+	/**
+	 * @return	99th percentile latency of each phase, in nanoseconds, accurate to a factor of two.
+	 */
+	Map<String, Long> getPhaseP99Nanos();
+
+	/**
+	 * @return	Longest latency of each phase, in nanoseconds.
+	 */
+	Map<String, Long> getPhaseMaxNanos();
+
+	/**
+	 * @return	Number of errors of each code.
+	 */
+	Map<String, Long> getErrorCounts();
+
+	/**
+	 * Sets every metric back to zero.
+	 */
+	void reset();
+}
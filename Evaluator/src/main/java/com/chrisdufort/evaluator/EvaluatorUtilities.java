@@ -3,13 +3,12 @@ package com.chrisdufort.evaluator;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
-import java.util.NoSuchElementException;
 import java.util.Queue;
 
+import com.chrisdufort.exceptions.ErrorCode;
 import com.chrisdufort.exceptions.InvalidExpressionFormatException;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
 
 /**
@@ -31,6 +30,9 @@ import java.math.RoundingMode;
  */
 public final class EvaluatorUtilities {
 
+	//Marks an opening parenthesis on the operator stack of the registry aware parser.
+	private static final Operation PARENTHESIS = new Operation("(", Operation.Kind.FUNCTION, -1, false, 0, 0, null, null, null);
+	
 	/**
 	 * Private constructor used to prevent instantiation.
 	 */
@@ -47,6 +49,7 @@ public final class EvaluatorUtilities {
 	 * 
 	 * Numbers within bigdecimal's range of values (won't overflow/accurate precision)
 	 * Only Acceptable values = { 0-9, * or x/X , + , - , /,   Negative numbers(-5) , Decimals(5.0) , Decimals without 0 (.5) }
+	 * Variables (rate , qty_2) are carried into the postfix expression, a lone x/X is always a multiplication.
 	 * 
 	 *  Non Exception throwing methods:
 	 *  --------ArrayDeque Implementation class:---------
@@ -65,6 +68,28 @@ public final class EvaluatorUtilities {
 	 * @throws InvalidExpressionFormatException 
 	 */
 	public static Queue<String> infixToPostfix(Queue<String> infix) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		int tokens = infix.size();
+		try{
+			Queue<String> postfix = postfixOf(infix);
+			EvaluatorMetrics.record(EvaluationPhase.INFIX_TO_POSTFIX, started);
+			EvaluatorMetrics.tokens(tokens);
+			return postfix;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.INFIX_TO_POSTFIX, ex, started);
+		}
+	}
+	
+	/**
+	 * Package level conversion of an infix Queue, without metrics, see infixToPostfix(Queue).
+	 * 
+	 * @param infix
+	 * 			A Queue of strings infix expression, consumed by the conversion.
+	 * @return	A postfix expression returned as a Queue of strings to be evaluated.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	static Queue<String> postfixOf(Queue<String> infix) throws InvalidExpressionFormatException {
 		
 		//Operands go here
 		Queue<String> postfixQueue = new ArrayDeque<String>();		
@@ -73,7 +98,11 @@ public final class EvaluatorUtilities {
 		
 		//Value to work with (1 index of the queue/stack)
 		String value;
-		Character ch;
+		char ch;
+		//Precedence of the value, looked up once per operator.
+		int precedence;
+		//Index of the value within the infix queue, for error reports.
+		int position = -1;
 		
 		//Check length
 		//>1 = a number (0.5 , .5 , -1 . -1.5 22, )
@@ -84,6 +113,7 @@ public final class EvaluatorUtilities {
 		{
 			//Retrieve value from front of the queue
 			value = infix.poll();
+			position++;
 			if (value.length() > 1) //If the value is a number
 			{
 				postfixQueue.offer(value); //add it to the end of the queue
@@ -92,33 +122,32 @@ public final class EvaluatorUtilities {
 			{
 				//Turn the first index of the string into a character
 				ch = value.charAt(0);
-				if (Character.isDigit(ch)) //Value is a digit (0-9)
+				if (Character.isDigit(ch) || isVariable(value)) //Value is a digit (0-9) or a one letter variable
 				{
 					postfixQueue.offer(value); //add it to the end of the queue
 				}
 				else //Value is an operand.
 				{
+					precedence = precedenceOf(value);
 					//If operator stack is empty or value is a open parenthesis push the operator onto the stack
-					if (operatorStack.peek() == null || precedenceOf(value)== -1)
+					if (operatorStack.peek() == null || precedence == Operator.OPEN_PARENTHESIS)
 					{
 						operatorStack.push(value);
 					}
 					//Value is a closing parenthesis, trigger the loop to pop off the operator stack.
-					else if (precedenceOf(value) == 2)
+					else if (precedence == Operator.CLOSE_PARENTHESIS)
 					{
 						//loop through taking all contents of the parenthesis transfer from stack to queue
-						while(operatorStack.peek()!= "(" )
+						while(!"(".equals(operatorStack.peek()))
 						{
-							try{
-								postfixQueue.offer(operatorStack.pop());
-							}catch(NoSuchElementException ex){
-								throw new InvalidExpressionFormatException("Missing matching parenthesis", ex.getCause());
-							}
+							if (operatorStack.peek() == null)
+								throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS, "Missing matching parenthesis", position);
+							postfixQueue.offer(operatorStack.pop());
 						}
 						//pop off the opening parenthesis and do not add to queue.
 						operatorStack.pop();
 					}
-					else if(precedenceOf(value) > precedenceOf(operatorStack.peek()) ) //value is > top of stack
+					else if(precedence > precedenceOf(operatorStack.peek()) ) //value is > top of stack
 					{
 						operatorStack.push(value);
 					}
@@ -127,7 +156,7 @@ public final class EvaluatorUtilities {
 						//Loop checking top of stack and pop them if they are less than or equal to the value
 						do
 						postfixQueue.offer(operatorStack.pop());
-						while(operatorStack.peek()!= null && (precedenceOf(value) <= precedenceOf(operatorStack.peek())));
+						while(operatorStack.peek()!= null && (precedence <= precedenceOf(operatorStack.peek())));
 						//add the new value to the stack
 						operatorStack.push(value);		
 					}
@@ -137,18 +166,383 @@ public final class EvaluatorUtilities {
 		//Infix queue is now empty fill the postfixQueue with the remainder of the stack
 		while(operatorStack.peek() != null)
 		{
-			try{
-				//Check if the postfixQueue is only of length one(don't check for operators.)
-				if (postfixQueue.size() > 1 ){
-					postfixQueue.offer(operatorStack.pop());
-				}	
-			}catch (NoSuchElementException ex){
-				throw new InvalidExpressionFormatException("Missing operator.", ex.getCause());
-			}			
+			//Check if the postfixQueue is only of length one(don't check for operators.)
+			if (postfixQueue.size() > 1 ){
+				postfixQueue.offer(operatorStack.pop());
+			}
+			else if ("(".equals(operatorStack.peek())){
+				throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_OPENING_PARENTHESIS, "Missing matching parenthesis", position);
+			}
+			else{
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand", position);
+			}
 		}
 		return postfixQueue;	
 	}
 	
+	/**
+	 * EvalutatorUtilities method for transforming infix expressions held in text into postfix expressions.
+	 * The text is read by an ExpressionLexer, so the caller does not need to split it into tokens first.
+	 * Accepts a String, StringBuilder, NIO CharBuffer or a char[] wrapped with CharBuffer.wrap.
+	 * 
+	 * Operators in the returned queue are shared constants and the multiplication is always written as *.
+	 * 
+	 * @param infix
+	 * 			The infix expression to be transformed into a postfix expression.
+	 * @return	A postfix expression returned as a Queue of strings to be evaluated.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	public static Queue<String> infixToPostfix(CharSequence infix) throws InvalidExpressionFormatException {
+		return infixToPostfix(infix, OperatorRegistry.builtIn());
+	}
+	
+	/**
+	 * Package level shunting-yard step driven by an ExpressionLexer.
+	 * Tokens are consumed as kinds and offsets, only numbers are turned into Strings for the postfix queue.
+	 * 
+	 * @param lexer
+	 * 			The lexer positioned before the first token of the expression.
+	 * @param postfixQueue
+	 * 			The Queue receiving the postfix expression.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	static void infixToPostfix(ExpressionLexer lexer, Queue<String> postfixQueue) throws InvalidExpressionFormatException {
+		//Operators go here
+		Deque<TokenKind> operatorStack = new ArrayDeque<TokenKind>();
+		//Offset of each opening parenthesis still open, for error reports.
+		int[] opens = new int[8];
+		int depth = 0;
+		TokenKind kind;
+		
+		while ((kind = lexer.next()) != TokenKind.END)
+		{
+			switch (kind){
+			case NUMBER:
+			case IDENTIFIER:
+				postfixQueue.offer(lexer.text());
+				break;
+			case OPEN_PARENTHESIS:
+				if (depth == opens.length)
+					opens = Arrays.copyOf(opens, depth * 2);
+				opens[depth++] = lexer.start();
+				operatorStack.push(kind);
+				break;
+			case CLOSE_PARENTHESIS:
+				if (depth == 0)
+					throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS,
+							"Missing matching parenthesis at position " + lexer.start(), lexer.start());
+				//transfer the contents of the parenthesis from stack to queue
+				while (operatorStack.peek() != TokenKind.OPEN_PARENTHESIS)
+				{
+					postfixQueue.offer(operatorStack.pop().symbol());
+				}
+				//pop off the opening parenthesis and do not add to queue.
+				operatorStack.pop();
+				depth--;
+				break;
+			default:
+				//pop operators of greater or equal precedence then push the new one
+				while (operatorStack.peek() != null && kind.precedence() <= operatorStack.peek().precedence())
+				{
+					postfixQueue.offer(operatorStack.pop().symbol());
+				}
+				operatorStack.push(kind);
+				break;
+			}
+		}
+		//Input is exhausted fill the postfixQueue with the remainder of the stack
+		while (operatorStack.peek() != null)
+		{
+			if (operatorStack.peek() == TokenKind.OPEN_PARENTHESIS)
+				throw unmatched(opens[depth - 1]);
+			postfixQueue.offer(operatorStack.pop().symbol());
+		}
+	}
+	
+	/**
+	 * EvalutatorUtilities method for transforming infix expressions held in text into postfix expressions,
+	 * with the operators and functions of an OperatorRegistry on top of the built in ones.
+	 * 
+	 * Unary operators are recognized where an operand is expected, a - at the start of an expression, after
+	 * an operator, an opening parenthesis or a comma. A minus directly followed by a digit is still part of
+	 * the number, so with the standard registry -2 ^ 2 is 4 while -a ^ 2 and - 2 ^ 2 are -(a ^ 2) and -4.
+	 * In the returned queue unary operators are written u followed by their symbol and function calls
+	 * as their name followed by the number of arguments, max(a , b , 3) gives a b 3 max(3).
+	 * The postfix expression is evaluated by CompiledExpression.compile(infix, registry), evaluatePostfix
+	 * rejects its unary operators and calls with ErrorCode.UNKNOWN_OPERATOR.
+	 * 
+	 * @param infix
+	 * 			The infix expression to be transformed into a postfix expression.
+	 * @param registry
+	 * 			The OperatorRegistry the expression may use.
+	 * @return	A postfix expression returned as a Queue of strings.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	public static Queue<String> infixToPostfix(CharSequence infix, OperatorRegistry registry) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		ExpressionLexer lexer = new ExpressionLexer(infix, registry);
+		try{
+			Queue<String> postfix = postfixOf(lexer, registry);
+			EvaluatorMetrics.parsed(EvaluationPhase.INFIX_TO_POSTFIX, started, lexer, infix, registry);
+			return postfix;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.INFIX_TO_POSTFIX, ex, started);
+		}
+	}
+	
+	/**
+	 * Package level conversion of text, without metrics, see infixToPostfix(CharSequence, OperatorRegistry).
+	 * 
+	 * @param lexer
+	 * 			The lexer positioned before the first token of the expression, reading the same registry.
+	 * @param registry
+	 * 			The OperatorRegistry the expression may use.
+	 * @return	A postfix expression returned as a Queue of strings.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	static Queue<String> postfixOf(ExpressionLexer lexer, OperatorRegistry registry) throws InvalidExpressionFormatException {
+		Queue<String> postfixQueue = new ArrayDeque<String>();
+		if (registry.isEmpty())
+			infixToPostfix(lexer, postfixQueue);
+		else
+			infixToPostfix(lexer, registry, postfixQueue);
+		return postfixQueue;
+	}
+	
+	/**
+	 * Package level shunting-yard step over the operators and functions of an OperatorRegistry.
+	 * Unlike the built in step, it tracks whether an operand or an operator is expected, to tell unary operators
+	 * apart and to count the arguments of function calls, so misplaced tokens are reported with their position.
+	 * Without a queue the expression is only checked, see validate.
+	 * 
+	 * @param lexer
+	 * 			The lexer positioned before the first token of the expression, reading the same registry.
+	 * @param registry
+	 * 			The OperatorRegistry of the lexer.
+	 * @param postfixQueue
+	 * 			The Queue receiving the postfix expression, null to only check the expression.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	static void infixToPostfix(ExpressionLexer lexer, OperatorRegistry registry, Queue<String> postfixQueue) throws InvalidExpressionFormatException {
+		//Operators, functions and parenthesis go here
+		Deque<Operation> operatorStack = new ArrayDeque<Operation>();
+		//Commas seen in each open parenthesis, -1 for a parenthesis that is not a call, and where it opened.
+		int[] commas = new int[8];
+		int[] opens = new int[8];
+		int depth = 0;
+		boolean operandExpected = true;
+		TokenKind previous = null;
+		TokenKind kind;
+		
+		while ((kind = lexer.next()) != TokenKind.END)
+		{
+			switch (kind){
+			case NUMBER:
+			case IDENTIFIER:
+				if (!operandExpected)
+					throw missing(ErrorCode.MISSING_OPERATOR, "Missing operator", lexer.start());
+				if (postfixQueue != null)
+					postfixQueue.offer(lexer.text());
+				operandExpected = false;
+				break;
+			case FUNCTION:
+			case OPEN_PARENTHESIS:
+				if (!operandExpected)
+					throw missing(ErrorCode.MISSING_OPERATOR, "Missing operator", lexer.start());
+				if (kind == TokenKind.FUNCTION)
+				{
+					operatorStack.push(registry.functionAt(lexer.entry()));
+					//The lexer only reports a function when a parenthesis follows.
+					lexer.next();
+				}
+				if (depth == commas.length)
+				{
+					commas = Arrays.copyOf(commas, depth * 2);
+					opens = Arrays.copyOf(opens, depth * 2);
+				}
+				opens[depth] = lexer.start();
+				commas[depth++] = kind == TokenKind.FUNCTION ? 0 : -1;
+				operatorStack.push(PARENTHESIS);
+				kind = TokenKind.OPEN_PARENTHESIS;
+				break;
+			case COMMA:
+				if (operandExpected || depth == 0 || commas[depth - 1] < 0)
+					throw missing(ErrorCode.MISPLACED_COMMA, "Misplaced comma", lexer.start());
+				while (operatorStack.peek() != PARENTHESIS)
+				{
+					offer(postfixQueue, operatorStack.pop());
+				}
+				commas[depth - 1]++;
+				operandExpected = true;
+				break;
+			case CLOSE_PARENTHESIS:
+				if (depth == 0)
+					throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS,
+							"Missing matching parenthesis at position " + lexer.start(), lexer.start());
+				boolean empty = previous == TokenKind.OPEN_PARENTHESIS;
+				if (operandExpected && (!empty || commas[depth - 1] < 0))
+					throw missing(ErrorCode.MISSING_OPERAND, "Missing operand", lexer.start());
+				//transfer the contents of the parenthesis from stack to queue
+				while (operatorStack.peek() != PARENTHESIS)
+				{
+					offer(postfixQueue, operatorStack.pop());
+				}
+				operatorStack.pop();
+				int count = commas[--depth];
+				if (count >= 0)
+				{
+					Operation function = operatorStack.pop();
+					int arity = empty ? 0 : count + 1;
+					if (arity < function.getMinimumArity() || arity > function.getMaximumArity())
+						throw new InvalidExpressionFormatException(ErrorCode.WRONG_ARGUMENT_COUNT,
+								"Wrong number of arguments for " + function.getName() + ": " + arity, opens[depth]);
+					if (postfixQueue != null)
+						postfixQueue.offer(function.postfixToken(arity));
+				}
+				operandExpected = false;
+				break;
+			default:
+				//An operator, unary where an operand is expected
+				Operation operation;
+				if (operandExpected)
+				{
+					operation = kind == TokenKind.OPERATOR ? registry.unaryAt(lexer.entry()) : registry.unary(kind.symbol());
+					if (operation == null)
+						throw missing(ErrorCode.MISSING_OPERAND, "Missing operand", lexer.start());
+					//Nothing to its left, a prefix operator is pushed as it is.
+					operatorStack.push(operation);
+					break;
+				}
+				operation = kind == TokenKind.OPERATOR ? registry.binaryAt(lexer.entry()) : OperatorRegistry.operation(Operator.of(kind.symbol()));
+				if (operation == null)
+					throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND,
+							"Not a binary operator: " + lexer.text() + " at position " + lexer.start(), lexer.start());
+				//pop operators that bind tighter, or as tight for a left associative operator, then push the new one
+				while (operatorStack.peek() != null && operatorStack.peek() != PARENTHESIS
+						&& (operatorStack.peek().getPrecedence() > operation.getPrecedence()
+						|| (operatorStack.peek().getPrecedence() == operation.getPrecedence() && !operation.isRightAssociative())))
+				{
+					offer(postfixQueue, operatorStack.pop());
+				}
+				operatorStack.push(operation);
+				operandExpected = true;
+				break;
+			}
+			previous = kind;
+		}
+		if (previous == null)
+			throw new InvalidExpressionFormatException(ErrorCode.EMPTY_EXPRESSION, "Empty expression", 0);
+		if (operandExpected)
+			throw missing(ErrorCode.MISSING_OPERAND, "Missing operand", lexer.start());
+		if (depth > 0)
+			throw unmatched(opens[depth - 1]);
+		//Input is exhausted fill the postfixQueue with the remainder of the stack
+		while (operatorStack.peek() != null)
+		{
+			offer(postfixQueue, operatorStack.pop());
+		}
+	}
+	
+	//Writes an operator popped off the stack, unless only checking the expression.
+	private static void offer(Queue<String> postfixQueue, Operation operation) {
+		if (postfixQueue != null)
+			postfixQueue.offer(operation.postfixToken(1));
+	}
+	
+	private static InvalidExpressionFormatException missing(ErrorCode code, String message, int position) {
+		return new InvalidExpressionFormatException(code, message + " at position " + position, position);
+	}
+	
+	private static InvalidExpressionFormatException unmatched(int position) {
+		return new InvalidExpressionFormatException(ErrorCode.UNMATCHED_OPENING_PARENTHESIS,
+				"Missing matching parenthesis at position " + position, position);
+	}
+	
+	/**
+	 * EvaluatorUtilities method used to check an infix expression held in text without compiling it nor throwing.
+	 * Each token is read once, no postfix expression is built and no String is created for well formed input,
+	 * which makes validating large amounts of user input cheap.
+	 * 
+	 * The check is stricter than infixToPostfix, which leaves some problems (2 3 , 5 +) for evaluation to report:
+	 * a valid expression compiles and evaluates without a structural error, once its variables are bound.
+	 * 
+	 * @param infix
+	 * 			The infix expression to check.
+	 * @return	The ValidationResult, holding the ErrorCode and offset of the first problem.
+	 */
+	public static ValidationResult validate(CharSequence infix) {
+		return validate(infix, OperatorRegistry.builtIn());
+	}
+	
+	/**
+	 * EvaluatorUtilities method used to check an infix expression using the operators and functions of a registry.
+	 * @see com.chrisdufort.evaluator.EvaluatorUtilities#validate(CharSequence)
+	 * 
+	 * @param infix
+	 * 			The infix expression to check.
+	 * @param registry
+	 * 			The OperatorRegistry the expression may use.
+	 * @return	The ValidationResult, holding the ErrorCode and offset of the first problem.
+	 */
+	public static ValidationResult validate(CharSequence infix, OperatorRegistry registry) {
+		try{
+			infixToPostfix(new ExpressionLexer(infix, registry), registry, null);
+			return ValidationResult.valid();
+		}catch(InvalidExpressionFormatException ex){
+			return ValidationResult.of(ex);
+		}
+	}
+	
+	/**
+	 * EvaluatorUtilities method used to evaluate an infix expression held in text in a single pass.
+	 * The text is read by an ExpressionLexer and every operation is applied as soon as the shunting-yard step
+	 * would have written it, on a value stack, so no postfix queue and no String per token is created.
+	 * Intended for one-off expressions, expressions evaluated repeatedly are better kept as a CompiledExpression.
+	 * 
+	 * Results and errors, codes and messages included, are exactly those of
+	 * evaluatePostfix(infixToPostfix(infix)). Positions are offsets into the text, as for syntax errors:
+	 * an evaluation error points at its operator, number or variable rather than at a postfix instruction.
+	 * 
+	 * @param infix
+	 * 			The infix expression to be evaluated, a String, StringBuilder or CharBuffer.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	public static BigDecimal evaluateInfix(CharSequence infix) throws InvalidExpressionFormatException {
+		return evaluateInfix(infix, EvaluationContext.current());
+	}
+	
+	/**
+	 * EvaluatorUtilities method used to evaluate an infix expression held in text in a single pass,
+	 * with the lexer and stacks of an EvaluationContext, which are reset rather than allocated again.
+	 * evaluateInfix(infix) is this method with the context of the calling thread.
+	 * 
+	 * @param infix
+	 * 			The infix expression to be evaluated, a String, StringBuilder or CharBuffer.
+	 * @param context
+	 * 			The EvaluationContext lending its lexer and stacks, used by one thread at a time.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	public static BigDecimal evaluateInfix(CharSequence infix, EvaluationContext context) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		ExpressionLexer lexer = context.lexer(infix);
+		try{
+			BigDecimal result = context.infix().evaluate(lexer);
+			EvaluatorMetrics.parsed(EvaluationPhase.EVALUATE_INFIX, started, lexer, infix, OperatorRegistry.builtIn());
+			return result;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.EVALUATE_INFIX, ex, started);
+		}
+	}
+	
 	/**
 	 * EvaluatorUtilities method used to evaluate a postfix expression.
 	 * This utility method will accept a postfix expression in the form of a queue and will
@@ -170,143 +564,294 @@ public final class EvaluatorUtilities {
 	 * @throws InvalidExpressionFormatException 
 	 */
 	public static BigDecimal evaluatePostfix(Queue<String> postfix) throws InvalidExpressionFormatException {
-		//Operands go here
-		Deque<String> operandStack = new ArrayDeque<String>();
-		//Expressions for math go here
-		Deque<String> expressionDeque = new ArrayDeque<String>();
+		return evaluatePostfix(postfix, PrecisionPolicy.standard());
+	}
+	
+	/**
+	 * EvaluatorUtilities method used to evaluate a postfix expression with the rounding of a PrecisionPolicy,
+	 * for instance PrecisionPolicy.fixedScale(2, RoundingMode.HALF_EVEN) to keep the scale of long chains
+	 * of divisions from growing, or PrecisionPolicy.mathContext(MathContext.DECIMAL128) to round once at the end.
+	 * evaluatePostfix(postfix) is this method with PrecisionPolicy.standard().
+	 * 
+	 * @param postfix
+	 * 			The Queue of Strings, postfix expression to be evaluated.
+	 * @param policy
+	 * 			Rounding of the divisions, of every operation or of the result.
+	 * @return	A BigDecimal representation of the solution, rounded by the policy.
+	 * 
+	 * @throws InvalidExpressionFormatException 
+	 */
+	public static BigDecimal evaluatePostfix(Queue<String> postfix, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		long started = EvaluatorMetrics.start();
+		try{
+			BigDecimal result = valueOf(postfix, policy);
+			EvaluatorMetrics.record(EvaluationPhase.EVALUATE_POSTFIX, started);
+			return result;
+		}catch(InvalidExpressionFormatException ex){
+			throw EvaluatorMetrics.failed(EvaluationPhase.EVALUATE_POSTFIX, ex, started);
+		}
+	}
+	
+	//Evaluation of evaluatePostfix, without the timing.
+	private static BigDecimal valueOf(Queue<String> postfix, PrecisionPolicy policy) throws InvalidExpressionFormatException {
+		//Operands go here, parsed once and kept as numbers between operations.
+		//The stack of the thread's EvaluationContext, no deeper than the number of values.
+		BigDecimal[] operandStack = EvaluationContext.current().decimals(postfix.size());
+		int top = 0;
 		
 		//Variables used for math.
 		BigDecimal operand1;
 		BigDecimal operand2;
 		
-		//Result of mathematical expression inside of expressionDeque
-		BigDecimal result;
-		
 		//Value to work with (1 index of the queue/stack)
 		String value;
+		//Index of the value within the postfix queue, for error reports.
+		int position = -1;
+		//Deepest the stack went, for EvaluatorMetrics.
+		int deepest = 0;
 		
 		while (postfix.peek() != null)
 		{
 			//Retrieve value from front of the queue
 			value = postfix.poll();
-			if (value.length() > 1) //If the value is a number
+			position++;
+			if (isRegistryToken(value)) //u- or max(3), only a CompiledExpression holds the registry applying them
 			{
-				operandStack.push(value);
+				throw new InvalidExpressionFormatException(ErrorCode.UNKNOWN_OPERATOR,
+						"Registry operator needs CompiledExpression.compile(infix, registry): " + value, position);
 			}
-			else //Value is one character long (0-9 OR an Operand)
+			else if (isVariable(value)) //Nothing to bind a variable to here, see CompiledExpression
 			{
-				//Turn the first index of the string into a character
-				Character ch = value.charAt(0);
-				if (Character.isDigit(ch)) //Value is a digit (0-9)
-				{
-					operandStack.push(value);
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + value, position);
+			}
+			else if (isOperand(value)) //If the value is a number
+			{
+				try{
+					operandStack[top] = new BigDecimal(value);
+				}catch(NumberFormatException ex){
+					throw new InvalidExpressionFormatException(ErrorCode.MALFORMED_NUMBER, "Invalid number: " + value, position);
+				}
+				deepest = Math.max(deepest, ++top);
+			}
+			else //Value is an operator, checked for 2 operands on the stack
+			{
+				//Messages kept from the original version, the codes tell the problems apart.
+				if (top == 0)
+					throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis", position);
+				if (top == 1)
+					throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis OR too many operators", position);
+				//Pop the right hand operand
+				operand2 = operandStack[--top];
+				//Pop the left hand operand
+				operand1 = operandStack[top - 1];
+				
+				//value is an operator (* , / , + , -), return result to the stack.
+				try{
+					operandStack[top - 1] = policy.apply(operand1, Operator.of(value), operand2);
+				}catch(ArithmeticException ex){
+					throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage(), position);
 				}
-				else //Value is an operator (guaranteed 2 operands on stack at this point)
-				{
-					try{
-						//Pop operand add to end
-						expressionDeque.addLast(operandStack.pop());
-					}catch (NoSuchElementException ex){
-						throw new InvalidExpressionFormatException("Missing matching parenthesis", ex.getCause());
-					}
-					
-					//add value(operator) to front
-					expressionDeque.addFirst(value);			
-					try{
-						//Pop second operand add to front
-						expressionDeque.addFirst(operandStack.pop());
-					}catch(NoSuchElementException ex){
-						throw new InvalidExpressionFormatException("Missing matching parenthesis OR too many operators", ex.getCause());
-					}
-					
-					operand1 = new BigDecimal(expressionDeque.removeFirst());
-					String operator = expressionDeque.removeFirst();
-					operand2 = new BigDecimal(expressionDeque.removeFirst());
-					
-					//value is an operator (* , / , + , -)
-					try{
-						result = doMath(operand1, operator, operand2);
-					}catch(ArithmeticException ex){
-						throw new InvalidExpressionFormatException(ex.getMessage(), ex.getCause());
-					}
-					
-					//return result to the stack.
-					operandStack.push(String.valueOf(result));
-				}	
 			}
 		}	
+		EvaluatorMetrics.depth(deepest);
 		//When all values in postfix queue are exhausted return contents of operandStack
-		try{
-			if (operandStack.size() > 1)
-				throw new InvalidExpressionFormatException("Too much operands");
-			return new BigDecimal(operandStack.pop(),MathContext.DECIMAL64);
-		}catch (NoSuchElementException ex){
-			throw new InvalidExpressionFormatException("Missing operand", ex.getCause());
+		if (top > 1)
+			throw new InvalidExpressionFormatException(ErrorCode.TOO_MANY_OPERANDS, "Too much operands", position);
+		if (top == 0)
+			throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand", position);
+		return policy.result(operandStack[0]);
+	}
+	
+	/**
+	 * This utility method will accept a postfix expression in the form of a queue and will return an optimized
+	 * postfix expression evaluating to the same value: constant sub-expressions are computed once,
+	 * identity operations (* 1 , + 0 , - 0) are dropped where they cannot change the scale of the result.
+	 * Folding uses the same BigDecimal arithmetic as evaluatePostfix, including 16 place divisions,
+	 * so the result of evaluatePostfix is unchanged. A division by zero is left for evaluatePostfix to report.
+	 * 
+	 * The provided queue is left untouched, malformed expressions are returned as they are.
+	 * @see com.chrisdufort.evaluator.CompiledExpression#optimize()
+	 * 
+	 * @param postfix
+	 * 			The Queue of Strings, postfix expression to be optimized.
+	 * @return	A new Queue holding the optimized postfix expression.
+	 */
+	public static Queue<String> optimizePostfix(Queue<String> postfix) {
+		String[] program = postfix.toArray(new String[postfix.size()]);
+		return new ArrayDeque<String>(Arrays.asList(PostfixOptimizer.optimize(program)));
+	}
+	
+	/**
+	 * Package level method used to tell operands apart from operators in a postfix expression.
+	 * Values longer than one character are numbers (0.5 , .5 , -1 , 22) or variables as are single digits (0-9)
+	 * and single letter variables, anything else is an operator.
+	 * 
+	 * @param value
+	 * 			One value of a postfix expression.
+	 * @return	True if the value is an operand.
+	 */
+	static boolean isOperand(String value) {
+		return value.length() > 1 || Character.isDigit(value.charAt(0)) || isVariable(value);
+	}
+	
+	/**
+	 * Package level method used to recognize variables in an expression.
+	 * A variable starts with a letter or an underscore, a lone x or X is the multiplication operator.
+	 * 
+	 * @param value
+	 * 			One value of an infix or postfix expression.
+	 * @return	True if the value names a variable.
+	 */
+	static boolean isVariable(String value) {
+		char first = value.charAt(0);
+		if (!Character.isLetter(first) && first != '_')
+			return false;
+		return value.length() > 1 || (first != 'x' && first != 'X');
+	}
+	
+	/**
+	 * Unary operators and function calls of an OperatorRegistry, written by infixToPostfix(infix, registry)
+	 * as u- or max(3): they start like a variable but hold a character no variable name has.
+	 * 
+	 * @param value
+	 * 			One value of a postfix expression.
+	 * @return	True if the value is a registry unary operator or call.
+	 */
+	private static boolean isRegistryToken(String value) {
+		if (!isVariable(value))
+			return false;
+		for (int index = 1; index < value.length(); index++)
+		{
+			char ch = value.charAt(index);
+			if (!Character.isLetterOrDigit(ch) && ch != '_')
+				return true;
 		}
+		return false;
 	}
 	
 	/**
-	 * Private mathematics method used by the evaluator utility methods to perform operations on operands.
+	 * Package level mathematics method used by the evaluator utility methods to perform operations on operands.
 	 * Passed in through parameters are all three necessary ingredients to perform an operation.
-	 * Operators are passed in as strings, and BigDecimal operators associated are performed.
+	 * Operators are looked up once by the caller (see Operator.of), and BigDecimal operators associated are performed.
 	 * 
 	 * @param operand1
 	 * 			First BigDecimal Operand used in the operation.
 	 * @param operator
-	 * 			The String Operator used in the operation.
+	 * 			The Operator used in the operation, null for an unknown operator which results in 0.
 	 * @param operand2
 	 * 			Second BigDecimal Operand used in the operation.
 	 * @return	A BigDecimal representation with accurate precision of the result of operation.
 	 */
-	private static BigDecimal doMath(BigDecimal operand1, String operator, BigDecimal operand2) {
+	static BigDecimal doMath(BigDecimal operand1, Operator operator, BigDecimal operand2) {
 		BigDecimal result = new BigDecimal(0.0);
+		if (operator == null)
+			return result;
 		switch (operator){
-		case "-":
+		case SUBTRACT:
 			result = operand1.subtract(operand2);
 			break;
-		case "+":
+		case ADD:
 			result = operand1.add(operand2);
 			break;
-		case "*":
-		case "x":
-		case "X":
+		case MULTIPLY:
 			result = operand1.multiply(operand2);
 			break;
-		case "/":
+		case DIVIDE:
+			//Thrown explicitly, the JIT may drop the message of the implicit long division error once hot.
+			if (operand2.signum() == 0)
+				throw new ArithmeticException("/ by zero");
 			result = operand1.divide(operand2,16, RoundingMode.HALF_UP); //In order to prevent non terminating decimals.
 			break;
 		}
 		return result;
 	}
+	
+	/**
+	 * Package level mathematics method used by the double evaluation mode of CompiledExpression.
+	 * Follows IEEE 754 semantics, division by zero results in an infinity or NaN rather than an exception.
+	 * 
+	 * @param operand1
+	 * 			First double Operand used in the operation.
+	 * @param operator
+	 * 			The Operator used in the operation, null for an unknown operator which results in 0.
+	 * @param operand2
+	 * 			Second double Operand used in the operation.
+	 * @return	The double result of the operation.
+	 */
+	static double doMath(double operand1, Operator operator, double operand2) {
+		double result = 0.0;
+		if (operator == null)
+			return result;
+		switch (operator){
+		case SUBTRACT:
+			result = operand1 - operand2;
+			break;
+		case ADD:
+			result = operand1 + operand2;
+			break;
+		case MULTIPLY:
+			result = operand1 * operand2;
+			break;
+		case DIVIDE:
+			result = operand1 / operand2;
+			break;
+		}
+		return result;
+	}
+	
+	/**
+	 * Package level mathematics method used by the exact long evaluation mode of CompiledExpression.
+	 * An ArithmeticException is thrown whenever the result cannot be represented exactly as a long
+	 * (overflow, division by zero or a division leaving a remainder) so the caller can fall back to BigDecimal.
+	 * 
+	 * @param operand1
+	 * 			First long Operand used in the operation.
+	 * @param operator
+	 * 			The Operator used in the operation, null for an unknown operator which results in 0.
+	 * @param operand2
+	 * 			Second long Operand used in the operation.
+	 * @return	The exact long result of the operation.
+	 */
+	static long doMath(long operand1, Operator operator, long operand2) {
+		long result = 0L;
+		if (operator == null)
+			return result;
+		switch (operator){
+		case SUBTRACT:
+			result = Math.subtractExact(operand1, operand2);
+			break;
+		case ADD:
+			result = Math.addExact(operand1, operand2);
+			break;
+		case MULTIPLY:
+			result = Math.multiplyExact(operand1, operand2);
+			break;
+		case DIVIDE:
+			if (operand2 == 0 || operand1 % operand2 != 0 || (operand1 == Long.MIN_VALUE && operand2 == -1))
+				throw new ArithmeticException("Inexact long division");
+			result = operand1 / operand2;
+			break;
+		}
+		return result;
+	}
 
 
 	/**
-	 * Private precedence finding method used by the evaluator utility methods.
+	 * Package level precedence finding method used by the evaluator utility methods.
 	 * This method receives a string representation of an operand and returns its associated precedence. 
 	 * Operator precedence is based on P>E>M>D>A>S & with changed made for use within this class.
+	 * Precedences come from the table of the Operator enum: + - are 0, * x X / are 1, ( is -1 and ) is 2.
 	 * 
 	 * @param operand
 	 * 			String representation of the operand for which to check precedence.
 	 * @return	Integer representation of the operator's precedence.
 	 * 
 	 */
-	private static int precedenceOf(String operator) {
-	    switch (operator) 
-	    {
-	        case "+":
-	        case "-":
-	        	return 0;
-	        case "*":
-	        case "x":
-	        case "X":
-	        case "/":
-	        	return 1;
-	        case "(":
-	        	return -1;
-	        case ")":
-	        	return 2;
-	        default:
-	            throw new IllegalArgumentException("Operator unknown: " + operator);
-	    }   
+	static int precedenceOf(String operator) {
+		//Table lookup by character, see Operator, no String hashing.
+		int precedence = operator.length() == 1 ? Operator.precedenceOf(operator.charAt(0)) : Operator.NOT_AN_OPERATOR;
+		if (precedence == Operator.NOT_AN_OPERATOR)
+			throw new IllegalArgumentException("Operator unknown: " + operator);
+		return precedence;
 	}
 }
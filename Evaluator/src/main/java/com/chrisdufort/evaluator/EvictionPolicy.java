@@ -0,0 +1,24 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Eviction policies available to the ExpressionCache.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.ExpressionCache
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum EvictionPolicy {
+
+	/**
+	 * Least recently used expression is evicted first.
+	 */
+	LRU,
+
+	/**
+	 * W-TinyLFU style: new expressions enter a small LRU window, and leaving the window they are only
+	 * admitted into the main LRU area when they are estimated to be used more often than its eldest entry.
+	 * Resists one-off expressions flushing the frequently used ones.
+	 */
+	TINY_LFU
+}
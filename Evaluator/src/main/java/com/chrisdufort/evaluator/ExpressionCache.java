@@ -0,0 +1,379 @@
+package com.chrisdufort.evaluator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Bounded, concurrent cache of CompiledExpressions keyed by their source text.
+ * A hit skips both the tokenizing and the infixToPostfix step.
+ *
+ * Lookups go through a ConcurrentHashMap and never block, the recency order used for eviction is only
+ * updated when the cache lock is free (lossy, as the order of a hot entry hardly matters).
+ * Misses compile outside of the lock, two threads missing on the same text may both compile it,
+ * only one of the results is kept.
+ *
+ * Instances are created through the Builder:
+ * ExpressionCache.builder().maximumSize(10000).evictionPolicy(EvictionPolicy.TINY_LFU).build()
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvictionPolicy
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ExpressionCache {
+
+	private final ConcurrentHashMap<String, Node> map;
+	private final int maximumSize;
+	private final EvictionPolicy policy;
+	private final long expireAfterAccessNanos;
+	private final LongSupplier ticker;
+	private final OperatorRegistry registry;
+
+	//Recency lists, only touched while holding the lock. The window is only used by TINY_LFU.
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Node window = Node.sentinel();
+	private final Node main = Node.sentinel();
+	private final int windowMaximum;
+	private int windowSize;
+	private int mainSize;
+	private final FrequencySketch sketch;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	private ExpressionCache(Builder builder) {
+		this.maximumSize = builder.maximumSize;
+		this.policy = builder.policy;
+		this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+		this.ticker = builder.ticker;
+		this.registry = builder.registry;
+		this.map = new ConcurrentHashMap<String, Node>(Math.min(maximumSize, 1 << 16));
+		if (policy == EvictionPolicy.TINY_LFU)
+		{
+			this.windowMaximum = Math.max(1, maximumSize / 100);
+			this.sketch = new FrequencySketch(maximumSize);
+		}
+		else
+		{
+			this.windowMaximum = 0;
+			this.sketch = null;
+		}
+	}
+
+	/**
+	 * @return	A Builder for an ExpressionCache, by default LRU with 1000 entries and no expiry.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the compiled form of the expression, compiling and caching it on a miss.
+	 *
+	 * @param source
+	 * 			The infix expression text.
+	 * @return	The CompiledExpression for the text.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the text is not a valid expression, invalid text is never cached.
+	 */
+	public CompiledExpression get(CharSequence source) throws InvalidExpressionFormatException {
+		String key = source.toString();
+		long now = expireAfterAccessNanos > 0 ? ticker.getAsLong() : 0L;
+
+		Node node = map.get(key);
+		if (node != null)
+		{
+			if (expireAfterAccessNanos > 0 && now - node.accessTime > expireAfterAccessNanos)
+			{
+				if (map.remove(key, node))
+				{
+					expirations.increment();
+					unlinkLater(node);
+				}
+			}
+			else
+			{
+				hits.increment();
+				EvaluatorMetrics.cacheHit();
+				node.accessTime = now;
+				if (lock.tryLock())
+				{
+					try{
+						onAccess(node);
+					}finally{
+						lock.unlock();
+					}
+				}
+				return node.value;
+			}
+		}
+
+		misses.increment();
+		EvaluatorMetrics.cacheMiss();
+		CompiledExpression value = CompiledExpression.compile(key, registry);
+		Node created = new Node(key, value, now);
+		Node existing = map.putIfAbsent(key, created);
+		if (existing != null)
+			return existing.value;
+
+		lock.lock();
+		try{
+			onInsert(created);
+		}finally{
+			lock.unlock();
+		}
+		return value;
+	}
+
+	/**
+	 * @return	Snapshot of the hit, miss, eviction and expiration counters.
+	 */
+	public CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), map.size());
+	}
+
+	/**
+	 * @return	Number of expressions currently cached.
+	 */
+	public int size() {
+		return map.size();
+	}
+
+	/**
+	 * Removes every expression, counters are kept.
+	 */
+	public void clear() {
+		lock.lock();
+		try{
+			map.clear();
+			while (window.next != window)
+				unlink(window.next);
+			while (main.next != main)
+				unlink(main.next);
+			windowSize = mainSize = 0;
+		}finally{
+			lock.unlock();
+		}
+	}
+
+	//Lock held: move a hit to the most recent end of its list.
+	private void onAccess(Node node) {
+		if (sketch != null)
+			sketch.increment(node.hash);
+		if (node.next != null)
+		{
+			unlink(node);
+			linkLast(node.inWindow ? window : main, node);
+		}
+	}
+
+	//Lock held: place a new entry and evict until the cache fits again.
+	private void onInsert(Node node) {
+		if (map.get(node.key) != node)
+			return; //Already expired or cleared by another thread.
+
+		if (sketch == null)
+		{
+			linkLast(main, node);
+			mainSize++;
+			while (mainSize > maximumSize)
+				evict(main.next);
+			return;
+		}
+
+		sketch.increment(node.hash);
+		node.inWindow = true;
+		linkLast(window, node);
+		windowSize++;
+		if (windowSize <= windowMaximum)
+			return;
+
+		//Window overflows, its eldest entry competes with the eldest of the main area.
+		Node candidate = window.next;
+		unlink(candidate);
+		windowSize--;
+		candidate.inWindow = false;
+		if (mainSize < maximumSize - windowMaximum)
+		{
+			linkLast(main, candidate);
+			mainSize++;
+			return;
+		}
+		Node victim = main.next;
+		if (victim != main && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash))
+		{
+			evict(victim);
+			linkLast(main, candidate);
+			mainSize++;
+		}
+		else
+		{
+			//Refused admission, counts as an eviction of the candidate.
+			map.remove(candidate.key, candidate);
+			evictions.increment();
+		}
+	}
+
+	//Lock held: remove the node from its list and from the map.
+	private void evict(Node node) {
+		unlink(node);
+		if (node.inWindow)
+			windowSize--;
+		else
+			mainSize--;
+		map.remove(node.key, node);
+		evictions.increment();
+	}
+
+	//Expired nodes are already out of the map, drop them from their list when the lock is taken.
+	private void unlinkLater(Node node) {
+		lock.lock();
+		try{
+			if (node.next != null)
+			{
+				unlink(node);
+				if (node.inWindow)
+					windowSize--;
+				else
+					mainSize--;
+			}
+		}finally{
+			lock.unlock();
+		}
+	}
+
+	private static void linkLast(Node list, Node node) {
+		node.prev = list.prev;
+		node.next = list;
+		list.prev.next = node;
+		list.prev = node;
+	}
+
+	private static void unlink(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = node.next = null;
+	}
+
+	/**
+	 * Entry of the cache, also a link of one of the recency lists.
+	 */
+	private static final class Node {
+		final String key;
+		final int hash;
+		final CompiledExpression value;
+		volatile long accessTime;
+		boolean inWindow;
+		Node prev;
+		Node next;
+
+		Node(String key, CompiledExpression value, long accessTime) {
+			this.key = key;
+			this.hash = key == null ? 0 : key.hashCode();
+			this.value = value;
+			this.accessTime = accessTime;
+		}
+
+		static Node sentinel() {
+			Node node = new Node(null, null, 0L);
+			node.prev = node.next = node;
+			return node;
+		}
+	}
+
+	/**
+	 * Builder used to configure an ExpressionCache.
+	 */
+	public static final class Builder {
+
+		private int maximumSize = 1000;
+		private EvictionPolicy policy = EvictionPolicy.LRU;
+		private long expireAfterAccessNanos;
+		private LongSupplier ticker = System::nanoTime;
+		private OperatorRegistry registry = OperatorRegistry.builtIn();
+
+		private Builder() {
+		}
+
+		/**
+		 * @param maximumSize
+		 * 			Maximum number of expressions kept, at least 1.
+		 * @return	This Builder.
+		 */
+		public Builder maximumSize(int maximumSize) {
+			if (maximumSize < 1)
+				throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * @param policy
+		 * 			The EvictionPolicy used once the cache is full.
+		 * @return	This Builder.
+		 */
+		public Builder evictionPolicy(EvictionPolicy policy) {
+			if (policy == null)
+				throw new IllegalArgumentException("Eviction policy must not be null");
+			this.policy = policy;
+			return this;
+		}
+
+		/**
+		 * Expressions not looked up for longer than the duration are dropped.
+		 *
+		 * @param duration
+		 * 			Idle time after which an expression expires, 0 disables expiry.
+		 * @param unit
+		 * 			Unit of the duration.
+		 * @return	This Builder.
+		 */
+		public Builder expireAfterAccess(long duration, TimeUnit unit) {
+			if (duration < 0)
+				throw new IllegalArgumentException("Duration must not be negative: " + duration);
+			this.expireAfterAccessNanos = unit.toNanos(duration);
+			return this;
+		}
+
+		/**
+		 * Replaces System.nanoTime as the time source of the expiry, mostly useful for tests.
+		 *
+		 * @param ticker
+		 * 			Supplier of the current time in nanoseconds.
+		 * @return	This Builder.
+		 */
+		public Builder ticker(LongSupplier ticker) {
+			this.ticker = ticker;
+			return this;
+		}
+
+		/**
+		 * Operators and functions the cached expressions may use, only the built in ones by default.
+		 *
+		 * @param registry
+		 * 			The OperatorRegistry expressions are compiled with.
+		 * @return	This Builder.
+		 */
+		public Builder registry(OperatorRegistry registry) {
+			if (registry == null)
+				throw new IllegalArgumentException("Registry must not be null");
+			this.registry = registry;
+			return this;
+		}
+
+		/**
+		 * @return	A new, empty ExpressionCache.
+		 */
+		public ExpressionCache build() {
+			return new ExpressionCache(this);
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package com.chrisdufort.evaluator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Package level binary form of a CompiledExpression, read back without converting nor parsing anything.
+ *
+ * Layout, every count and index a variable length unsigned int (7 bits per byte, low bits first):
+ * a version byte, the variable table (names), the token table (function calls, unary operators and
+ * unknown values kept verbatim), the constant pool, the program and the source instructions, source
+ * being empty when the expression was not optimized.
+ * Each constant holds its text, so toPostfix() gives back the same values, then its scale and unscaled value,
+ * a zigzag long or the two's complement bytes of a BigInteger, so no number is parsed when decoding.
+ * Each instruction is one opcode byte, the ordinal of a built in Operator or a table kind followed by an index.
+ *
+ * Variables, constants and tokens are stored once however often they appear, so the encoding is usually
+ * smaller than the infix text. Strings are UTF-8.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.FormulaStore
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class ExpressionCodec {
+
+	static final int VERSION = 1;
+
+	//Opcodes after the Operator ordinals.
+	private static final int CONSTANT = 16;
+	private static final int VARIABLE = 17;
+	private static final int TOKEN = 18;
+
+	private static final Operator[] OPERATORS = Operator.values();
+	private static final String[] NO_STRINGS = new String[0];
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private ExpressionCodec() {
+	}
+
+	/**
+	 * @param expression
+	 * 			The CompiledExpression to encode.
+	 * @return	The encoded expression.
+	 */
+	static byte[] encode(CompiledExpression expression) {
+		String[] program = expression.program();
+		String[] source = expression.source();
+		Table variables = new Table();
+		Table tokens = new Table();
+		Table constants = new Table();
+		List<BigDecimal> values = new ArrayList<BigDecimal>();
+		ByteArrayOutputStream instructions = new ByteArrayOutputStream(program.length * 2);
+
+		writeInt(instructions, program.length);
+		for (int index = 0; index < program.length; index++)
+			writeInstruction(instructions, program[index], expression.operand(index), variables, tokens, constants, values);
+		writeInt(instructions, source == program ? 0 : source.length);
+		if (source != program)
+		{
+			for (String value : source)
+				writeInstruction(instructions, value, parse(value), variables, tokens, constants, values);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(instructions.size() + 64);
+		out.write(VERSION);
+		variables.writeTo(out);
+		tokens.writeTo(out);
+		writeInt(out, values.size());
+		for (int index = 0; index < values.size(); index++)
+		{
+			writeString(out, constants.names.get(index));
+			writeConstant(out, values.get(index));
+		}
+		byte[] body = instructions.toByteArray();
+		out.write(body, 0, body.length);
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param in
+	 * 			Buffer positioned on an encoded expression, left after it.
+	 * @param registry
+	 * 			The operators and functions the expression may call.
+	 * @return	The decoded CompiledExpression.
+	 *
+	 * @throws IOException
+	 * 			If the buffer does not hold an encoded expression or holds a newer version.
+	 */
+	static CompiledExpression decode(ByteBuffer in, OperatorRegistry registry) throws IOException {
+		try{
+			int version = in.get() & 0xFF;
+			if (version != VERSION)
+				throw new IOException("Unsupported compiled expression version: " + version);
+			String[] variables = readStrings(in);
+			String[] tokens = readStrings(in);
+			String[] constantTexts = new String[readInt(in)];
+			BigDecimal[] constantValues = new BigDecimal[constantTexts.length];
+			for (int index = 0; index < constantTexts.length; index++)
+			{
+				constantTexts[index] = readString(in);
+				constantValues[index] = readConstant(in);
+			}
+			String[] program = new String[readInt(in)];
+			BigDecimal[] constants = new BigDecimal[program.length];
+			readInstructions(in, program, constants, variables, tokens, constantTexts, constantValues);
+			int sourceLength = readInt(in);
+			String[] source = program;
+			if (sourceLength > 0)
+			{
+				source = new String[sourceLength];
+				readInstructions(in, source, null, variables, tokens, constantTexts, constantValues);
+			}
+			return CompiledExpression.of(program, source, constants, registry);
+		}catch(BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException ex){
+			throw new IOException("Corrupt compiled expression", ex);
+		}catch(InvalidExpressionFormatException ex){
+			throw new IOException("Corrupt compiled expression", ex);
+		}
+	}
+
+	private static void writeInstruction(ByteArrayOutputStream out, String value, BigDecimal constant, Table variables,
+			Table tokens, Table constants, List<BigDecimal> values) {
+		Operator operator = Operator.of(value);
+		if (operator != null && operator.symbol().equals(value))
+		{
+			out.write(operator.ordinal());
+		}
+		else if (EvaluatorUtilities.isVariable(value))
+		{
+			out.write(VARIABLE);
+			writeInt(out, variables.indexOf(value));
+		}
+		else if (constant != null)
+		{
+			int index = constants.indexOf(value);
+			if (index == values.size())
+				values.add(constant);
+			out.write(CONSTANT);
+			writeInt(out, index);
+		}
+		else
+		{
+			out.write(TOKEN);
+			writeInt(out, tokens.indexOf(value));
+		}
+	}
+
+	private static void readInstructions(ByteBuffer in, String[] instructions, BigDecimal[] constants, String[] variables,
+			String[] tokens, String[] constantTexts, BigDecimal[] constantValues) throws IOException {
+		for (int index = 0; index < instructions.length; index++)
+		{
+			int opcode = in.get() & 0xFF;
+			if (opcode < OPERATORS.length)
+			{
+				instructions[index] = OPERATORS[opcode].symbol();
+			}
+			else if (opcode == CONSTANT)
+			{
+				int constant = readInt(in);
+				instructions[index] = constantTexts[constant];
+				if (constants != null)
+					constants[index] = constantValues[constant];
+			}
+			else if (opcode == VARIABLE)
+			{
+				instructions[index] = variables[readInt(in)];
+			}
+			else if (opcode == TOKEN)
+			{
+				instructions[index] = tokens[readInt(in)];
+			}
+			else
+			{
+				throw new IOException("Corrupt compiled expression, unknown opcode: " + opcode);
+			}
+		}
+	}
+
+	//Operands of the source were parsed when it was compiled, it cannot hold a malformed number.
+	private static BigDecimal parse(String value) {
+		if (!EvaluatorUtilities.isOperand(value) || EvaluatorUtilities.isVariable(value))
+			return null;
+		try{
+			return new BigDecimal(value);
+		}catch(NumberFormatException ex){
+			return null;
+		}
+	}
+
+	private static void writeConstant(ByteArrayOutputStream out, BigDecimal value) {
+		writeLong(out, value.scale());
+		BigInteger unscaled = value.unscaledValue();
+		if (unscaled.bitLength() < 64)
+		{
+			out.write(0);
+			writeLong(out, unscaled.longValue());
+		}
+		else
+		{
+			byte[] bytes = unscaled.toByteArray();
+			out.write(1);
+			writeInt(out, bytes.length);
+			out.write(bytes, 0, bytes.length);
+		}
+	}
+
+	private static BigDecimal readConstant(ByteBuffer in) throws IOException {
+		int scale = (int) readLong(in);
+		int kind = in.get();
+		if (kind == 0)
+			return BigDecimal.valueOf(readLong(in), scale);
+		if (kind != 1)
+			throw new IOException("Corrupt compiled expression, unknown constant kind: " + kind);
+		byte[] bytes = new byte[readInt(in)];
+		in.get(bytes);
+		return new BigDecimal(new BigInteger(bytes), scale);
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = readInt(in);
+		String value;
+		if (in.hasArray())
+		{
+			value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+		}
+		else
+		{
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return value;
+	}
+
+	private static String[] readStrings(ByteBuffer in) {
+		int count = readInt(in);
+		if (count == 0)
+			return NO_STRINGS;
+		String[] values = new String[count];
+		for (int index = 0; index < count; index++)
+			values[index] = readString(in);
+		return values;
+	}
+
+	/**
+	 * Package level variable length write of a non negative int, 7 bits per byte, low bits first.
+	 *
+	 * @param out
+	 * 			The stream written.
+	 * @param value
+	 * 			The value, at least 0.
+	 */
+	static void writeInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Package level read of an int written by writeInt.
+	 *
+	 * @param in
+	 * 			The buffer read.
+	 * @return	The value.
+	 */
+	static int readInt(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			byte next = in.get();
+			value |= (next & 0x7F) << shift;
+			if (next >= 0)
+				return value;
+		}
+		throw new IndexOutOfBoundsException("Variable length int too long");
+	}
+
+	//Zigzag encoding keeps small negative values short.
+	private static void writeLong(ByteArrayOutputStream out, long value) {
+		long zigzag = (value << 1) ^ (value >> 63);
+		while ((zigzag & ~0x7FL) != 0L)
+		{
+			out.write((int) (zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		out.write((int) zigzag);
+	}
+
+	private static long readLong(ByteBuffer in) {
+		long zigzag = 0L;
+		for (int shift = 0; shift < 70; shift += 7)
+		{
+			byte next = in.get();
+			zigzag |= (long) (next & 0x7F) << shift;
+			if (next >= 0)
+				return (zigzag >>> 1) ^ -(zigzag & 1L);
+		}
+		throw new IndexOutOfBoundsException("Variable length long too long");
+	}
+
+	/**
+	 * Strings numbered in order of first appearance.
+	 */
+	private static final class Table {
+
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+		private final List<String> names = new ArrayList<String>();
+
+		int indexOf(String value) {
+			Integer index = indexes.get(value);
+			if (index == null)
+			{
+				index = names.size();
+				indexes.put(value, index);
+				names.add(value);
+			}
+			return index;
+		}
+
+		void writeTo(ByteArrayOutputStream out) {
+			writeInt(out, names.size());
+			for (String name : names)
+				writeString(out, name);
+		}
+	}
+}
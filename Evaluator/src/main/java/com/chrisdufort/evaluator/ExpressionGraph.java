@@ -0,0 +1,334 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Set of named formulas over shared variables, compiled into one graph of sub-expressions and re-evaluated
+ * incrementally, for workloads where one variable changes at a time.
+ *
+ * Each sub-expression is a node, interned by its operator and operand nodes, so a sub-expression written in
+ * several formulas, or several times in one, is a single node computed once. Nodes memoize their value.
+ * set() only marks the nodes downstream of the changed variable as stale, value() recomputes the stale nodes
+ * the formula depends on and reuses every other value. Setting a variable to the value it already holds
+ * invalidates nothing.
+ *
+ * Results are the ones of CompiledExpression.evaluate(): formulas are optimized with CompiledExpression.optimize()
+ * and computed with the same BigDecimal arithmetic, the formula value is rounded to 16 places at the end.
+ * Sharing is structural, a + b and b + a are two nodes.
+ *
+ * A graph is mutable and not thread safe.
+ *
+ * ExpressionGraph graph = ExpressionGraph.create();
+ * graph.define("total", "price * qty * (1 + tax)");
+ * graph.set("price", price); graph.set("qty", qty); graph.set("tax", tax);
+ * graph.value("total");
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.GraphStats
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ExpressionGraph {
+
+	private final OperatorRegistry registry;
+	//Every node by its structural key.
+	private final Map<String, Node> nodes = new HashMap<String, Node>();
+	private final Map<String, Node> variables = new LinkedHashMap<String, Node>();
+	private final Map<String, Node> formulas = new LinkedHashMap<String, Node>();
+
+	private long recomputed;
+	private long reused;
+	private long invalidated;
+	private long shared;
+	//Number of the current evaluation pass, tells values computed by the pass from reused ones.
+	private int pass;
+
+	private ExpressionGraph(OperatorRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * @return	An empty graph of formulas using the built in operators.
+	 */
+	public static ExpressionGraph create() {
+		return new ExpressionGraph(OperatorRegistry.builtIn());
+	}
+
+	/**
+	 * @param registry
+	 * 			The operators and functions the formulas may use.
+	 * @return	An empty graph of formulas.
+	 */
+	public static ExpressionGraph create(OperatorRegistry registry) {
+		if (registry == null)
+			throw new IllegalArgumentException("Registry must not be null");
+		return new ExpressionGraph(registry);
+	}
+
+	/**
+	 * Compiles a formula into the graph, sharing the sub-expressions already known.
+	 * Defining a name again replaces its formula, the nodes of the old one are kept.
+	 *
+	 * @param name
+	 * 			Name of the formula.
+	 * @param infix
+	 * 			The infix expression of the formula.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed.
+	 */
+	public void define(String name, CharSequence infix) throws InvalidExpressionFormatException {
+		CompiledExpression expression = CompiledExpression.compile(infix, registry).optimize();
+		expression.checkStructure();
+		Deque<Node> stack = new ArrayDeque<Node>();
+		for (String value : expression.toPostfix())
+		{
+			Operation call = registry.isEmpty() ? null : registry.resolve(value);
+			if (call != null)
+			{
+				Node[] children = new Node[OperatorRegistry.arityOf(call, value)];
+				for (int index = children.length - 1; index >= 0; index--)
+					children[index] = stack.pop();
+				stack.push(intern(value, null, call, children));
+			}
+			else if (EvaluatorUtilities.isVariable(value))
+			{
+				stack.push(variable(value));
+			}
+			else if (EvaluatorUtilities.isOperand(value))
+			{
+				BigDecimal constant = new BigDecimal(value);
+				//toString keeps the scale, 1 and 1.0 are different constants.
+				String key = constant.toString();
+				Node node = nodes.get(key);
+				if (node == null)
+				{
+					node = new Node(nodes.size(), null, null, new Node[0]);
+					node.value = constant;
+					node.dirty = false;
+					nodes.put(key, node);
+				}
+				stack.push(node);
+			}
+			else
+			{
+				Operator operator = Operator.of(value);
+				Node right = stack.pop();
+				Node left = stack.pop();
+				stack.push(intern(operator.symbol(), operator, null, new Node[] { left, right }));
+			}
+		}
+		formulas.put(name, stack.pop());
+	}
+
+	/**
+	 * Binds a variable, formulas using it are recomputed on their next value().
+	 *
+	 * @param variable
+	 * 			Name of the variable, it does not need to be used by any formula yet.
+	 * @param value
+	 * 			The new value of the variable.
+	 */
+	public void set(String variable, BigDecimal value) {
+		if (value == null)
+			throw new IllegalArgumentException("Value must not be null: " + variable);
+		Node node = variable(variable);
+		//BigDecimal.equals compares the scale too, a different scale may change the results.
+		if (value.equals(node.value))
+			return;
+		node.value = value;
+		invalidate(node);
+	}
+
+	/**
+	 * Computes a formula, recomputing only the nodes made stale since its last value.
+	 *
+	 * @param name
+	 * 			Name of the formula.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If a variable is not bound or the arithmetic fails.
+	 */
+	public BigDecimal value(String name) throws InvalidExpressionFormatException {
+		Node root = formulas.get(name);
+		if (root == null)
+			throw new IllegalArgumentException("Unknown formula: " + name);
+		if (root.variable != null && root.value == null)
+			throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + root.variable, -1);
+		if (!root.dirty)
+		{
+			reused++;
+			return root.value.round(MathContext.DECIMAL64);
+		}
+		pass++;
+		//Explicit stack, formulas may nest deeper than the thread stack allows.
+		Deque<Node> stack = new ArrayDeque<Node>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			Node node = stack.peek();
+			if (!node.dirty)
+			{
+				stack.pop();
+				continue;
+			}
+			boolean ready = true;
+			for (Node child : node.children)
+			{
+				if (child.dirty)
+				{
+					stack.push(child);
+					ready = false;
+				}
+			}
+			if (ready)
+			{
+				stack.pop();
+				compute(node);
+			}
+		}
+		return root.value.round(MathContext.DECIMAL64);
+	}
+
+	/**
+	 * @return	The names of the formulas, in order of definition.
+	 */
+	public List<String> formulas() {
+		return Collections.unmodifiableList(new ArrayList<String>(formulas.keySet()));
+	}
+
+	/**
+	 * @return	The names of the variables used or set so far.
+	 */
+	public List<String> variables() {
+		return Collections.unmodifiableList(new ArrayList<String>(variables.keySet()));
+	}
+
+	/**
+	 * @return	A snapshot of the counters of this graph.
+	 */
+	public GraphStats stats() {
+		return new GraphStats(recomputed, reused, invalidated, shared, nodes.size());
+	}
+
+	/**
+	 * Resets the recomputed, reused and invalidated counters, the size counters are kept.
+	 */
+	public void resetStats() {
+		recomputed = 0;
+		reused = 0;
+		invalidated = 0;
+	}
+
+	private Node variable(String name) {
+		Node node = variables.get(name);
+		if (node == null)
+		{
+			node = new Node(nodes.size(), null, null, new Node[0]);
+			node.variable = name;
+			node.dirty = false;
+			variables.put(name, node);
+			nodes.put("$" + name, node);
+		}
+		return node;
+	}
+
+	//Returns the node of the operation over the children, creating it only if the graph has none yet.
+	private Node intern(String symbol, Operator operator, Operation call, Node[] children) {
+		StringBuilder key = new StringBuilder(symbol);
+		for (Node child : children)
+			key.append('#').append(child.id);
+		Node node = nodes.get(key.toString());
+		if (node != null)
+		{
+			shared++;
+			return node;
+		}
+		node = new Node(nodes.size(), operator, call, children);
+		for (Node child : children)
+		{
+			if (!child.parents.contains(node))
+				child.parents.add(node);
+		}
+		nodes.put(key.toString(), node);
+		return node;
+	}
+
+	private void compute(Node node) throws InvalidExpressionFormatException {
+		for (Node child : node.children)
+		{
+			if (child.variable != null && child.value == null)
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + child.variable, -1);
+			if (child.pass != pass)
+				reused++;
+		}
+		try{
+			if (node.operator != null)
+			{
+				node.value = EvaluatorUtilities.doMath(node.children[0].value, node.operator, node.children[1].value);
+			}
+			else
+			{
+				BigDecimal[] arguments = new BigDecimal[node.children.length];
+				for (int index = 0; index < arguments.length; index++)
+					arguments[index] = node.children[index].value;
+				node.value = node.call.apply(arguments, 0, arguments.length);
+			}
+		}catch(ArithmeticException ex){
+			throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage(), -1);
+		}
+		node.dirty = false;
+		node.pass = pass;
+		recomputed++;
+	}
+
+	//Marks the nodes downstream of a changed node, a stale node already has stale parents.
+	private void invalidate(Node changed) {
+		Deque<Node> stack = new ArrayDeque<Node>(changed.parents);
+		while (!stack.isEmpty())
+		{
+			Node node = stack.pop();
+			if (node.dirty)
+				continue;
+			node.dirty = true;
+			invalidated++;
+			for (Node parent : node.parents)
+				stack.push(parent);
+		}
+	}
+
+	/**
+	 * Constant, variable or operation of the graph. Operations start stale.
+	 */
+	private static final class Node {
+		final int id;
+		final Operator operator;
+		final Operation call;
+		final Node[] children;
+		final List<Node> parents = new ArrayList<Node>(2);
+		String variable;
+		BigDecimal value;
+		boolean dirty = true;
+		int pass;
+
+		Node(int id, Operator operator, Operation call, Node[] children) {
+			this.id = id;
+			this.operator = operator;
+			this.call = call;
+			this.children = children;
+		}
+	}
+}
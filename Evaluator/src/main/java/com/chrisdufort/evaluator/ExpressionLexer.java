@@ -0,0 +1,286 @@
+package com.chrisdufort.evaluator;
+
+import java.nio.CharBuffer;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Streaming lexer reading an infix expression straight from a CharSequence, a char[] or an NIO CharBuffer.
+ * Tokens are reported as a TokenKind plus start and end offsets into the input, no substring is ever created.
+ *
+ * Accepted grammar is the one of EvaluatorUtilities.infixToPostfix:
+ * Numbers (5 , 5.0 , .5), negative numbers (-5 , -.5), operators ( + , - , * , x , X , / ) and parenthesis.
+ * A minus sign is part of a number when it directly precedes a digit or a dot and does not follow
+ * a number or a closing parenthesis, so 7-3 is a subtraction while 7*-3 multiplies by negative three.
+ * Identifiers (rate , qty_2 , _base) name variables. An x or X following an operand is a multiplication,
+ * so 5x5 and rate x qty multiply, elsewhere it may start a variable (x1 , xy). A lone x or X is never a variable.
+ * Whitespace between tokens is ignored.
+ *
+ * A lexer given an OperatorRegistry also reads the symbols of its operators as OPERATOR tokens, longest first,
+ * names of its functions directly followed by a parenthesis as FUNCTION tokens, and commas.
+ * entry() then gives the index of the matched operator or function within the registry.
+ *
+ * A lexer is a cursor over one input and is not thread safe.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.TokenKind
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ExpressionLexer {
+
+	//Not final, a lexer kept by an EvaluationContext is reset for each text.
+	private CharSequence input;
+	private int limit;
+	//Operators and functions beyond the built in ones, null if none.
+	private final OperatorRegistry registry;
+
+	//Cursor and current token.
+	private int position;
+	private TokenKind kind;
+	private int start;
+	private int end;
+	private int entry;
+	//Tokens read so far, END excluded.
+	private int count;
+
+	/**
+	 * Creates a lexer over the whole CharSequence, a CharBuffer is read between its position and limit.
+	 *
+	 * @param input
+	 * 			The infix expression to tokenize.
+	 */
+	public ExpressionLexer(CharSequence input) {
+		this(input, null);
+	}
+
+	/**
+	 * Creates a lexer over the whole CharSequence that also reads the operators and functions of a registry.
+	 *
+	 * @param input
+	 * 			The infix expression to tokenize.
+	 * @param registry
+	 * 			The OperatorRegistry to read, null for the built in operators only.
+	 */
+	public ExpressionLexer(CharSequence input, OperatorRegistry registry) {
+		this.input = input;
+		this.limit = input.length();
+		this.registry = registry == null || registry.isEmpty() ? null : registry;
+	}
+
+	/**
+	 * Creates a lexer over part of a char array, the array is wrapped and not copied.
+	 *
+	 * @param input
+	 * 			The array holding the infix expression.
+	 * @param offset
+	 * 			Index of the first character of the expression.
+	 * @param length
+	 * 			Number of characters of the expression.
+	 */
+	public ExpressionLexer(char[] input, int offset, int length) {
+		this(CharBuffer.wrap(input, offset, length));
+	}
+
+	/**
+	 * Package level restart of this lexer over another input, with the same registry.
+	 *
+	 * @param input
+	 * 			The infix expression to tokenize.
+	 * @return	This lexer, positioned before the first token.
+	 */
+	ExpressionLexer reset(CharSequence input) {
+		this.input = input;
+		this.limit = input.length();
+		position = 0;
+		kind = null;
+		start = 0;
+		end = 0;
+		entry = 0;
+		count = 0;
+		return this;
+	}
+
+	/**
+	 * Advances to the next token.
+	 *
+	 * @return	The kind of the token now current, END once the input is exhausted.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the input contains a character outside of the grammar.
+	 */
+	public TokenKind next() throws InvalidExpressionFormatException {
+		TokenKind previous = kind;
+
+		while (position < limit && Character.isWhitespace(input.charAt(position)))
+			position++;
+
+		start = position;
+		if (position >= limit)
+		{
+			end = position;
+			return kind = TokenKind.END;
+		}
+
+		count++;
+		char ch = input.charAt(position);
+		if (registry != null)
+		{
+			if (ch == ',')
+				return operator(TokenKind.COMMA);
+			int match = registry.matchSymbol(input, position, limit);
+			if (match >= 0)
+			{
+				entry = match;
+				position += registry.symbolLength(match);
+				end = position;
+				return kind = TokenKind.OPERATOR;
+			}
+		}
+		switch (ch){
+		case '+':
+			return operator(TokenKind.PLUS);
+		case '*':
+			return operator(TokenKind.MULTIPLY);
+		case 'x':
+		case 'X':
+			if (previous == TokenKind.NUMBER || previous == TokenKind.IDENTIFIER || previous == TokenKind.CLOSE_PARENTHESIS)
+				return operator(TokenKind.MULTIPLY);
+			return identifier();
+		case '/':
+			return operator(TokenKind.DIVIDE);
+		case '(':
+			return operator(TokenKind.OPEN_PARENTHESIS);
+		case ')':
+			return operator(TokenKind.CLOSE_PARENTHESIS);
+		case '-':
+			//Negative number unless it follows something that can be subtracted from.
+			if (previous != TokenKind.NUMBER && previous != TokenKind.IDENTIFIER && previous != TokenKind.CLOSE_PARENTHESIS
+					&& startsNumber(position + 1))
+			{
+				position++;
+				return number();
+			}
+			return operator(TokenKind.MINUS);
+		default:
+			if (startsNumber(position))
+				return number();
+			if (Character.isLetter(ch) || ch == '_')
+				return identifier();
+			throw new InvalidExpressionFormatException(ErrorCode.UNEXPECTED_CHARACTER,
+					"Unexpected character '" + ch + "' at position " + position, position);
+		}
+	}
+
+	/**
+	 * @return	The kind of the current token, null before the first call to next.
+	 */
+	public TokenKind kind() {
+		return kind;
+	}
+
+	/**
+	 * @return	Offset of the first character of the current token.
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return	Offset one past the last character of the current token.
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * @return	Index of the registry operator or function of the current OPERATOR or FUNCTION token.
+	 */
+	int entry() {
+		return entry;
+	}
+
+	/**
+	 * @return	Number of tokens read so far, END excluded, for EvaluatorMetrics.
+	 */
+	int tokenCount() {
+		return count;
+	}
+
+	/**
+	 * @return	The input this lexer reads, offsets are relative to it.
+	 */
+	public CharSequence input() {
+		return input;
+	}
+
+	/**
+	 * @return	The text of the current token. Allocates, intended for error messages and display.
+	 */
+	public String text() {
+		return input.subSequence(start, end).toString();
+	}
+
+	private TokenKind operator(TokenKind operator) {
+		end = ++position;
+		return kind = operator;
+	}
+
+	private TokenKind number() throws InvalidExpressionFormatException {
+		boolean digits = false;
+		while (position < limit && Character.isDigit(input.charAt(position)))
+		{
+			position++;
+			digits = true;
+		}
+		if (position < limit && input.charAt(position) == '.')
+		{
+			position++;
+			while (position < limit && Character.isDigit(input.charAt(position)))
+			{
+				position++;
+				digits = true;
+			}
+		}
+		end = position;
+		if (!digits)
+			throw new InvalidExpressionFormatException(ErrorCode.MALFORMED_NUMBER, "Number without digits at position " + start, start);
+		return kind = TokenKind.NUMBER;
+	}
+
+	private TokenKind identifier() {
+		position++;
+		while (position < limit && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_'))
+			position++;
+		end = position;
+		//A lone x or X stays the multiplication operator, as in the queue based grammar.
+		if (end - start == 1 && (input.charAt(start) == 'x' || input.charAt(start) == 'X'))
+			return kind = TokenKind.MULTIPLY;
+		if (registry != null && isCall())
+		{
+			int match = registry.matchFunction(input, start, end);
+			if (match >= 0)
+			{
+				entry = match;
+				return kind = TokenKind.FUNCTION;
+			}
+		}
+		return kind = TokenKind.IDENTIFIER;
+	}
+
+	//True when the next character other than whitespace opens a parenthesis.
+	private boolean isCall() {
+		int index = position;
+		while (index < limit && Character.isWhitespace(input.charAt(index)))
+			index++;
+		return index < limit && input.charAt(index) == '(';
+	}
+
+	private boolean startsNumber(int index) {
+		if (index >= limit)
+			return false;
+		char ch = input.charAt(index);
+		return Character.isDigit(ch) || ch == '.';
+	}
+}
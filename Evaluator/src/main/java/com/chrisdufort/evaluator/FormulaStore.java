@@ -0,0 +1,283 @@
+package com.chrisdufort.evaluator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read only file of named CompiledExpressions, written once by write and memory mapped by open,
+ * so a service holding thousands of formulas starts without converting any of them to postfix again.
+ *
+ * open only checks the header, expressions are decoded on first access from the mapped file and kept,
+ * see ExpressionCodec for their encoding. Names are sorted, get(String) is a binary search over the index.
+ *
+ * Layout, big endian: the magic number EXPS, a short version, a short left 0, the int count of formulas,
+ * an index of four ints per formula (offset and length of the UTF-8 name, offset and length of the expression),
+ * the names, then the expressions. Files are limited to 2GB.
+ *
+ * A store is thread safe, two threads may decode the same expression once each, either result is kept.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#toBytes()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class FormulaStore {
+
+	static final int MAGIC = 0x45585053;
+	static final int VERSION = 1;
+	private static final int HEADER = 12;
+	private static final int ENTRY = 16;
+
+	private final ByteBuffer buffer;
+	private final OperatorRegistry registry;
+	private final int count;
+	private final AtomicReferenceArray<CompiledExpression> decoded;
+
+	private FormulaStore(ByteBuffer buffer, OperatorRegistry registry) throws IOException {
+		if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a formula store");
+		int version = buffer.getShort(4);
+		if (version != VERSION)
+			throw new IOException("Unsupported formula store version: " + version);
+		this.count = buffer.getInt(8);
+		if (count < 0 || (long) HEADER + (long) count * ENTRY > buffer.limit())
+			throw new IOException("Corrupt formula store, " + count + " formulas");
+		this.buffer = buffer;
+		this.registry = registry;
+		this.decoded = new AtomicReferenceArray<CompiledExpression>(count);
+	}
+
+	/**
+	 * Writes a store holding the given expressions. The file is written beside the target then moved over it,
+	 * so a service never maps a half written store.
+	 *
+	 * @param file
+	 * 			The file to write, replaced if it exists.
+	 * @param formulas
+	 * 			The expressions by name.
+	 *
+	 * @throws IOException
+	 */
+	public static void write(Path file, Map<String, CompiledExpression> formulas) throws IOException {
+		Map<String, CompiledExpression> sorted = new TreeMap<String, CompiledExpression>(formulas);
+		byte[][] names = new byte[sorted.size()][];
+		byte[][] bodies = new byte[sorted.size()][];
+		long size = HEADER + (long) sorted.size() * ENTRY;
+		int index = 0;
+		for (Map.Entry<String, CompiledExpression> entry : sorted.entrySet())
+		{
+			names[index] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			bodies[index] = entry.getValue().toBytes();
+			size += names[index].length + bodies[index].length;
+			index++;
+		}
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Formula store too large: " + size + " bytes");
+
+		ByteBuffer out = ByteBuffer.allocate((int) size);
+		out.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(names.length);
+		int offset = HEADER + names.length * ENTRY;
+		for (index = 0; index < names.length; index++)
+		{
+			out.putInt(offset).putInt(names[index].length);
+			offset += names[index].length;
+			out.position(out.position() + 8);
+		}
+		for (index = 0; index < names.length; index++)
+		{
+			out.putInt(HEADER + index * ENTRY + 8, offset).putInt(HEADER + index * ENTRY + 12, bodies[index].length);
+			offset += bodies[index].length;
+		}
+		for (byte[] name : names)
+			out.put(name);
+		for (byte[] body : bodies)
+			out.put(body);
+		out.flip();
+
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE))
+		{
+			while (out.hasRemaining())
+				channel.write(out);
+			channel.force(false);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Maps a store of expressions using the built in operators only.
+	 *
+	 * @param file
+	 * 			The store written by write.
+	 * @return	The FormulaStore.
+	 *
+	 * @throws IOException
+	 * 			If the file cannot be read or is not a formula store.
+	 */
+	public static FormulaStore open(Path file) throws IOException {
+		return open(file, OperatorRegistry.builtIn());
+	}
+
+	/**
+	 * Maps a store of expressions compiled with the operators and functions of a registry.
+	 *
+	 * @param file
+	 * 			The store written by write.
+	 * @param registry
+	 * 			The OperatorRegistry the expressions were compiled with.
+	 * @return	The FormulaStore.
+	 *
+	 * @throws IOException
+	 * 			If the file cannot be read or is not a formula store.
+	 */
+	public static FormulaStore open(Path file, OperatorRegistry registry) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Formula store too large: " + channel.size() + " bytes");
+			//The mapping stays valid once the channel is closed.
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new FormulaStore(mapped, registry);
+		}
+	}
+
+	/**
+	 * Reads a store already in memory, received over the network for instance.
+	 *
+	 * @param bytes
+	 * 			The content of a store written by write, not copied.
+	 * @param registry
+	 * 			The OperatorRegistry the expressions were compiled with.
+	 * @return	The FormulaStore.
+	 *
+	 * @throws IOException
+	 * 			If the bytes are not a formula store.
+	 */
+	public static FormulaStore wrap(ByteBuffer bytes, OperatorRegistry registry) throws IOException {
+		return new FormulaStore(bytes.slice(), registry);
+	}
+
+	/**
+	 * @return	The number of expressions in the store.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @param index
+	 * 			Position of the expression, from 0 to size() - 1, in order of names.
+	 * @return	The name of the expression.
+	 */
+	public String name(int index) {
+		int entry = entry(index);
+		return string(buffer.getInt(entry), buffer.getInt(entry + 4));
+	}
+
+	/**
+	 * @param index
+	 * 			Position of the expression, from 0 to size() - 1, in order of names.
+	 * @return	The expression, decoded on first access.
+	 *
+	 * @throws IOException
+	 * 			If the expression is corrupt.
+	 */
+	public CompiledExpression get(int index) throws IOException {
+		CompiledExpression expression = decoded.get(index);
+		if (expression == null)
+		{
+			int entry = entry(index);
+			ByteBuffer body = buffer.duplicate();
+			int offset = buffer.getInt(entry + 8);
+			try{
+				body.limit(offset + buffer.getInt(entry + 12)).position(offset);
+			}catch(IllegalArgumentException ex){
+				throw new IOException("Corrupt formula store, formula " + index + " out of bounds", ex);
+			}
+			expression = ExpressionCodec.decode(body.slice(), registry);
+			decoded.lazySet(index, expression);
+		}
+		return expression;
+	}
+
+	/**
+	 * @param name
+	 * 			Name of an expression.
+	 * @return	The expression, decoded on first access, null if the store holds no expression of that name.
+	 *
+	 * @throws IOException
+	 * 			If the expression is corrupt.
+	 */
+	public CompiledExpression get(String name) throws IOException {
+		int index = indexOf(name);
+		return index < 0 ? null : get(index);
+	}
+
+	/**
+	 * @param name
+	 * 			Name of an expression.
+	 * @return	The position of the expression, -1 if the store holds no expression of that name.
+	 */
+	public int indexOf(String name) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int compared = name(middle).compareTo(name);
+			if (compared < 0)
+				low = middle + 1;
+			else if (compared > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes every expression of the store, for a service that wants them all ready before taking traffic.
+	 *
+	 * @return	The expressions by name, in order of names.
+	 *
+	 * @throws IOException
+	 * 			If an expression is corrupt.
+	 */
+	public Map<String, CompiledExpression> loadAll() throws IOException {
+		Map<String, CompiledExpression> formulas = new LinkedHashMap<String, CompiledExpression>(count * 2);
+		for (int index = 0; index < count; index++)
+			formulas.put(name(index), get(index));
+		return formulas;
+	}
+
+	private int entry(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Formula " + index + " of " + count);
+		return HEADER + index * ENTRY;
+	}
+
+	private String string(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer name = buffer.duplicate();
+		name.position(offset);
+		name.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		return "FormulaStore[formulas=" + count + ", bytes=" + buffer.limit() + "]";
+	}
+}
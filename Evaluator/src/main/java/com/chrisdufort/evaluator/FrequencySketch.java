@@ -0,0 +1,86 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Count-min sketch estimating how often keys were seen, used for TinyLFU admission by the ExpressionCache.
+ * Counters saturate at 15 and are all halved once the number of increments reaches ten times the
+ * cache capacity, so that old popularity fades away.
+ *
+ * Not thread safe, the ExpressionCache only uses it while holding its lock.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.ExpressionCache
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class FrequencySketch {
+
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = { 0x97cb3127, 0xb0f34af7, 0x3c6ef372, 0x5bd1e995 };
+
+	private final byte[] table;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	/**
+	 * @param capacity
+	 * 			Maximum number of entries of the cache using this sketch.
+	 */
+	FrequencySketch(int capacity) {
+		//Power of two at least eight times the capacity, keeps collisions between one-off keys rare
+		int width = Integer.highestOneBit(Math.min(Math.max(16, capacity), 1 << 22) - 1) << 4;
+		this.table = new byte[width * DEPTH];
+		this.mask = width - 1;
+		this.sampleSize = Math.max(10, capacity * 10);
+	}
+
+	/**
+	 * Records one more occurrence of the key.
+	 *
+	 * @param hash
+	 * 			Hash code of the key.
+	 */
+	void increment(int hash) {
+		boolean added = false;
+		for (int row = 0; row < DEPTH; row++)
+		{
+			int index = indexOf(hash, row);
+			if (table[index] < MAX_COUNT)
+			{
+				table[index]++;
+				added = true;
+			}
+		}
+		if (added && ++additions >= sampleSize)
+			reset();
+	}
+
+	/**
+	 * @param hash
+	 * 			Hash code of the key.
+	 * @return	Estimated number of occurrences of the key, between 0 and 15.
+	 */
+	int frequency(int hash) {
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < DEPTH; row++)
+		{
+			frequency = Math.min(frequency, table[indexOf(hash, row)]);
+		}
+		return frequency;
+	}
+
+	private int indexOf(int hash, int row) {
+		int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+		h ^= h >>> 16;
+		return row * (mask + 1) + (h & mask);
+	}
+
+	private void reset() {
+		for (int index = 0; index < table.length; index++)
+		{
+			table[index] = (byte) (table[index] >>> 1);
+		}
+		additions /= 2;
+	}
+}
@@ -0,0 +1,75 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Immutable snapshot of the counters of an ExpressionGraph.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.ExpressionGraph#stats()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class GraphStats {
+
+	private final long recomputedCount;
+	private final long reusedCount;
+	private final long invalidatedCount;
+	private final long sharedCount;
+	private final int nodeCount;
+
+	GraphStats(long recomputedCount, long reusedCount, long invalidatedCount, long sharedCount, int nodeCount) {
+		this.recomputedCount = recomputedCount;
+		this.reusedCount = reusedCount;
+		this.invalidatedCount = invalidatedCount;
+		this.sharedCount = sharedCount;
+		this.nodeCount = nodeCount;
+	}
+
+	/**
+	 * @return	Number of node values computed.
+	 */
+	public long recomputedCount() {
+		return recomputedCount;
+	}
+
+	/**
+	 * @return	Number of memoized node values used instead of being computed, formula values included.
+	 */
+	public long reusedCount() {
+		return reusedCount;
+	}
+
+	/**
+	 * @return	Number of nodes marked stale by a change of variable.
+	 */
+	public long invalidatedCount() {
+		return invalidatedCount;
+	}
+
+	/**
+	 * @return	Number of sub-expressions found already in the graph when defining formulas.
+	 */
+	public long sharedCount() {
+		return sharedCount;
+	}
+
+	/**
+	 * @return	Number of constants, variables and operations held when the snapshot was taken.
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return	Ratio of node values reused rather than computed, 1.0 when nothing was evaluated.
+	 */
+	public double reuseRate() {
+		long total = recomputedCount + reusedCount;
+		return total == 0 ? 1.0 : (double) reusedCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "GraphStats[recomputed=" + recomputedCount + ", reused=" + reusedCount + ", invalidated=" + invalidatedCount
+				+ ", shared=" + sharedCount + ", nodes=" + nodeCount + "]";
+	}
+}
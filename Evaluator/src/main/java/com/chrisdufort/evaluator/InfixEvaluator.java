@@ -0,0 +1,201 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Package level single pass evaluation of infix text, behind EvaluatorUtilities.evaluateInfix.
+ *
+ * Runs the shunting-yard step of infixToPostfix(ExpressionLexer, Queue) with a value stack next to the operator
+ * stack: where the two step path would offer an instruction to the postfix queue, the instruction is applied
+ * right away. Instructions are therefore applied in the order evaluatePostfix would, so results, error codes and
+ * messages are identical. Error positions are offsets into the text: each operator and value on the stacks keeps
+ * the offset it was read at, an evaluation error points at the operator, number or variable it comes from.
+ * Evaluation errors are held until the whole text is read, so that a syntax error later in the text is still
+ * reported first, as infixToPostfix would.
+ *
+ * Stacks are plain arrays and numbers are parsed from a reused char buffer, well formed text only allocates
+ * the BigDecimals of its numbers and results. An evaluator is kept by its EvaluationContext and reset for each text,
+ * its stacks are only grown.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorUtilities#evaluateInfix(CharSequence)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class InfixEvaluator {
+
+	private ExpressionLexer lexer;
+	private BigDecimal[] values = new BigDecimal[16];
+	//Offset of the first token of each value, a result keeps the one of its left operand.
+	private int[] valueOffsets = new int[16];
+	private int valueTop;
+	//Deepest the value stack went, for EvaluatorMetrics.
+	private int deepest;
+	private TokenKind[] operators = new TokenKind[16];
+	//Offset of each operator, for error reports.
+	private int[] operatorOffsets = new int[16];
+	private int operatorTop;
+	//Offset of each opening parenthesis still open, for error reports.
+	private int[] opens = new int[8];
+	private int depth;
+	//First evaluation error, evaluation stops there but the text is still read to the end.
+	private InvalidExpressionFormatException failure;
+	private char[] digits = new char[32];
+
+	/**
+	 * @param lexer
+	 * 			The lexer positioned before the first token of the expression.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			The error infixToPostfix followed by evaluatePostfix would throw.
+	 */
+	BigDecimal evaluate(ExpressionLexer lexer) throws InvalidExpressionFormatException {
+		this.lexer = lexer;
+		valueTop = 0;
+		operatorTop = 0;
+		depth = 0;
+		failure = null;
+		deepest = 0;
+		try{
+			return run();
+		}finally{
+			EvaluatorMetrics.depth(deepest);
+		}
+	}
+
+	/**
+	 * Drops the references to the values of the last evaluation.
+	 */
+	void clear() {
+		Arrays.fill(values, null);
+		failure = null;
+	}
+
+	private BigDecimal run() throws InvalidExpressionFormatException {
+		TokenKind kind;
+
+		while ((kind = lexer.next()) != TokenKind.END)
+		{
+			switch (kind){
+			case NUMBER:
+				pushNumber();
+				break;
+			case IDENTIFIER:
+				//Nothing to bind a variable to, as in evaluatePostfix.
+				fail(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + lexer.text(), lexer.start());
+				break;
+			case OPEN_PARENTHESIS:
+				if (depth == opens.length)
+					opens = Arrays.copyOf(opens, depth * 2);
+				opens[depth++] = lexer.start();
+				pushOperator(kind);
+				break;
+			case CLOSE_PARENTHESIS:
+				if (depth == 0)
+					throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS,
+							"Missing matching parenthesis at position " + lexer.start(), lexer.start());
+				//apply the contents of the parenthesis
+				while (operators[operatorTop - 1] != TokenKind.OPEN_PARENTHESIS)
+				{
+					operatorTop--;
+					apply(operators[operatorTop], operatorOffsets[operatorTop]);
+				}
+				//pop off the opening parenthesis
+				operatorTop--;
+				depth--;
+				break;
+			default:
+				//apply operators of greater or equal precedence then push the new one
+				while (operatorTop > 0 && kind.precedence() <= operators[operatorTop - 1].precedence())
+				{
+					operatorTop--;
+					apply(operators[operatorTop], operatorOffsets[operatorTop]);
+				}
+				pushOperator(kind);
+				break;
+			}
+		}
+		//Input is exhausted apply the remainder of the stack
+		while (operatorTop > 0)
+		{
+			if (operators[operatorTop - 1] == TokenKind.OPEN_PARENTHESIS)
+				throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_OPENING_PARENTHESIS,
+						"Missing matching parenthesis at position " + opens[depth - 1], opens[depth - 1]);
+			operatorTop--;
+			apply(operators[operatorTop], operatorOffsets[operatorTop]);
+		}
+		if (failure != null)
+			throw failure;
+		//Same checks as the end of evaluatePostfix, at the first value left over or at the end of the text.
+		if (valueTop > 1)
+			throw new InvalidExpressionFormatException(ErrorCode.TOO_MANY_OPERANDS, "Too much operands", valueOffsets[1]);
+		if (valueTop == 0)
+			throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand", lexer.start());
+		return values[0].round(MathContext.DECIMAL64);
+	}
+
+	private void pushNumber() {
+		if (failure == null)
+		{
+			int length = lexer.end() - lexer.start();
+			if (digits.length < length)
+				digits = new char[Math.max(length, digits.length * 2)];
+			CharSequence input = lexer.input();
+			for (int index = 0; index < length; index++)
+				digits[index] = input.charAt(lexer.start() + index);
+			if (valueTop == values.length)
+			{
+				values = Arrays.copyOf(values, valueTop * 2);
+				valueOffsets = Arrays.copyOf(valueOffsets, valueTop * 2);
+			}
+			try{
+				values[valueTop] = new BigDecimal(digits, 0, length);
+				valueOffsets[valueTop++] = lexer.start();
+				deepest = Math.max(deepest, valueTop);
+			}catch(NumberFormatException ex){
+				fail(ErrorCode.MALFORMED_NUMBER, "Invalid number: " + lexer.text(), lexer.start());
+			}
+		}
+	}
+
+	private void pushOperator(TokenKind kind) {
+		if (operatorTop == operators.length)
+		{
+			operators = Arrays.copyOf(operators, operatorTop * 2);
+			operatorOffsets = Arrays.copyOf(operatorOffsets, operatorTop * 2);
+		}
+		operatorOffsets[operatorTop] = lexer.start();
+		operators[operatorTop++] = kind;
+	}
+
+	//Applies an operator read at offset the way evaluatePostfix applies the same instruction.
+	private void apply(TokenKind kind, int offset) {
+		if (failure == null)
+		{
+			if (valueTop == 0)
+				fail(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis", offset);
+			else if (valueTop == 1)
+				fail(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis OR too many operators", offset);
+			else
+			{
+				try{
+					values[valueTop - 2] = EvaluatorUtilities.doMath(values[valueTop - 2], Operator.of(kind.symbol()), values[valueTop - 1]);
+					values[--valueTop] = null;
+				}catch(ArithmeticException ex){
+					fail(ErrorCode.ARITHMETIC, ex.getMessage(), offset);
+				}
+			}
+		}
+	}
+
+	private void fail(ErrorCode code, String message, int offset) {
+		if (failure == null)
+			failure = new InvalidExpressionFormatException(code, message, offset);
+	}
+}
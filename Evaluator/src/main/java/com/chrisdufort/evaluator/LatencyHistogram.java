@@ -0,0 +1,58 @@
+package com.chrisdufort.evaluator;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Package level lock free histogram of latencies in nanoseconds, with power of two buckets:
+ * bucket n counts the latencies from 2^(n-1) to 2^n - 1, bucket 0 counts zero.
+ * Percentiles are therefore accurate to a factor of two, which is enough to tell where time goes.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.PhaseStats
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class LatencyHistogram {
+
+	static final int BUCKETS = 64;
+
+	//One adder per bucket, threads recording the same latency do not contend on a shared slot.
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder total = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+	LatencyHistogram() {
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+			buckets[bucket] = new LongAdder();
+	}
+
+	void record(long nanos, boolean failed) {
+		long value = Math.max(nanos, 0L);
+		buckets[Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1)].increment();
+		total.add(value);
+		max.accumulate(value);
+		if (failed)
+			errors.increment();
+	}
+
+	PhaseStats snapshot() {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			counts[bucket] = buckets[bucket].sum();
+			count += counts[bucket];
+		}
+		return new PhaseStats(count, errors.sum(), total.sum(), max.get(), counts);
+	}
+
+	void reset() {
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+			buckets[bucket].reset();
+		total.reset();
+		errors.reset();
+		max.reset();
+	}
+}
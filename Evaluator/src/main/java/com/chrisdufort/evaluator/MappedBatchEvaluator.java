@@ -0,0 +1,344 @@
+package com.chrisdufort.evaluator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Bulk evaluation Utility Class running one CompiledExpression over columns stored in files, for datasets
+ * larger than the heap. Input columns are memory mapped, read a block at a time into a few reused arrays,
+ * and results are written straight to a memory mapped output file: no value ever becomes a String or
+ * an object, the heap needed depends on the number of variables, not on the number of rows.
+ *
+ * A column file is a plain array of 8 byte values without header, little endian unless another order is given,
+ * as written by numpy tofile or most columnar exports. A Column gives the type of the values:
+ * doubles, longs, or decimals held as a long unscaled value at a fixed scale (12345 at scale 2 is 123.45).
+ * Every input holds the same number of rows, the output file is created or replaced with one value per row.
+ *
+ * The type of the output chooses the arithmetic. A double output evaluates in double arithmetic like the double
+ * form of BatchEvaluator, decimal inputs converted to the nearest double. A long or decimal output evaluates in
+ * fixed point decimal arithmetic giving the results of evaluate under the PrecisionPolicy, the DECIMAL64 rounding
+ * of the standard policy included, then rounded to the scale of the output with the rounding of the policy,
+ * and requires decimal or long inputs. Rows whose values do not fit in a long are evaluated with BigDecimal
+ * instead, the only rows allocating.
+ *
+ * Files are mapped a window of rows at a time, so they are not limited to 2GB. The output reaches the file
+ * through the page cache, as with any write, and is partially written if evaluation fails.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.BatchEvaluator
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class MappedBatchEvaluator {
+
+	//Rows mapped at once, 8MB per column.
+	static final int WINDOW_ROWS = 1 << 20;
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private MappedBatchEvaluator(){
+		/*This class is a utility class, therefore the constructor is private.*/
+	}
+
+	/**
+	 * Evaluates the expression over every row of the input columns, with the standard PrecisionPolicy when
+	 * the output is decimal.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param inputs
+	 * 			Column of values of each variable, indexed as in variables().
+	 * @param output
+	 * 			Column receiving one result per row.
+	 * @return	The number of rows evaluated.
+	 *
+	 * @throws IOException
+	 * 			If a file cannot be read or written, or the inputs hold different numbers of rows.
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing, or with a decimal output if a row divides
+	 * 			by zero or its result does not fit in a long at the scale of the output.
+	 */
+	public static long evaluate(CompiledExpression expression, Column[] inputs, Column output)
+			throws IOException, InvalidExpressionFormatException {
+		return evaluate(expression, PrecisionPolicy.standard(), inputs, output);
+	}
+
+	/**
+	 * Evaluates the expression over every row of the input columns.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param policy
+	 * 			Rounding of the decimal operations, a fixed point policy such as standard or fixedScale,
+	 * 			unused when the output holds doubles.
+	 * @param inputs
+	 * 			Column of values of each variable, indexed as in variables().
+	 * @param output
+	 * 			Column receiving one result per row.
+	 * @return	The number of rows evaluated.
+	 *
+	 * @throws IOException
+	 * 			If a file cannot be read or written, or the inputs hold different numbers of rows.
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing, or with a decimal output if a row divides
+	 * 			by zero or its result does not fit in a long at the scale of the output.
+	 */
+	public static long evaluate(CompiledExpression expression, PrecisionPolicy policy, Column[] inputs, Column output)
+			throws IOException, InvalidExpressionFormatException {
+		expression.checkStructure();
+		expression.checkBindings(inputs.length);
+		if (output.type != Type.DOUBLE)
+		{
+			if (!policy.isFixedPoint())
+				throw new IllegalArgumentException("Decimal columns need a fixed point policy");
+			for (Column input : inputs)
+			{
+				if (input.type == Type.DOUBLE)
+					throw new IllegalArgumentException("Decimal output from a double column: " + input.file);
+			}
+		}
+
+		FileChannel[] channels = new FileChannel[inputs.length];
+		try{
+			long rows = 0;
+			for (int slot = 0; slot < inputs.length; slot++)
+			{
+				channels[slot] = FileChannel.open(inputs[slot].file, StandardOpenOption.READ);
+				long size = channels[slot].size();
+				if (size % 8 != 0 || (slot > 0 && size / 8 != rows))
+					throw new IOException("Column " + inputs[slot].file + " holds " + size + " bytes, expected "
+							+ (slot > 0 ? rows * 8 : "a multiple of 8"));
+				rows = size / 8;
+			}
+			try (FileChannel out = FileChannel.open(output.file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				if (output.type == Type.DOUBLE)
+					evaluateDoubles(expression, inputs, channels, output, out, rows);
+				else
+					evaluateDecimals(expression, policy, inputs, channels, output, out, rows);
+			}
+			return rows;
+		}finally{
+			for (FileChannel channel : channels)
+			{
+				if (channel != null)
+					channel.close();
+			}
+		}
+	}
+
+	//Column at a time double evaluation, a block of every input copied into reused arrays.
+	private static void evaluateDoubles(CompiledExpression expression, Column[] inputs, FileChannel[] channels, Column output,
+			FileChannel out, long rows) throws IOException {
+		int variables = inputs.length;
+		int block = BatchEvaluator.BLOCK_SIZE;
+		double[][] columns = new double[variables][block];
+		long[] raw = new long[block];
+		double[] results = new double[block];
+		double[][] operandStack = new double[expression.maxDepth()][block];
+		for (long first = 0; first < rows; first += WINDOW_ROWS)
+		{
+			int window = (int) Math.min(WINDOW_ROWS, rows - first);
+			DoubleBuffer[] doubles = new DoubleBuffer[variables];
+			LongBuffer[] longs = new LongBuffer[variables];
+			for (int slot = 0; slot < variables; slot++)
+			{
+				MappedByteBuffer mapped = map(channels[slot], FileChannel.MapMode.READ_ONLY, first, window, inputs[slot]);
+				if (inputs[slot].type == Type.DOUBLE)
+					doubles[slot] = mapped.asDoubleBuffer();
+				else
+					longs[slot] = mapped.asLongBuffer();
+			}
+			DoubleBuffer target = map(out, FileChannel.MapMode.READ_WRITE, first, window, output).asDoubleBuffer();
+			for (int from = 0; from < window; from += block)
+			{
+				int count = Math.min(block, window - from);
+				for (int slot = 0; slot < variables; slot++)
+				{
+					int scale = inputs[slot].scale;
+					if (doubles[slot] != null)
+					{
+						doubles[slot].get(columns[slot], 0, count);
+					}
+					else if (scale == 0)
+					{
+						longs[slot].get(raw, 0, count);
+						for (int row = 0; row < count; row++)
+							columns[slot][row] = raw[row];
+					}
+					else
+					{
+						//Dividing by an exact power of ten gives the nearest double of most decimals.
+						longs[slot].get(raw, 0, count);
+						double power = Math.pow(10, Math.abs(scale));
+						for (int row = 0; row < count; row++)
+							columns[slot][row] = scale > 0 ? raw[row] / power : raw[row] * power;
+					}
+				}
+				expression.evaluateColumns(columns, 0, count, operandStack, results);
+				target.put(results, 0, count);
+			}
+		}
+	}
+
+	//Row at a time fixed point evaluation on primitive stacks, BigDecimal only for rows that do not fit in a long.
+	private static void evaluateDecimals(CompiledExpression expression, PrecisionPolicy policy, Column[] inputs, FileChannel[] channels,
+			Column output, FileChannel out, long rows) throws IOException, InvalidExpressionFormatException {
+		int variables = inputs.length;
+		int block = BatchEvaluator.BLOCK_SIZE;
+		long[][] columns = new long[variables][block];
+		long[] results = new long[block];
+		long[] values = new long[variables];
+		int[] valueScales = new int[variables];
+		for (int slot = 0; slot < variables; slot++)
+			valueScales[slot] = inputs[slot].scale;
+		long[] unscaled = new long[expression.maxDepth()];
+		int[] scales = new int[expression.maxDepth()];
+		boolean scaledExact = expression.isScaledExact();
+		for (long first = 0; first < rows; first += WINDOW_ROWS)
+		{
+			int window = (int) Math.min(WINDOW_ROWS, rows - first);
+			LongBuffer[] sources = new LongBuffer[variables];
+			for (int slot = 0; slot < variables; slot++)
+				sources[slot] = map(channels[slot], FileChannel.MapMode.READ_ONLY, first, window, inputs[slot]).asLongBuffer();
+			LongBuffer target = map(out, FileChannel.MapMode.READ_WRITE, first, window, output).asLongBuffer();
+			for (int from = 0; from < window; from += block)
+			{
+				int count = Math.min(block, window - from);
+				for (int slot = 0; slot < variables; slot++)
+					sources[slot].get(columns[slot], 0, count);
+				for (int row = 0; row < count; row++)
+				{
+					for (int slot = 0; slot < variables; slot++)
+						values[slot] = columns[slot][row];
+					boolean done = false;
+					if (scaledExact)
+					{
+						try{
+							expression.evaluateScaled(values, valueScales, unscaled, scales, policy);
+							results[row] = ScaledDecimal.result(unscaled[0], scales[0], output.scale, policy);
+							done = true;
+						}catch(ArithmeticException ex){
+							//Not representable in fixed point, evaluated with BigDecimal below.
+						}
+					}
+					if (!done)
+						results[row] = evaluateDecimal(expression, policy, values, valueScales, output.scale, first + from + row);
+				}
+				target.put(results, 0, count);
+			}
+		}
+	}
+
+	//BigDecimal evaluation of one row, reporting the division by zero or overflow fixed point could not.
+	private static long evaluateDecimal(CompiledExpression expression, PrecisionPolicy policy, long[] values, int[] valueScales,
+			int scale, long row) throws InvalidExpressionFormatException {
+		BigDecimal[] decimals = new BigDecimal[values.length];
+		for (int slot = 0; slot < values.length; slot++)
+			decimals[slot] = BigDecimal.valueOf(values[slot], valueScales[slot]);
+		BigDecimal result;
+		try{
+			result = policy.result(expression.evaluateSubtree(decimals, new BigDecimal[expression.maxDepth()], policy, 0, expression.size() - 1))
+					.setScale(scale, policy.rounding());
+		}catch(ArithmeticException ex){
+			throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, ex.getMessage() + " at row " + row, -1);
+		}catch(InvalidExpressionFormatException ex){
+			throw new InvalidExpressionFormatException(ex.getCode(), ex.getMessage() + " at row " + row, ex.getPosition());
+		}
+		BigInteger value = result.unscaledValue();
+		if (value.bitLength() > 63)
+			throw new InvalidExpressionFormatException(ErrorCode.ARITHMETIC, "Result too large for the output column at row " + row, -1);
+		return value.longValue();
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long first, int rows, Column column) throws IOException {
+		MappedByteBuffer mapped = channel.map(mode, first * 8, (long) rows * 8);
+		mapped.order(column.order);
+		return mapped;
+	}
+
+	/**
+	 * Type of the values of a column file.
+	 */
+	private enum Type {
+		DOUBLE, DECIMAL
+	}
+
+	/**
+	 * A column file and the type and byte order of its values.
+	 */
+	public static final class Column {
+
+		private final Path file;
+		private final Type type;
+		private final int scale;
+		private final ByteOrder order;
+
+		private Column(Path file, Type type, int scale, ByteOrder order) {
+			if (file == null)
+				throw new IllegalArgumentException("Column file must not be null");
+			if (order == null)
+				throw new IllegalArgumentException("Byte order must not be null");
+			this.file = file;
+			this.type = type;
+			this.scale = scale;
+			this.order = order;
+		}
+
+		/**
+		 * @param file
+		 * 			File of 8 byte IEEE 754 doubles.
+		 * @return	The little endian Column.
+		 */
+		public static Column doubles(Path file) {
+			return new Column(file, Type.DOUBLE, 0, ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * @param file
+		 * 			File of 8 byte signed integers.
+		 * @return	The little endian Column, a decimal column of scale 0.
+		 */
+		public static Column longs(Path file) {
+			return decimals(file, 0);
+		}
+
+		/**
+		 * @param file
+		 * 			File of 8 byte signed unscaled values.
+		 * @param scale
+		 * 			Number of places of every value, the value being unscaled * 10^-scale, may be negative.
+		 * @return	The little endian Column.
+		 */
+		public static Column decimals(Path file, int scale) {
+			return new Column(file, Type.DECIMAL, scale, ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * @param order
+		 * 			Byte order of the values in the file.
+		 * @return	The same column in that byte order.
+		 */
+		public Column order(ByteOrder order) {
+			return new Column(file, type, scale, order);
+		}
+
+		@Override
+		public String toString() {
+			return (type == Type.DOUBLE ? "doubles" : "decimals(" + scale + ")") + " " + file;
+		}
+	}
+}
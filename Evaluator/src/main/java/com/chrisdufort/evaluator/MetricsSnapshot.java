@@ -0,0 +1,135 @@
+package com.chrisdufort.evaluator;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.chrisdufort.exceptions.ErrorCode;
+
+/**
+ * Immutable snapshot of the EvaluatorMetrics, taken by EvaluatorMetrics.snapshot().
+ * toMap() flattens it into name and value pairs, for a scraper or a log line.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorMetrics#snapshot()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class MetricsSnapshot {
+
+	private final Map<EvaluationPhase, PhaseStats> phases;
+	private final Map<ErrorCode, Long> errors;
+	private final long tokenCount;
+	private final int maxStackDepth;
+	private final long cacheHitCount;
+	private final long cacheMissCount;
+
+	MetricsSnapshot(Map<EvaluationPhase, PhaseStats> phases, Map<ErrorCode, Long> errors, long tokenCount, int maxStackDepth,
+			long cacheHitCount, long cacheMissCount) {
+		this.phases = new EnumMap<EvaluationPhase, PhaseStats>(phases);
+		this.errors = new EnumMap<ErrorCode, Long>(errors);
+		this.tokenCount = tokenCount;
+		this.maxStackDepth = maxStackDepth;
+		this.cacheHitCount = cacheHitCount;
+		this.cacheMissCount = cacheMissCount;
+	}
+
+	/**
+	 * @param phase
+	 * 			The EvaluationPhase wanted.
+	 * @return	The latencies of the phase.
+	 */
+	public PhaseStats phase(EvaluationPhase phase) {
+		return phases.get(phase);
+	}
+
+	/**
+	 * @return	Number of tokens read from infix text.
+	 */
+	public long tokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * @return	Deepest operand stack reached by an evaluation.
+	 */
+	public int maxStackDepth() {
+		return maxStackDepth;
+	}
+
+	/**
+	 * @return	Number of ExpressionCache lookups answered from a cache, every cache included.
+	 */
+	public long cacheHitCount() {
+		return cacheHitCount;
+	}
+
+	/**
+	 * @return	Number of ExpressionCache lookups that had to compile, every cache included.
+	 */
+	public long cacheMissCount() {
+		return cacheMissCount;
+	}
+
+	/**
+	 * @return	Ratio of cache lookups answered from a cache, 1.0 when there was no lookup.
+	 */
+	public double cacheHitRate() {
+		long requests = cacheHitCount + cacheMissCount;
+		return requests == 0 ? 1.0 : (double) cacheHitCount / requests;
+	}
+
+	/**
+	 * @param code
+	 * 			The ErrorCode wanted.
+	 * @return	Number of errors of that code thrown by the timed phases.
+	 */
+	public long errorCount(ErrorCode code) {
+		return errors.get(code);
+	}
+
+	/**
+	 * @return	Number of errors of every code.
+	 */
+	public long errorCount() {
+		long count = 0;
+		for (long value : errors.values())
+			count += value;
+		return count;
+	}
+
+	/**
+	 * Flattens the snapshot, phases as phase.NAME.count, .errors, .mean_ns, .p50_ns, .p99_ns and .max_ns,
+	 * then tokens, max_stack_depth, cache.hits, cache.misses, cache.hit_rate and error.CODE for every code.
+	 *
+	 * @return	The metrics by name, in a stable order.
+	 */
+	public Map<String, Number> toMap() {
+		Map<String, Number> map = new LinkedHashMap<String, Number>();
+		for (Map.Entry<EvaluationPhase, PhaseStats> entry : phases.entrySet())
+		{
+			String prefix = "phase." + entry.getKey() + ".";
+			PhaseStats stats = entry.getValue();
+			map.put(prefix + "count", stats.count());
+			map.put(prefix + "errors", stats.errorCount());
+			map.put(prefix + "mean_ns", stats.meanNanos());
+			map.put(prefix + "p50_ns", stats.percentileNanos(50));
+			map.put(prefix + "p99_ns", stats.percentileNanos(99));
+			map.put(prefix + "max_ns", stats.maxNanos());
+		}
+		map.put("tokens", tokenCount);
+		map.put("max_stack_depth", maxStackDepth);
+		map.put("cache.hits", cacheHitCount);
+		map.put("cache.misses", cacheMissCount);
+		map.put("cache.hit_rate", cacheHitRate());
+		for (Map.Entry<ErrorCode, Long> entry : errors.entrySet())
+			map.put("error." + entry.getKey(), entry.getValue());
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		return "MetricsSnapshot[tokens=" + tokenCount + ", maxStackDepth=" + maxStackDepth + ", cacheHitRate=" + cacheHitRate()
+				+ ", errors=" + errorCount() + ", phases=" + phases + "]";
+	}
+}
@@ -0,0 +1,37 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Numeric representation used to evaluate a CompiledExpression.
+ * Every mode runs the same compiled postfix program, only the arithmetic differs.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum NumericMode {
+
+	/**
+	 * BigDecimal arithmetic, division to 16 places HALF_UP and a DECIMAL64 result.
+	 * This is the behaviour of EvaluatorUtilities.evaluatePostfix.
+	 */
+	BIG_DECIMAL,
+
+	/**
+	 * Primitive double arithmetic following IEEE 754, fast but approximate.
+	 */
+	DOUBLE,
+
+	/**
+	 * Exact primitive long arithmetic. Used only while every operand and every intermediate result
+	 * is an integer that fits in a long, otherwise evaluation falls back to BIG_DECIMAL.
+	 */
+	LONG,
+
+	/**
+	 * Fixed point decimal arithmetic on a long unscaled value and a scale, giving the exact results of
+	 * BIG_DECIMAL under a fixed point PrecisionPolicy without allocating. Used only while every unscaled value
+	 * fits in a long and the program calls no registry Operation, otherwise evaluation falls back to BIG_DECIMAL.
+	 */
+	SCALED_LONG
+}
@@ -0,0 +1,182 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+
+/**
+ * One entry of an OperatorRegistry: a binary operator, a prefix unary operator or a function of one or more arguments.
+ *
+ * Each entry carries its own implementation for every numeric path of CompiledExpression.
+ * Implementations receive their arguments in place on the operand stack, from offset for count values,
+ * so calling an entry never allocates. The long implementation is optional, without it or when it throws
+ * an ArithmeticException the LONG mode falls back to BigDecimal as for the built in operators.
+ *
+ * In postfix form a binary operator is written as its symbol (^), a unary operator as u followed by its symbol (u-)
+ * and a function as its name followed by the number of arguments in parenthesis (max(3)).
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.OperatorRegistry
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class Operation {
+
+	/**
+	 * Shape of an Operation.
+	 */
+	public enum Kind {
+		BINARY,
+		UNARY,
+		FUNCTION
+	}
+
+	/**
+	 * BigDecimal implementation of an Operation.
+	 */
+	@FunctionalInterface
+	public interface BigDecimalImplementation {
+		/**
+		 * @param arguments
+		 * 			Array holding the arguments, left to right.
+		 * @param offset
+		 * 			Index of the first argument.
+		 * @param count
+		 * 			Number of arguments.
+		 * @return	The result, ArithmeticException if it is undefined.
+		 */
+		BigDecimal apply(BigDecimal[] arguments, int offset, int count);
+	}
+
+	/**
+	 * Double implementation of an Operation, following IEEE 754 semantics.
+	 */
+	@FunctionalInterface
+	public interface DoubleImplementation {
+		/**
+		 * @param arguments
+		 * 			Array holding the arguments, left to right.
+		 * @param offset
+		 * 			Index of the first argument.
+		 * @param count
+		 * 			Number of arguments.
+		 * @return	The result.
+		 */
+		double apply(double[] arguments, int offset, int count);
+	}
+
+	/**
+	 * Exact long implementation of an Operation.
+	 */
+	@FunctionalInterface
+	public interface LongImplementation {
+		/**
+		 * @param arguments
+		 * 			Array holding the arguments, left to right.
+		 * @param offset
+		 * 			Index of the first argument.
+		 * @param count
+		 * 			Number of arguments.
+		 * @return	The exact result, ArithmeticException if it is not a long.
+		 */
+		long apply(long[] arguments, int offset, int count);
+	}
+
+	private final String name;
+	private final Kind kind;
+	private final int precedence;
+	private final boolean rightAssociative;
+	private final int minimumArity;
+	private final int maximumArity;
+	private final BigDecimalImplementation bigDecimal;
+	private final DoubleImplementation doubles;
+	private final LongImplementation longs;
+
+	Operation(String name, Kind kind, int precedence, boolean rightAssociative, int minimumArity, int maximumArity,
+			BigDecimalImplementation bigDecimal, DoubleImplementation doubles, LongImplementation longs) {
+		this.name = name;
+		this.kind = kind;
+		this.precedence = precedence;
+		this.rightAssociative = rightAssociative;
+		this.minimumArity = minimumArity;
+		this.maximumArity = maximumArity;
+		this.bigDecimal = bigDecimal;
+		this.doubles = doubles;
+		this.longs = longs;
+	}
+
+	/**
+	 * @return	The symbol of an operator or the name of a function.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return	Whether this is a binary operator, a unary operator or a function.
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return	Precedence of an operator on the scale of Operator (+ - are 0 , * / are 1), higher binds tighter.
+	 */
+	public int getPrecedence() {
+		return precedence;
+	}
+
+	/**
+	 * @return	True if a chain of this binary operator groups from the right, a ^ b ^ c is a ^ (b ^ c).
+	 */
+	public boolean isRightAssociative() {
+		return rightAssociative;
+	}
+
+	/**
+	 * @return	Fewest arguments accepted.
+	 */
+	public int getMinimumArity() {
+		return minimumArity;
+	}
+
+	/**
+	 * @return	Most arguments accepted.
+	 */
+	public int getMaximumArity() {
+		return maximumArity;
+	}
+
+	/**
+	 * @param arity
+	 * 			Number of arguments of a call, ignored for operators.
+	 * @return	The postfix String of this Operation.
+	 */
+	public String postfixToken(int arity) {
+		switch (kind){
+		case UNARY:
+			return "u" + name;
+		case FUNCTION:
+			return name + "(" + arity + ")";
+		default:
+			return name;
+		}
+	}
+
+	BigDecimal apply(BigDecimal[] arguments, int offset, int count) {
+		return bigDecimal.apply(arguments, offset, count);
+	}
+
+	double apply(double[] arguments, int offset, int count) {
+		return doubles.apply(arguments, offset, count);
+	}
+
+	long apply(long[] arguments, int offset, int count) {
+		if (longs == null)
+			throw new ArithmeticException("No long implementation for " + name);
+		return longs.apply(arguments, offset, count);
+	}
+
+	@Override
+	public String toString() {
+		return kind + " " + name;
+	}
+}
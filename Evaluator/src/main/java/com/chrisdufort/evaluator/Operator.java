@@ -0,0 +1,103 @@
+package com.chrisdufort.evaluator;
+
+import java.util.Arrays;
+
+/**
+ * Arithmetic operators of an expression, with their precedence and associativity.
+ *
+ * Postfix programs keep operators as Strings, they are turned into an Operator once through a table indexed
+ * by the operator character, so neither parsing nor evaluation hashes or compares Strings.
+ * The table also holds the precedence of the parenthesis used by infixToPostfix.
+ * The multiplication may be written *, x or X, all three map to MULTIPLY.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorUtilities#precedenceOf(String)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum Operator {
+
+	SUBTRACT('-', 0),
+	ADD('+', 0),
+	MULTIPLY('*', 1),
+	DIVIDE('/', 1);
+
+	//Precedence of the parenthesis, outside of the range of the operators.
+	static final int OPEN_PARENTHESIS = -1;
+	static final int CLOSE_PARENTHESIS = 2;
+	//Marks a character that is neither an operator nor a parenthesis.
+	static final int NOT_AN_OPERATOR = Integer.MIN_VALUE;
+
+	//Operator and precedence of each ASCII character.
+	private static final Operator[] BY_CHARACTER = new Operator[128];
+	private static final int[] PRECEDENCE = new int[128];
+
+	static {
+		Arrays.fill(PRECEDENCE, NOT_AN_OPERATOR);
+		for (Operator operator : values())
+		{
+			BY_CHARACTER[operator.symbol.charAt(0)] = operator;
+			PRECEDENCE[operator.symbol.charAt(0)] = operator.precedence;
+		}
+		BY_CHARACTER['x'] = MULTIPLY;
+		BY_CHARACTER['X'] = MULTIPLY;
+		PRECEDENCE['x'] = MULTIPLY.precedence;
+		PRECEDENCE['X'] = MULTIPLY.precedence;
+		PRECEDENCE['('] = OPEN_PARENTHESIS;
+		PRECEDENCE[')'] = CLOSE_PARENTHESIS;
+	}
+
+	private final String symbol;
+	private final int precedence;
+
+	private Operator(char symbol, int precedence) {
+		this.symbol = String.valueOf(symbol);
+		this.precedence = precedence;
+	}
+
+	/**
+	 * @return	The postfix String of this operator.
+	 */
+	public String symbol() {
+		return symbol;
+	}
+
+	/**
+	 * @return	The precedence of this operator, higher binds tighter.
+	 */
+	public int precedence() {
+		return precedence;
+	}
+
+	/**
+	 * @return	True if a chain of this operator groups from the left, a - b - c is (a - b) - c.
+	 */
+	public boolean isLeftAssociative() {
+		return true;
+	}
+
+	/**
+	 * Looks an operator up by its postfix String.
+	 *
+	 * @param value
+	 * 			One value of a postfix expression.
+	 * @return	The Operator, null if the value is not an operator.
+	 */
+	public static Operator of(String value) {
+		if (value.length() != 1)
+			return null;
+		char symbol = value.charAt(0);
+		return symbol < BY_CHARACTER.length ? BY_CHARACTER[symbol] : null;
+	}
+
+	/**
+	 * Package level precedence lookup of an operator or parenthesis character.
+	 *
+	 * @param symbol
+	 * 			The character to look up.
+	 * @return	The precedence, NOT_AN_OPERATOR for any other character.
+	 */
+	static int precedenceOf(char symbol) {
+		return symbol < PRECEDENCE.length ? PRECEDENCE[symbol] : NOT_AN_OPERATOR;
+	}
+}
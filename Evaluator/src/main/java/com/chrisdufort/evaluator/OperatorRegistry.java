@@ -0,0 +1,552 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable set of operators and functions available to an expression on top of the built in + - * x X /.
+ *
+ * A registry is built once through its Builder and frozen: the ExpressionLexer matches symbols and function
+ * names against its arrays, the parser resolves each token to its Operation once, and a CompiledExpression
+ * keeps that Operation per instruction, so evaluation calls the implementation directly without any lookup.
+ *
+ * standard() holds the usual additions:
+ * ^ power (precedence 3, right associative), % remainder (precedence 1, sign of the dividend),
+ * unary minus (precedence 2, so -a ^ 2 is -(a ^ 2) while a literal -2 ^ 2 is (-2) ^ 2),
+ * and the functions min and max (one or more arguments) and sqrt.
+ * BigDecimal results that cannot be exact follow the division: 16 places HALF_UP, so sqrt(2) and 2 ^ -1
+ * have 16 decimals and a fractional exponent is computed in double and kept to 16 significant digits.
+ *
+ * OperatorRegistry.builder().include(OperatorRegistry.standard())
+ * 		.function("avg", 1, Integer.MAX_VALUE, ..., ..., null).build()
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.Operation
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class OperatorRegistry {
+
+	//Largest integer exponent of the BigDecimal power, larger ones would build enormous numbers.
+	private static final int MAX_EXPONENT = 9999;
+
+	//The built in operators as Operations, indexed by ordinal, for the registry aware parser.
+	private static final Operation[] BUILT_IN_OPERATIONS = new Operation[Operator.values().length];
+
+	static {
+		for (final Operator operator : Operator.values())
+		{
+			BUILT_IN_OPERATIONS[operator.ordinal()] = new Operation(operator.symbol(), Operation.Kind.BINARY,
+					operator.precedence(), false, 2, 2,
+					(values, offset, count) -> EvaluatorUtilities.doMath(values[offset], operator, values[offset + 1]),
+					(values, offset, count) -> EvaluatorUtilities.doMath(values[offset], operator, values[offset + 1]),
+					(values, offset, count) -> EvaluatorUtilities.doMath(values[offset], operator, values[offset + 1]));
+		}
+	}
+
+	private static final OperatorRegistry BUILT_IN = new Builder().build();
+	private static final OperatorRegistry STANDARD = new Builder()
+			.binary("^", 3, true, OperatorRegistry::power, Math::pow, OperatorRegistry::power)
+			.binary("%", 1, false, BigDecimal::remainder, (a, b) -> a % b, OperatorRegistry::remainder)
+			.unary("-", 2, BigDecimal::negate, a -> -a, Math::negateExact)
+			.function("min", 1, Integer.MAX_VALUE, OperatorRegistry::min, OperatorRegistry::min, OperatorRegistry::min)
+			.function("max", 1, Integer.MAX_VALUE, OperatorRegistry::max, OperatorRegistry::max, OperatorRegistry::max)
+			.function("sqrt", 1, 1, (values, offset, count) -> squareRoot(values[offset]),
+					(values, offset, count) -> Math.sqrt(values[offset]), (values, offset, count) -> squareRoot(values[offset]))
+			.build();
+
+	//Postfix token of every binary and unary operator.
+	private final Map<String, Operation> operators;
+	//Functions by name.
+	private final Map<String, Operation> functions;
+	//Symbols read by the lexer, longest first, with the binary and unary operator of each (null if none).
+	private final String[] symbols;
+	private final Operation[] binaries;
+	private final Operation[] unaries;
+	//Function names read by the lexer.
+	private final String[] functionNames;
+	private final Operation[] functionEntries;
+
+	private OperatorRegistry(Builder builder) {
+		this.operators = Collections.unmodifiableMap(new HashMap<String, Operation>(builder.operators));
+		this.functions = Collections.unmodifiableMap(new HashMap<String, Operation>(builder.functions));
+
+		List<String> lexed = new ArrayList<String>();
+		for (Operation operation : builder.operators.values())
+		{
+			//A lone + or - is read by the lexer as the built in operator.
+			if (!lexed.contains(operation.getName()) && !isBuiltIn(operation.getName()))
+				lexed.add(operation.getName());
+		}
+		//Longest first so that ** is matched before *.
+		Collections.sort(lexed, (a, b) -> b.length() - a.length());
+		this.symbols = lexed.toArray(new String[lexed.size()]);
+		this.binaries = new Operation[symbols.length];
+		this.unaries = new Operation[symbols.length];
+		for (int index = 0; index < symbols.length; index++)
+		{
+			binaries[index] = binary(symbols[index]);
+			unaries[index] = unary(symbols[index]);
+		}
+		this.functionNames = functions.keySet().toArray(new String[functions.size()]);
+		this.functionEntries = new Operation[functionNames.length];
+		for (int index = 0; index < functionNames.length; index++)
+			functionEntries[index] = functions.get(functionNames[index]);
+	}
+
+	/**
+	 * @return	A Builder for a new registry, empty apart from the built in operators.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return	The registry of ^ , % , unary minus , min , max and sqrt.
+	 */
+	public static OperatorRegistry standard() {
+		return STANDARD;
+	}
+
+	/**
+	 * @return	The empty registry, only the built in operators.
+	 */
+	static OperatorRegistry builtIn() {
+		return BUILT_IN;
+	}
+
+	/**
+	 * @param operator
+	 * 			A built in operator.
+	 * @return	The Operation standing for it in the registry aware parser.
+	 */
+	static Operation operation(Operator operator) {
+		return BUILT_IN_OPERATIONS[operator.ordinal()];
+	}
+
+	/**
+	 * @return	True if this registry adds nothing to the built in operators.
+	 */
+	public boolean isEmpty() {
+		return operators.isEmpty() && functions.isEmpty();
+	}
+
+	/**
+	 * @param symbol
+	 * 			Symbol of an operator.
+	 * @return	The binary Operation of that symbol, null if none.
+	 */
+	public Operation binary(String symbol) {
+		Operation operation = operators.get(symbol);
+		return operation != null && operation.getKind() == Operation.Kind.BINARY ? operation : null;
+	}
+
+	/**
+	 * @param symbol
+	 * 			Symbol of an operator.
+	 * @return	The unary Operation of that symbol, null if none.
+	 */
+	public Operation unary(String symbol) {
+		return operators.get("u" + symbol);
+	}
+
+	/**
+	 * @param name
+	 * 			Name of a function.
+	 * @return	The function, null if none.
+	 */
+	public Operation function(String name) {
+		return functions.get(name);
+	}
+
+	/**
+	 * Package level lookup of a postfix token, used when a program is compiled.
+	 *
+	 * @param token
+	 * 			One value of a postfix expression.
+	 * @return	The Operation the token calls, null for operands and built in operators.
+	 */
+	Operation resolve(String token) {
+		Operation operation = operators.get(token);
+		if (operation != null)
+			return operation;
+		int open = token.indexOf('(');
+		if (open > 0 && token.endsWith(")"))
+			return functions.get(token.substring(0, open));
+		return null;
+	}
+
+	/**
+	 * Package level number of arguments of a resolved postfix token.
+	 *
+	 * @param operation
+	 * 			The Operation the token resolved to.
+	 * @param token
+	 * 			The postfix token.
+	 * @return	The number of values the instruction takes from the operand stack, -1 if the token is malformed.
+	 */
+	static int arityOf(Operation operation, String token) {
+		switch (operation.getKind()){
+		case UNARY:
+			return 1;
+		case BINARY:
+			return 2;
+		default:
+			try{
+				return Integer.parseInt(token.substring(token.indexOf('(') + 1, token.length() - 1));
+			}catch(NumberFormatException ex){
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Package level longest match of an operator symbol, used by the ExpressionLexer.
+	 *
+	 * @return	Index of the symbol starting at position, -1 if none.
+	 */
+	int matchSymbol(CharSequence input, int position, int limit) {
+		for (int index = 0; index < symbols.length; index++)
+		{
+			if (regionEquals(input, position, limit, symbols[index]))
+				return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Package level lookup of a function name between start and end, used by the ExpressionLexer.
+	 *
+	 * @return	Index of the function, -1 if none.
+	 */
+	int matchFunction(CharSequence input, int start, int end) {
+		for (int index = 0; index < functionNames.length; index++)
+		{
+			if (functionNames[index].length() == end - start && regionEquals(input, start, end, functionNames[index]))
+				return index;
+		}
+		return -1;
+	}
+
+	int symbolLength(int index) {
+		return symbols[index].length();
+	}
+
+	Operation binaryAt(int index) {
+		return binaries[index];
+	}
+
+	Operation unaryAt(int index) {
+		return unaries[index];
+	}
+
+	Operation functionAt(int index) {
+		return functionEntries[index];
+	}
+
+	private static boolean regionEquals(CharSequence input, int position, int limit, String text) {
+		if (limit - position < text.length())
+			return false;
+		for (int offset = 0; offset < text.length(); offset++)
+		{
+			if (input.charAt(position + offset) != text.charAt(offset))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isBuiltIn(String symbol) {
+		return symbol.length() == 1 && Operator.of(symbol) != null;
+	}
+
+	/*Implementations of the standard registry.*/
+
+	private static BigDecimal power(BigDecimal base, BigDecimal exponent) {
+		int integer;
+		try{
+			integer = exponent.intValueExact();
+		}catch(ArithmeticException ex){
+			//Fractional or huge exponent, computed in double.
+			double result = Math.pow(base.doubleValue(), exponent.doubleValue());
+			if (Double.isNaN(result) || Double.isInfinite(result))
+				throw new ArithmeticException("Power undefined");
+			return new BigDecimal(result, MathContext.DECIMAL64);
+		}
+		if (Math.abs(integer) > MAX_EXPONENT)
+			throw new ArithmeticException("Exponent too large");
+		if (integer >= 0)
+			return base.pow(integer);
+		return BigDecimal.ONE.divide(base.pow(-integer), 16, RoundingMode.HALF_UP);
+	}
+
+	private static long power(long base, long exponent) {
+		if (exponent < 0)
+			throw new ArithmeticException("Inexact long power");
+		long result = 1;
+		while (exponent > 0)
+		{
+			if ((exponent & 1) != 0)
+				result = Math.multiplyExact(result, base);
+			exponent >>= 1;
+			if (exponent > 0)
+				base = Math.multiplyExact(base, base);
+		}
+		return result;
+	}
+
+	private static long remainder(long dividend, long divisor) {
+		if (divisor == 0)
+			throw new ArithmeticException("Division by zero");
+		return dividend % divisor;
+	}
+
+	private static BigDecimal squareRoot(BigDecimal value) {
+		if (value.signum() < 0)
+			throw new ArithmeticException("Square root of a negative number");
+		if (value.signum() == 0)
+			return BigDecimal.ZERO.setScale(16);
+		//Enough digits for the integer part, the 16 places and guard digits.
+		MathContext context = new MathContext(Math.max(value.precision() - value.scale(), 0) / 2 + 20, RoundingMode.HALF_EVEN);
+		double estimate = Math.sqrt(value.doubleValue());
+		BigDecimal root = estimate > 0 && !Double.isInfinite(estimate)
+				? new BigDecimal(estimate)
+				: BigDecimal.ONE.movePointRight((value.precision() - value.scale()) / 2);
+		BigDecimal two = BigDecimal.valueOf(2);
+		for (int iteration = 0; iteration < 100; iteration++)
+		{
+			BigDecimal next = root.add(value.divide(root, context)).divide(two, context);
+			if (next.compareTo(root) == 0)
+				break;
+			root = next;
+		}
+		return root.setScale(16, RoundingMode.HALF_UP);
+	}
+
+	private static long squareRoot(long value) {
+		if (value < 0)
+			throw new ArithmeticException("Square root of a negative number");
+		long root = (long) Math.sqrt((double) value);
+		//Compared by division, the square of a root near 3037000499 would overflow.
+		while (root > value / Math.max(root, 1))
+			root--;
+		while (root + 1 <= value / (root + 1))
+			root++;
+		if (root * root != value)
+			throw new ArithmeticException("Inexact long square root");
+		return root;
+	}
+
+	private static BigDecimal min(BigDecimal[] values, int offset, int count) {
+		BigDecimal result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+		{
+			if (values[index].compareTo(result) < 0)
+				result = values[index];
+		}
+		return result;
+	}
+
+	private static double min(double[] values, int offset, int count) {
+		double result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+			result = Math.min(result, values[index]);
+		return result;
+	}
+
+	private static long min(long[] values, int offset, int count) {
+		long result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+			result = Math.min(result, values[index]);
+		return result;
+	}
+
+	private static BigDecimal max(BigDecimal[] values, int offset, int count) {
+		BigDecimal result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+		{
+			if (values[index].compareTo(result) > 0)
+				result = values[index];
+		}
+		return result;
+	}
+
+	private static double max(double[] values, int offset, int count) {
+		double result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+			result = Math.max(result, values[index]);
+		return result;
+	}
+
+	private static long max(long[] values, int offset, int count) {
+		long result = values[offset];
+		for (int index = offset + 1; index < offset + count; index++)
+			result = Math.max(result, values[index]);
+		return result;
+	}
+
+	/**
+	 * Builder used to declare the operators and functions of an OperatorRegistry.
+	 */
+	public static final class Builder {
+
+		private final Map<String, Operation> operators = new LinkedHashMap<String, Operation>();
+		private final Map<String, Operation> functions = new LinkedHashMap<String, Operation>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Declares a binary operator.
+		 *
+		 * @param symbol
+		 * 			Symbol of the operator, made of characters that are not letters, digits, whitespace, . _ ( ) or ,
+		 * 			and not one of the built in + - * /.
+		 * @param precedence
+		 * 			Precedence, + - are 0 and * / are 1, higher binds tighter.
+		 * @param rightAssociative
+		 * 			True if a ^ b ^ c means a ^ (b ^ c).
+		 * @param bigDecimal
+		 * 			BigDecimal implementation.
+		 * @param doubles
+		 * 			Double implementation.
+		 * @param longs
+		 * 			Exact long implementation, null to always fall back to BigDecimal.
+		 * @return	This Builder.
+		 */
+		public Builder binary(String symbol, int precedence, boolean rightAssociative, final BinaryOperator<BigDecimal> bigDecimal,
+				final DoubleBinaryOperator doubles, final LongBinaryOperator longs) {
+			checkSymbol(symbol);
+			if (isBuiltIn(symbol))
+				throw new IllegalArgumentException("Built in operator: " + symbol);
+			checkPrecedence(precedence);
+			checkImplementations(bigDecimal, doubles);
+			return add(operators, symbol, new Operation(symbol, Operation.Kind.BINARY, precedence, rightAssociative, 2, 2,
+					(values, offset, count) -> bigDecimal.apply(values[offset], values[offset + 1]),
+					(values, offset, count) -> doubles.applyAsDouble(values[offset], values[offset + 1]),
+					longs == null ? null : (values, offset, count) -> longs.applyAsLong(values[offset], values[offset + 1])));
+		}
+
+		/**
+		 * Declares a prefix unary operator.
+		 *
+		 * @param symbol
+		 * 			Symbol of the operator, may be + or -.
+		 * @param precedence
+		 * 			Precedence, + - are 0 and * / are 1, higher binds tighter.
+		 * @param bigDecimal
+		 * 			BigDecimal implementation.
+		 * @param doubles
+		 * 			Double implementation.
+		 * @param longs
+		 * 			Exact long implementation, null to always fall back to BigDecimal.
+		 * @return	This Builder.
+		 */
+		public Builder unary(String symbol, int precedence, final UnaryOperator<BigDecimal> bigDecimal,
+				final DoubleUnaryOperator doubles, final LongUnaryOperator longs) {
+			checkSymbol(symbol);
+			checkPrecedence(precedence);
+			checkImplementations(bigDecimal, doubles);
+			return add(operators, "u" + symbol, new Operation(symbol, Operation.Kind.UNARY, precedence, true, 1, 1,
+					(values, offset, count) -> bigDecimal.apply(values[offset]),
+					(values, offset, count) -> doubles.applyAsDouble(values[offset]),
+					longs == null ? null : (values, offset, count) -> longs.applyAsLong(values[offset])));
+		}
+
+		/**
+		 * Declares a function, called as name(argument , argument ...).
+		 *
+		 * @param name
+		 * 			Name of the function, an identifier.
+		 * @param minimumArity
+		 * 			Fewest arguments accepted.
+		 * @param maximumArity
+		 * 			Most arguments accepted, Integer.MAX_VALUE for any number.
+		 * @param bigDecimal
+		 * 			BigDecimal implementation.
+		 * @param doubles
+		 * 			Double implementation.
+		 * @param longs
+		 * 			Exact long implementation, null to always fall back to BigDecimal.
+		 * @return	This Builder.
+		 */
+		public Builder function(String name, int minimumArity, int maximumArity, Operation.BigDecimalImplementation bigDecimal,
+				Operation.DoubleImplementation doubles, Operation.LongImplementation longs) {
+			if (name == null || name.isEmpty() || !EvaluatorUtilities.isVariable(name))
+				throw new IllegalArgumentException("Function name must be an identifier: " + name);
+			for (int index = 1; index < name.length(); index++)
+			{
+				if (!Character.isLetterOrDigit(name.charAt(index)) && name.charAt(index) != '_')
+					throw new IllegalArgumentException("Function name must be an identifier: " + name);
+			}
+			if (minimumArity < 0 || maximumArity < minimumArity)
+				throw new IllegalArgumentException("Invalid arity: " + minimumArity + " to " + maximumArity);
+			checkImplementations(bigDecimal, doubles);
+			return add(functions, name, new Operation(name, Operation.Kind.FUNCTION, Integer.MAX_VALUE, false,
+					minimumArity, maximumArity, bigDecimal, doubles, longs));
+		}
+
+		/**
+		 * Declares every operator and function of another registry.
+		 *
+		 * @param registry
+		 * 			The registry to copy.
+		 * @return	This Builder.
+		 */
+		public Builder include(OperatorRegistry registry) {
+			for (Map.Entry<String, Operation> entry : registry.operators.entrySet())
+				add(operators, entry.getKey(), entry.getValue());
+			for (Map.Entry<String, Operation> entry : registry.functions.entrySet())
+				add(functions, entry.getKey(), entry.getValue());
+			return this;
+		}
+
+		/**
+		 * @return	A new, frozen OperatorRegistry.
+		 */
+		public OperatorRegistry build() {
+			return new OperatorRegistry(this);
+		}
+
+		private Builder add(Map<String, Operation> entries, String key, Operation operation) {
+			if (entries.containsKey(key))
+				throw new IllegalArgumentException("Already registered: " + operation);
+			entries.put(key, operation);
+			return this;
+		}
+
+		private static void checkSymbol(String symbol) {
+			if (symbol == null || symbol.isEmpty())
+				throw new IllegalArgumentException("Operator symbol must not be empty");
+			for (int index = 0; index < symbol.length(); index++)
+			{
+				char ch = symbol.charAt(index);
+				if (Character.isLetterOrDigit(ch) || Character.isWhitespace(ch) || ch == '.' || ch == '_'
+						|| ch == '(' || ch == ')' || ch == ',')
+					throw new IllegalArgumentException("Invalid operator symbol: " + symbol);
+			}
+		}
+
+		private static void checkPrecedence(int precedence) {
+			if (precedence < 0)
+				throw new IllegalArgumentException("Precedence must not be negative: " + precedence);
+		}
+
+		private static void checkImplementations(Object bigDecimal, Object doubles) {
+			if (bigDecimal == null || doubles == null)
+				throw new IllegalArgumentException("BigDecimal and double implementations are required");
+		}
+	}
+}
@@ -0,0 +1,545 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Fork/join front end of the BatchEvaluator, spreading large batches of rows or large sets of independent
+ * expressions across the cores of a ForkJoinPool.
+ *
+ * Work is split adaptively: a task keeps halving its range and forking the upper half while the range is above
+ * the minimum chunk and the worker has few queued tasks (ForkJoinTask.getSurplusQueuedTaskCount), then
+ * evaluates what is left sequentially. Busy pools therefore split less, idle ones steal more.
+ * Every result is written at the position of its input, so results always keep the input order.
+ *
+ * evaluateSubtrees spreads a single huge expression instead: the arguments of every operator whose subtree
+ * exceeds the minimum subtree are evaluated on different workers, the largest one in place.
+ * Chains produced by infixToPostfix are left deep, a + b + c + d is ((a + b) + c) + d, and leave nothing
+ * to share, CompiledExpression.rebalance() first regroups them into balanced trees.
+ *
+ * Instances are created through the Builder:
+ * ParallelBatchEvaluator.builder().pool(new ForkJoinPool(8)).minimumChunk(4096).build()
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.BatchEvaluator
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ParallelBatchEvaluator {
+
+	//Keep splitting while a worker has at most this many surplus tasks queued.
+	private static final int SURPLUS_THRESHOLD = 3;
+
+	private final ForkJoinPool pool;
+	private final int minimumChunk;
+	private final int minimumExpressions;
+	private final int minimumSubtree;
+
+	private ParallelBatchEvaluator(Builder builder) {
+		this.pool = builder.pool;
+		this.minimumChunk = builder.minimumChunk;
+		this.minimumExpressions = builder.minimumExpressions;
+		this.minimumSubtree = builder.minimumSubtree;
+	}
+
+	/**
+	 * @return	A Builder for a ParallelBatchEvaluator, by default on the common pool.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Evaluates the expression with double arithmetic over every row of the columns, in parallel.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, at least as long as the output.
+	 * @param output
+	 * 			Array receiving one result per row.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing or too short.
+	 */
+	public void evaluate(final CompiledExpression expression, final double[][] columns, final double[] output)
+			throws InvalidExpressionFormatException {
+		//Validate once up front, the ranges then cannot fail.
+		BatchEvaluator.checkColumns(expression, columns, output.length);
+		invoke(new RangeTask((from, to) -> BatchEvaluator.evaluateRange(expression, columns, output, from, to),
+				0, output.length, minimumChunk));
+	}
+
+	/**
+	 * Evaluates the expression with BigDecimal arithmetic over every row of the columns, in parallel.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, at least as long as the output.
+	 * @param output
+	 * 			Array receiving one result per row.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed, a column is missing or too short, or a row divides by zero.
+	 */
+	public void evaluate(final CompiledExpression expression, final BigDecimal[][] columns, final BigDecimal[] output)
+			throws InvalidExpressionFormatException {
+		BatchEvaluator.checkColumns(expression, columns, output.length);
+		//BigDecimal rows are far more expensive than double ones, split them finer.
+		invoke(new RangeTask((from, to) -> BatchEvaluator.evaluateRange(expression, columns, output, from, to),
+				0, output.length, Math.max(1, minimumChunk / 16)));
+	}
+
+	/**
+	 * Evaluates a set of independent expressions with BigDecimal arithmetic, in parallel.
+	 *
+	 * @param expressions
+	 * 			The CompiledExpressions to evaluate, without variables.
+	 * @return	The result of each expression, in the order of the list.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			The first failure met, if any expression is malformed or divides by zero.
+	 */
+	public BigDecimal[] evaluateAll(final List<CompiledExpression> expressions) throws InvalidExpressionFormatException {
+		final CompiledExpression[] input = expressions.toArray(new CompiledExpression[expressions.size()]);
+		final BigDecimal[] results = new BigDecimal[input.length];
+		invoke(new RangeTask((from, to) -> {
+			for (int index = from; index < to; index++)
+				results[index] = input[index].evaluate();
+		}, 0, input.length, minimumExpressions));
+		return results;
+	}
+
+	/**
+	 * Evaluates a set of independent expressions with double arithmetic, in parallel.
+	 *
+	 * @param expressions
+	 * 			The CompiledExpressions to evaluate, without variables.
+	 * @return	The result of each expression, in the order of the list.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			The first failure met, if any expression is malformed.
+	 */
+	public double[] evaluateAllDouble(final List<CompiledExpression> expressions) throws InvalidExpressionFormatException {
+		final CompiledExpression[] input = expressions.toArray(new CompiledExpression[expressions.size()]);
+		final double[] results = new double[input.length];
+		invoke(new RangeTask((from, to) -> {
+			for (int index = from; index < to; index++)
+				results[index] = input[index].evaluateDouble();
+		}, 0, input.length, minimumExpressions));
+		return results;
+	}
+
+	/**
+	 * Evaluates one expression with BigDecimal arithmetic, its large independent subtrees in parallel.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate, usually rebalanced.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The same result as expression.evaluate(values).
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed, a value is missing or a subtree divides by zero.
+	 */
+	public BigDecimal evaluateSubtrees(CompiledExpression expression, BigDecimal... values) throws InvalidExpressionFormatException {
+		return evaluateSubtrees(expression, PrecisionPolicy.standard(), values);
+	}
+
+	/**
+	 * Evaluates one expression with BigDecimal arithmetic rounded by a PrecisionPolicy, its large independent
+	 * subtrees in parallel. Every operation is applied to the same operands as sequentially, the result is the same.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate, usually rebalanced.
+	 * @param policy
+	 * 			Rounding of the divisions, of every operation or of the result.
+	 * @param values
+	 * 			Value of each variable, indexed as in variables().
+	 * @return	The same result as expression.evaluate(policy, values).
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed, a value is missing or a subtree divides by zero.
+	 */
+	public BigDecimal evaluateSubtrees(CompiledExpression expression, PrecisionPolicy policy, BigDecimal... values)
+			throws InvalidExpressionFormatException {
+		expression.checkStructure();
+		expression.checkBindings(values.length);
+		SubtreeTask task = new SubtreeTask(expression, expression.subtreeStarts(), policy, values, minimumSubtree,
+				expression.size() - 1);
+		try{
+			return policy.result(pool.invoke(task));
+		}catch(EvaluationFailure failure){
+			throw unwrap(failure);
+		}
+	}
+
+	/**
+	 * Measures the double batch throughput of the expression on pools of 1, 2, 4 ... up to maxParallelism workers.
+	 * Each pool runs one warm up pass then the timed repetitions, the speedup is relative to the single worker pool.
+	 *
+	 * @param expression
+	 * 			The CompiledExpression to evaluate.
+	 * @param columns
+	 * 			Column of values of each variable, at least as long as the output.
+	 * @param output
+	 * 			Array receiving one result per row.
+	 * @param maxParallelism
+	 * 			Largest number of workers measured, usually Runtime.availableProcessors().
+	 * @param repetitions
+	 * 			Number of timed passes per pool.
+	 * @return	One sample per measured pool size, in increasing order.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is malformed or a column is missing or too short.
+	 */
+	public static List<ScalingSample> measureScaling(CompiledExpression expression, double[][] columns, double[] output,
+			int maxParallelism, int repetitions) throws InvalidExpressionFormatException {
+		List<ScalingSample> samples = new ArrayList<ScalingSample>();
+		double baseline = 0.0;
+		for (int parallelism = 1; ; parallelism = Math.min(parallelism * 2, maxParallelism))
+		{
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try{
+				ParallelBatchEvaluator evaluator = builder().pool(pool).build();
+				evaluator.evaluate(expression, columns, output);
+				long start = System.nanoTime();
+				for (int pass = 0; pass < repetitions; pass++)
+					evaluator.evaluate(expression, columns, output);
+				long elapsed = Math.max(1L, System.nanoTime() - start);
+				double rowsPerSecond = (double) output.length * repetitions * 1e9 / elapsed;
+				if (parallelism == 1)
+					baseline = rowsPerSecond;
+				samples.add(new ScalingSample(parallelism, rowsPerSecond, rowsPerSecond / baseline));
+			}finally{
+				pool.shutdown();
+			}
+			if (parallelism >= maxParallelism)
+				return samples;
+		}
+	}
+
+	//Runs the task in the pool and unwraps a failure of any of its pieces.
+	private void invoke(RangeTask task) throws InvalidExpressionFormatException {
+		try{
+			pool.invoke(task);
+		}catch(EvaluationFailure failure){
+			throw unwrap(failure);
+		}
+	}
+
+	//The pool may rethrow a copy of the failure with the original as its cause.
+	private static InvalidExpressionFormatException unwrap(EvaluationFailure failure) {
+		Throwable cause = failure;
+		while (!(cause instanceof InvalidExpressionFormatException))
+			cause = cause.getCause();
+		return (InvalidExpressionFormatException) cause;
+	}
+
+	/**
+	 * Sequential evaluation of one range of rows or expressions.
+	 */
+	private interface RangeBody {
+		void compute(int from, int to) throws InvalidExpressionFormatException;
+	}
+
+	/**
+	 * Adaptive range splitting task.
+	 */
+	private static final class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final transient RangeBody body;
+		private final int from;
+		private final int to;
+		private final int minimum;
+
+		RangeTask(RangeBody body, int from, int to, int minimum) {
+			this.body = body;
+			this.from = from;
+			this.to = to;
+			this.minimum = Math.max(1, minimum);
+		}
+
+		@Override
+		protected void compute() {
+			int high = to;
+			List<RangeTask> forked = null;
+			//Split off the upper half while the range is large and this worker is not already flooded.
+			while (high - from > minimum && ForkJoinTask.getSurplusQueuedTaskCount() <= SURPLUS_THRESHOLD)
+			{
+				int middle = (from + high) >>> 1;
+				RangeTask upper = new RangeTask(body, middle, high, minimum);
+				upper.fork();
+				if (forked == null)
+					forked = new ArrayList<RangeTask>();
+				forked.add(upper);
+				high = middle;
+			}
+			boolean completed = false;
+			try{
+				body.compute(from, high);
+				if (forked != null)
+				{
+					for (int index = forked.size() - 1; index >= 0; index--)
+						forked.get(index).join();
+				}
+				completed = true;
+			}catch(InvalidExpressionFormatException ex){
+				throw new EvaluationFailure(ex);
+			}finally{
+				//On failure take back the pieces not started and wait for the others, none may write once the caller has
+				//the error. cancel() would mark a running piece done without stopping it.
+				if (!completed && forked != null)
+				{
+					for (int index = forked.size() - 1; index >= 0; index--)
+					{
+						if (!forked.get(index).tryUnfork())
+							forked.get(index).quietlyJoin();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluation of the subtree ending at one instruction.
+	 * Walks down the largest argument of every subtree above the minimum, forking the other large arguments
+	 * and evaluating the small ones in place, then evaluates the remaining subtree sequentially and applies
+	 * the instructions walked back up. Only arguments at most half the size of their parent are forked,
+	 * so long chains of subtractions do not nest tasks, and nesting stays logarithmic.
+	 */
+	private static final class SubtreeTask extends RecursiveTask<BigDecimal> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient CompiledExpression expression;
+		private final int[] starts;
+		private final transient PrecisionPolicy policy;
+		private final transient BigDecimal[] values;
+		private final int minimum;
+		private final int root;
+
+		SubtreeTask(CompiledExpression expression, int[] starts, PrecisionPolicy policy, BigDecimal[] values, int minimum, int root) {
+			this.expression = expression;
+			this.starts = starts;
+			this.policy = policy;
+			this.values = values;
+			this.minimum = minimum;
+			this.root = root;
+		}
+
+		@Override
+		protected BigDecimal compute() {
+			try{
+				return evaluate();
+			}catch(InvalidExpressionFormatException ex){
+				throw new EvaluationFailure(ex);
+			}
+		}
+
+		private BigDecimal evaluate() throws InvalidExpressionFormatException {
+			List<Step> walked = new ArrayList<Step>();
+			int node = root;
+			int arity;
+			while (size(node) > minimum && (arity = expression.arity(node)) > 0)
+			{
+				Step step = new Step(node, arity);
+				int child = node - 1;
+				for (int index = arity - 1; index >= 0; index--)
+				{
+					step.children[index] = child;
+					if (size(child) > size(step.children[step.largest]))
+						step.largest = index;
+					child = starts[child] - 1;
+				}
+				for (int index = 0; index < arity; index++)
+				{
+					int argument = step.children[index];
+					if (index == step.largest)
+						continue;
+					if (size(argument) > minimum)
+					{
+						step.forked[index] = new SubtreeTask(expression, starts, policy, values, minimum, argument);
+						step.forked[index].fork();
+					}
+					else
+					{
+						step.operands[index] = sequential(argument);
+					}
+				}
+				walked.add(step);
+				node = step.children[step.largest];
+			}
+			BigDecimal value = sequential(node);
+			for (int index = walked.size() - 1; index >= 0; index--)
+			{
+				Step step = walked.get(index);
+				step.operands[step.largest] = value;
+				for (int argument = 0; argument < step.forked.length; argument++)
+				{
+					if (step.forked[argument] != null)
+						step.operands[argument] = step.forked[argument].join();
+				}
+				value = expression.apply(step.node, step.operands, policy);
+			}
+			return value;
+		}
+
+		private int size(int node) {
+			return node - starts[node] + 1;
+		}
+
+		private BigDecimal sequential(int node) throws InvalidExpressionFormatException {
+			return expression.evaluateSubtree(values, expression.decimalStack(EvaluationContext.current()), policy, starts[node], node);
+		}
+	}
+
+	/**
+	 * Instruction walked down by a SubtreeTask, with the values or tasks of its arguments.
+	 */
+	private static final class Step {
+		private final int node;
+		private final int[] children;
+		private final BigDecimal[] operands;
+		private final SubtreeTask[] forked;
+		//Argument walked down, evaluated last.
+		private int largest;
+
+		Step(int node, int arity) {
+			this.node = node;
+			this.children = new int[arity];
+			this.operands = new BigDecimal[arity];
+			this.forked = new SubtreeTask[arity];
+			this.largest = arity - 1;
+		}
+	}
+
+	/**
+	 * Carries a checked failure out of a fork/join task.
+	 */
+	private static final class EvaluationFailure extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		EvaluationFailure(InvalidExpressionFormatException cause) {
+			super(cause.getMessage(), cause, false, false);
+		}
+	}
+
+	/**
+	 * Throughput measured for one pool size by measureScaling.
+	 */
+	public static final class ScalingSample {
+		private final int parallelism;
+		private final double rowsPerSecond;
+		private final double speedup;
+
+		ScalingSample(int parallelism, double rowsPerSecond, double speedup) {
+			this.parallelism = parallelism;
+			this.rowsPerSecond = rowsPerSecond;
+			this.speedup = speedup;
+		}
+
+		/**
+		 * @return	Number of workers of the measured pool.
+		 */
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		/**
+		 * @return	Rows evaluated per second.
+		 */
+		public double getRowsPerSecond() {
+			return rowsPerSecond;
+		}
+
+		/**
+		 * @return	Throughput relative to a single worker.
+		 */
+		public double getSpeedup() {
+			return speedup;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("parallelism=%d rows/s=%.0f speedup=%.2f", parallelism, rowsPerSecond, speedup);
+		}
+	}
+
+	/**
+	 * Builder used to configure a ParallelBatchEvaluator.
+	 */
+	public static final class Builder {
+
+		private ForkJoinPool pool = ForkJoinPool.commonPool();
+		private int minimumChunk = 4 * BatchEvaluator.BLOCK_SIZE;
+		private int minimumExpressions = 16;
+		private int minimumSubtree = 1024;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param pool
+		 * 			The ForkJoinPool running the evaluations.
+		 * @return	This Builder.
+		 */
+		public Builder pool(ForkJoinPool pool) {
+			if (pool == null)
+				throw new IllegalArgumentException("Pool must not be null");
+			this.pool = pool;
+			return this;
+		}
+
+		/**
+		 * @param minimumChunk
+		 * 			Number of double rows below which a range is never split.
+		 * @return	This Builder.
+		 */
+		public Builder minimumChunk(int minimumChunk) {
+			if (minimumChunk < 1)
+				throw new IllegalArgumentException("Minimum chunk must be positive: " + minimumChunk);
+			this.minimumChunk = minimumChunk;
+			return this;
+		}
+
+		/**
+		 * @param minimumExpressions
+		 * 			Number of expressions below which a set is never split.
+		 * @return	This Builder.
+		 */
+		public Builder minimumExpressions(int minimumExpressions) {
+			if (minimumExpressions < 1)
+				throw new IllegalArgumentException("Minimum expressions must be positive: " + minimumExpressions);
+			this.minimumExpressions = minimumExpressions;
+			return this;
+		}
+
+		/**
+		 * @param minimumSubtree
+		 * 			Number of instructions below which evaluateSubtrees evaluates a subtree sequentially.
+		 * @return	This Builder.
+		 */
+		public Builder minimumSubtree(int minimumSubtree) {
+			if (minimumSubtree < 1)
+				throw new IllegalArgumentException("Minimum subtree must be positive: " + minimumSubtree);
+			this.minimumSubtree = minimumSubtree;
+			return this;
+		}
+
+		/**
+		 * @return	A new ParallelBatchEvaluator.
+		 */
+		public ParallelBatchEvaluator build() {
+			return new ParallelBatchEvaluator(this);
+		}
+	}
+}
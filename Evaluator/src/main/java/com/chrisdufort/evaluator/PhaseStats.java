@@ -0,0 +1,89 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Immutable snapshot of the latencies of one EvaluationPhase.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.MetricsSnapshot#phase(EvaluationPhase)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class PhaseStats {
+
+	private final long count;
+	private final long errorCount;
+	private final long totalNanos;
+	private final long maxNanos;
+	//Power of two buckets of LatencyHistogram.
+	private final long[] buckets;
+
+	PhaseStats(long count, long errorCount, long totalNanos, long maxNanos, long[] buckets) {
+		this.count = count;
+		this.errorCount = errorCount;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.buckets = buckets;
+	}
+
+	/**
+	 * @return	Number of calls timed, failed ones included.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * @return	Number of calls that threw an InvalidExpressionFormatException.
+	 */
+	public long errorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * @return	Sum of the latencies, in nanoseconds.
+	 */
+	public long totalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return	Longest latency, in nanoseconds.
+	 */
+	public long maxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * @return	Mean latency in nanoseconds, 0 when nothing was timed.
+	 */
+	public double meanNanos() {
+		return count == 0 ? 0.0 : (double) totalNanos / count;
+	}
+
+	/**
+	 * @param percentile
+	 * 			Percentile wanted, from 0 to 100.
+	 * @return	Upper bound of the latency bucket holding the percentile, in nanoseconds, at most maxNanos.
+	 */
+	public long percentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+		if (count == 0)
+			return 0L;
+		long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		for (int bucket = 0; bucket < buckets.length; bucket++)
+		{
+			seen += buckets[bucket];
+			if (seen >= rank)
+				return Math.min(bucket == 0 ? 0L : (1L << bucket) - 1, maxNanos);
+		}
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "PhaseStats[count=" + count + ", errors=" + errorCount + ", mean=" + (long) meanNanos() + "ns, p50="
+				+ percentileNanos(50) + "ns, p99=" + percentileNanos(99) + "ns, max=" + maxNanos + "ns]";
+	}
+}
@@ -0,0 +1,457 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Package level optimization pass over postfix programs, run after infixToPostfix.
+ *
+ * Constant subtrees are folded with the same BigDecimal doMath used when evaluating, so a folded value is
+ * exactly the intermediate result evaluation would have produced, divisions included (16 places HALF_UP).
+ * Folded values are written back with BigDecimal.toString, which parses back to the same value and scale.
+ * A subtree that fails (division by zero) is left as it is so the failure still happens when evaluating.
+ *
+ * Identity operations on non constant operands are dropped: a * 1, 1 * a, a + 0, 0 + a and a - 0,
+ * only when the literal is exactly 1 or 0 without decimals, a * 1.0 would change the scale of the result.
+ * An addition raises a negative scale to 0 (1E+3 + 0 is 1000), so + 0 and - 0 are only dropped when the
+ * other operand cannot have a negative scale: each subtree carries the lowest scale its value can have,
+ * unknown for variables and registry calls, whose bound values may be 1E+3.
+ * Division by 1 is kept, it rounds its left operand to 16 places.
+ *
+ * Calls to the operators and functions of an OperatorRegistry are folded the same way when all of their
+ * arguments are constant, with their own BigDecimal implementation.
+ *
+ * Postfix has no parenthesis, toInfix renders a program back to infix with only the parenthesis it needs.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#optimize()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class PostfixOptimizer {
+
+	//Kinds of work of rebalance.
+	private static final int COPY = 0;
+	private static final int EMIT = 1;
+	private static final int JOIN = 2;
+	//Minimum scale of a value bound or computed at evaluation, any scale.
+	private static final int UNKNOWN_SCALE = Integer.MIN_VALUE;
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private PostfixOptimizer(){
+		/*This class is a utility class, therefore the constructor is private.*/
+	}
+
+	/**
+	 * Folds constants and drops identities of a postfix program.
+	 * Malformed programs are returned unchanged so their error is reported as before.
+	 *
+	 * @param program
+	 * 			The postfix instructions to optimize, left untouched.
+	 * @return	The optimized instructions, the same array if nothing changed.
+	 */
+	static String[] optimize(String[] program) {
+		return optimize(program, OperatorRegistry.builtIn());
+	}
+
+	/**
+	 * Folds constants and drops identities of a postfix program calling the operators of a registry.
+	 *
+	 * @param program
+	 * 			The postfix instructions to optimize, left untouched.
+	 * @param registry
+	 * 			The OperatorRegistry the program was compiled with.
+	 * @return	The optimized instructions, the same array if nothing changed.
+	 */
+	static String[] optimize(String[] program, OperatorRegistry registry) {
+		Deque<Fragment> stack = new ArrayDeque<Fragment>();
+		for (String value : program)
+		{
+			Operation call = registry.isEmpty() ? null : registry.resolve(value);
+			if (call != null)
+			{
+				int arity = OperatorRegistry.arityOf(call, value);
+				if (arity < 0 || stack.size() < arity)
+					return program;
+				Fragment[] arguments = new Fragment[arity];
+				for (int index = arity - 1; index >= 0; index--)
+					arguments[index] = stack.pop();
+				stack.push(call(arguments, value, call));
+			}
+			else if (EvaluatorUtilities.isVariable(value))
+			{
+				stack.push(new Fragment(value, null));
+			}
+			else if (EvaluatorUtilities.isOperand(value))
+			{
+				try{
+					stack.push(new Fragment(value, new BigDecimal(value)));
+				}catch(NumberFormatException ex){
+					//Reported by the compiler.
+					return program;
+				}
+			}
+			else
+			{
+				Operator operator = Operator.of(value);
+				if (stack.size() < 2 || operator == null)
+					return program;
+				Fragment right = stack.pop();
+				Fragment left = stack.pop();
+				stack.push(combine(left, value, operator, right));
+			}
+		}
+		if (stack.size() != 1)
+			return program;
+		List<String> optimized = stack.pop().instructions;
+		if (optimized.size() == program.length)
+			return program;
+		return optimized.toArray(new String[optimized.size()]);
+	}
+
+	/**
+	 * Regroups every chain of the same built in addition or multiplication, a + b + c + d, into a balanced tree,
+	 * (a + b) + (c + d), so the two halves of a long chain are independent subtrees of half its depth.
+	 * Operands keep their order, subtractions, divisions and registry calls keep their place and grouping.
+	 * The regrouped program gives exactly the same BigDecimal result as long as additions and multiplications
+	 * are exact, which every PrecisionPolicy but fixedScale guarantees.
+	 *
+	 * Work is kept on explicit stacks, chains of any length are regrouped without recursion.
+	 *
+	 * @param program
+	 * 			The postfix instructions to regroup, left untouched.
+	 * @param registry
+	 * 			The OperatorRegistry the program was compiled with.
+	 * @return	The regrouped instructions, the same array if no chain has more than three operands
+	 * 			or the program is malformed.
+	 */
+	static String[] rebalance(String[] program, OperatorRegistry registry) {
+		Operator[] operators = new Operator[program.length];
+		int[] arities = new int[program.length];
+		int[] starts = subtreeStarts(program, registry, operators, arities);
+		if (starts == null)
+			return program;
+
+		List<String> balanced = new ArrayList<String>(program.length);
+		//Operands of each chain met, in order.
+		List<int[]> chains = new ArrayList<int[]>();
+		//Pending work, last in first out: {COPY, instruction}, {EMIT, subtree} or {JOIN, chain root, chain, first, last operand}.
+		Deque<int[]> work = new ArrayDeque<int[]>();
+		work.push(new int[]{EMIT, program.length - 1});
+		while (!work.isEmpty())
+		{
+			int[] step = work.pop();
+			int node = step[1];
+			if (step[0] == COPY)
+			{
+				balanced.add(program[node]);
+			}
+			else if (step[0] == JOIN)
+			{
+				int from = step[3];
+				int to = step[4];
+				if (from == to)
+				{
+					work.push(new int[]{EMIT, chains.get(step[2])[from]});
+				}
+				else
+				{
+					//The left half takes the extra operand, so chains of three keep their shape.
+					int middle = ((from + to) >>> 1) + 1;
+					work.push(new int[]{COPY, node});
+					work.push(new int[]{JOIN, node, step[2], middle, to});
+					work.push(new int[]{JOIN, node, step[2], from, middle - 1});
+				}
+			}
+			else if (operators[node] == Operator.ADD || operators[node] == Operator.MULTIPLY)
+			{
+				int[] operands = chain(node, operators, starts);
+				chains.add(operands);
+				work.push(new int[]{JOIN, node, chains.size() - 1, 0, operands.length - 1});
+			}
+			else
+			{
+				//Arguments are pushed last first, so the first one is emitted first.
+				work.push(new int[]{COPY, node});
+				int child = node - 1;
+				for (int index = 0; index < arities[node]; index++)
+				{
+					work.push(new int[]{EMIT, child});
+					child = starts[child] - 1;
+				}
+			}
+		}
+		//Regrouping only moves operators, a program without chains of four comes out identical.
+		boolean changed = false;
+		for (int index = 0; index < program.length && !changed; index++)
+			changed = !program[index].equals(balanced.get(index));
+		if (!changed)
+			return program;
+		return balanced.toArray(new String[balanced.size()]);
+	}
+
+	/**
+	 * Finds the first instruction of the subtree ending at every instruction of a well formed program,
+	 * the arguments of an instruction being the subtrees ending right before it.
+	 *
+	 * @param program
+	 * 			Postfix instructions.
+	 * @param registry
+	 * 			The OperatorRegistry the program was compiled with.
+	 * @param operators
+	 * 			Receives the built in Operator of each instruction, null where none.
+	 * @param arities
+	 * 			Receives the number of arguments of each instruction.
+	 * @return	The index of the first instruction of each subtree, null if the program is malformed.
+	 */
+	static int[] subtreeStarts(String[] program, OperatorRegistry registry, Operator[] operators, int[] arities) {
+		int[] starts = new int[program.length];
+		int[] stack = new int[program.length];
+		int top = 0;
+		for (int index = 0; index < program.length; index++)
+		{
+			String value = program[index];
+			Operation call = registry.isEmpty() ? null : registry.resolve(value);
+			if (call != null)
+			{
+				arities[index] = OperatorRegistry.arityOf(call, value);
+				if (arities[index] < 0)
+					return null;
+			}
+			else if (!EvaluatorUtilities.isOperand(value))
+			{
+				operators[index] = Operator.of(value);
+				if (operators[index] == null)
+					return null;
+				arities[index] = 2;
+			}
+			if (top < arities[index])
+				return null;
+			top -= arities[index];
+			starts[index] = arities[index] == 0 ? index : stack[top];
+			stack[top++] = starts[index];
+		}
+		return top == 1 ? starts : null;
+	}
+
+	/**
+	 * Collects the operands of the chain of the operator at root, in order.
+	 */
+	private static int[] chain(int root, Operator[] operators, int[] starts) {
+		List<Integer> operands = new ArrayList<Integer>();
+		Deque<Integer> pending = new ArrayDeque<Integer>();
+		pending.push(root);
+		while (!pending.isEmpty())
+		{
+			int node = pending.pop();
+			if (operators[node] == operators[root])
+			{
+				//The right operand ends right before the operator, the left one right before the right one.
+				pending.push(node - 1);
+				pending.push(starts[node - 1] - 1);
+			}
+			else
+			{
+				operands.add(node);
+			}
+		}
+		int[] chain = new int[operands.size()];
+		for (int index = 0; index < chain.length; index++)
+			chain[index] = operands.get(index);
+		return chain;
+	}
+
+	/**
+	 * Folds, simplifies or joins two fragments under an operator, the symbol is kept as written.
+	 */
+	private static Fragment combine(Fragment left, String symbol, Operator operator, Fragment right) {
+		if (left.constant != null && right.constant != null)
+		{
+			try{
+				BigDecimal folded = EvaluatorUtilities.doMath(left.constant, operator, right.constant);
+				return new Fragment(folded.toString(), folded);
+			}catch(ArithmeticException ex){
+				//Leave the division by zero for evaluation to report.
+			}
+		}
+		int scale;
+		switch (operator){
+		case MULTIPLY:
+			if (isExactly(right, BigDecimal.ONE))
+				return left;
+			if (isExactly(left, BigDecimal.ONE))
+				return right;
+			//Scales add up, a bound stays unknown if either is.
+			scale = left.minimumScale == UNKNOWN_SCALE || right.minimumScale == UNKNOWN_SCALE ? UNKNOWN_SCALE
+					: (int) Math.max(UNKNOWN_SCALE + 1L, Math.min(Integer.MAX_VALUE, (long) left.minimumScale + right.minimumScale));
+			break;
+		case ADD:
+			if (isExactly(right, BigDecimal.ZERO) && left.minimumScale >= 0)
+				return left;
+			if (isExactly(left, BigDecimal.ZERO) && right.minimumScale >= 0)
+				return right;
+			scale = Math.max(left.minimumScale, right.minimumScale);
+			break;
+		case SUBTRACT:
+			if (isExactly(right, BigDecimal.ZERO) && left.minimumScale >= 0)
+				return left;
+			scale = Math.max(left.minimumScale, right.minimumScale);
+			break;
+		default:
+			//Divisions are rounded to 16 places.
+			scale = 16;
+			break;
+		}
+		//Left fragments grow along chains, append to them rather than copying.
+		left.instructions.addAll(right.instructions);
+		left.instructions.add(symbol);
+		left.constant = null;
+		left.minimumScale = scale;
+		return left;
+	}
+
+	/**
+	 * Folds a registry call when all of its arguments are constant, joins the fragments otherwise.
+	 */
+	private static Fragment call(Fragment[] arguments, String token, Operation call) {
+		BigDecimal[] constants = new BigDecimal[arguments.length];
+		boolean constant = true;
+		for (int index = 0; index < arguments.length && constant; index++)
+		{
+			constants[index] = arguments[index].constant;
+			constant = constants[index] != null;
+		}
+		if (constant)
+		{
+			try{
+				BigDecimal folded = call.apply(constants, 0, constants.length);
+				return new Fragment(folded.toString(), folded);
+			}catch(ArithmeticException ex){
+				//Left for evaluation to report.
+			}
+		}
+		if (arguments.length == 0)
+			return new Fragment(token, null);
+		Fragment joined = arguments[0];
+		for (int index = 1; index < arguments.length; index++)
+			joined.instructions.addAll(arguments[index].instructions);
+		joined.instructions.add(token);
+		joined.constant = null;
+		joined.minimumScale = UNKNOWN_SCALE;
+		return joined;
+	}
+
+	/**
+	 * Renders a postfix program as infix, with parenthesis only where evaluation order requires them.
+	 * A right operand of the same precedence keeps its parenthesis: a - (b - c) and a / (b / c) differ,
+	 * and a * (b * c) may round differently once divisions are involved.
+	 *
+	 * @param program
+	 * 			Postfix instructions, expected well formed.
+	 * @return	The infix expression with tokens separated by spaces, or the postfix text if malformed.
+	 */
+	static String toInfix(String[] program) {
+		return toInfix(program, OperatorRegistry.builtIn());
+	}
+
+	/**
+	 * Renders a postfix program calling the operators and functions of a registry as infix.
+	 * Unary operators are written before their operand, - a, and functions as name( a , b ).
+	 * A right associative operator keeps the parenthesis of its left operand instead, (a ^ b) ^ c.
+	 *
+	 * @param program
+	 * 			Postfix instructions, expected well formed.
+	 * @param registry
+	 * 			The OperatorRegistry the program was compiled with.
+	 * @return	The infix expression with tokens separated by spaces, or the postfix text if malformed.
+	 */
+	static String toInfix(String[] program, OperatorRegistry registry) {
+		Deque<String> text = new ArrayDeque<String>();
+		//Precedence of the top level operator of each fragment, operands bind tightest.
+		Deque<Integer> precedence = new ArrayDeque<Integer>();
+		for (String value : program)
+		{
+			Operation call = registry.isEmpty() ? null : registry.resolve(value);
+			if (call != null)
+			{
+				int arity = OperatorRegistry.arityOf(call, value);
+				if (arity < 0 || text.size() < arity)
+					return String.join(" ", program);
+				String[] arguments = new String[arity];
+				int[] precedences = new int[arity];
+				for (int index = arity - 1; index >= 0; index--)
+				{
+					arguments[index] = text.pop();
+					precedences[index] = precedence.pop();
+				}
+				int own = call.getPrecedence();
+				switch (call.getKind()){
+				case UNARY:
+					text.push(call.getName() + " " + (precedences[0] <= own ? "( " + arguments[0] + " )" : arguments[0]));
+					break;
+				case BINARY:
+					boolean right = call.isRightAssociative();
+					String left = precedences[0] < own || (right && precedences[0] == own) ? "( " + arguments[0] + " )" : arguments[0];
+					String second = precedences[1] < own || (!right && precedences[1] == own) ? "( " + arguments[1] + " )" : arguments[1];
+					text.push(left + " " + call.getName() + " " + second);
+					break;
+				default:
+					text.push(call.getName() + "( " + String.join(" , ", arguments) + (arity == 0 ? ")" : " )"));
+					own = Integer.MAX_VALUE;
+					break;
+				}
+				precedence.push(own);
+			}
+			else if (EvaluatorUtilities.isOperand(value))
+			{
+				text.push(value);
+				precedence.push(Integer.MAX_VALUE);
+			}
+			else
+			{
+				Operator operator = Operator.of(value);
+				if (text.size() < 2 || operator == null)
+					return String.join(" ", program);
+				int own = operator.precedence();
+				String right = text.pop();
+				int rightPrecedence = precedence.pop();
+				String left = text.pop();
+				int leftPrecedence = precedence.pop();
+				if (leftPrecedence < own)
+					left = "( " + left + " )";
+				if (rightPrecedence <= own)
+					right = "( " + right + " )";
+				text.push(left + " " + value + " " + right);
+				precedence.push(own);
+			}
+		}
+		return text.size() == 1 ? text.pop() : String.join(" ", program);
+	}
+
+	//BigDecimal.equals compares the scale too, 1.0 is not exactly 1.
+	private static boolean isExactly(Fragment fragment, BigDecimal value) {
+		return fragment.constant != null && fragment.constant.equals(value);
+	}
+
+	/**
+	 * Postfix instructions of a subtree, with its value when it is constant.
+	 */
+	private static final class Fragment {
+		private final List<String> instructions;
+		private BigDecimal constant;
+		//Lowest scale the value can have, its scale for a constant.
+		private int minimumScale;
+
+		Fragment(String value, BigDecimal constant) {
+			this.instructions = new ArrayList<String>();
+			this.instructions.add(value);
+			this.constant = constant;
+			this.minimumScale = constant != null ? constant.scale() : UNKNOWN_SCALE;
+		}
+	}
+}
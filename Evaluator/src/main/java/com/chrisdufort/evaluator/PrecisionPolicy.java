@@ -0,0 +1,155 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Rounding applied by BigDecimal evaluation, to the divisions, to every operation or only to the result.
+ * Policies are immutable and built once, evaluation only reads their precomputed settings.
+ *
+ * standard() is the behaviour of EvaluatorUtilities.evaluatePostfix: divisions to 16 places HALF_UP,
+ * the other operations exact, the result rounded to DECIMAL64.
+ * fixedScale(2, RoundingMode.HALF_EVEN) rounds every intermediate result to 2 places, as a ledger would,
+ * so scales never grow along a chain of operations.
+ * mathContext(MathContext.DECIMAL128) rounds divisions to the precision of the context and the result once,
+ * the other operations stay exact.
+ *
+ * Registry Operations (see OperatorRegistry) keep their own rounding, only the built in operators follow the policy.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression#evaluate(PrecisionPolicy, BigDecimal...)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class PrecisionPolicy {
+
+	private static final PrecisionPolicy STANDARD = new PrecisionPolicy(16, RoundingMode.HALF_UP, false, null, MathContext.DECIMAL64);
+
+	//Scale of divisions, and of every result when everyOperation is true, unused with a divisionContext.
+	private final int scale;
+	private final RoundingMode rounding;
+	//True when additions, subtractions and multiplications are rounded to the scale as well.
+	private final boolean everyOperation;
+	//Context of divisions, null when divisions round to the scale.
+	private final MathContext divisionContext;
+	//Context of the result, null when the result is set to the scale.
+	private final MathContext resultContext;
+
+	private PrecisionPolicy(int scale, RoundingMode rounding, boolean everyOperation, MathContext divisionContext, MathContext resultContext) {
+		this.scale = scale;
+		this.rounding = rounding;
+		this.everyOperation = everyOperation;
+		this.divisionContext = divisionContext;
+		this.resultContext = resultContext;
+	}
+
+	/**
+	 * @return	The policy of evaluatePostfix, divisions to 16 places HALF_UP and a DECIMAL64 result.
+	 */
+	public static PrecisionPolicy standard() {
+		return STANDARD;
+	}
+
+	/**
+	 * @param scale
+	 * 			Number of places every intermediate result and the result are rounded to, may be negative.
+	 * @param rounding
+	 * 			Rounding of every operation, UNNECESSARY makes inexact results fail.
+	 * @return	A policy rounding every operation to the same scale.
+	 */
+	public static PrecisionPolicy fixedScale(int scale, RoundingMode rounding) {
+		if (rounding == null)
+			throw new IllegalArgumentException("Rounding mode must not be null");
+		return new PrecisionPolicy(scale, rounding, true, null, null);
+	}
+
+	/**
+	 * @param context
+	 * 			Precision and rounding of the divisions and of the result, a precision of 0 (UNLIMITED)
+	 * 			makes non terminating divisions fail.
+	 * @return	A policy rounding divisions and the result to a number of significant digits.
+	 */
+	public static PrecisionPolicy mathContext(MathContext context) {
+		if (context == null)
+			throw new IllegalArgumentException("MathContext must not be null");
+		return new PrecisionPolicy(0, context.getRoundingMode(), false, context, context);
+	}
+
+	/**
+	 * Package level method applying one built in operator under this policy.
+	 *
+	 * @param operand1
+	 * 			Left hand operand.
+	 * @param operator
+	 * 			The Operator, null for an unknown operator which results in 0.
+	 * @param operand2
+	 * 			Right hand operand.
+	 * @return	The rounded result of the operation.
+	 */
+	BigDecimal apply(BigDecimal operand1, Operator operator, BigDecimal operand2) {
+		if (this == STANDARD)
+			return EvaluatorUtilities.doMath(operand1, operator, operand2);
+		if (operator == Operator.DIVIDE && operand2.signum() == 0)
+			throw new ArithmeticException("/ by zero");
+		if (operator == Operator.DIVIDE)
+			return divisionContext != null ? operand1.divide(operand2, divisionContext) : operand1.divide(operand2, scale, rounding);
+		BigDecimal result = EvaluatorUtilities.doMath(operand1, operator, operand2);
+		return everyOperation ? result.setScale(scale, rounding) : result;
+	}
+
+	/**
+	 * Package level method rounding the value left on the stack into the result of an evaluation.
+	 *
+	 * @param value
+	 * 			The unrounded value of the expression.
+	 * @return	The result of the expression.
+	 */
+	BigDecimal result(BigDecimal value) {
+		return resultContext != null ? value.round(resultContext) : value.setScale(scale, rounding);
+	}
+
+	/**
+	 * @return	True when every result has a fixed scale rather than a precision, as the scaled long engine needs.
+	 */
+	boolean isFixedPoint() {
+		return divisionContext == null;
+	}
+
+	/**
+	 * @return	Scale of the divisions, and of every operation for a fixedScale policy.
+	 */
+	int scale() {
+		return scale;
+	}
+
+	/**
+	 * @return	Rounding of the divisions, and of every operation for a fixedScale policy.
+	 */
+	RoundingMode rounding() {
+		return rounding;
+	}
+
+	/**
+	 * @return	Context the result is rounded to, null when the result is set to the scale.
+	 */
+	MathContext resultContext() {
+		return resultContext;
+	}
+
+	/**
+	 * @return	True when every operation is rounded to the scale, not only divisions.
+	 */
+	boolean isEveryOperation() {
+		return everyOperation;
+	}
+
+	@Override
+	public String toString() {
+		if (this == STANDARD)
+			return "PrecisionPolicy[standard]";
+		if (divisionContext != null)
+			return "PrecisionPolicy[mathContext=" + divisionContext + "]";
+		return "PrecisionPolicy[scale=" + scale + ", rounding=" + rounding + "]";
+	}
+}
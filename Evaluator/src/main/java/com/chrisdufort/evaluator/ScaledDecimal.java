@@ -0,0 +1,235 @@
+package com.chrisdufort.evaluator;
+
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Package level fixed point arithmetic on decimals held as a long unscaled value and an int scale,
+ * the value being unscaled * 10^-scale, as BigDecimal holds small values internally.
+ *
+ * Operations produce exactly the unscaled value and scale BigDecimal would produce under a fixed point
+ * PrecisionPolicy: additions align scales, multiplications add them, divisions and rescaling round
+ * with the RoundingMode of the policy. Whenever a result does not fit in a long, or a division is by zero,
+ * an ArithmeticException is thrown so the caller can fall back to BigDecimal, which then reports the real error.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.NumericMode#SCALED_LONG
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class ScaledDecimal {
+
+	//Powers of ten that fit in a long, 10^0 to 10^18.
+	private static final long[] POWERS = new long[19];
+
+	static {
+		POWERS[0] = 1L;
+		for (int index = 1; index < POWERS.length; index++)
+			POWERS[index] = POWERS[index - 1] * 10L;
+	}
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private ScaledDecimal() {
+	}
+
+	/**
+	 * Applies an operator to the values at index and index + 1, leaving the result at index.
+	 *
+	 * @param operator
+	 * 			The Operator, null for an unknown operator which results in 0.
+	 * @param unscaled
+	 * 			Stack of unscaled values.
+	 * @param scales
+	 * 			Stack of scales, parallel to the unscaled values.
+	 * @param index
+	 * 			Position of the left hand operand.
+	 * @param policy
+	 * 			A fixed point PrecisionPolicy.
+	 */
+	static void apply(Operator operator, long[] unscaled, int[] scales, int index, PrecisionPolicy policy) {
+		long left = unscaled[index];
+		long right = unscaled[index + 1];
+		int leftScale = scales[index];
+		int rightScale = scales[index + 1];
+		long result = 0L;
+		int scale = 0;
+		if (operator == null)
+		{
+			unscaled[index] = 0L;
+			scales[index] = 0;
+			return;
+		}
+		switch (operator){
+		case SUBTRACT:
+		case ADD:
+			scale = Math.max(leftScale, rightScale);
+			left = scaleUp(left, scale - leftScale);
+			right = scaleUp(right, scale - rightScale);
+			result = operator == Operator.ADD ? Math.addExact(left, right) : Math.subtractExact(left, right);
+			break;
+		case MULTIPLY:
+			result = Math.multiplyExact(left, right);
+			scale = Math.addExact(leftScale, rightScale);
+			break;
+		case DIVIDE:
+			if (right == 0L)
+				throw new ArithmeticException("Division by zero");
+			//unscaled * 10^-scale = left / right * 10^(rightScale - leftScale)
+			scale = policy.scale();
+			long shift = (long) scale - leftScale + rightScale;
+			if (shift >= 0)
+				result = divideShifted(left, right, shift, policy.rounding());
+			else
+				result = divide(left, scaleUp(right, -shift), policy.rounding());
+			break;
+		}
+		if (policy.isEveryOperation() && operator != Operator.DIVIDE)
+		{
+			result = rescale(result, scale, policy.scale(), policy.rounding());
+			scale = policy.scale();
+		}
+		unscaled[index] = result;
+		scales[index] = scale;
+	}
+
+	/**
+	 * @param value
+	 * 			Unscaled value.
+	 * @param from
+	 * 			Scale of the value.
+	 * @param to
+	 * 			Scale wanted.
+	 * @param rounding
+	 * 			Rounding used when places are dropped.
+	 * @return	The unscaled value at the new scale, as BigDecimal.setScale would give it.
+	 */
+	static long rescale(long value, int from, int to, RoundingMode rounding) {
+		long shift = (long) to - from;
+		if (shift >= 0)
+			return scaleUp(value, shift);
+		if (-shift >= POWERS.length)
+			throw new ArithmeticException("Scale out of range");
+		return divide(value, POWERS[(int) -shift], rounding);
+	}
+
+	/**
+	 * Rounds the value left on the stack as PrecisionPolicy.result does, then sets it to a scale.
+	 *
+	 * @param value
+	 * 			Unscaled value.
+	 * @param from
+	 * 			Scale of the value.
+	 * @param to
+	 * 			Scale wanted.
+	 * @param policy
+	 * 			A fixed point PrecisionPolicy.
+	 * @return	The unscaled value at the new scale, as policy.result(value).setScale(to, policy.rounding()) would give it.
+	 */
+	static long result(long value, int from, int to, PrecisionPolicy policy) {
+		MathContext context = policy.resultContext();
+		if (context == null)
+			return rescale(rescale(value, from, policy.scale(), policy.rounding()), policy.scale(), to, policy.rounding());
+		int dropped = context.getPrecision() == 0 ? 0 : Math.max(digits(value) - context.getPrecision(), 0);
+		int rounded = from - dropped;
+		return rescale(rescale(value, from, rounded, context.getRoundingMode()), rounded, to, policy.rounding());
+	}
+
+	//Number of decimal digits of the value, compared as a negative magnitude so Long.MIN_VALUE counts too.
+	private static int digits(long value) {
+		long negative = value < 0L ? value : -value;
+		int digits = 1;
+		while (digits < POWERS.length && negative <= -POWERS[digits])
+			digits++;
+		return digits;
+	}
+
+	//Multiplies by 10^shift, exactly or not at all.
+	private static long scaleUp(long value, long shift) {
+		if (value == 0L || shift == 0L)
+			return value;
+		if (shift >= POWERS.length)
+			throw new ArithmeticException("Scale out of range");
+		return Math.multiplyExact(value, POWERS[(int) shift]);
+	}
+
+	//Integer division rounded as BigDecimal rounds a dropped fraction.
+	private static long divide(long dividend, long divisor, RoundingMode rounding) {
+		if (divisor == Long.MIN_VALUE || (dividend == Long.MIN_VALUE && divisor == -1L))
+			throw new ArithmeticException("Overflow");
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (remainder == 0L)
+			return quotient;
+		return round(quotient, Math.abs(remainder), Math.abs(divisor), (dividend < 0) != (divisor < 0), rounding);
+	}
+
+	//Rounded dividend * 10^shift / divisor. When the shifted dividend does not fit in a long the quotient
+	//is built one digit at a time, as long as the quotient itself fits.
+	private static long divideShifted(long dividend, long divisor, long shift, RoundingMode rounding) {
+		if (dividend == 0L)
+			return 0L;
+		if (shift < POWERS.length && Math.abs(dividend) <= Long.MAX_VALUE / POWERS[(int) shift])
+			return divide(dividend * POWERS[(int) shift], divisor, rounding);
+		if (dividend == Long.MIN_VALUE || divisor == Long.MIN_VALUE || Math.abs(divisor) > Long.MAX_VALUE / 10L)
+			throw new ArithmeticException("Overflow");
+		long magnitude = Math.abs(divisor);
+		long quotient = Math.abs(dividend) / magnitude;
+		long remainder = Math.abs(dividend) % magnitude;
+		for (long digit = 0; digit < shift; digit++)
+		{
+			remainder *= 10L;
+			quotient = Math.addExact(Math.multiplyExact(quotient, 10L), remainder / magnitude);
+			remainder %= magnitude;
+		}
+		boolean negative = (dividend < 0) != (divisor < 0);
+		if (remainder != 0L)
+			quotient = round(quotient, remainder, magnitude, false, negative ? negate(rounding) : rounding);
+		return negative ? -quotient : quotient;
+	}
+
+	//Rounding of a magnitude that gives the same result on the negative value.
+	private static RoundingMode negate(RoundingMode rounding) {
+		if (rounding == RoundingMode.CEILING)
+			return RoundingMode.FLOOR;
+		if (rounding == RoundingMode.FLOOR)
+			return RoundingMode.CEILING;
+		return rounding;
+	}
+
+	//Rounds a truncated quotient given the magnitudes of the remainder and of the divisor.
+	private static long round(long quotient, long absRemainder, long absDivisor, boolean negative, RoundingMode rounding) {
+		//Compares the remainder to half the divisor without doubling it.
+		int half = Long.compare(absRemainder, absDivisor - absRemainder);
+		boolean increment;
+		switch (rounding){
+		case UP:
+			increment = true;
+			break;
+		case DOWN:
+			increment = false;
+			break;
+		case CEILING:
+			increment = !negative;
+			break;
+		case FLOOR:
+			increment = negative;
+			break;
+		case HALF_UP:
+			increment = half >= 0;
+			break;
+		case HALF_DOWN:
+			increment = half > 0;
+			break;
+		case HALF_EVEN:
+			increment = half > 0 || (half == 0 && (quotient & 1L) != 0L);
+			break;
+		default:
+			throw new ArithmeticException("Rounding necessary");
+		}
+		if (!increment)
+			return quotient;
+		return negative ? quotient - 1L : quotient + 1L;
+	}
+}
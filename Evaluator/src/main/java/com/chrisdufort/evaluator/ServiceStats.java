@@ -0,0 +1,83 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Immutable snapshot of the counters of an EvaluationService.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluationService#stats()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ServiceStats {
+
+	private final long submittedCount;
+	private final long rejectedCount;
+	private final long completedCount;
+	private final long failedCount;
+	private final long batchCount;
+	private final int pending;
+
+	ServiceStats(long submittedCount, long rejectedCount, long completedCount, long failedCount, long batchCount, int pending) {
+		this.submittedCount = submittedCount;
+		this.rejectedCount = rejectedCount;
+		this.completedCount = completedCount;
+		this.failedCount = failedCount;
+		this.batchCount = batchCount;
+		this.pending = pending;
+	}
+
+	/**
+	 * @return	Number of requests submitted, admitted or not.
+	 */
+	public long submittedCount() {
+		return submittedCount;
+	}
+
+	/**
+	 * @return	Number of requests refused because the service was full or closed.
+	 */
+	public long rejectedCount() {
+		return rejectedCount;
+	}
+
+	/**
+	 * @return	Number of requests answered with a result.
+	 */
+	public long completedCount() {
+		return completedCount;
+	}
+
+	/**
+	 * @return	Number of admitted requests answered with an error.
+	 */
+	public long failedCount() {
+		return failedCount;
+	}
+
+	/**
+	 * @return	Number of batches run, one per expression and arithmetic of each dispatch.
+	 */
+	public long batchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * @return	Number of admitted requests not yet answered when the snapshot was taken.
+	 */
+	public int pending() {
+		return pending;
+	}
+
+	/**
+	 * @return	Mean number of requests answered by a batch, 0.0 when there was no batch.
+	 */
+	public double averageBatchSize() {
+		return batchCount == 0 ? 0.0 : (double) (completedCount + failedCount) / batchCount;
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceStats[submitted=" + submittedCount + ", rejected=" + rejectedCount + ", completed=" + completedCount
+				+ ", failed=" + failedCount + ", batches=" + batchCount + ", pending=" + pending + "]";
+	}
+}
@@ -0,0 +1,396 @@
+package com.chrisdufort.evaluator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Streaming evaluation of newline delimited infix expressions, one result line per input line, in order.
+ *
+ * Input is read through NIO, regular files are memory mapped a window at a time, other sources (stdin, pipes,
+ * sockets) are read through their channel into one reused buffer. Lines are cut in the caller thread and handed
+ * in batches to a fixed pool of workers, which compile (through an ExpressionCache when one is given) and
+ * evaluate them. The caller thread writes the results of the oldest batch through a buffer as soon as it is done.
+ * At most twice as many batches as workers are in flight, so memory stays bounded whatever the size of the input.
+ *
+ * Each output line holds the result, an empty line for an empty input line, or the error of the line:
+ * error MISSING_OPERAND at 3: Missing matching parenthesis OR too many operators
+ *
+ * Instances are created through the Builder and may be used by several threads at once, every call
+ * runs its own workers:
+ * StreamEvaluator.builder().workers(4).batchLines(512).build().evaluate(path, output)
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.CompiledExpression
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class StreamEvaluator {
+
+	//Bytes of a regular file mapped at once.
+	private static final long MAP_WINDOW = 64L * 1024 * 1024;
+	//Bytes read at once from a channel.
+	private static final int READ_BUFFER = 64 * 1024;
+	private static final byte[] NEWLINE = { '\n' };
+
+	private final int workers;
+	private final int batchLines;
+	private final int maximumLineLength;
+	private final int outputBufferSize;
+	private final OperatorRegistry registry;
+	private final ExpressionCache cache;
+	private final PrecisionPolicy policy;
+
+	private StreamEvaluator(Builder builder) {
+		this.workers = builder.workers;
+		this.batchLines = builder.batchLines;
+		this.maximumLineLength = builder.maximumLineLength;
+		this.outputBufferSize = builder.outputBufferSize;
+		this.registry = builder.registry;
+		this.cache = builder.cache;
+		this.policy = builder.policy;
+	}
+
+	/**
+	 * @return	A Builder for a StreamEvaluator, by default one worker per processor.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Evaluates every line of a file, memory mapped when it is a regular file.
+	 *
+	 * @param file
+	 * 			The file of expressions, UTF-8, one per line.
+	 * @param output
+	 * 			Channel receiving one result line per input line, not closed.
+	 * @return	The number of lines evaluated.
+	 *
+	 * @throws IOException
+	 * 			If reading or writing fails, or a line is longer than the maximum line length.
+	 */
+	public long evaluate(Path file, WritableByteChannel output) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if (!Files.isRegularFile(file))
+				return evaluate(channel, output);
+			Pipeline pipeline = new Pipeline(output);
+			try{
+				long size = channel.size();
+				for (long position = 0; position < size; position += MAP_WINDOW)
+				{
+					MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+					pipeline.feed(window);
+				}
+				return pipeline.finish();
+			}finally{
+				pipeline.close();
+			}
+		}
+	}
+
+	/**
+	 * Evaluates every line read from a channel, such as standard input.
+	 *
+	 * @param input
+	 * 			Channel of expressions, UTF-8, one per line, read to its end but not closed.
+	 * @param output
+	 * 			Channel receiving one result line per input line, not closed.
+	 * @return	The number of lines evaluated.
+	 *
+	 * @throws IOException
+	 * 			If reading or writing fails, or a line is longer than the maximum line length.
+	 */
+	public long evaluate(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+		Pipeline pipeline = new Pipeline(output);
+		try{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+			while (input.read(buffer) >= 0)
+			{
+				buffer.flip();
+				pipeline.feed(buffer);
+				buffer.clear();
+			}
+			return pipeline.finish();
+		}finally{
+			pipeline.close();
+		}
+	}
+
+	/**
+	 * Evaluates one line, as a worker does.
+	 *
+	 * @param line
+	 * 			One infix expression.
+	 * @return	The result line, without its line separator.
+	 */
+	public String evaluateLine(String line) {
+		if (line.trim().isEmpty())
+			return "";
+		try{
+			CompiledExpression expression = cache != null ? cache.get(line) : CompiledExpression.compile(line, registry);
+			BigDecimal result = expression.evaluate(policy);
+			return result.toString();
+		}catch(InvalidExpressionFormatException ex){
+			return "error " + ex.getCode() + " at " + ex.getPosition() + ": " + ex.getMessage();
+		}
+	}
+
+	/**
+	 * State of one evaluate call: the line being cut, the batch being filled, the batches in flight
+	 * and the output buffer.
+	 */
+	private final class Pipeline {
+
+		private final WritableByteChannel output;
+		private final ByteBuffer outputBuffer = ByteBuffer.allocate(outputBufferSize);
+		private final ExecutorService pool;
+		private final ArrayDeque<Future<String[]>> pending = new ArrayDeque<Future<String[]>>();
+		private byte[] line = new byte[Math.min(256, maximumLineLength)];
+		private int lineLength;
+		private boolean lineOpen;
+		private String[] batch = new String[batchLines];
+		private int batchSize;
+		private long lines;
+
+		Pipeline(WritableByteChannel output) {
+			this.output = output;
+			this.pool = Executors.newFixedThreadPool(workers, runnable -> {
+				Thread thread = new Thread(runnable, "stream-evaluator");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		//Cuts the bytes of the buffer into lines, the last one may continue in the next buffer.
+		void feed(ByteBuffer buffer) throws IOException {
+			int limit = buffer.limit();
+			for (int index = buffer.position(); index < limit; index++)
+			{
+				byte value = buffer.get(index);
+				if (value == '\n')
+				{
+					endLine();
+					continue;
+				}
+				if (lineLength == line.length)
+				{
+					if (lineLength >= maximumLineLength)
+						throw new IOException("Line " + (lines + 1) + " is longer than " + maximumLineLength + " bytes");
+					line = Arrays.copyOf(line, Math.min(lineLength * 2, maximumLineLength));
+				}
+				line[lineLength++] = value;
+				lineOpen = true;
+			}
+			buffer.position(limit);
+		}
+
+		//Ends the input: the last line even without a separator, then every batch in flight.
+		long finish() throws IOException {
+			if (lineOpen)
+				endLine();
+			if (batchSize > 0)
+				submit();
+			while (!pending.isEmpty())
+				write(pending.poll());
+			flush();
+			return lines;
+		}
+
+		void close() {
+			pool.shutdownNow();
+		}
+
+		private void endLine() throws IOException {
+			int length = lineLength;
+			if (length > 0 && line[length - 1] == '\r')
+				length--;
+			batch[batchSize++] = new String(line, 0, length, StandardCharsets.UTF_8);
+			lineLength = 0;
+			lineOpen = false;
+			lines++;
+			if (batchSize == batchLines)
+				submit();
+		}
+
+		private void submit() throws IOException {
+			final String[] work = batchSize == batch.length ? batch : Arrays.copyOf(batch, batchSize);
+			pending.add(pool.submit(() -> {
+				String[] results = new String[work.length];
+				for (int index = 0; index < work.length; index++)
+					results[index] = evaluateLine(work[index]);
+				return results;
+			}));
+			batch = new String[batchLines];
+			batchSize = 0;
+			//Backpressure, the reader waits for the oldest batch once enough are in flight.
+			while (pending.size() > workers * 2)
+				write(pending.poll());
+		}
+
+		private void write(Future<String[]> future) throws IOException {
+			String[] results;
+			try{
+				results = future.get();
+			}catch(InterruptedException ex){
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a batch");
+			}catch(ExecutionException ex){
+				if (ex.getCause() instanceof RuntimeException)
+					throw (RuntimeException) ex.getCause();
+				throw new IOException(ex.getCause());
+			}
+			for (String result : results)
+			{
+				put(result.getBytes(StandardCharsets.UTF_8));
+				put(NEWLINE);
+			}
+		}
+
+		private void put(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length)
+			{
+				if (!outputBuffer.hasRemaining())
+					flush();
+				int length = Math.min(bytes.length - offset, outputBuffer.remaining());
+				outputBuffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		private void flush() throws IOException {
+			outputBuffer.flip();
+			while (outputBuffer.hasRemaining())
+				output.write(outputBuffer);
+			outputBuffer.clear();
+		}
+	}
+
+	/**
+	 * Builder used to configure a StreamEvaluator.
+	 */
+	public static final class Builder {
+
+		private int workers = Runtime.getRuntime().availableProcessors();
+		private int batchLines = 256;
+		private int maximumLineLength = 1024 * 1024;
+		private int outputBufferSize = 64 * 1024;
+		private OperatorRegistry registry = OperatorRegistry.builtIn();
+		private ExpressionCache cache;
+		private PrecisionPolicy policy = PrecisionPolicy.standard();
+
+		private Builder() {
+		}
+
+		/**
+		 * @param workers
+		 * 			Number of threads compiling and evaluating lines, at least 1.
+		 * @return	This Builder.
+		 */
+		public Builder workers(int workers) {
+			if (workers < 1)
+				throw new IllegalArgumentException("Workers must be positive: " + workers);
+			this.workers = workers;
+			return this;
+		}
+
+		/**
+		 * @param batchLines
+		 * 			Number of lines handed to a worker at once, at least 1.
+		 * @return	This Builder.
+		 */
+		public Builder batchLines(int batchLines) {
+			if (batchLines < 1)
+				throw new IllegalArgumentException("Batch lines must be positive: " + batchLines);
+			this.batchLines = batchLines;
+			return this;
+		}
+
+		/**
+		 * @param maximumLineLength
+		 * 			Longest line accepted in bytes, longer lines fail the whole evaluation.
+		 * @return	This Builder.
+		 */
+		public Builder maximumLineLength(int maximumLineLength) {
+			if (maximumLineLength < 1)
+				throw new IllegalArgumentException("Maximum line length must be positive: " + maximumLineLength);
+			this.maximumLineLength = maximumLineLength;
+			return this;
+		}
+
+		/**
+		 * @param outputBufferSize
+		 * 			Bytes of results written to the output channel at once.
+		 * @return	This Builder.
+		 */
+		public Builder outputBufferSize(int outputBufferSize) {
+			if (outputBufferSize < 1)
+				throw new IllegalArgumentException("Output buffer size must be positive: " + outputBufferSize);
+			this.outputBufferSize = outputBufferSize;
+			return this;
+		}
+
+		/**
+		 * Operators and functions the lines may use, only the built in ones by default.
+		 * Ignored when a cache is given, the cache compiles with its own registry.
+		 *
+		 * @param registry
+		 * 			The OperatorRegistry lines are compiled with.
+		 * @return	This Builder.
+		 */
+		public Builder registry(OperatorRegistry registry) {
+			if (registry == null)
+				throw new IllegalArgumentException("Registry must not be null");
+			this.registry = registry;
+			return this;
+		}
+
+		/**
+		 * @param cache
+		 * 			ExpressionCache shared by the workers, for inputs repeating the same expressions, null for none.
+		 * @return	This Builder.
+		 */
+		public Builder cache(ExpressionCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
+		/**
+		 * @param policy
+		 * 			Rounding of the results, the standard policy by default.
+		 * @return	This Builder.
+		 */
+		public Builder policy(PrecisionPolicy policy) {
+			if (policy == null)
+				throw new IllegalArgumentException("Policy must not be null");
+			this.policy = policy;
+			return this;
+		}
+
+		/**
+		 * @return	A new StreamEvaluator.
+		 */
+		public StreamEvaluator build() {
+			return new StreamEvaluator(this);
+		}
+	}
+}
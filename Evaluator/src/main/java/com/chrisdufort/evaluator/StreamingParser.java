@@ -0,0 +1,566 @@
+package com.chrisdufort.evaluator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Push based infix parser for expressions too long to hold in memory, machine generated ones of millions of tokens.
+ * The caller feeds the text in pieces of any size, or the tokens one by one, and each postfix instruction is
+ * handed to a consumer, or applied to a value stack, as soon as precedence allows, the shunting-yard step of
+ * infixToPostfix run one token at a time. Memory grows with the nesting of the expression, the operators and values
+ * still waiting on a parenthesis or a higher precedence, never with its length: neither the infix text nor the
+ * postfix form is kept.
+ *
+ * StreamingParser parser = StreamingParser.toPostfix(instruction -> writer.write(instruction));
+ * parser.feed(chunk); ... parser.finish();
+ * BigDecimal value = StreamingParser.evaluate(reader);
+ *
+ * Text is read with the grammar of ExpressionLexer, a token may be split across pieces. Instructions and errors
+ * are those of infixToPostfix(CharSequence), and in evaluating mode those of evaluateInfix, positions being offsets
+ * from the start of the text. Tokens fed one by one take the values of infixToPostfix(Queue), positions are then
+ * token indexes and multiplications are handed over as * whichever way they were written. Variables are carried into the postfix instructions, evaluating mode reports them as missing.
+ *
+ * finish() ends the expression and leaves the parser ready for the next one, as does any error thrown.
+ * A parser is not thread safe.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorUtilities#infixToPostfix(CharSequence)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class StreamingParser {
+
+	//Characters read at once by the Reader methods.
+	private static final int READ_BUFFER = 8192;
+
+	//Token being read from text, waiting for a character that cannot extend it.
+	private static final int NONE = 0;
+	private static final int NUMBER = 1;
+	private static final int IDENTIFIER = 2;
+	//A minus that starts a number if a digit or a dot directly follows.
+	private static final int MINUS = 3;
+
+	//Receives the postfix instructions, null in evaluating mode.
+	private final Consumer<String> instructions;
+	private final PrecisionPolicy policy;
+
+	private int state = NONE;
+	private char[] token = new char[32];
+	private int tokenLength;
+	private long tokenStart;
+	private boolean dot;
+	private boolean digits;
+	//Kind of the last token, decides whether a minus or an x follows an operand.
+	private TokenKind previous;
+	//Characters, or tokens, fed so far.
+	private long offset;
+
+	private TokenKind[] operators = new TokenKind[16];
+	//Position of each operator, for error reports.
+	private long[] operatorOffsets = new long[16];
+	private int operatorTop;
+	//Position of each opening parenthesis still open, for error reports.
+	private long[] opens = new long[8];
+	private int depth;
+
+	//Evaluating mode, as InfixEvaluator.
+	private BigDecimal[] values = new BigDecimal[16];
+	//Position of the first token of each value, a result keeps the one of its left operand.
+	private long[] valueOffsets = new long[16];
+	private int valueTop;
+	private InvalidExpressionFormatException failure;
+
+	private StreamingParser(Consumer<String> instructions, PrecisionPolicy policy) {
+		this.instructions = instructions;
+		this.policy = policy;
+	}
+
+	/**
+	 * @param instructions
+	 * 			Receives each postfix instruction as soon as it is known, operators as + - * / only.
+	 * @return	A parser converting to postfix.
+	 */
+	public static StreamingParser toPostfix(Consumer<String> instructions) {
+		if (instructions == null)
+			throw new IllegalArgumentException("Consumer must not be null");
+		return new StreamingParser(instructions, null);
+	}
+
+	/**
+	 * @return	A parser evaluating with BigDecimal arithmetic as evaluateInfix does.
+	 */
+	public static StreamingParser evaluating() {
+		return evaluating(PrecisionPolicy.standard());
+	}
+
+	/**
+	 * @param policy
+	 * 			Rounding of the divisions, of every operation or of the result.
+	 * @return	A parser evaluating with BigDecimal arithmetic rounded by the policy.
+	 */
+	public static StreamingParser evaluating(PrecisionPolicy policy) {
+		if (policy == null)
+			throw new IllegalArgumentException("Policy must not be null");
+		return new StreamingParser(null, policy);
+	}
+
+	/**
+	 * Converts an expression read from a Reader to postfix, a buffer at a time.
+	 *
+	 * @param infix
+	 * 			The infix text, read to its end but not closed.
+	 * @param instructions
+	 * 			Receives each postfix instruction as soon as it is known.
+	 *
+	 * @throws IOException
+	 * 			If reading fails.
+	 * @throws InvalidExpressionFormatException
+	 */
+	public static void toPostfix(Reader infix, Consumer<String> instructions) throws IOException, InvalidExpressionFormatException {
+		toPostfix(instructions).readAll(infix);
+	}
+
+	/**
+	 * Evaluates an expression read from a Reader, a buffer at a time.
+	 *
+	 * @param infix
+	 * 			The infix text, read to its end but not closed.
+	 * @return	A BigDecimal representation of the solution accurate to 16 places.
+	 *
+	 * @throws IOException
+	 * 			If reading fails.
+	 * @throws InvalidExpressionFormatException
+	 */
+	public static BigDecimal evaluate(Reader infix) throws IOException, InvalidExpressionFormatException {
+		return evaluating().readAll(infix);
+	}
+
+	private BigDecimal readAll(Reader infix) throws IOException, InvalidExpressionFormatException {
+		char[] buffer = new char[READ_BUFFER];
+		int read;
+		while ((read = infix.read(buffer)) >= 0)
+			feed(buffer, 0, read);
+		return finish();
+	}
+
+	/**
+	 * Reads the next piece of the infix text.
+	 *
+	 * @param text
+	 * 			Characters following those fed before, tokens may continue in the next piece.
+	 * @return	This parser.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the text so far is not a valid expression.
+	 */
+	public StreamingParser feed(CharSequence text) throws InvalidExpressionFormatException {
+		try{
+			for (int index = 0; index < text.length(); index++)
+				read(text.charAt(index));
+		}catch(InvalidExpressionFormatException ex){
+			reset();
+			throw ex;
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the next piece of the infix text from part of an array, read buffers for instance.
+	 *
+	 * @param text
+	 * 			Array holding characters following those fed before.
+	 * @param from
+	 * 			Index of the first character to read.
+	 * @param length
+	 * 			Number of characters to read.
+	 * @return	This parser.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the text so far is not a valid expression.
+	 */
+	public StreamingParser feed(char[] text, int from, int length) throws InvalidExpressionFormatException {
+		try{
+			for (int index = from; index < from + length; index++)
+				read(text[index]);
+		}catch(InvalidExpressionFormatException ex){
+			reset();
+			throw ex;
+		}
+		return this;
+	}
+
+	/**
+	 * Reads the next token, a value of an infix Queue: a number, a variable, an operator or a parenthesis.
+	 *
+	 * @param value
+	 * 			The token.
+	 * @return	This parser.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the value is not a token or the tokens so far are not a valid expression.
+	 */
+	public StreamingParser token(String value) throws InvalidExpressionFormatException {
+		try{
+			long position = offset++;
+			if (EvaluatorUtilities.isOperand(value))
+			{
+				accept(EvaluatorUtilities.isVariable(value) ? TokenKind.IDENTIFIER : TokenKind.NUMBER, value, position);
+				return this;
+			}
+			switch (value.charAt(0)){
+			case '+':
+				accept(TokenKind.PLUS, value, position);
+				break;
+			case '-':
+				accept(TokenKind.MINUS, value, position);
+				break;
+			case '*':
+			case 'x':
+			case 'X':
+				accept(TokenKind.MULTIPLY, value, position);
+				break;
+			case '/':
+				accept(TokenKind.DIVIDE, value, position);
+				break;
+			case '(':
+				accept(TokenKind.OPEN_PARENTHESIS, value, position);
+				break;
+			case ')':
+				accept(TokenKind.CLOSE_PARENTHESIS, value, position);
+				break;
+			default:
+				throw new InvalidExpressionFormatException(ErrorCode.UNEXPECTED_CHARACTER,
+						"Unexpected token '" + value + "' at position " + position, position(position));
+			}
+		}catch(InvalidExpressionFormatException ex){
+			reset();
+			throw ex;
+		}
+		return this;
+	}
+
+	/**
+	 * Ends the expression: reads the last token, applies or hands over the operators left and leaves
+	 * the parser ready for the next expression.
+	 *
+	 * @return	In evaluating mode the value of the expression, null when converting to postfix.
+	 *
+	 * @throws InvalidExpressionFormatException
+	 * 			If the expression is not valid, in evaluating mode if it cannot be evaluated.
+	 */
+	public BigDecimal finish() throws InvalidExpressionFormatException {
+		try{
+			end();
+			//Input is exhausted, apply or hand over the remainder of the stack
+			while (operatorTop > 0)
+			{
+				if (operators[operatorTop - 1] == TokenKind.OPEN_PARENTHESIS)
+					throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_OPENING_PARENTHESIS,
+							"Missing matching parenthesis at position " + opens[depth - 1], position(opens[depth - 1]));
+				pop();
+			}
+			if (instructions != null)
+				return null;
+			if (failure != null)
+				throw failure;
+			//Same checks as the end of evaluatePostfix, at the first value left over or at the end of the text.
+			if (valueTop > 1)
+				throw new InvalidExpressionFormatException(ErrorCode.TOO_MANY_OPERANDS, "Too much operands", position(valueOffsets[1]));
+			if (valueTop == 0)
+				throw new InvalidExpressionFormatException(ErrorCode.MISSING_OPERAND, "Missing operand", position(offset));
+			return policy.result(values[0]);
+		}finally{
+			reset();
+		}
+	}
+
+	/**
+	 * Drops the expression read so far, the parser is ready for the next one. Stacks keep their size.
+	 */
+	public void reset() {
+		state = NONE;
+		tokenLength = 0;
+		previous = null;
+		offset = 0;
+		operatorTop = 0;
+		depth = 0;
+		Arrays.fill(values, 0, valueTop, null);
+		valueTop = 0;
+		failure = null;
+	}
+
+	/**
+	 * @return	Operators and values currently held, which grows with nesting rather than with length.
+	 */
+	public int pending() {
+		return operatorTop + valueTop;
+	}
+
+	//Reads one character of text, ending the current token when the character cannot extend it.
+	private void read(char ch) throws InvalidExpressionFormatException {
+		switch (state){
+		case NUMBER:
+			if (Character.isDigit(ch))
+			{
+				append(ch);
+				digits = true;
+				offset++;
+				return;
+			}
+			if (ch == '.' && !dot)
+			{
+				append(ch);
+				dot = true;
+				offset++;
+				return;
+			}
+			end();
+			break;
+		case IDENTIFIER:
+			if (Character.isLetterOrDigit(ch) || ch == '_')
+			{
+				append(ch);
+				offset++;
+				return;
+			}
+			end();
+			break;
+		case MINUS:
+			if (Character.isDigit(ch) || ch == '.')
+			{
+				state = NUMBER;
+				read(ch);
+				return;
+			}
+			end();
+			break;
+		default:
+			break;
+		}
+
+		long position = offset++;
+		if (Character.isWhitespace(ch))
+			return;
+		switch (ch){
+		case '+':
+			accept(TokenKind.PLUS, null, position);
+			break;
+		case '*':
+			accept(TokenKind.MULTIPLY, null, position);
+			break;
+		case '/':
+			accept(TokenKind.DIVIDE, null, position);
+			break;
+		case '(':
+			accept(TokenKind.OPEN_PARENTHESIS, null, position);
+			break;
+		case ')':
+			accept(TokenKind.CLOSE_PARENTHESIS, null, position);
+			break;
+		case 'x':
+		case 'X':
+			if (isOperand(previous))
+			{
+				accept(TokenKind.MULTIPLY, null, position);
+				break;
+			}
+			begin(IDENTIFIER, ch, position);
+			break;
+		case '-':
+			//Negative number unless it follows something that can be subtracted from.
+			if (isOperand(previous))
+				accept(TokenKind.MINUS, null, position);
+			else
+				begin(MINUS, ch, position);
+			break;
+		default:
+			if (Character.isDigit(ch) || ch == '.')
+			{
+				begin(NUMBER, ch, position);
+				dot = ch == '.';
+				digits = ch != '.';
+			}
+			else if (Character.isLetter(ch) || ch == '_')
+			{
+				begin(IDENTIFIER, ch, position);
+			}
+			else
+			{
+				throw new InvalidExpressionFormatException(ErrorCode.UNEXPECTED_CHARACTER,
+						"Unexpected character '" + ch + "' at position " + position, position(position));
+			}
+			break;
+		}
+	}
+
+	private void begin(int kind, char ch, long position) {
+		state = kind;
+		tokenLength = 0;
+		tokenStart = position;
+		dot = false;
+		digits = false;
+		append(ch);
+	}
+
+	private void append(char ch) {
+		if (tokenLength == token.length)
+			token = Arrays.copyOf(token, tokenLength * 2);
+		token[tokenLength++] = ch;
+	}
+
+	//Ends the token being read from text, if any.
+	private void end() throws InvalidExpressionFormatException {
+		int kind = state;
+		state = NONE;
+		switch (kind){
+		case NUMBER:
+			if (!digits)
+				throw new InvalidExpressionFormatException(ErrorCode.MALFORMED_NUMBER, "Number without digits at position " + tokenStart,
+						position(tokenStart));
+			accept(TokenKind.NUMBER, null, tokenStart);
+			break;
+		case IDENTIFIER:
+			//A lone x or X stays the multiplication operator, as in the queue based grammar.
+			if (tokenLength == 1 && (token[0] == 'x' || token[0] == 'X'))
+				accept(TokenKind.MULTIPLY, null, tokenStart);
+			else
+				accept(TokenKind.IDENTIFIER, null, tokenStart);
+			break;
+		case MINUS:
+			accept(TokenKind.MINUS, null, tokenStart);
+			break;
+		default:
+			break;
+		}
+	}
+
+	//Shunting-yard step of one token, text is null for a token read from text, held in the token buffer.
+	private void accept(TokenKind kind, String text, long position) throws InvalidExpressionFormatException {
+		previous = kind;
+		switch (kind){
+		case NUMBER:
+		case IDENTIFIER:
+			operand(kind, text, position);
+			break;
+		case OPEN_PARENTHESIS:
+			if (depth == opens.length)
+				opens = Arrays.copyOf(opens, depth * 2);
+			opens[depth++] = position;
+			push(kind, position);
+			break;
+		case CLOSE_PARENTHESIS:
+			if (depth == 0)
+				throw new InvalidExpressionFormatException(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS,
+						"Missing matching parenthesis at position " + position, position(position));
+			//hand over the contents of the parenthesis
+			while (operators[operatorTop - 1] != TokenKind.OPEN_PARENTHESIS)
+			{
+				pop();
+			}
+			//pop off the opening parenthesis
+			operatorTop--;
+			depth--;
+			break;
+		default:
+			//hand over operators of greater or equal precedence then push the new one
+			while (operatorTop > 0 && kind.precedence() <= operators[operatorTop - 1].precedence())
+			{
+				pop();
+			}
+			push(kind, position);
+			break;
+		}
+	}
+
+	private void operand(TokenKind kind, String text, long position) {
+		if (instructions != null)
+		{
+			instructions.accept(text != null ? text : new String(token, 0, tokenLength));
+			return;
+		}
+		if (failure == null)
+		{
+			if (kind == TokenKind.IDENTIFIER)
+			{
+				//Nothing to bind a variable to, as in evaluatePostfix.
+				fail(ErrorCode.MISSING_VARIABLE, "Missing value for variable: " + (text != null ? text : new String(token, 0, tokenLength)), position);
+			}
+			else
+			{
+				if (valueTop == values.length)
+				{
+					values = Arrays.copyOf(values, valueTop * 2);
+					valueOffsets = Arrays.copyOf(valueOffsets, valueTop * 2);
+				}
+				try{
+					values[valueTop] = text != null ? new BigDecimal(text) : new BigDecimal(token, 0, tokenLength);
+					valueOffsets[valueTop++] = position;
+				}catch(NumberFormatException ex){
+					fail(ErrorCode.MALFORMED_NUMBER, "Invalid number: " + (text != null ? text : new String(token, 0, tokenLength)), position);
+				}
+			}
+		}
+	}
+
+	private void push(TokenKind kind, long position) {
+		if (operatorTop == operators.length)
+		{
+			operators = Arrays.copyOf(operators, operatorTop * 2);
+			operatorOffsets = Arrays.copyOf(operatorOffsets, operatorTop * 2);
+		}
+		operatorOffsets[operatorTop] = position;
+		operators[operatorTop++] = kind;
+	}
+
+	//Takes the operator on top of the stack and emits it.
+	private void pop() {
+		operatorTop--;
+		emit(operators[operatorTop], operatorOffsets[operatorTop]);
+	}
+
+	//Hands an operator read at position over, or applies it the way evaluatePostfix applies the same instruction.
+	private void emit(TokenKind kind, long position) {
+		if (instructions != null)
+		{
+			instructions.accept(kind.symbol());
+			return;
+		}
+		if (failure == null)
+		{
+			if (valueTop == 0)
+				fail(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis", position);
+			else if (valueTop == 1)
+				fail(ErrorCode.MISSING_OPERAND, "Missing matching parenthesis OR too many operators", position);
+			else
+			{
+				try{
+					values[valueTop - 2] = policy.apply(values[valueTop - 2], Operator.of(kind.symbol()), values[valueTop - 1]);
+					values[--valueTop] = null;
+				}catch(ArithmeticException ex){
+					fail(ErrorCode.ARITHMETIC, ex.getMessage(), position);
+				}
+			}
+		}
+	}
+
+	//Evaluation errors are held until the end, so a syntax error later in the text is reported first.
+	private void fail(ErrorCode code, String message, long position) {
+		if (failure == null)
+			failure = new InvalidExpressionFormatException(code, message, position(position));
+	}
+
+	private static boolean isOperand(TokenKind kind) {
+		return kind == TokenKind.NUMBER || kind == TokenKind.IDENTIFIER || kind == TokenKind.CLOSE_PARENTHESIS;
+	}
+
+	//Positions of exceptions are ints, texts past 2GB report the largest.
+	private static int position(long position) {
+		return (int) Math.min(position, Integer.MAX_VALUE);
+	}
+}
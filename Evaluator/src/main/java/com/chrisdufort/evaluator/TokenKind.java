@@ -0,0 +1,57 @@
+package com.chrisdufort.evaluator;
+
+/**
+ * Kinds of tokens produced by the ExpressionLexer.
+ * Operators carry the same String and precedence used by the queue based methods of EvaluatorUtilities,
+ * so the lexer can feed the shunting-yard step without creating a String per operator.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.ExpressionLexer
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum TokenKind {
+
+	NUMBER(null, -2),
+	IDENTIFIER(null, -2),
+	PLUS("+", 0),
+	MINUS("-", 0),
+	MULTIPLY("*", 1),
+	DIVIDE("/", 1),
+	OPEN_PARENTHESIS("(", -1),
+	CLOSE_PARENTHESIS(")", 2),
+	//Only produced by a lexer given an OperatorRegistry.
+	COMMA(",", -2),
+	OPERATOR(null, -2),
+	FUNCTION(null, -2),
+	END(null, -2);
+
+	private final String symbol;
+	private final int precedence;
+
+	private TokenKind(String symbol, int precedence) {
+		this.symbol = symbol;
+		this.precedence = precedence;
+	}
+
+	/**
+	 * @return	The postfix String of this operator or parenthesis, null for NUMBER, IDENTIFIER, OPERATOR, FUNCTION and END.
+	 */
+	public String symbol() {
+		return symbol;
+	}
+
+	/**
+	 * @return	The precedence of this token, matching EvaluatorUtilities.precedenceOf.
+	 */
+	int precedence() {
+		return precedence;
+	}
+
+	/**
+	 * @return	True for the four built in arithmetic operators.
+	 */
+	public boolean isOperator() {
+		return precedence == 0 || precedence == 1;
+	}
+}
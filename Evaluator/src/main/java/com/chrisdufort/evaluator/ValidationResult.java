@@ -0,0 +1,77 @@
+package com.chrisdufort.evaluator;
+
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Outcome of EvaluatorUtilities.validate: either valid, or the first problem of the expression
+ * with its ErrorCode and offset into the text.
+ * Valid results are a shared instance, validating well formed input does not allocate a result.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.evaluator.EvaluatorUtilities#validate(CharSequence)
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ValidationResult {
+
+	private static final ValidationResult VALID = new ValidationResult(null, -1, null);
+
+	private final ErrorCode code;
+	private final int position;
+	private final String message;
+
+	private ValidationResult(ErrorCode code, int position, String message) {
+		this.code = code;
+		this.position = position;
+		this.message = message;
+	}
+
+	static ValidationResult valid() {
+		return VALID;
+	}
+
+	static ValidationResult of(InvalidExpressionFormatException ex) {
+		return new ValidationResult(ex.getCode(), ex.getPosition(), ex.getMessage());
+	}
+
+	/**
+	 * @return	True if the expression has no problem.
+	 */
+	public boolean isValid() {
+		return code == null;
+	}
+
+	/**
+	 * @return	The kind of problem, null if valid.
+	 */
+	public ErrorCode getCode() {
+		return code;
+	}
+
+	/**
+	 * @return	Offset of the problem into the text, -1 if valid.
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return	Description of the problem, null if valid.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return	The problem as the exception the expression would have thrown, null if valid.
+	 */
+	public InvalidExpressionFormatException toException() {
+		return code == null ? null : new InvalidExpressionFormatException(code, message, position);
+	}
+
+	@Override
+	public String toString() {
+		return code == null ? "ValidationResult[valid]" : "ValidationResult[" + code + " at " + position + ": " + message + "]";
+	}
+}
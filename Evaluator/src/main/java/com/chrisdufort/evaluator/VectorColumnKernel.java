@@ -0,0 +1,71 @@
+package com.chrisdufort.evaluator;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD ColumnKernel on the widest double vectors of the platform, compiled only by the vector Maven profile
+ * (Java 17 with jdk.incubator.vector), loaded by name from ColumnKernel.Loader.
+ * Full vectors are processed lane by lane, the rows past the last full vector by a scalar tail.
+ *
+ * @author Christopher Dufort
+ * @since JDK 17
+ * @see com.chrisdufort.evaluator.ColumnKernel
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+final class VectorColumnKernel implements ColumnKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	public void apply(Operator operator, double[] left, double[] right, int count) {
+		if (operator == null)
+		{
+			Arrays.fill(left, 0, count, 0.0);
+			return;
+		}
+		switch (operator){
+		case SUBTRACT:
+			lanewise(VectorOperators.SUB, left, right, count);
+			break;
+		case ADD:
+			lanewise(VectorOperators.ADD, left, right, count);
+			break;
+		case MULTIPLY:
+			lanewise(VectorOperators.MUL, left, right, count);
+			break;
+		case DIVIDE:
+			lanewise(VectorOperators.DIV, left, right, count);
+			break;
+		}
+	}
+
+	private static void lanewise(VectorOperators.Binary operation, double[] left, double[] right, int count) {
+		int bound = SPECIES.loopBound(count);
+		int row = 0;
+		for (; row < bound; row += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, left, row).lanewise(operation, DoubleVector.fromArray(SPECIES, right, row)).intoArray(left, row);
+		}
+		//Scalar tail, same IEEE 754 operations.
+		for (; row < count; row++)
+		{
+			if (operation == VectorOperators.SUB)
+				left[row] = left[row] - right[row];
+			else if (operation == VectorOperators.ADD)
+				left[row] = left[row] + right[row];
+			else if (operation == VectorOperators.MUL)
+				left[row] = left[row] * right[row];
+			else
+				left[row] = left[row] / right[row];
+		}
+	}
+
+	@Override
+	public String name() {
+		return "vector-" + SPECIES.length() + "x64";
+	}
+}
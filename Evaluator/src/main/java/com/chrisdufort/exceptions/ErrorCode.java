@@ -0,0 +1,41 @@
+package com.chrisdufort.exceptions;
+
+/**
+ * Kinds of problems reported by an InvalidExpressionFormatException, to tell errors apart without reading messages.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @see com.chrisdufort.exceptions.InvalidExpressionFormatException#getCode()
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum ErrorCode {
+
+	//Thrown through the constructors without a code.
+	UNSPECIFIED,
+	//The expression holds no token.
+	EMPTY_EXPRESSION,
+	//A character outside of the grammar.
+	UNEXPECTED_CHARACTER,
+	//A number without digits (. or -.) or that cannot be parsed.
+	MALFORMED_NUMBER,
+	//An operator or the end of the expression where an operand was expected.
+	MISSING_OPERAND,
+	//An operand or an opening parenthesis directly following an operand.
+	MISSING_OPERATOR,
+	//An opening parenthesis never closed.
+	UNMATCHED_OPENING_PARENTHESIS,
+	//A closing parenthesis without an opening one.
+	UNMATCHED_CLOSING_PARENTHESIS,
+	//A comma outside of the arguments of a function.
+	MISPLACED_COMMA,
+	//A function called with fewer or more arguments than it accepts.
+	WRONG_ARGUMENT_COUNT,
+	//A value of a postfix expression that is neither an operand nor a known operator.
+	UNKNOWN_OPERATOR,
+	//Operands left over once every operator of a postfix expression is applied.
+	TOO_MANY_OPERANDS,
+	//A variable without a value.
+	MISSING_VARIABLE,
+	//Arithmetic failure while evaluating, a division by zero.
+	ARITHMETIC
+}
@@ -5,6 +5,11 @@ package com.chrisdufort.exceptions;
  * This Exception is thrown to indicate that the requirement for a proper Infix or Postfix expression was not met.
  * This Exception is used primarily by the EvaluatorUtilities Class.
  * 
+ * Exceptions thrown by the evaluator carry an ErrorCode and the position of the problem, and do not fill in
+ * their stack trace: bad input is expected and the trace would only point at the parser.
+ * The position is an offset into the text for infix text, the index of the value for queues and postfix programs,
+ * -1 when unknown.
+ * 
  * @author Christopher Dufort
  * @since JDK 1.8
  * @see com.chrisdufort.evaluator.EvaluatorUtilities
@@ -17,11 +22,16 @@ public class InvalidExpressionFormatException extends Exception {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	private final ErrorCode code;
+	private final int position;
+
 	/**
 	 * 
 	 */
 	public InvalidExpressionFormatException() {
 		super();
+		this.code = ErrorCode.UNSPECIFIED;
+		this.position = -1;
 	}
 
 	/**
@@ -29,6 +39,8 @@ public class InvalidExpressionFormatException extends Exception {
 	 */
 	public InvalidExpressionFormatException(String message) {
 		super(message);
+		this.code = ErrorCode.UNSPECIFIED;
+		this.position = -1;
 	}
 
 	/**
@@ -36,6 +48,8 @@ public class InvalidExpressionFormatException extends Exception {
 	 */
 	public InvalidExpressionFormatException(Throwable cause) {
 		super(cause);
+		this.code = ErrorCode.UNSPECIFIED;
+		this.position = -1;
 	}
 
 	/**
@@ -44,6 +58,8 @@ public class InvalidExpressionFormatException extends Exception {
 	 */
 	public InvalidExpressionFormatException(String message, Throwable cause) {
 		super(message, cause);
+		this.code = ErrorCode.UNSPECIFIED;
+		this.position = -1;
 	}
 
 	/**
@@ -55,6 +71,38 @@ public class InvalidExpressionFormatException extends Exception {
 	public InvalidExpressionFormatException(String message, Throwable cause, boolean enableSuppression,
 			boolean writableStackTrace) {
 		super(message, cause, enableSuppression, writableStackTrace);
+		this.code = ErrorCode.UNSPECIFIED;
+		this.position = -1;
+	}
+
+	/**
+	 * Creates an exception without stack trace nor suppression, cheap enough to report bad input.
+	 * 
+	 * @param code
+	 * 			The kind of problem.
+	 * @param message
+	 * 			Description of the problem.
+	 * @param position
+	 * 			Position of the problem, -1 if unknown.
+	 */
+	public InvalidExpressionFormatException(ErrorCode code, String message, int position) {
+		super(message, null, false, false);
+		this.code = code;
+		this.position = position;
+	}
+
+	/**
+	 * @return	The kind of problem, UNSPECIFIED for exceptions created without a code.
+	 */
+	public ErrorCode getCode() {
+		return code;
+	}
+
+	/**
+	 * @return	Position of the problem, -1 if unknown.
+	 */
+	public int getPosition() {
+		return position;
 	}
 
 }
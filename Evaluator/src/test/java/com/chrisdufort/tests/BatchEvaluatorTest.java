@@ -0,0 +1,109 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.BatchEvaluator;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class BatchEvaluatorTest {
+
+	@Test
+	public void testVariablesInOrderOfAppearance() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("(price - discount) * qty + price");
+		assertEquals(Arrays.asList("price", "discount", "qty"), expression.variables());
+		assertEquals(2, expression.variableIndex("qty"));
+		assertEquals(-1, expression.variableIndex("tax"));
+		assertTrue(new BigDecimal("28").compareTo(expression.evaluate(new BigDecimal("10"), new BigDecimal("4"), new BigDecimal("3"))) == 0);
+	}
+
+	//x is a multiplication after an operand, elsewhere it may start a variable name.
+	@Test
+	public void testXVariables() throws InvalidExpressionFormatException{
+		assertEquals("[x1, 2, *, 1, +]", EvaluatorUtilities.infixToPostfix("x1 x 2 + 1").toString());
+		assertEquals("[5, 5, *]", EvaluatorUtilities.infixToPostfix("5x5").toString());
+		assertEquals(7.0, CompiledExpression.compile("xa X xa - 2").evaluateDouble(3.0), 0.0);
+	}
+
+	@Test
+	public void testQueueWithVariables() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(new ArrayDeque<String>(Arrays.asList("a","*","(","rate","+","1",")")));
+		assertEquals("a rate 1 + *", expression.toString());
+		assertEquals(2.5, expression.evaluateDouble(2.0, 0.25), 0.0);
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testMissingValue() throws InvalidExpressionFormatException{
+		CompiledExpression.compile("a + b").evaluate(BigDecimal.ONE);
+	}
+
+	@Test
+	public void testDoubleColumns() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("(a + b) * 2 - a / b");
+		int rows = 3000;
+		double[] a = new double[rows];
+		double[] b = new double[rows];
+		for (int row = 0; row < rows; row++)
+		{
+			a[row] = row * 0.5;
+			b[row] = row + 1;
+		}
+		double[] output = new double[rows];
+		BatchEvaluator.evaluate(expression, new double[][] { a, b }, output);
+		for (int row = 0; row < rows; row++)
+		{
+			assertEquals(expression.evaluateDouble(a[row], b[row]), output[row], 0.0);
+		}
+	}
+
+	//Every row count from empty to several vectors plus a tail, with values the kernels must treat alike.
+	@Test
+	public void testDoubleColumnsMatchRowByRow() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a * b - a / b + (b - a) * 0.5");
+		double[] special = { 0.0, -0.0, 1.0, -3.5, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, 1e308 };
+		for (int rows = 0; rows <= 67; rows++)
+		{
+			double[] a = new double[rows];
+			double[] b = new double[rows];
+			for (int row = 0; row < rows; row++)
+			{
+				a[row] = special[row % special.length] + row;
+				b[row] = special[(row * 3) % special.length];
+			}
+			double[] output = new double[rows];
+			BatchEvaluator.evaluate(expression, new double[][] { a, b }, output);
+			for (int row = 0; row < rows; row++)
+			{
+				assertEquals(BatchEvaluator.columnKernel() + " row " + row, Double.doubleToLongBits(expression.evaluateDouble(a[row], b[row])),
+						Double.doubleToLongBits(output[row]));
+			}
+		}
+	}
+
+	@Test
+	public void testBigDecimalColumns() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("price * qty / 3");
+		BigDecimal[] price = { new BigDecimal("1.5"), new BigDecimal("10"), new BigDecimal("-2") };
+		BigDecimal[] qty = { new BigDecimal("2"), new BigDecimal("1"), new BigDecimal("3") };
+		BigDecimal[] output = new BigDecimal[3];
+		BatchEvaluator.evaluate(expression, new BigDecimal[][] { price, qty }, output);
+		assertTrue(new BigDecimal("1").compareTo(output[0]) == 0);
+		assertTrue(new BigDecimal("3.333333333333333").compareTo(output[1]) == 0);
+		assertTrue(new BigDecimal("-2").compareTo(output[2]) == 0);
+	}
+
+	@Test
+	public void testConstantExpressionColumns() throws InvalidExpressionFormatException{
+		double[] output = new double[5];
+		BatchEvaluator.evaluate(CompiledExpression.compile("4 / (1 + 4) * 2"), new double[0][], output);
+		for (double value : output)
+			assertEquals(1.6, value, 1e-15);
+	}
+}
@@ -0,0 +1,83 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class BytecodeCompilerTest {
+
+	@Test
+	public void testPromotedAfterThreshold() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a * 2 + b / 4");
+		assertFalse(expression.isJitCompiled());
+		//Default threshold of 10000 evaluations.
+		for (int i = 0; i <= 10000; i++)
+			assertEquals(i * 2 + 0.25, expression.evaluateDouble(i, 1), 0.0);
+		assertTrue(expression.isJitCompiled());
+		assertEquals(new BigDecimal("6.2500000000000000").round(MathContext.DECIMAL64),
+				expression.evaluate(new BigDecimal("3"), BigDecimal.ONE));
+	}
+
+	@Test
+	public void testVariables() throws InvalidExpressionFormatException{
+		CompiledExpression interpreted = CompiledExpression.compile("(rate - 1.5) * qty / (rate + qty) - rate");
+		CompiledExpression generated = CompiledExpression.compile("(rate - 1.5) * qty / (rate + qty) - rate").jit();
+		BigDecimal rate = new BigDecimal("0.075");
+		BigDecimal qty = new BigDecimal("12");
+		assertEquals(interpreted.evaluate(rate, qty), generated.evaluate(rate, qty));
+		assertEquals(interpreted.evaluateDouble(0.075, 12), generated.evaluateDouble(0.075, 12), 0.0);
+	}
+
+	@Test
+	public void testManyVariablesAndConstants() throws InvalidExpressionFormatException{
+		//Enough instructions for every integer push form and constant pool reuse.
+		StringBuilder infix = new StringBuilder("v0");
+		for (int i = 1; i < 300; i++)
+			infix.append(i % 2 == 0 ? " + v" : " - v").append(i).append(" * ").append(i % 7 + 0.5);
+		CompiledExpression interpreted = CompiledExpression.compile(infix);
+		CompiledExpression generated = CompiledExpression.compile(infix).jit();
+		assertTrue(generated.isJitCompiled());
+		double[] doubles = new double[300];
+		BigDecimal[] values = new BigDecimal[300];
+		for (int i = 0; i < 300; i++)
+		{
+			doubles[i] = i * 1.25;
+			values[i] = BigDecimal.valueOf(i * 1.25);
+		}
+		assertEquals(interpreted.evaluate(values), generated.evaluate(values));
+		assertEquals(interpreted.evaluateDouble(doubles), generated.evaluateDouble(doubles), 0.0);
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testDivisionByZero() throws InvalidExpressionFormatException{
+		CompiledExpression.compile("a / (a - a)").jit().evaluate(BigDecimal.ONE);
+	}
+
+	@Test
+	public void testDoubleDivisionByZero() throws InvalidExpressionFormatException{
+		assertEquals(Double.POSITIVE_INFINITY, CompiledExpression.compile("a / 0").jit().evaluateDouble(1), 0.0);
+	}
+
+	@Test
+	public void testHugeProgramStaysInterpreted() throws InvalidExpressionFormatException{
+		StringBuilder infix = new StringBuilder("1");
+		for (int i = 0; i < 5000; i++)
+			infix.append(" + ").append(i);
+		CompiledExpression expression = CompiledExpression.compile(infix).jit();
+		assertFalse(expression.isJitCompiled());
+		assertEquals(new BigDecimal("12497501"), expression.evaluate());
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testMalformedNotGenerated() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("1 2 3").jit();
+		assertFalse(expression.isJitCompiled());
+		expression.evaluate();
+	}
+}
@@ -0,0 +1,58 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class CompiledExpressionTest {
+
+	//Same data as the EvaluatorTest, the compiled form must agree with the queue based methods.
+	@Parameters (name="{index} compiled[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private Queue<String> infix;
+	private Queue<String> expectedPostfix;
+	private BigDecimal expectedResult;
+
+	public CompiledExpressionTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.infix = infix;
+		this.expectedPostfix = postfix;
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testCompileLeavesInfixUntouched() throws InvalidExpressionFormatException{
+		int size = infix.size();
+		CompiledExpression.compile(infix);
+		assertEquals("Compile has consumed the infix queue: ", size, infix.size());
+	}
+
+	@Test
+	public void testCompiledPostfix() throws InvalidExpressionFormatException{
+		assertEquals("Compiled postfix has failed: ", expectedPostfix.toString(), CompiledExpression.compile(infix).toPostfix().toString());
+	}
+
+	//Evaluate more than once to make sure nothing is consumed between evaluations.
+	@Test
+	public void testRepeatedEvaluation() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(infix);
+		for (int i = 0; i < 3; i++)
+		{
+			assertTrue("Compiled evaluation has failed: ", expectedResult.compareTo(expression.evaluate()) == 0);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class ConstantFoldingTest {
+
+	@Test
+	public void testFoldsConstantSubtree() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("rate * ((4/(1+4))*2)").optimize();
+		assertEquals("rate 1.6000000000000000 *", expression.toString());
+		assertEquals(0, new BigDecimal("16").compareTo(expression.evaluate(BigDecimal.TEN)));
+	}
+
+	@Test
+	public void testKeepsDivisionRounding() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a + 1 / 3 * 3");
+		BigDecimal a = new BigDecimal("2");
+		assertEquals(expression.evaluate(a), expression.optimize().evaluate(a));
+		assertEquals("a 0.9999999999999999 +", expression.optimize().toString());
+	}
+
+	@Test
+	public void testDropsIdentities() throws InvalidExpressionFormatException{
+		assertEquals("a 0 +", CompiledExpression.compile("1 * (a * 1 + 0) - 0").optimize().toString());
+		assertEquals("0 a + b +", CompiledExpression.compile("0 + a + b * 1").optimize().toString());
+		assertEquals("a b /", CompiledExpression.compile("a / b + 0 - 0").optimize().toString());
+	}
+
+	@Test
+	public void testKeepsZeroForNegativeScale() throws InvalidExpressionFormatException{
+		//1E+3 + 0 is 1000, dropping the + 0 would leave 1E+3.
+		BigDecimal a = new BigDecimal("1E+3");
+		for (String infix : new String[] {"a + 0", "0 + a", "a - 0"})
+		{
+			CompiledExpression expression = CompiledExpression.compile(infix);
+			assertEquals(infix, expression.evaluate(a), expression.optimize().evaluate(a));
+		}
+	}
+
+	@Test
+	public void testKeepsScaleChangingOperations() throws InvalidExpressionFormatException{
+		//1.0 changes the scale and / 1 rounds to 16 places, neither is an identity.
+		assertEquals("a 1.0 *", CompiledExpression.compile("a * 1.0").optimize().toString());
+		assertEquals("a 1 /", CompiledExpression.compile("a / 1").optimize().toString());
+		assertEquals("0 a -", CompiledExpression.compile("0 - a").optimize().toString());
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testDivisionByZeroNotFolded() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a + 1 / (2 - 2)").optimize();
+		assertEquals("a 1 0 / +", expression.toString());
+		expression.evaluate(BigDecimal.ONE);
+	}
+
+	@Test
+	public void testVariablesKeepTheirNumbers() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("b * 1 + a * (2 + 3)");
+		assertEquals(expression.variables(), expression.optimize().variables());
+	}
+
+	@Test
+	public void testUnchangedReturnsSameInstance() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a * b");
+		assertSame(expression, expression.optimize());
+	}
+
+	@Test
+	public void testRedundantParenthesisCollapsed() throws InvalidExpressionFormatException{
+		assertEquals("a + b * c", CompiledExpression.compile("((a) + ((b * c)))").toInfix());
+		assertEquals("( a + b ) * c", CompiledExpression.compile("((a + b)) * c").toInfix());
+		assertEquals("a - ( b - c )", CompiledExpression.compile("a - (b - c)").toInfix());
+		assertEquals("a - b - c", CompiledExpression.compile("(a - b) - c").toInfix());
+	}
+
+	@Test
+	public void testExplainOptimization() throws InvalidExpressionFormatException{
+		String explanation = CompiledExpression.compile("(4/(1+4))*2 + a").optimize().explainOptimization();
+		assertEquals("before: 4 / ( 1 + 4 ) * 2 + a  [postfix: 4 1 4 + / 2 * a + , 9 instructions]\n"
+				+ "after:  1.6000000000000000 + a  [postfix: 1.6000000000000000 a + , 3 instructions]", explanation);
+	}
+}
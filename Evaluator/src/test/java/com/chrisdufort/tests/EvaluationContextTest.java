@@ -0,0 +1,113 @@
+package com.chrisdufort.tests;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationContext;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class EvaluationContextTest {
+
+	//Deeper than the initial stacks, so the context has to grow, then shallow expressions on the grown stacks.
+	private static String nested(int depth) {
+		StringBuilder text = new StringBuilder();
+		for (int index = 0; index < depth; index++)
+			text.append("( ").append(index + 1).append(" + ");
+		text.append('1');
+		for (int index = 0; index < depth; index++)
+			text.append(" )");
+		return text.toString();
+	}
+
+	@Test
+	public void testContextGrowsAndIsReused() throws InvalidExpressionFormatException{
+		EvaluationContext context = new EvaluationContext();
+		CompiledExpression deep = CompiledExpression.compile(nested(40));
+		CompiledExpression shallow = CompiledExpression.compile("a * 2 - 1 / 4");
+		assertEquals(821.0, deep.evaluateDouble(context), 0.0);
+		assertEquals(new BigDecimal("821"), deep.evaluate(context, PrecisionPolicy.standard()));
+		EvaluationResult exact = deep.evaluate(context, NumericMode.LONG, PrecisionPolicy.standard());
+		assertEquals(NumericMode.LONG, exact.getMode());
+		assertEquals(821L, exact.longValue());
+		assertEquals(5.75, shallow.evaluateDouble(context, 3), 0.0);
+		assertEquals(shallow.evaluate(new BigDecimal("3")), shallow.evaluate(context, PrecisionPolicy.standard(), new BigDecimal("3")));
+		PrecisionPolicy cents = PrecisionPolicy.fixedScale(2, RoundingMode.HALF_EVEN);
+		assertEquals(new BigDecimal("0.33"), CompiledExpression.compile("1 / 3").evaluate(context, NumericMode.SCALED_LONG, cents).bigDecimalValue());
+		context.clear();
+		assertEquals(new BigDecimal("821"), deep.evaluate(context, PrecisionPolicy.standard()));
+	}
+
+	@Test
+	public void testInfixWithContext() throws InvalidExpressionFormatException{
+		EvaluationContext context = new EvaluationContext();
+		assertEquals(new BigDecimal("821"), EvaluatorUtilities.evaluateInfix(nested(40), context));
+		assertEquals(EvaluatorUtilities.evaluateInfix("1 / 3 + 2"), EvaluatorUtilities.evaluateInfix("1 / 3 + 2", context));
+		try{
+			EvaluatorUtilities.evaluateInfix("( 1 + 2", context);
+			fail("Unmatched parenthesis accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.UNMATCHED_OPENING_PARENTHESIS, ex.getCode());
+		}
+		//A failed evaluation leaves nothing behind for the next one.
+		assertEquals(new BigDecimal("7"), EvaluatorUtilities.evaluateInfix("1 + 2 * 3", context));
+	}
+
+	//An Operation evaluating another expression on the same thread does not clobber the stack of its caller.
+	@Test
+	public void testReentrantOperation() throws InvalidExpressionFormatException{
+		final CompiledExpression inner = CompiledExpression.compile("( 1 + 2 ) * ( 3 + 4 )");
+		OperatorRegistry registry = OperatorRegistry.builder()
+				.function("inner", 0, 0, (values, offset, count) -> {
+					try{
+						return inner.evaluate();
+					}catch(InvalidExpressionFormatException ex){
+						throw new IllegalStateException(ex);
+					}
+				}, (values, offset, count) -> {
+					try{
+						return inner.evaluateDouble();
+					}catch(InvalidExpressionFormatException ex){
+						throw new IllegalStateException(ex);
+					}
+				}, null)
+				.build();
+		CompiledExpression outer = CompiledExpression.compile("10 - ( 5 + inner() )", registry);
+		assertEquals(-16.0, outer.evaluateDouble(), 0.0);
+		assertEquals(new BigDecimal("-16"), outer.evaluate());
+	}
+
+	//Once warm, double evaluation on a context does not allocate.
+	@Test
+	public void testSteadyStateDoesNotAllocate() throws InvalidExpressionFormatException{
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		EvaluationContext context = new EvaluationContext();
+		CompiledExpression expression = CompiledExpression.compile("( rate * qty - 4 ) / ( qty + 1 ) * 1.5");
+		double[] values = { 2.5, 4 };
+		double sum = 0;
+		for (int index = 0; index < 200; index++)
+			sum += expression.evaluateDouble(context, values);
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int index = 0; index < 2000; index++)
+			sum += expression.evaluateDouble(context, values);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		assertEquals(2200 * 1.8, sum, 1e-6);
+		//Room for the measurement itself, far below one stack per evaluation.
+		assertTrue("Allocated " + allocated + " bytes", allocated < 2000);
+	}
+}
@@ -0,0 +1,181 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationService;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.ServiceStats;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class EvaluationServiceTest {
+
+	private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+		try{
+			future.get();
+			return null;
+		}catch(ExecutionException ex){
+			return ex.getCause();
+		}
+	}
+
+	//Requests from many threads get the results of the sequential methods, a few batches answering all of them.
+	@Test
+	public void testConcurrentRequestsMatchSequential() throws Exception{
+		final CompiledExpression expression = CompiledExpression.compile("(a - b) * a / 4");
+		final int threads = 8;
+		final int requests = 500;
+		final List<List<CompletableFuture<BigDecimal>>> futures = new ArrayList<List<CompletableFuture<BigDecimal>>>();
+		ExecutorService clients = Executors.newFixedThreadPool(threads);
+		try(EvaluationService service = EvaluationService.builder().batchDelay(5, TimeUnit.MILLISECONDS).build()){
+			List<Future<List<CompletableFuture<BigDecimal>>>> submitted = new ArrayList<Future<List<CompletableFuture<BigDecimal>>>>();
+			for (int thread = 0; thread < threads; thread++)
+			{
+				final int offset = thread * requests;
+				submitted.add(clients.submit(() -> {
+					List<CompletableFuture<BigDecimal>> own = new ArrayList<CompletableFuture<BigDecimal>>();
+					for (int row = offset; row < offset + requests; row++)
+						own.add(service.submit(expression, BigDecimal.valueOf(row), BigDecimal.valueOf(row % 7)));
+					return own;
+				}));
+			}
+			for (Future<List<CompletableFuture<BigDecimal>>> future : submitted)
+				futures.add(future.get());
+			for (int thread = 0; thread < threads; thread++)
+			{
+				for (int index = 0; index < requests; index++)
+				{
+					int row = thread * requests + index;
+					BigDecimal expected = expression.evaluate(BigDecimal.valueOf(row), BigDecimal.valueOf(row % 7));
+					assertEquals(expected, futures.get(thread).get(index).get());
+				}
+			}
+			ServiceStats stats = service.stats();
+			assertEquals(threads * requests, stats.submittedCount());
+			assertEquals(threads * requests, stats.completedCount());
+			assertEquals(0, stats.rejectedCount());
+			assertTrue(stats.toString(), stats.averageBatchSize() > 1.0);
+		}finally{
+			clients.shutdown();
+		}
+	}
+
+	//Double and BigDecimal requests of one expression are batched apart, a failing request fails alone.
+	@Test
+	public void testModesAndErrors() throws Exception{
+		CompiledExpression expression = CompiledExpression.compile("a / b");
+		try(EvaluationService service = EvaluationService.builder().batchDelay(20, TimeUnit.MILLISECONDS).build()){
+			CompletableFuture<BigDecimal> half = service.submit(expression, BigDecimal.ONE, new BigDecimal("2"));
+			CompletableFuture<Double> quarter = service.submitDouble(expression, 1, 4);
+			CompletableFuture<BigDecimal> zero = service.submit(expression, BigDecimal.ONE, BigDecimal.ZERO);
+			CompletableFuture<BigDecimal> missing = service.submit(expression, BigDecimal.ONE);
+			CompletableFuture<BigDecimal> text = service.submit("qty * 3 + 1", new BigDecimal("2"));
+			CompletableFuture<BigDecimal> malformed = service.submit("qty * ", new BigDecimal("2"));
+			assertEquals(expression.evaluate(BigDecimal.ONE, new BigDecimal("2")), half.get());
+			assertEquals(0.25, quarter.get(), 0.0);
+			assertTrue(cause(zero) instanceof InvalidExpressionFormatException);
+			assertTrue(cause(missing) instanceof InvalidExpressionFormatException);
+			assertEquals(new BigDecimal("7"), text.get());
+			assertTrue(cause(malformed) instanceof InvalidExpressionFormatException);
+		}
+	}
+
+	//Requests held by a stalled executor fill the service, the next one is rejected until room is made.
+	@Test
+	public void testAdmissionControl() throws Exception{
+		CompiledExpression expression = CompiledExpression.compile("a + 1");
+		final CountDownLatch stalled = new CountDownLatch(1);
+		ExecutorService batches = Executors.newCachedThreadPool();
+		try(EvaluationService service = EvaluationService.builder().queueCapacity(2).batchDelay(0, TimeUnit.NANOSECONDS)
+				.executor(task -> batches.execute(() -> {
+					try{
+						stalled.await();
+					}catch(InterruptedException ex){
+						Thread.currentThread().interrupt();
+					}
+					task.run();
+				})).build()){
+			CompletableFuture<BigDecimal> first = service.submit(expression, BigDecimal.ONE);
+			CompletableFuture<BigDecimal> second = service.submit(expression, BigDecimal.TEN);
+			assertTrue(cause(service.submit(expression, BigDecimal.ZERO)) instanceof RejectedExecutionException);
+			assertEquals(2, service.stats().pending());
+			stalled.countDown();
+			assertEquals(new BigDecimal("2"), first.get());
+			assertEquals(new BigDecimal("11"), second.get());
+			assertEquals(1, service.stats().rejectedCount());
+			assertEquals(new BigDecimal("1"), service.submit(expression, BigDecimal.ZERO).get());
+		}finally{
+			batches.shutdown();
+		}
+	}
+
+	//Closing answers what was queued and rejects what comes after.
+	@Test
+	public void testClose() throws Exception{
+		CompiledExpression expression = CompiledExpression.compile("a * 2");
+		EvaluationService service = EvaluationService.builder().batchDelay(50, TimeUnit.MILLISECONDS).build();
+		CompletableFuture<BigDecimal> queued = service.submit(expression, new BigDecimal("21"));
+		service.close();
+		assertEquals(new BigDecimal("42"), queued.get());
+		assertTrue(cause(service.submit(expression, BigDecimal.ONE)) instanceof RejectedExecutionException);
+		service.close();
+	}
+
+	//Null arrays are refused up front, anything thrown by a batch still answers every request of it.
+	@Test(timeout = 10000)
+	public void testBatchNeverLeavesRequestsWaiting() throws Exception{
+		OperatorRegistry registry = OperatorRegistry.builder()
+				.function("broken", 1, 1, (values, offset, count) -> {
+					throw new AssertionError("Broken operation");
+				}, (values, offset, count) -> values[offset], null)
+				.build();
+		CompiledExpression expression = CompiledExpression.compile("broken(a) + 1", registry);
+		//Batches run on the dispatcher, the rethrown Error is swallowed here rather than printed by a pool thread.
+		try(EvaluationService service = EvaluationService.builder().batchDelay(20, TimeUnit.MILLISECONDS)
+				.executor(task -> {
+					try{
+						task.run();
+					}catch(AssertionError ex){
+						//Expected, the futures hold it.
+					}
+				}).build()){
+			try{
+				service.submit(expression, (BigDecimal[]) null);
+				fail("Null values accepted");
+			}catch(IllegalArgumentException ex){
+				//Expected.
+			}
+			try{
+				service.submitDouble(expression, (double[]) null);
+				fail("Null values accepted");
+			}catch(IllegalArgumentException ex){
+				//Expected.
+			}
+			CompletableFuture<BigDecimal> first = service.submit(expression, BigDecimal.ONE);
+			CompletableFuture<BigDecimal> second = service.submit(expression, BigDecimal.TEN);
+			assertTrue(cause(first) instanceof AssertionError);
+			assertTrue(cause(second) instanceof AssertionError);
+			assertEquals(0, service.stats().pending());
+			assertEquals(2, service.stats().failedCount());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity(){
+		EvaluationService.builder().queueCapacity(0);
+	}
+}
@@ -0,0 +1,131 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CacheStats;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvictionPolicy;
+import com.chrisdufort.evaluator.ExpressionCache;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class ExpressionCacheTest {
+
+	@Test
+	public void testHitsAndMisses() throws InvalidExpressionFormatException{
+		ExpressionCache cache = ExpressionCache.builder().maximumSize(10).build();
+		CompiledExpression first = cache.get("1 + 2");
+		CompiledExpression second = cache.get(new StringBuilder("1 + 2"));
+		assertSame(first, second);
+		assertTrue(new BigDecimal("3").compareTo(second.evaluate()) == 0);
+
+		CacheStats stats = cache.stats();
+		assertEquals(1, stats.hitCount());
+		assertEquals(1, stats.missCount());
+		assertEquals(0.5, stats.hitRate(), 0.0);
+	}
+
+	@Test
+	public void testLruEvictsLeastRecentlyUsed() throws InvalidExpressionFormatException{
+		ExpressionCache cache = ExpressionCache.builder().maximumSize(2).evictionPolicy(EvictionPolicy.LRU).build();
+		CompiledExpression one = cache.get("1");
+		cache.get("2");
+		cache.get("1");
+		cache.get("3");
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.stats().evictionCount());
+		assertSame("Recently used expression was evicted: ", one, cache.get("1"));
+	}
+
+	@Test
+	public void testTinyLfuKeepsFrequentExpressions() throws InvalidExpressionFormatException{
+		ExpressionCache cache = ExpressionCache.builder().maximumSize(100).evictionPolicy(EvictionPolicy.TINY_LFU).build();
+		List<CompiledExpression> hot = new ArrayList<CompiledExpression>();
+		for (int i = 0; i < 50; i++)
+		{
+			hot.add(cache.get(i + " * 2"));
+		}
+		for (int round = 0; round < 5; round++)
+		{
+			for (int i = 0; i < 50; i++)
+				cache.get(i + " * 2");
+		}
+		//A scan of one-off expressions must not flush the hot ones.
+		for (int i = 0; i < 1000; i++)
+		{
+			cache.get(i + " + 1");
+		}
+		assertTrue(cache.size() <= 100);
+		int kept = 0;
+		for (int i = 0; i < 50; i++)
+		{
+			if (cache.get(i + " * 2") == hot.get(i))
+				kept++;
+		}
+		assertTrue("Hot expressions were flushed: " + kept, kept >= 45);
+	}
+
+	@Test
+	public void testExpireAfterAccess() throws InvalidExpressionFormatException{
+		final AtomicLong time = new AtomicLong();
+		ExpressionCache cache = ExpressionCache.builder().expireAfterAccess(1, TimeUnit.SECONDS).ticker(time::get).build();
+		CompiledExpression first = cache.get("4 / 2");
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertSame(first, cache.get("4 / 2"));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+		assertNotSame(first, cache.get("4 / 2"));
+		assertEquals(1, cache.stats().expirationCount());
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testInvalidExpressionNotCached() throws InvalidExpressionFormatException{
+		ExpressionCache cache = ExpressionCache.builder().build();
+		try{
+			cache.get("(1 + 2");
+		}finally{
+			assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception{
+		final ExpressionCache cache = ExpressionCache.builder().maximumSize(64).evictionPolicy(EvictionPolicy.TINY_LFU).build();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 4; t++)
+			{
+				final int seed = t;
+				results.add(pool.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int i = 0; i < 5000; i++)
+						{
+							int n = (i * 31 + seed) % 200;
+							if (cache.get(n + " + 1").evaluate().intValue() != n + 1)
+								return false;
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results)
+				assertTrue(result.get());
+		}finally{
+			pool.shutdown();
+		}
+		assertTrue(cache.size() <= 64);
+		assertEquals(20000, cache.stats().requestCount());
+	}
+}
@@ -0,0 +1,148 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.ExpressionGraph;
+import com.chrisdufort.evaluator.GraphStats;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class ExpressionGraphTest {
+
+	private static ExpressionGraph shared() throws InvalidExpressionFormatException {
+		ExpressionGraph graph = ExpressionGraph.create();
+		graph.define("f", "(a + b) * c + (a + b) * d");
+		graph.set("a", new BigDecimal("1"));
+		graph.set("b", new BigDecimal("2"));
+		graph.set("c", new BigDecimal("3"));
+		graph.set("d", new BigDecimal("4"));
+		return graph;
+	}
+
+	@Test
+	public void testCommonSubexpressionsShared() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = shared();
+		assertEquals(new BigDecimal("21"), graph.value("f"));
+		GraphStats stats = graph.stats();
+		//a , b , c , d , a + b , (a + b) * c , (a + b) * d and the sum.
+		assertEquals(8, stats.nodeCount());
+		assertEquals(1, stats.sharedCount());
+		assertEquals(4, stats.recomputedCount());
+		assertEquals(4, stats.reusedCount());
+	}
+
+	@Test
+	public void testOnlyDownstreamRecomputed() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = shared();
+		graph.value("f");
+		graph.resetStats();
+		graph.set("c", new BigDecimal("10"));
+		assertEquals(new BigDecimal("42"), graph.value("f"));
+		GraphStats stats = graph.stats();
+		assertEquals(2, stats.invalidatedCount());
+		assertEquals(2, stats.recomputedCount());
+		//a + b , c and (a + b) * d
+		assertEquals(3, stats.reusedCount());
+	}
+
+	@Test
+	public void testUnchangedValueInvalidatesNothing() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = shared();
+		graph.value("f");
+		graph.resetStats();
+		graph.set("c", new BigDecimal("3"));
+		assertEquals(new BigDecimal("21"), graph.value("f"));
+		assertEquals(0, graph.stats().invalidatedCount());
+		assertEquals(0, graph.stats().recomputedCount());
+		assertEquals(1, graph.stats().reusedCount());
+		//A different scale is a different value.
+		graph.set("c", new BigDecimal("3.0"));
+		assertEquals(2, graph.stats().invalidatedCount());
+	}
+
+	@Test
+	public void testFormulasShareNodes() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = shared();
+		graph.define("g", "(a + b) * c - 1");
+		assertEquals(3, graph.stats().sharedCount());
+		assertEquals(new BigDecimal("21"), graph.value("f"));
+		graph.resetStats();
+		assertEquals(new BigDecimal("8"), graph.value("g"));
+		assertEquals(1, graph.stats().recomputedCount());
+		assertEquals(Arrays.asList("f", "g"), graph.formulas());
+		assertEquals(Arrays.asList("a", "b", "c", "d"), graph.variables());
+	}
+
+	@Test
+	public void testAgreesWithCompiledExpression() throws InvalidExpressionFormatException{
+		for (Object[] data : EvaluatorTest.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			String infix = String.join(" ", (ArrayDeque<String>) data[0]);
+			ExpressionGraph graph = ExpressionGraph.create();
+			graph.define("f", infix);
+			assertEquals(infix, CompiledExpression.compile(infix).evaluate(), graph.value("f"));
+		}
+	}
+
+	@Test
+	public void testRegistry() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = ExpressionGraph.create(OperatorRegistry.standard());
+		graph.define("hypotenuse", "sqrt(a ^ 2 + b ^ 2)");
+		graph.define("longest", "max(a, b, sqrt(a ^ 2 + b ^ 2))");
+		graph.set("a", new BigDecimal("3"));
+		graph.set("b", new BigDecimal("4"));
+		assertTrue(new BigDecimal("5").compareTo(graph.value("hypotenuse")) == 0);
+		graph.resetStats();
+		assertTrue(new BigDecimal("5").compareTo(graph.value("longest")) == 0);
+		assertEquals(1, graph.stats().recomputedCount());
+	}
+
+	@Test
+	public void testDeepFormula() throws InvalidExpressionFormatException{
+		StringBuilder infix = new StringBuilder("a");
+		for (int term = 1; term < 5000; term++)
+			infix.append(" + ").append(term);
+		ExpressionGraph graph = ExpressionGraph.create();
+		graph.define("f", infix);
+		graph.set("a", BigDecimal.ZERO);
+		assertEquals(new BigDecimal("12497500"), graph.value("f"));
+		graph.set("a", BigDecimal.ONE);
+		assertEquals(new BigDecimal("12497501"), graph.value("f"));
+	}
+
+	@Test
+	public void testErrors() throws InvalidExpressionFormatException{
+		ExpressionGraph graph = ExpressionGraph.create();
+		graph.define("f", "a / b");
+		try{
+			graph.value("f");
+			fail("Unbound variables must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals("Missing value for variable: a", ex.getMessage());
+		}
+		graph.set("a", BigDecimal.ONE);
+		graph.set("b", BigDecimal.ZERO);
+		try{
+			graph.value("f");
+			fail("Division by zero must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals("/ by zero", ex.getMessage());
+		}
+		graph.set("b", new BigDecimal("4"));
+		assertEquals(new BigDecimal("0.2500000000000000"), graph.value("f"));
+		try{
+			graph.define("g", "1 + + 2");
+			fail("Malformed formulas must be rejected");
+		}catch(InvalidExpressionFormatException ex){
+			//expected
+		}
+	}
+}
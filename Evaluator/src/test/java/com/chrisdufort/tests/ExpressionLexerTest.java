@@ -0,0 +1,81 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.ExpressionLexer;
+import com.chrisdufort.evaluator.TokenKind;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class ExpressionLexerTest {
+
+	//Same data as the EvaluatorTest, the infix tokens are joined back into text.
+	@Parameters (name="{index} lexer[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private String spaced;
+	private String compact;
+	private int tokenCount;
+	private String expectedPostfix;
+	private BigDecimal expectedResult;
+
+	public ExpressionLexerTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.spaced = String.join(" ", infix);
+		this.compact = String.join("", infix);
+		this.tokenCount = infix.size();
+		//The lexer always writes multiplication as *
+		this.expectedPostfix = postfix.toString().replace('x', '*').replace('X', '*');
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testTokenCount() throws InvalidExpressionFormatException{
+		ExpressionLexer lexer = new ExpressionLexer(compact);
+		int count = 0;
+		while (lexer.next() != TokenKind.END)
+			count++;
+		assertEquals("Lexer token count has failed: ", tokenCount, count);
+	}
+
+	@Test
+	public void testInfixToPostfixSpaced() throws InvalidExpressionFormatException{
+		assertEquals("Text infix to Postfix has failed: ", expectedPostfix, EvaluatorUtilities.infixToPostfix(spaced).toString());
+	}
+
+	@Test
+	public void testInfixToPostfixCompact() throws InvalidExpressionFormatException{
+		assertEquals("Text infix to Postfix has failed: ", expectedPostfix, EvaluatorUtilities.infixToPostfix(compact).toString());
+	}
+
+	@Test
+	public void testCharBufferAndArray() throws InvalidExpressionFormatException{
+		char[] chars = ("  " + compact + "  ").toCharArray();
+		assertTrue(expectedResult.compareTo(CompiledExpression.compile(CharBuffer.wrap(chars)).evaluate()) == 0);
+
+		ExpressionLexer lexer = new ExpressionLexer(chars, 2, compact.length());
+		Queue<String> texts = new ArrayDeque<String>();
+		while (lexer.next() != TokenKind.END)
+			texts.offer(lexer.text());
+		assertEquals(tokenCount, texts.size());
+	}
+
+	@Test
+	public void testCompileText() throws InvalidExpressionFormatException{
+		assertTrue("Compiled text evaluation has failed: ", expectedResult.compareTo(CompiledExpression.compile(spaced).evaluate()) == 0);
+	}
+}
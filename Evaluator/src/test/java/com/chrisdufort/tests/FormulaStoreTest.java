@@ -0,0 +1,132 @@
+package com.chrisdufort.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.FormulaStore;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class FormulaStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static CompiledExpression roundTrip(CompiledExpression expression, OperatorRegistry registry) throws IOException {
+		CompiledExpression decoded = CompiledExpression.fromBytes(expression.toBytes(), registry);
+		assertEquals(expression.toPostfix().toString(), decoded.toPostfix().toString());
+		assertEquals(expression.variables(), decoded.variables());
+		assertEquals(expression.explainOptimization(), decoded.explainOptimization());
+		return decoded;
+	}
+
+	//Every expression of the EvaluatorTest, compiled from its token Queue, decodes to the same program and value.
+	@Test
+	public void testRoundTripEvaluatorData() throws IOException, InvalidExpressionFormatException{
+		for (Object[] data : EvaluatorTest.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			CompiledExpression expression = CompiledExpression.compile((Queue<String>) data[0]);
+			CompiledExpression decoded = roundTrip(expression, OperatorRegistry.standard());
+			assertEquals(expression.evaluate(), decoded.evaluate());
+			assertEquals(expression.evaluate(NumericMode.LONG).toString(), decoded.evaluate(NumericMode.LONG).toString());
+		}
+	}
+
+	@Test
+	public void testConstantsKeepTextAndValue() throws IOException, InvalidExpressionFormatException{
+		String big = "123456789012345678901234567890.125";
+		CompiledExpression expression = CompiledExpression.compile(".5 + -0.0000001 * " + big + " - 1.50");
+		CompiledExpression decoded = roundTrip(expression, OperatorRegistry.standard());
+		assertEquals(".5 -0.0000001 " + big + " * + 1.50 -", decoded.toString());
+		assertEquals(expression.evaluate(), decoded.evaluate());
+		assertEquals(expression.evaluate(NumericMode.SCALED_LONG).toString(), decoded.evaluate(NumericMode.SCALED_LONG).toString());
+	}
+
+	@Test
+	public void testVariablesFunctionsAndOptimization() throws IOException, InvalidExpressionFormatException{
+		OperatorRegistry registry = OperatorRegistry.standard();
+		CompiledExpression expression = CompiledExpression.compile("max(rate * 1 , -qty ^ 2) + rate * (2 + 3)", registry).optimize();
+		CompiledExpression decoded = roundTrip(expression, registry);
+		BigDecimal rate = new BigDecimal("1.5");
+		BigDecimal qty = new BigDecimal("3");
+		assertEquals(expression.evaluate(rate, qty), decoded.evaluate(rate, qty));
+		assertEquals(expression.evaluateDouble(1.5, 3), decoded.evaluateDouble(1.5, 3), 0.0);
+		//Repeated names are stored once, the encoding is smaller than the text.
+		CompiledExpression repeated = CompiledExpression.compile("price * qty + price * qty * 0.05 + price / qty");
+		assertTrue(repeated.toBytes().length < "price * qty + price * qty * 0.05 + price / qty".length());
+	}
+
+	@Test
+	public void testStructureErrorKept() throws IOException, InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(new ArrayDeque<String>(Arrays.asList("2", "3")));
+		CompiledExpression decoded = roundTrip(expression, OperatorRegistry.standard());
+		try{
+			decoded.evaluate();
+			fail("Malformed expression evaluated");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.TOO_MANY_OPERANDS, ex.getCode());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNewerVersionRejected() throws IOException, InvalidExpressionFormatException{
+		byte[] bytes = CompiledExpression.compile("1 + 2").toBytes();
+		bytes[0] = 99;
+		CompiledExpression.fromBytes(bytes, OperatorRegistry.standard());
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedRejected() throws IOException, InvalidExpressionFormatException{
+		byte[] bytes = CompiledExpression.compile("rate * 2 + 1").toBytes();
+		CompiledExpression.fromBytes(Arrays.copyOf(bytes, bytes.length - 2), OperatorRegistry.standard());
+	}
+
+	@Test
+	public void testStore() throws IOException, InvalidExpressionFormatException{
+		Map<String, CompiledExpression> formulas = new HashMap<String, CompiledExpression>();
+		for (int index = 0; index < 500; index++)
+			formulas.put("formula" + index, CompiledExpression.compile(index + " * rate - " + (index % 7) + " / 3"));
+		formulas.put("total", CompiledExpression.compile("sqrt(a) + max(b , 1)", OperatorRegistry.standard()));
+		File file = new File(folder.getRoot(), "formulas.bin");
+		FormulaStore.write(file.toPath(), formulas);
+
+		FormulaStore store = FormulaStore.open(file.toPath(), OperatorRegistry.standard());
+		assertEquals(501, store.size());
+		assertEquals("formula0", store.name(0));
+		assertEquals("total", store.name(500));
+		assertNull(store.get("missing"));
+		assertSame(store.get("formula42"), store.get("formula42"));
+		BigDecimal rate = new BigDecimal("2.5");
+		for (Map.Entry<String, CompiledExpression> entry : formulas.entrySet())
+		{
+			if (!"total".equals(entry.getKey()))
+				assertEquals(entry.getValue().evaluate(rate), store.get(entry.getKey()).evaluate(rate));
+		}
+		assertEquals(5.0, store.get("total").evaluateDouble(16, -1), 0.0);
+		assertEquals(formulas.keySet(), store.loadAll().keySet());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAStore() throws IOException{
+		File file = folder.newFile("text.bin");
+		Files.write(file.toPath(), "1 + 2\n".getBytes("UTF-8"));
+		FormulaStore.open(file.toPath());
+	}
+}
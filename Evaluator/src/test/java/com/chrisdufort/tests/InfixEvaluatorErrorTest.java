@@ -0,0 +1,97 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class InfixEvaluatorErrorTest {
+
+	private static final String[] MALFORMED = {
+		"", "(", "()", "(3 + 5", "10 / 0", "5 + + 3", "1 + 2)", "5 6", "9 +", ") 5 + 3", "((4)",
+		"(3(())2)", "1 2 3 4 5 6 7", "rate * 2", "2 * rate + 1 / 0", "1 / 0 + rate", "1 / 0 )", "1 + $",
+		"1 + .", "* 2", "(((1 - 1))) / (2 - 2) * 5"
+	};
+
+	//Offset into the text of each error above, the operator, number or variable it comes from.
+	private static final int[] POSITIONS = {
+		0, 0, 2, 0, 3, 2, 5, 2, 2, 0, 0,
+		6, 2, 0, 4, 2, 6, 4,
+		4, 0, 12
+	};
+
+	private static InvalidExpressionFormatException twoStep(String infix){
+		try{
+			EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(infix));
+			return null;
+		}catch(InvalidExpressionFormatException ex){
+			return ex;
+		}
+	}
+
+	private static InvalidExpressionFormatException singlePass(String infix){
+		try{
+			EvaluatorUtilities.evaluateInfix(infix);
+			return null;
+		}catch(InvalidExpressionFormatException ex){
+			return ex;
+		}
+	}
+
+	//Same codes and messages as the two step path, positions are offsets into the text rather than postfix indexes.
+	@Test
+	public void testSameErrors(){
+		for (int index = 0; index < MALFORMED.length; index++)
+		{
+			String infix = MALFORMED[index];
+			InvalidExpressionFormatException expected = twoStep(infix);
+			InvalidExpressionFormatException actual = singlePass(infix);
+			assertNotNull(infix, expected);
+			assertNotNull(infix, actual);
+			assertEquals(infix, expected.getMessage(), actual.getMessage());
+			assertEquals(infix, expected.getCode(), actual.getCode());
+			assertEquals(infix, POSITIONS[index], actual.getPosition());
+		}
+	}
+
+	@Test
+	public void testTextPositions(){
+		InvalidExpressionFormatException division = singlePass("1 + 1 / 0");
+		assertEquals(ErrorCode.ARITHMETIC, division.getCode());
+		assertEquals('/', "1 + 1 / 0".charAt(division.getPosition()));
+		//Where validate reports the missing operator.
+		assertEquals(ErrorCode.TOO_MANY_OPERANDS, singlePass("2 3").getCode());
+		assertEquals(EvaluatorUtilities.validate("2 3").getPosition(), singlePass("2 3").getPosition());
+		assertEquals(9, singlePass("1 + 2 * (rate - 1)").getPosition());
+	}
+
+	@Test
+	public void testSyntaxErrorBeforeArithmetic(){
+		//The parser reads the whole text before evaluating, the parenthesis is reported first.
+		assertEquals("Missing matching parenthesis at position 6", singlePass("1 / 0 )").getMessage());
+	}
+
+	@Test
+	public void testDeepExpression() throws InvalidExpressionFormatException{
+		StringBuilder infix = new StringBuilder();
+		for (int level = 0; level < 1000; level++)
+			infix.append("(1 + ");
+		infix.append('1');
+		for (int level = 0; level < 1000; level++)
+			infix.append(')');
+		assertEquals(new BigDecimal("1001"), EvaluatorUtilities.evaluateInfix(infix));
+		assertEquals(EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(infix)), EvaluatorUtilities.evaluateInfix(infix));
+	}
+
+	@Test
+	public void testCharBuffer() throws InvalidExpressionFormatException{
+		char[] chars = "xx 12.5 * (2 - 0.5) yy".toCharArray();
+		assertEquals(new BigDecimal("18.75"), EvaluatorUtilities.evaluateInfix(CharBuffer.wrap(chars, 3, 16)));
+	}
+}
@@ -0,0 +1,47 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class InfixEvaluatorTest {
+
+	//Same data as the EvaluatorTest, the single pass must agree with the two step path, scale included.
+	@Parameters (name="{index} infix[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private String spaced;
+	private String compact;
+	private BigDecimal expectedResult;
+
+	public InfixEvaluatorTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.spaced = String.join(" ", infix);
+		this.compact = String.join("", infix);
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testSinglePass() throws InvalidExpressionFormatException{
+		BigDecimal result = EvaluatorUtilities.evaluateInfix(spaced);
+		assertEquals("Single pass evaluation has failed: ", EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(spaced)), result);
+		assertTrue(expectedResult.compareTo(result) == 0);
+	}
+
+	@Test
+	public void testSinglePassCompact() throws InvalidExpressionFormatException{
+		assertEquals(EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(compact)), EvaluatorUtilities.evaluateInfix(compact));
+	}
+}
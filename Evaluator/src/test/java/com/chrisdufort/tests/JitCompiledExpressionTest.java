@@ -0,0 +1,73 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class JitCompiledExpressionTest {
+
+	//Same data as the EvaluatorTest, generated code must agree with the interpreter, scale included.
+	@Parameters (name="{index} jit[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private Queue<String> infix;
+	private BigDecimal expectedResult;
+
+	public JitCompiledExpressionTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.infix = infix;
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testJitBigDecimal() throws InvalidExpressionFormatException{
+		CompiledExpression generated = CompiledExpression.compile(infix).jit();
+		assertTrue(generated.isJitCompiled());
+		assertEquals("Generated code has failed: ", CompiledExpression.compile(infix).evaluate(), generated.evaluate());
+		assertTrue(expectedResult.compareTo(generated.evaluate()) == 0);
+	}
+
+	@Test
+	public void testJitDouble() throws InvalidExpressionFormatException{
+		CompiledExpression generated = CompiledExpression.compile(infix).jit();
+		assertEquals("Generated code has failed: ", CompiledExpression.compile(infix).evaluateDouble(), generated.evaluateDouble(), 0.0);
+	}
+
+	//A failing evaluation reports the same error, position included, before and after promotion.
+	@Test
+	public void testJitErrorPosition() throws InvalidExpressionFormatException{
+		String text = "( " + String.join(" ", infix) + " ) / z";
+		InvalidExpressionFormatException interpreted = divideByZero(CompiledExpression.compile(text));
+		CompiledExpression generated = CompiledExpression.compile(text).jit();
+		assertTrue(generated.isJitCompiled());
+		InvalidExpressionFormatException promoted = divideByZero(generated);
+		assertEquals(ErrorCode.ARITHMETIC, promoted.getCode());
+		assertEquals(interpreted.getMessage(), promoted.getMessage());
+		assertEquals(interpreted.getPosition(), promoted.getPosition());
+		assertEquals(generated.size() - 1, promoted.getPosition());
+	}
+
+	private static InvalidExpressionFormatException divideByZero(CompiledExpression expression) {
+		try{
+			expression.evaluate(BigDecimal.ZERO);
+			fail("Division by zero accepted");
+			return null;
+		}catch(InvalidExpressionFormatException ex){
+			return ex;
+		}
+	}
+}
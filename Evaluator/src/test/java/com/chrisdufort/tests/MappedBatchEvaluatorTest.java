@@ -0,0 +1,162 @@
+package com.chrisdufort.tests;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.BatchEvaluator;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.MappedBatchEvaluator;
+import com.chrisdufort.evaluator.MappedBatchEvaluator.Column;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class MappedBatchEvaluatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String name, ByteOrder order, double... values) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(order);
+		buffer.asDoubleBuffer().put(values);
+		return Files.write(folder.getRoot().toPath().resolve(name), buffer.array());
+	}
+
+	private Path write(String name, long... values) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asLongBuffer().put(values);
+		return Files.write(folder.getRoot().toPath().resolve(name), buffer.array());
+	}
+
+	private static double[] readDoubles(Path file) throws IOException {
+		double[] values = new double[(int) (Files.size(file) / 8)];
+		ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+		return values;
+	}
+
+	private static long[] readLongs(Path file) throws IOException {
+		long[] values = new long[(int) (Files.size(file) / 8)];
+		ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(values);
+		return values;
+	}
+
+	//More rows than one mapped window, doubles, longs and decimals in, the results of BatchEvaluator out.
+	@Test
+	public void testDoublesMatchBatchEvaluator() throws IOException, InvalidExpressionFormatException{
+		int rows = (1 << 20) + 1500;
+		double[] a = new double[rows];
+		long[] b = new long[rows];
+		long[] c = new long[rows];
+		double[][] columns = { a, new double[rows], new double[rows] };
+		for (int row = 0; row < rows; row++)
+		{
+			a[row] = row % 97 - 40.5;
+			b[row] = row % 13 + 1;
+			c[row] = row % 1000 - 500;
+			columns[1][row] = b[row];
+			columns[2][row] = c[row] / 100.0;
+		}
+		CompiledExpression expression = CompiledExpression.compile("a * b - (a + 3) / b + c");
+		Path output = folder.getRoot().toPath().resolve("out");
+		assertEquals(rows, MappedBatchEvaluator.evaluate(expression, new Column[] {
+				Column.doubles(write("a", ByteOrder.BIG_ENDIAN, a)).order(ByteOrder.BIG_ENDIAN),
+				Column.longs(write("b", b)), Column.decimals(write("c", c), 2) }, Column.doubles(output)));
+		double[] expected = new double[rows];
+		BatchEvaluator.evaluate(expression, columns, expected);
+		assertArrayEquals(expected, readDoubles(output), 0.0);
+	}
+
+	//Decimal columns give the BigDecimal results, rows too large for fixed point included.
+	@Test
+	public void testDecimalsMatchBigDecimal() throws IOException, InvalidExpressionFormatException{
+		long[] price = { 12345, -99, 0, 4000000000000000000L, 7 };
+		long[] qty = { 3, 7, 5, 10, 3 };
+		PrecisionPolicy policy = PrecisionPolicy.fixedScale(3, RoundingMode.HALF_EVEN);
+		CompiledExpression expression = CompiledExpression.compile("price * qty / 300 + 0.0005");
+		Path output = folder.getRoot().toPath().resolve("out");
+		MappedBatchEvaluator.evaluate(expression, policy, new Column[] { Column.decimals(write("price", price), 2),
+				Column.longs(write("qty", qty)) }, Column.decimals(output, 3));
+		long[] actual = readLongs(output);
+		for (int row = 0; row < price.length; row++)
+		{
+			BigDecimal expected = expression.evaluate(policy, BigDecimal.valueOf(price[row], 2), BigDecimal.valueOf(qty[row]));
+			assertEquals(expected, BigDecimal.valueOf(actual[row], 3));
+		}
+	}
+
+	//The standard policy rounds results beyond 16 significant digits to DECIMAL64 before the output scale.
+	@Test
+	public void testDecimalsMatchStandardPolicy() throws IOException, InvalidExpressionFormatException{
+		long[] a = { 43198703120082L, 12345, -99, 4000000000000000000L, 99999999999999999L };
+		long[] b = { -3775, 7, 30, 25, 3 };
+		Column[] inputs = { Column.decimals(write("a", a), 2), Column.decimals(write("b", b), 1) };
+		Path output = folder.getRoot().toPath().resolve("out");
+		String[] infixes = { "a * b - a / 3", "a / b" };
+		int[] scales = { 0, 2 };
+		for (int index = 0; index < infixes.length; index++)
+		{
+			CompiledExpression expression = CompiledExpression.compile(infixes[index]);
+			MappedBatchEvaluator.evaluate(expression, inputs, Column.decimals(output, scales[index]));
+			long[] actual = readLongs(output);
+			for (int row = 0; row < a.length; row++)
+			{
+				BigDecimal expected = expression.evaluate(PrecisionPolicy.standard(), BigDecimal.valueOf(a[row], 2),
+						BigDecimal.valueOf(b[row], 1)).setScale(scales[index], RoundingMode.HALF_UP);
+				assertEquals(infixes[index] + " row " + row, expected, BigDecimal.valueOf(actual[row], scales[index]));
+			}
+		}
+	}
+
+	@Test
+	public void testDecimalErrors() throws IOException, InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a / b");
+		Column a = Column.longs(write("a", 1, 2, 3));
+		Path output = folder.getRoot().toPath().resolve("out");
+		try{
+			MappedBatchEvaluator.evaluate(expression, new Column[] { a, Column.longs(write("b", 1, 0, 1)) }, Column.longs(output));
+			fail("Division by zero accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+			assertTrue(ex.getMessage(), ex.getMessage().endsWith("at row 1"));
+		}
+		//Doubles divide by zero as IEEE 754 does.
+		MappedBatchEvaluator.evaluate(expression, new Column[] { a, Column.longs(write("b", 1, 0, 1)) }, Column.doubles(output));
+		assertArrayEquals(new double[] { 1, Double.POSITIVE_INFINITY, 3 }, readDoubles(output), 0.0);
+		try{
+			MappedBatchEvaluator.evaluate(CompiledExpression.compile("a * 10"), new Column[] { Column.longs(write("big", Long.MAX_VALUE)) },
+					Column.longs(output));
+			fail("Overflow accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+		}
+		try{
+			MappedBatchEvaluator.evaluate(expression, new Column[] { a }, Column.doubles(output));
+			fail("Missing column accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.MISSING_VARIABLE, ex.getCode());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDifferentLengths() throws IOException, InvalidExpressionFormatException{
+		MappedBatchEvaluator.evaluate(CompiledExpression.compile("a + b"), new Column[] { Column.longs(write("a", 1, 2)),
+				Column.longs(write("b", 1)) }, Column.doubles(folder.getRoot().toPath().resolve("out")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecimalFromDoubles() throws IOException, InvalidExpressionFormatException{
+		MappedBatchEvaluator.evaluate(CompiledExpression.compile("a + 1"), new Column[] { Column.doubles(write("a", ByteOrder.LITTLE_ENDIAN, 1.5)) },
+				Column.longs(folder.getRoot().toPath().resolve("out")));
+	}
+}
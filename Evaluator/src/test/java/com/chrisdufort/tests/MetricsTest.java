@@ -0,0 +1,157 @@
+package com.chrisdufort.tests;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationPhase;
+import com.chrisdufort.evaluator.EvaluatorMetrics;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.ExpressionCache;
+import com.chrisdufort.evaluator.MetricsSnapshot;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.PhaseStats;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class MetricsTest {
+
+	@Before
+	public void setUp() {
+		EvaluatorMetrics.reset();
+		EvaluatorMetrics.enable();
+	}
+
+	@After
+	public void tearDown() {
+		EvaluatorMetrics.disable();
+		EvaluatorMetrics.reset();
+		EvaluatorMetrics.unregisterMBean();
+	}
+
+	@Test
+	public void testPhasesAreCountedOnce() throws InvalidExpressionFormatException{
+		EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix("( 1 + 2 ) * 3"));
+		EvaluatorUtilities.evaluateInfix("4 / 2");
+		CompiledExpression expression = CompiledExpression.compile("a * b + 1");
+		expression.evaluate(new BigDecimal("2"), new BigDecimal("3"));
+		expression.evaluateDouble(2, 3);
+		CompiledExpression.compile("1 + 2").evaluate(NumericMode.LONG);
+
+		MetricsSnapshot snapshot = EvaluatorMetrics.snapshot();
+		assertEquals(1, snapshot.phase(EvaluationPhase.INFIX_TO_POSTFIX).count());
+		assertEquals(1, snapshot.phase(EvaluationPhase.EVALUATE_POSTFIX).count());
+		assertEquals(1, snapshot.phase(EvaluationPhase.EVALUATE_INFIX).count());
+		//Compiling converts to postfix without counting as INFIX_TO_POSTFIX.
+		assertEquals(2, snapshot.phase(EvaluationPhase.COMPILE).count());
+		assertEquals(3, snapshot.phase(EvaluationPhase.EVALUATE).count());
+		//7 + 3 + 5 + 3 tokens
+		assertEquals(18, snapshot.tokenCount());
+		assertEquals(2, snapshot.maxStackDepth());
+		assertEquals(0, snapshot.errorCount());
+	}
+
+	@Test
+	public void testErrorsByCode() {
+		String[] invalid = { "1 +", "( 1", "1 )", "1 / 0" };
+		for (String text : invalid)
+		{
+			try{
+				EvaluatorUtilities.evaluateInfix(text);
+				fail("Invalid expression accepted: " + text);
+			}catch(InvalidExpressionFormatException ex){
+				//Counted by the metrics.
+			}
+		}
+		MetricsSnapshot snapshot = EvaluatorMetrics.snapshot();
+		assertEquals(4, snapshot.errorCount());
+		assertEquals(1, snapshot.errorCount(ErrorCode.MISSING_OPERAND));
+		assertEquals(1, snapshot.errorCount(ErrorCode.UNMATCHED_OPENING_PARENTHESIS));
+		assertEquals(1, snapshot.errorCount(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS));
+		assertEquals(1, snapshot.errorCount(ErrorCode.ARITHMETIC));
+		PhaseStats infix = snapshot.phase(EvaluationPhase.EVALUATE_INFIX);
+		assertEquals(4, infix.count());
+		assertEquals(4, infix.errorCount());
+		assertEquals(Long.valueOf(1), snapshot.toMap().get("error.ARITHMETIC"));
+	}
+
+	@Test
+	public void testCacheHitRate() throws InvalidExpressionFormatException{
+		ExpressionCache cache = ExpressionCache.builder().maximumSize(10).build();
+		cache.get("1 + 2");
+		cache.get("1 + 2");
+		cache.get("1 + 2");
+		cache.get("3 * 4");
+		MetricsSnapshot snapshot = EvaluatorMetrics.snapshot();
+		assertEquals(2, snapshot.cacheHitCount());
+		assertEquals(2, snapshot.cacheMissCount());
+		assertEquals(0.5, snapshot.cacheHitRate(), 0.0);
+	}
+
+	@Test
+	public void testTokenizeIsSampled() throws InvalidExpressionFormatException{
+		for (int index = 0; index < 64; index++)
+			EvaluatorUtilities.infixToPostfix("1 + 2 * 3");
+		PhaseStats tokenize = EvaluatorMetrics.snapshot().phase(EvaluationPhase.TOKENIZE);
+		assertTrue(tokenize.count() >= 3 && tokenize.count() <= 5);
+		assertTrue(tokenize.percentileNanos(99) <= tokenize.maxNanos());
+	}
+
+	@Test
+	public void testDisabledRecordsNothing() throws InvalidExpressionFormatException{
+		EvaluatorMetrics.disable();
+		CompiledExpression.compile("1 + 2").evaluate();
+		try{
+			EvaluatorUtilities.evaluateInfix("1 +");
+		}catch(InvalidExpressionFormatException ex){
+			//Not counted.
+		}
+		MetricsSnapshot snapshot = EvaluatorMetrics.snapshot();
+		assertEquals(0, snapshot.phase(EvaluationPhase.COMPILE).count());
+		assertEquals(0, snapshot.phase(EvaluationPhase.EVALUATE).count());
+		assertEquals(0, snapshot.errorCount());
+		assertEquals(0, snapshot.tokenCount());
+	}
+
+	@Test
+	public void testMBeanAttributes() throws Exception{
+		ObjectName name = EvaluatorMetrics.registerMBean();
+		assertEquals(name, EvaluatorMetrics.registerMBean());
+		CompiledExpression.compile("1 + 2 * 3").evaluate();
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+		assertEquals(Long.valueOf(5), server.getAttribute(name, "TokenCount"));
+		assertEquals(Integer.valueOf(3), server.getAttribute(name, "MaxStackDepth"));
+		//MXBean maps are published as open TabularData rows of key and value.
+		TabularData counts = (TabularData) server.getAttribute(name, "PhaseCounts");
+		assertEquals(Long.valueOf(1), counts.get(new Object[] { "EVALUATE" }).get("value"));
+
+		server.invoke(name, "reset", null, null);
+		assertEquals(Long.valueOf(0), server.getAttribute(name, "TokenCount"));
+		server.setAttribute(name, new Attribute("Enabled", Boolean.FALSE));
+		assertFalse(EvaluatorMetrics.isEnabled());
+	}
+
+	@Test
+	public void testPercentiles() throws InvalidExpressionFormatException{
+		for (int index = 0; index < 100; index++)
+			CompiledExpression.compile("1 + 2").evaluate();
+		PhaseStats evaluate = EvaluatorMetrics.snapshot().phase(EvaluationPhase.EVALUATE);
+		assertEquals(100, evaluate.count());
+		assertTrue(evaluate.percentileNanos(50) <= evaluate.percentileNanos(99));
+		assertTrue(evaluate.percentileNanos(100) <= evaluate.maxNanos());
+		assertTrue(evaluate.meanNanos() > 0);
+	}
+}
@@ -0,0 +1,49 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class NumericModeFallbackTest {
+
+	@Test
+	public void testLongOverflowFallsBack() throws InvalidExpressionFormatException{
+		Queue<String> infix = new ArrayDeque<String>(Arrays.asList("9223372036854775807","+","1"));
+		EvaluationResult result = CompiledExpression.compile(infix).evaluate(NumericMode.LONG);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		//BigDecimal results are rounded to DECIMAL64
+		assertTrue(new BigDecimal("9.223372036854776E+18").compareTo(result.bigDecimalValue()) == 0);
+	}
+
+	@Test
+	public void testInexactDivisionFallsBack() throws InvalidExpressionFormatException{
+		Queue<String> infix = new ArrayDeque<String>(Arrays.asList("7","/","2"));
+		EvaluationResult result = CompiledExpression.compile(infix).evaluate(NumericMode.LONG);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		assertTrue(new BigDecimal("3.5").compareTo(result.bigDecimalValue()) == 0);
+	}
+
+	@Test
+	public void testExactLongDivision() throws InvalidExpressionFormatException{
+		Queue<String> infix = new ArrayDeque<String>(Arrays.asList("1000","/","100","/","10","/","1"));
+		EvaluationResult result = CompiledExpression.compile(infix).evaluate(NumericMode.LONG);
+		assertEquals(NumericMode.LONG, result.getMode());
+		assertEquals(1L, result.longValue());
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testLongDivisionByZero() throws InvalidExpressionFormatException{
+		Queue<String> infix = new ArrayDeque<String>(Arrays.asList("10","/","0"));
+		CompiledExpression.compile(infix).evaluate(NumericMode.LONG);
+	}
+}
@@ -0,0 +1,63 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class NumericModeTest {
+
+	//Same data as the EvaluatorTest, every mode must agree with the BigDecimal result.
+	@Parameters (name="{index} modes[{0}={2}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private CompiledExpression expression;
+	private BigDecimal expectedResult;
+
+	public NumericModeTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult) throws InvalidExpressionFormatException{
+		this.expression = CompiledExpression.compile(infix);
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testBigDecimalMode() throws InvalidExpressionFormatException{
+		EvaluationResult result = expression.evaluate(NumericMode.BIG_DECIMAL);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		assertTrue("BigDecimal mode has failed: ", expectedResult.compareTo(result.bigDecimalValue()) == 0);
+	}
+
+	@Test
+	public void testDoubleMode() throws InvalidExpressionFormatException{
+		EvaluationResult result = expression.evaluate(NumericMode.DOUBLE);
+		assertEquals(NumericMode.DOUBLE, result.getMode());
+		assertEquals("Double mode has failed: ", expectedResult.doubleValue(), result.doubleValue(), Math.abs(expectedResult.doubleValue()) * 1e-12);
+	}
+
+	//Long mode is either exact or reports that it fell back to BigDecimal.
+	@Test
+	public void testLongMode() throws InvalidExpressionFormatException{
+		EvaluationResult result = expression.evaluate(NumericMode.LONG);
+		assertTrue("Long mode has failed: ", expectedResult.compareTo(result.bigDecimalValue()) == 0);
+	}
+
+	//Scaled long mode gives the BigDecimal result itself, scale included, whichever engine produced it.
+	@Test
+	public void testScaledLongMode() throws InvalidExpressionFormatException{
+		EvaluationResult result = expression.evaluate(NumericMode.SCALED_LONG);
+		assertEquals("Scaled long mode has failed: ", expression.evaluate(), result.bigDecimalValue());
+	}
+}
@@ -0,0 +1,226 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.BatchEvaluator;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.Operation;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class OperatorRegistryTest {
+
+	private static final OperatorRegistry STANDARD = OperatorRegistry.standard();
+
+	private static BigDecimal evaluate(String infix, BigDecimal... values) throws InvalidExpressionFormatException {
+		return CompiledExpression.compile(infix, STANDARD).evaluate(values);
+	}
+
+	private static void assertValue(String expected, String infix, BigDecimal... values) throws InvalidExpressionFormatException {
+		BigDecimal result = evaluate(infix, values);
+		assertTrue(infix + " gave " + result, new BigDecimal(expected).compareTo(result) == 0);
+	}
+
+	private static void assertRejected(String message, String infix){
+		try{
+			CompiledExpression.compile(infix, STANDARD).evaluate();
+			fail(infix + " must not evaluate");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(message, ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testPower() throws InvalidExpressionFormatException{
+		assertValue("1024", "2 ^ 10");
+		assertValue("512", "2 ^ 3 ^ 2");
+		assertValue("64", "(2 ^ 3) ^ 2");
+		assertValue("0.5", "2 ^ -1");
+		assertValue("1.414213562373095", "2 ^ 0.5");
+		assertValue("13", "1 + 3 * 2 ^ 2");
+	}
+
+	@Test
+	public void testRegistryPostfixNeedsCompiledExpression() throws InvalidExpressionFormatException{
+		for (String infix : new String[] { "max(1, 2)", "-(1 + 2)" })
+		{
+			try{
+				EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(infix, STANDARD));
+				fail(infix + " must not evaluate without its registry");
+			}catch(InvalidExpressionFormatException ex){
+				assertEquals(ErrorCode.UNKNOWN_OPERATOR, ex.getCode());
+				assertTrue(ex.getMessage(), ex.getMessage().startsWith("Registry operator needs CompiledExpression"));
+			}
+		}
+	}
+
+	@Test
+	public void testUnaryMinus() throws InvalidExpressionFormatException{
+		//A literal keeps its sign, the unary operator binds looser than ^.
+		assertValue("4", "-2 ^ 2");
+		assertValue("-4", "- 2 ^ 2");
+		assertValue("-9", "-a ^ 2", new BigDecimal("3"));
+		assertValue("-3", "-(1 + 2)");
+		assertValue("2", "- -2");
+		assertValue("-6", "2 * -a", new BigDecimal("3"));
+		assertEquals("a 2 ^ u-", CompiledExpression.compile("-a ^ 2", STANDARD).toString());
+	}
+
+	@Test
+	public void testRemainder() throws InvalidExpressionFormatException{
+		assertValue("1", "7 % 3");
+		assertValue("-1", "-7 % 3");
+		assertValue("1.5", "7.5 % 2");
+		//Same precedence as * , from left to right.
+		assertValue("8", "2 + 7 % 4 * 2");
+	}
+
+	@Test
+	public void testFunctions() throws InvalidExpressionFormatException{
+		assertValue("5", "max(1, 5, 3)");
+		assertValue("-1", "min(a, b) * 2", new BigDecimal("-0.5"), new BigDecimal("7"));
+		assertValue("4", "sqrt(16)");
+		assertValue("3", "max(min(1, 2), sqrt(9))");
+		assertValue("7", "max (7)");
+		assertEquals(new BigDecimal("1.414213562373095"), evaluate("sqrt(2)"));
+		assertEquals("a b 3 max(3)", CompiledExpression.compile("max(a , b , 3)", STANDARD).toString());
+	}
+
+	@Test
+	public void testPostfixQueue() throws InvalidExpressionFormatException{
+		assertEquals("[2, 3, 2, ^, ^, u-]", EvaluatorUtilities.infixToPostfix("-2 ^ 3 ^ 2".replace("-2", "- 2"), STANDARD).toString());
+		assertEquals("[1, 2, +, sqrt(1)]", EvaluatorUtilities.infixToPostfix("sqrt(1 + 2)", STANDARD).toString());
+	}
+
+	@Test
+	public void testSyntaxErrors(){
+		assertRejected("Wrong number of arguments for max: 0", "max()");
+		assertRejected("Wrong number of arguments for sqrt: 2", "sqrt(1, 2)");
+		assertRejected("Misplaced comma at position 2", "(1, 2)");
+		assertRejected("Missing operator at position 2", "1 2");
+		assertRejected("Missing operand at position 3", "2 ^");
+		assertRejected("Missing matching parenthesis at position 3", "max(1");
+		assertRejected("Missing operand at position 0", "* 2");
+	}
+
+	@Test
+	public void testArithmeticErrors(){
+		assertRejected("Square root of a negative number", "sqrt(-1)");
+		assertRejected("/ by zero", "0 ^ -1");
+	}
+
+	@Test
+	public void testNumericModes() throws InvalidExpressionFormatException{
+		assertEquals(NumericMode.LONG, CompiledExpression.compile("2 ^ 10 % 1000 + max(1, -3)", STANDARD)
+				.evaluate(NumericMode.LONG).getMode());
+		assertEquals(24, CompiledExpression.compile("2 ^ 10 % 1000", STANDARD).evaluate(NumericMode.LONG).longValue());
+		//Not exact as longs, falls back to BigDecimal.
+		assertEquals(NumericMode.BIG_DECIMAL, CompiledExpression.compile("2 ^ -1", STANDARD).evaluate(NumericMode.LONG).getMode());
+		assertEquals(NumericMode.BIG_DECIMAL, CompiledExpression.compile("sqrt(2)", STANDARD).evaluate(NumericMode.LONG).getMode());
+		assertEquals(NumericMode.BIG_DECIMAL, CompiledExpression.compile("2 ^ 64", STANDARD).evaluate(NumericMode.LONG).getMode());
+		assertEquals(Math.sqrt(2), CompiledExpression.compile("2 ^ 0.5", STANDARD).evaluateDouble(), 1e-15);
+		assertEquals(-2.5, CompiledExpression.compile("min(a, -b) % 3", STANDARD).evaluateDouble(4.0, 5.5), 0.0);
+	}
+
+	@Test
+	public void testColumns() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("max(a, b) ^ 2 - sqrt(b)", STANDARD);
+		double[] output = new double[3];
+		BatchEvaluator.evaluate(expression, new double[][] { { 1, 5, -3 }, { 4, 2, 9 } }, output);
+		assertArrayEquals(new double[] { 14, 25 - Math.sqrt(2), 78 }, output, 0.0);
+	}
+
+	@Test
+	public void testStaysInterpreted() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a ^ 2 + 1", STANDARD).jit();
+		assertFalse(expression.isJitCompiled());
+		assertValue("10", "a ^ 2 + 1", new BigDecimal("3"));
+		assertTrue(CompiledExpression.compile("a * 2 + 1", STANDARD).jit().isJitCompiled());
+	}
+
+	@Test
+	public void testOptimize() throws InvalidExpressionFormatException{
+		CompiledExpression optimized = CompiledExpression.compile("2 ^ 10 + max(a, 3 % 2)", STANDARD).optimize();
+		assertEquals("1024 a 1 max(2) +", optimized.toString());
+		assertEquals("1024 + max( a , 1 )", optimized.toInfix());
+		//A failing constant is left for evaluation.
+		assertEquals("-1 sqrt(1)", CompiledExpression.compile("sqrt(-1)", STANDARD).optimize().toString());
+	}
+
+	@Test
+	public void testToInfix() throws InvalidExpressionFormatException{
+		assertEquals("- ( a + b )", CompiledExpression.compile("-(a + b)", STANDARD).toInfix());
+		assertEquals("( a ^ b ) ^ c", CompiledExpression.compile("(a ^ b) ^ c", STANDARD).toInfix());
+		assertEquals("a ^ b ^ c", CompiledExpression.compile("a ^ (b ^ c)", STANDARD).toInfix());
+		assertEquals("( - a ) ^ 2", CompiledExpression.compile("(-a) ^ 2", STANDARD).toInfix());
+		String infix = CompiledExpression.compile("min(a, -b) * (c % 2)", STANDARD).toInfix();
+		assertEquals("min( a , - b ) * ( c % 2 )", infix);
+		assertEquals(CompiledExpression.compile(infix, STANDARD).toString(),
+				CompiledExpression.compile("min(a, -b) * (c % 2)", STANDARD).toString());
+	}
+
+	@Test
+	public void testCustomRegistry() throws InvalidExpressionFormatException{
+		OperatorRegistry registry = OperatorRegistry.builder()
+				.include(STANDARD)
+				.binary("**", 3, true, (a, b) -> a.pow(b.intValueExact()), Math::pow, null)
+				.function("avg", 1, Integer.MAX_VALUE, (values, offset, count) -> {
+					BigDecimal sum = BigDecimal.ZERO;
+					for (int index = offset; index < offset + count; index++)
+						sum = sum.add(values[index]);
+					return sum.divide(BigDecimal.valueOf(count));
+				}, (values, offset, count) -> {
+					double sum = 0;
+					for (int index = offset; index < offset + count; index++)
+						sum += values[index];
+					return sum / count;
+				}, null)
+				.build();
+		//** is matched before * , longest symbol first.
+		assertTrue(new BigDecimal("16").compareTo(CompiledExpression.compile("2 ** 3 * 2", registry).evaluate()) == 0);
+		assertTrue(new BigDecimal("5").compareTo(CompiledExpression.compile("avg(2, 4, 9)", registry).evaluate()) == 0);
+		//No long implementation, the LONG mode falls back.
+		assertEquals(NumericMode.BIG_DECIMAL, CompiledExpression.compile("2 ** 3", registry).evaluate(NumericMode.LONG).getMode());
+		assertEquals(Operation.Kind.FUNCTION, registry.function("avg").getKind());
+		assertTrue(registry.binary("^").isRightAssociative());
+		assertNull(registry.unary("^"));
+		assertNull(STANDARD.function("avg"));
+	}
+
+	@Test
+	public void testBuilderRejects(){
+		try{
+			OperatorRegistry.builder().binary("+", 0, false, BigDecimal::add, Double::sum, Long::sum);
+			fail("Built in operators cannot be redefined");
+		}catch(IllegalArgumentException ex){
+			assertEquals("Built in operator: +", ex.getMessage());
+		}
+		try{
+			OperatorRegistry.builder().binary("mod", 1, false, BigDecimal::remainder, (a, b) -> a % b, null);
+			fail("Letters would be read as variables");
+		}catch(IllegalArgumentException ex){
+			assertEquals("Invalid operator symbol: mod", ex.getMessage());
+		}
+		try{
+			OperatorRegistry.builder().include(STANDARD).function("max", 2, 2, (values, offset, count) -> values[offset],
+					(values, offset, count) -> values[offset], null);
+			fail("Functions are registered once");
+		}catch(IllegalArgumentException ex){
+			assertEquals("Already registered: FUNCTION max", ex.getMessage());
+		}
+		try{
+			OperatorRegistry.builder().function("x", 1, 1, (values, offset, count) -> values[offset],
+					(values, offset, count) -> values[offset], null);
+			fail("A lone x is the multiplication");
+		}catch(IllegalArgumentException ex){
+			assertEquals("Function name must be an identifier: x", ex.getMessage());
+		}
+	}
+}
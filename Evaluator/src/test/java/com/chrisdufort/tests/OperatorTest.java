@@ -0,0 +1,64 @@
+package com.chrisdufort.tests;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.Operator;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class OperatorTest {
+
+	@Test
+	public void testLookup(){
+		assertEquals(Operator.ADD, Operator.of("+"));
+		assertEquals(Operator.SUBTRACT, Operator.of("-"));
+		assertEquals(Operator.DIVIDE, Operator.of("/"));
+		assertEquals(Operator.MULTIPLY, Operator.of("*"));
+		assertEquals(Operator.MULTIPLY, Operator.of("x"));
+		assertEquals(Operator.MULTIPLY, Operator.of("X"));
+	}
+
+	@Test
+	public void testNotOperators(){
+		assertNull(Operator.of("("));
+		assertNull(Operator.of("5"));
+		assertNull(Operator.of("-5"));
+		assertNull(Operator.of("rate"));
+		assertNull(Operator.of("×"));
+	}
+
+	@Test
+	public void testPrecedence(){
+		assertTrue(Operator.MULTIPLY.precedence() > Operator.ADD.precedence());
+		assertEquals(Operator.DIVIDE.precedence(), Operator.MULTIPLY.precedence());
+		assertEquals(Operator.SUBTRACT.precedence(), Operator.ADD.precedence());
+		assertTrue(Operator.SUBTRACT.isLeftAssociative());
+	}
+
+	@Test
+	public void testUnknownOperatorRejected() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(new ArrayDeque<String>(Arrays.asList("1", "+", "2", "(")));
+		try{
+			expression.evaluate();
+			fail("A dangling parenthesis must not evaluate");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals("Missing matching parenthesis OR too many operators", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testUnknownOperatorReported() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(new ArrayDeque<String>(Arrays.asList("1", "(", "2")));
+		try{
+			expression.evaluate();
+			fail("An unknown operator must not evaluate");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals("Unknown operator: (", ex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.BatchEvaluator;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.ParallelBatchEvaluator;
+import com.chrisdufort.evaluator.ParallelBatchEvaluator.ScalingSample;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class ParallelBatchEvaluatorTest {
+
+	private static double[][] columns(int rows) {
+		double[] a = new double[rows];
+		double[] b = new double[rows];
+		for (int row = 0; row < rows; row++)
+		{
+			a[row] = row % 97 - 40.5;
+			b[row] = row % 13 + 1;
+		}
+		return new double[][] { a, b };
+	}
+
+	@Test
+	public void testDoubleRowsMatchSequential() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a * b - (a + 3) / b");
+		double[][] columns = columns(100000);
+		double[] expected = new double[100000];
+		double[] actual = new double[100000];
+		BatchEvaluator.evaluate(expression, columns, expected);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			ParallelBatchEvaluator.builder().pool(pool).minimumChunk(1000).build().evaluate(expression, columns, actual);
+		}finally{
+			pool.shutdown();
+		}
+		assertArrayEquals(expected, actual, 0.0);
+	}
+
+	@Test
+	public void testBigDecimalRowsMatchSequential() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("a / b");
+		BigDecimal[] a = new BigDecimal[5000];
+		BigDecimal[] b = new BigDecimal[5000];
+		for (int row = 0; row < a.length; row++)
+		{
+			a[row] = BigDecimal.valueOf(row);
+			b[row] = BigDecimal.valueOf(row % 7 + 1);
+		}
+		BigDecimal[] expected = new BigDecimal[a.length];
+		BigDecimal[] actual = new BigDecimal[a.length];
+		BatchEvaluator.evaluate(expression, new BigDecimal[][] { a, b }, expected);
+		ParallelBatchEvaluator.builder().minimumChunk(64).build().evaluate(expression, new BigDecimal[][] { a, b }, actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	//Once the failure reaches the caller no piece of the batch is still writing to the output.
+	@Test
+	public void testFailureStopsWrites() throws InvalidExpressionFormatException, InterruptedException{
+		CompiledExpression expression = CompiledExpression.compile("a / b");
+		BigDecimal[] a = new BigDecimal[200000];
+		BigDecimal[] b = new BigDecimal[a.length];
+		for (int row = 0; row < a.length; row++)
+		{
+			a[row] = BigDecimal.valueOf(row);
+			b[row] = BigDecimal.valueOf(row == 0 ? 0 : row % 7 + 1);
+		}
+		BigDecimal[] output = new BigDecimal[a.length];
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			ParallelBatchEvaluator.builder().pool(pool).minimumChunk(64).build().evaluate(expression, new BigDecimal[][] { a, b }, output);
+			fail("Division by zero accepted");
+		}catch(InvalidExpressionFormatException ex){
+			BigDecimal[] written = output.clone();
+			Thread.sleep(200);
+			assertArrayEquals(written, output);
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testExpressionSetKeepsOrder() throws InvalidExpressionFormatException{
+		List<CompiledExpression> expressions = new ArrayList<CompiledExpression>();
+		for (int i = 0; i < 1000; i++)
+			expressions.add(CompiledExpression.compile(i + " * 2 + 1"));
+		ParallelBatchEvaluator evaluator = ParallelBatchEvaluator.builder().minimumExpressions(8).build();
+		BigDecimal[] results = evaluator.evaluateAll(expressions);
+		double[] doubles = evaluator.evaluateAllDouble(expressions);
+		for (int i = 0; i < 1000; i++)
+		{
+			assertEquals(i * 2 + 1, results[i].intValue());
+			assertEquals(i * 2 + 1, doubles[i], 0.0);
+		}
+	}
+
+	@Test(expected=InvalidExpressionFormatException.class)
+	public void testFailureIsRethrown() throws InvalidExpressionFormatException{
+		List<CompiledExpression> expressions = new ArrayList<CompiledExpression>();
+		for (int i = 0; i < 200; i++)
+			expressions.add(CompiledExpression.compile(i == 150 ? "1 / 0" : "1 / 1"));
+		ParallelBatchEvaluator.builder().minimumExpressions(4).build().evaluateAll(expressions);
+	}
+
+	@Test
+	public void testScalingReport() throws InvalidExpressionFormatException{
+		double[][] columns = columns(50000);
+		List<ScalingSample> samples = ParallelBatchEvaluator.measureScaling(CompiledExpression.compile("a * b + a"), columns, new double[50000], 4, 2);
+		assertEquals(3, samples.size());
+		assertEquals(1, samples.get(0).getParallelism());
+		assertEquals(4, samples.get(2).getParallelism());
+		assertEquals(1.0, samples.get(0).getSpeedup(), 0.0);
+	}
+
+	//A generated formula of many terms, sums of products with a few subtractions and divisions, left deep as written.
+	private static String longFormula(int terms) {
+		StringBuilder text = new StringBuilder("0.5");
+		for (int term = 1; term < terms; term++)
+		{
+			String operator = term % 50 == 0 ? " - " : " + ";
+			text.append(operator).append(term % 17).append('.').append(term % 9).append(" * rate");
+			if (term % 7 == 0)
+				text.append(" * ( qty - ").append(term % 5).append(" / 3 )");
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testRebalanceShape() throws InvalidExpressionFormatException{
+		assertEquals("a b + c d + +", CompiledExpression.compile("a + b + c + d").rebalance().toString());
+		assertEquals("a b * c * d e * *", CompiledExpression.compile("a * b * c * d * e").rebalance().toString());
+		//Chains of three and non associative chains keep their shape.
+		CompiledExpression three = CompiledExpression.compile("a + b + c");
+		assertSame(three, three.rebalance());
+		CompiledExpression subtractions = CompiledExpression.compile("7 - 3 - 2 - 1 / 4 / 2");
+		assertSame(subtractions, subtractions.rebalance());
+		//Each chain is regrouped on its own, the subtraction between them stays in place.
+		assertEquals("a b + c d + + e f * g h * * -",
+				CompiledExpression.compile("a + b + c + d - e * f * g * h").rebalance().toString());
+	}
+
+	@Test
+	public void testSubtreesMatchSequential() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(longFormula(20000));
+		CompiledExpression balanced = expression.rebalance();
+		assertNotSame(expression, balanced);
+		assertEquals(expression.variables(), balanced.variables());
+		BigDecimal rate = new BigDecimal("1.25");
+		BigDecimal qty = new BigDecimal("-3.5");
+		BigDecimal expected = expression.evaluate(rate, qty);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			ParallelBatchEvaluator evaluator = ParallelBatchEvaluator.builder().pool(pool).minimumSubtree(64).build();
+			//equals, not compareTo, the scale is the same too.
+			assertEquals(expected, balanced.evaluate(rate, qty));
+			assertEquals(expected, evaluator.evaluateSubtrees(balanced, rate, qty));
+			assertEquals(expected, evaluator.evaluateSubtrees(expression, rate, qty));
+			PrecisionPolicy decimal128 = PrecisionPolicy.mathContext(MathContext.DECIMAL128);
+			assertEquals(expression.evaluate(decimal128, rate, qty), evaluator.evaluateSubtrees(balanced, decimal128, rate, qty));
+			//fixedScale rounds every addition, only the original grouping gives its result.
+			PrecisionPolicy cents = PrecisionPolicy.fixedScale(2, RoundingMode.HALF_EVEN);
+			assertEquals(expression.evaluate(cents, rate, qty), evaluator.evaluateSubtrees(expression, cents, rate, qty));
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	//A subtraction chain is walked in place rather than nesting one task per operator.
+	@Test
+	public void testLongSubtractionChain() throws InvalidExpressionFormatException{
+		StringBuilder text = new StringBuilder("100000");
+		for (int term = 0; term < 100000; term++)
+			text.append(" - 1");
+		CompiledExpression expression = CompiledExpression.compile(text);
+		assertSame(expression, expression.rebalance());
+		assertEquals(new BigDecimal("0"), ParallelBatchEvaluator.builder().minimumSubtree(16).build().evaluateSubtrees(expression));
+	}
+
+	@Test
+	public void testSubtreeFailureIsRethrown() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(longFormula(2000) + " + 1 / ( qty - qty )").rebalance();
+		ParallelBatchEvaluator evaluator = ParallelBatchEvaluator.builder().minimumSubtree(16).build();
+		try{
+			evaluator.evaluateSubtrees(expression, BigDecimal.ONE, BigDecimal.TEN);
+			fail("Division by zero accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+		}
+		try{
+			evaluator.evaluateSubtrees(expression, BigDecimal.ONE);
+			fail("Missing variable accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.MISSING_VARIABLE, ex.getCode());
+		}
+	}
+}
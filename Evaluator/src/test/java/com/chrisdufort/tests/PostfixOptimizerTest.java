@@ -0,0 +1,76 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.ParallelBatchEvaluator;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class PostfixOptimizerTest {
+
+	//Same data as the EvaluatorTest, optimizing must never change a result, scale included.
+	@Parameters (name="{index} optimized[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private Queue<String> infix;
+	private Queue<String> postfix;
+	private BigDecimal expectedResult;
+
+	public PostfixOptimizerTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.infix = infix;
+		this.postfix = postfix;
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testOptimizedPostfixSameResult() throws InvalidExpressionFormatException{
+		BigDecimal plain = EvaluatorUtilities.evaluatePostfix(new ArrayDeque<String>(postfix));
+		BigDecimal optimized = EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.optimizePostfix(postfix));
+		assertEquals("Optimized postfix has changed the result: ", plain, optimized);
+	}
+
+	@Test
+	public void testOptimizedCompiledSameResult() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(infix);
+		assertEquals("Optimized expression has changed the result: ", expression.evaluate(), expression.optimize().evaluate());
+		assertTrue(expectedResult.compareTo(expression.optimize().evaluate()) == 0);
+	}
+
+	//Every test expression is made of literals only, so it folds to a single value.
+	@Test
+	public void testFoldsToOneInstruction() throws InvalidExpressionFormatException{
+		assertEquals(1, CompiledExpression.compile(infix).optimize().size());
+	}
+
+	//Regrouped chains and subtrees evaluated apart give the same result, scale included.
+	@Test
+	public void testRebalancedSameResult() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(infix);
+		CompiledExpression balanced = expression.rebalance();
+		assertEquals("Rebalanced expression has changed the result: ", expression.evaluate(), balanced.evaluate());
+		assertEquals(expression.variables(), balanced.variables());
+		assertEquals(expression.evaluate(), ParallelBatchEvaluator.builder().minimumSubtree(1).build().evaluateSubtrees(balanced));
+	}
+
+	@Test
+	public void testInfixRoundTrip() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(infix);
+		//The lexer reads x and X as *, compare the programs with * only.
+		assertEquals("Infix rendering has changed the program: ", expression.toString().replaceAll("\\b[xX]\\b", "*"),
+				CompiledExpression.compile(expression.toInfix()).toString());
+	}
+}
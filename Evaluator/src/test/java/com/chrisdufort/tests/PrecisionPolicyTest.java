@@ -0,0 +1,135 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class PrecisionPolicyTest {
+
+	@Test
+	public void testStandardPolicyIsDefault() throws InvalidExpressionFormatException{
+		String text = "1 / 3 / 7 * 22.5 - 0.1";
+		assertEquals(EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(text)),
+				EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(text), PrecisionPolicy.standard()));
+		CompiledExpression expression = CompiledExpression.compile(text);
+		assertEquals(expression.evaluate(), expression.evaluate(PrecisionPolicy.standard()));
+	}
+
+	//Every intermediate result is rounded, so the scale does not grow along the chain.
+	@Test
+	public void testFixedScaleRoundsEveryOperation() throws InvalidExpressionFormatException{
+		PrecisionPolicy ledger = PrecisionPolicy.fixedScale(2, RoundingMode.HALF_EVEN);
+		assertEquals(new BigDecimal("0.99"), CompiledExpression.compile("1 / 3 * 3").evaluate(ledger));
+		assertEquals(new BigDecimal("0.02"), CompiledExpression.compile("0.125 + 0.125 * 0 - 0.105").evaluate(ledger));
+		assertEquals(new BigDecimal("4.00"), EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix("2 * 2"), ledger));
+	}
+
+	@Test
+	public void testMathContextRoundsDivisionsAndResult() throws InvalidExpressionFormatException{
+		PrecisionPolicy decimal128 = PrecisionPolicy.mathContext(MathContext.DECIMAL128);
+		BigDecimal third = CompiledExpression.compile("1 / 3").evaluate(decimal128);
+		assertEquals(34, third.precision());
+		assertEquals(new BigDecimal("1.000"), CompiledExpression.compile("1.000 / 1").evaluate(decimal128));
+		//Exact operations are only rounded once, at the end.
+		PrecisionPolicy three = PrecisionPolicy.mathContext(new MathContext(3));
+		assertEquals(new BigDecimal("1.23E+3"), CompiledExpression.compile("1234 + 0.4").evaluate(three));
+	}
+
+	@Test
+	public void testUnlimitedContextRejectsNonTerminatingDivision() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("1 / 3");
+		try{
+			expression.evaluate(PrecisionPolicy.mathContext(MathContext.UNLIMITED));
+			fail("Non terminating division accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+			assertEquals(2, ex.getPosition());
+		}
+		assertEquals(new BigDecimal("0.25"), CompiledExpression.compile("1 / 4").evaluate(PrecisionPolicy.mathContext(MathContext.UNLIMITED)));
+	}
+
+	@Test
+	public void testPolicyWithVariables() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile("price * qty / 3");
+		assertEquals(new BigDecimal("6.67"), expression.evaluate(PrecisionPolicy.fixedScale(2, RoundingMode.HALF_UP), new BigDecimal("2.50"), new BigDecimal("8")));
+	}
+
+	@Test
+	public void testScaledLongMatchesBigDecimal() throws InvalidExpressionFormatException{
+		String[] texts = { "1 / 3", "2 / 3", "-2 / 3", "1.5 * 2.25 - 0.125", "100 / 7 * 7", "1 / 3 / 3 / 3 + 12.5",
+				"12345.6 / 99", "-1000 / 7", "0.000001 / 7", "5 - 5.000" };
+		for (String text : texts)
+		{
+			CompiledExpression expression = CompiledExpression.compile(text);
+			EvaluationResult result = expression.evaluate(NumericMode.SCALED_LONG);
+			assertEquals(text, NumericMode.SCALED_LONG, result.getMode());
+			assertEquals(text, expression.evaluate(), result.bigDecimalValue());
+		}
+	}
+
+	//Compares both engines under every rounding mode on random chains, fallbacks included.
+	@Test
+	public void testScaledLongMatchesBigDecimalUnderFixedScale() throws InvalidExpressionFormatException{
+		Random random = new Random(42);
+		String[] operators = { "+", "-", "*", "/" };
+		RoundingMode[] modes = { RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+				RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN };
+		for (int test = 0; test < 500; test++)
+		{
+			StringBuilder text = new StringBuilder(random.nextInt(2000) - 1000 + "." + random.nextInt(100));
+			for (int count = random.nextInt(6); count >= 0; count--)
+				text.append(' ').append(operators[random.nextInt(4)]).append(' ').append(random.nextInt(999) + 1).append('.').append(random.nextInt(1000));
+			PrecisionPolicy policy = PrecisionPolicy.fixedScale(random.nextInt(6), modes[random.nextInt(modes.length)]);
+			CompiledExpression expression = CompiledExpression.compile(text);
+			assertEquals(text + " " + policy, expression.evaluate(policy), expression.evaluate(NumericMode.SCALED_LONG, policy).bigDecimalValue());
+		}
+	}
+
+	@Test
+	public void testScaledLongFallsBack() throws InvalidExpressionFormatException{
+		//A quotient over 922 does not fit in a long at 16 places.
+		EvaluationResult result = CompiledExpression.compile("10000 / 7").evaluate(NumericMode.SCALED_LONG);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		assertEquals(CompiledExpression.compile("10000 / 7").evaluate(), result.bigDecimalValue());
+		//Operand too large for a long.
+		result = CompiledExpression.compile("99999999999999999999 * 2").evaluate(NumericMode.SCALED_LONG);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		//Precision based policy.
+		result = CompiledExpression.compile("1 / 3").evaluate(NumericMode.SCALED_LONG, PrecisionPolicy.mathContext(MathContext.DECIMAL32));
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+		assertEquals(new BigDecimal("0.3333333"), result.bigDecimalValue());
+		//Registry calls.
+		result = CompiledExpression.compile("max(1, 2) / 4", OperatorRegistry.standard()).evaluate(NumericMode.SCALED_LONG);
+		assertEquals(NumericMode.BIG_DECIMAL, result.getMode());
+	}
+
+	@Test
+	public void testScaledLongDivisionByZero() throws InvalidExpressionFormatException{
+		try{
+			CompiledExpression.compile("1 + 10 / 0").evaluate(NumericMode.SCALED_LONG);
+			fail("Division by zero accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+			assertEquals(3, ex.getPosition());
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testNullRounding(){
+		PrecisionPolicy.fixedScale(2, null);
+	}
+}
@@ -0,0 +1,66 @@
+package com.chrisdufort.tests;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+@RunWith(Parameterized.class)
+public class StandardRegistryTest {
+
+	//Same data as the EvaluatorTest, a registry must not change the meaning of built in expressions.
+	@Parameters (name="{index} standard[{0}={1}]")
+	public static Collection<Object[]> paramaterizedData(){
+		return EvaluatorTest.paramaterizedData();
+	}
+
+	private String infix;
+	private BigDecimal expectedResult;
+
+	public StandardRegistryTest(ArrayDeque<String> infix, ArrayDeque<String> postfix, BigDecimal expectedResult){
+		this.infix = String.join(" ", infix);
+		this.expectedResult = expectedResult;
+	}
+
+	@Test
+	public void testBigDecimal() throws InvalidExpressionFormatException{
+		CompiledExpression expression = CompiledExpression.compile(infix, OperatorRegistry.standard());
+		assertEquals("Registry parser has failed: ", CompiledExpression.compile(infix).toString(), expression.toString());
+		assertTrue(expectedResult.compareTo(expression.evaluate()) == 0);
+	}
+
+	@Test
+	public void testModes() throws InvalidExpressionFormatException{
+		CompiledExpression builtIn = CompiledExpression.compile(infix);
+		CompiledExpression expression = CompiledExpression.compile(infix, OperatorRegistry.standard());
+		assertEquals(builtIn.evaluateDouble(), expression.evaluateDouble(), 0.0);
+		assertEquals(builtIn.evaluate(NumericMode.LONG).getMode(), expression.evaluate(NumericMode.LONG).getMode());
+	}
+
+	//Square roots near the largest long end, exact ones as longs, inexact ones in BigDecimal.
+	@Test(timeout = 5000)
+	public void testLongSquareRootNearMaximum() throws InvalidExpressionFormatException{
+		OperatorRegistry registry = OperatorRegistry.standard();
+		EvaluationResult exact = CompiledExpression.compile("sqrt(9223372030926249001)", registry).evaluate(NumericMode.LONG);
+		assertEquals(NumericMode.LONG, exact.getMode());
+		assertEquals(3037000499L, exact.longValue());
+		for (String value : new String[] { "9223372036854775807", "9223372030926249000", "9223372030926249002" })
+		{
+			EvaluationResult inexact = CompiledExpression.compile("sqrt(" + value + ")", registry).evaluate(NumericMode.LONG);
+			assertEquals(value, NumericMode.BIG_DECIMAL, inexact.getMode());
+			assertEquals(value, CompiledExpression.compile("sqrt(" + value + ")", registry).evaluate(), inexact.bigDecimalValue());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.chrisdufort.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.ExpressionCache;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.evaluator.StreamEvaluator;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class StreamEvaluatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String run(StreamEvaluator evaluator, String input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		evaluator.evaluate(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), Channels.newChannel(output));
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testOneResultPerLine() throws IOException{
+		StreamEvaluator evaluator = StreamEvaluator.builder().workers(2).build();
+		assertEquals("3\n\n2.400000000000000\nerror ARITHMETIC at 2: / by zero\n", run(evaluator, "1 + 2\n\n(3 * 4) / 5\r\n1 / 0"));
+		assertEquals("", run(evaluator, ""));
+		assertEquals("\n", run(evaluator, "\n"));
+	}
+
+	//Many small batches on several workers and a small output buffer, results keep the input order.
+	@Test
+	public void testOrderKept() throws IOException, InvalidExpressionFormatException{
+		StringBuilder input = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int line = 0; line < 5000; line++)
+		{
+			String text = line + " * 3 - " + (line % 7) + " / 2";
+			input.append(text).append('\n');
+			expected.append(CompiledExpression.compile(text).evaluate()).append('\n');
+		}
+		StreamEvaluator evaluator = StreamEvaluator.builder().workers(4).batchLines(7).outputBufferSize(64).build();
+		assertEquals(expected.toString(), run(evaluator, input.toString()));
+	}
+
+	@Test
+	public void testMappedFile() throws IOException{
+		File file = folder.newFile("expressions.txt");
+		Files.write(file.toPath(), "2 x 3\n1 +\n10 / 4".getBytes(StandardCharsets.UTF_8));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long lines = StreamEvaluator.builder().build().evaluate(file.toPath(), Channels.newChannel(output));
+		assertEquals(3, lines);
+		assertEquals("6\nerror MISSING_OPERAND at 1: Missing matching parenthesis OR too many operators\n2.500000000000000\n",
+				new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testCachePolicyAndRegistry() throws IOException{
+		StreamEvaluator evaluator = StreamEvaluator.builder()
+				.cache(ExpressionCache.builder().registry(OperatorRegistry.standard()).build())
+				.policy(PrecisionPolicy.fixedScale(2, RoundingMode.HALF_EVEN))
+				.build();
+		assertEquals("0.33\n9.00\n0.33\n", run(evaluator, "1 / 3\nmax(4, 9)\n1 / 3\n"));
+	}
+
+	@Test(expected=IOException.class)
+	public void testLineTooLong() throws IOException{
+		run(StreamEvaluator.builder().maximumLineLength(8).build(), "1 + 2\n1 + 2 + 3 + 4\n");
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testNoWorkers(){
+		StreamEvaluator.builder().workers(0);
+	}
+}
@@ -0,0 +1,184 @@
+package com.chrisdufort.tests;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.StreamingParser;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class StreamingParserTest {
+
+	private static final String[] MALFORMED = {
+		"", "(", "()", "(3 + 5", "10 / 0", "5 + + 3", "1 + 2)", "5 6", "9 +", ") 5 + 3", "((4)",
+		"(3(())2)", "1 2 3 4 5 6 7", "rate * 2", "2 * rate + 1 / 0", "1 / 0 + rate", "1 / 0 )", "1 + $",
+		"1 + .", "* 2", "(((1 - 1))) / (2 - 2) * 5", "7 -.", "5 x"
+	};
+
+	//Feeds the text in pieces of the given size, so tokens are split across pieces.
+	private static void feed(StreamingParser parser, String text, int piece) throws InvalidExpressionFormatException {
+		for (int from = 0; from < text.length(); from += piece)
+			parser.feed(text.substring(from, Math.min(text.length(), from + piece)));
+	}
+
+	private static String streamedPostfix(String text, int piece) throws InvalidExpressionFormatException {
+		List<String> instructions = new ArrayList<String>();
+		StreamingParser parser = StreamingParser.toPostfix(instructions::add);
+		feed(parser, text, piece);
+		assertNull(parser.finish());
+		return String.join(" ", instructions);
+	}
+
+	private static InvalidExpressionFormatException streamedError(String text, int piece) {
+		try{
+			StreamingParser parser = StreamingParser.evaluating();
+			feed(parser, text, piece);
+			parser.finish();
+			return null;
+		}catch(InvalidExpressionFormatException ex){
+			return ex;
+		}
+	}
+
+	//Every expression of the EvaluatorTest, however it is cut, gives the instructions and value of the text methods.
+	@Test
+	public void testSameAsTextMethods() throws InvalidExpressionFormatException{
+		StreamingParser evaluator = StreamingParser.evaluating();
+		for (Object[] data : EvaluatorTest.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			Queue<String> infix = (Queue<String>) data[0];
+			for (String text : new String[] { String.join(" ", infix), String.join("", infix) })
+			{
+				String expected = String.join(" ", EvaluatorUtilities.infixToPostfix(text));
+				BigDecimal value = EvaluatorUtilities.evaluateInfix(text);
+				for (int piece : new int[] { 1, 2, 3, 7, Math.max(1, text.length()) })
+				{
+					assertEquals(text, expected, streamedPostfix(text, piece));
+					feed(evaluator, text, piece);
+					assertEquals(text, value, evaluator.finish());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTokens() throws InvalidExpressionFormatException{
+		for (Object[] data : EvaluatorTest.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			Queue<String> infix = (Queue<String>) data[0];
+			@SuppressWarnings("unchecked")
+			Queue<String> postfix = (Queue<String>) data[1];
+			List<String> instructions = new ArrayList<String>();
+			StreamingParser parser = StreamingParser.toPostfix(instructions::add);
+			StreamingParser evaluator = StreamingParser.evaluating();
+			for (String token : infix)
+			{
+				parser.token(token);
+				evaluator.token(token);
+			}
+			parser.finish();
+			//Operators are always written + - * /.
+			assertEquals(String.join(" ", postfix).replaceAll("\\b[xX]\\b", "*"), String.join(" ", instructions));
+			assertTrue(((BigDecimal) data[2]).compareTo(evaluator.finish()) == 0);
+		}
+	}
+
+	@Test
+	public void testSameErrors(){
+		for (String infix : MALFORMED)
+		{
+			InvalidExpressionFormatException expected = null;
+			try{
+				EvaluatorUtilities.evaluateInfix(infix);
+			}catch(InvalidExpressionFormatException ex){
+				expected = ex;
+			}
+			assertNotNull(infix, expected);
+			for (int piece : new int[] { 1, 4, Math.max(1, infix.length()) })
+			{
+				InvalidExpressionFormatException actual = streamedError(infix, piece);
+				assertNotNull(infix, actual);
+				assertEquals(infix, expected.getMessage(), actual.getMessage());
+				assertEquals(infix, expected.getCode(), actual.getCode());
+				assertEquals(infix, expected.getPosition(), actual.getPosition());
+			}
+		}
+	}
+
+	//An error leaves the parser ready for the next expression.
+	@Test
+	public void testReuseAfterError() throws InvalidExpressionFormatException{
+		StreamingParser parser = StreamingParser.evaluating();
+		try{
+			parser.feed("(1 + 2) ) * 3");
+			fail("Unmatched parenthesis accepted");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(8, ex.getPosition());
+		}
+		assertEquals(0, parser.pending());
+		assertEquals(new BigDecimal("7"), parser.feed("1 + 2").feed(" * 3").finish());
+	}
+
+	//A million terms read from a Reader that never holds the text, with at most a few values and operators pending.
+	@Test
+	public void testBoundedMemory() throws IOException, InvalidExpressionFormatException{
+		final int terms = 1000000;
+		final StreamingParser parser = StreamingParser.evaluating();
+		final int[] deepest = { 0 };
+		Reader generated = new Reader() {
+			private int term;
+			private String pending = "";
+			private int index;
+
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				if (index == pending.length())
+				{
+					if (term == terms)
+						return -1;
+					//Nesting stays at two levels however long the sum gets.
+					pending = term == 0 ? "1" : (term % 2 == 0 ? " + " : " - ") + "(" + term % 10 + " * 2 - 1) * 3";
+					term++;
+					index = 0;
+				}
+				int count = Math.min(length, pending.length() - index);
+				pending.getChars(index, index + count, buffer, offset);
+				index += count;
+				deepest[0] = Math.max(deepest[0], parser.pending());
+				return count;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		char[] buffer = new char[5];
+		int read;
+		while ((read = generated.read(buffer, 0, buffer.length)) >= 0)
+			parser.feed(buffer, 0, read);
+		long expected = 1;
+		for (int term = 1; term < terms; term++)
+			expected += (term % 2 == 0 ? 3 : -3) * (term % 10 * 2 - 1);
+		assertEquals(0, BigDecimal.valueOf(expected).compareTo(parser.finish()));
+		assertTrue("Pending " + deepest[0], deepest[0] < 8);
+	}
+
+	@Test
+	public void testReaders() throws IOException, InvalidExpressionFormatException{
+		List<String> instructions = new ArrayList<String>();
+		StreamingParser.toPostfix(new StringReader("rate x (qty - -1.5) / 2"), instructions::add);
+		assertEquals("rate qty -1.5 - * 2 /", String.join(" ", instructions));
+		assertEquals(new BigDecimal("4.5"), StreamingParser.evaluate(new StringReader("(3 - -1.5) * 1")));
+	}
+}
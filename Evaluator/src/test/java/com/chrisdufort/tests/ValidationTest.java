@@ -0,0 +1,124 @@
+package com.chrisdufort.tests;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.ValidationResult;
+import com.chrisdufort.exceptions.ErrorCode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+public class ValidationTest {
+
+	private static void assertInvalid(ErrorCode code, int position, String infix){
+		ValidationResult result = EvaluatorUtilities.validate(infix, OperatorRegistry.standard());
+		assertFalse(infix, result.isValid());
+		assertEquals(infix, code, result.getCode());
+		assertEquals(infix, position, result.getPosition());
+	}
+
+	@Test
+	public void testValidExpressions(){
+		for (Object[] data : EvaluatorTest.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			String infix = String.join(" ", (ArrayDeque<String>) data[0]);
+			assertSame(infix, EvaluatorUtilities.validate("1"), EvaluatorUtilities.validate(infix));
+		}
+		assertTrue(EvaluatorUtilities.validate("rate * (1 + tax) / 12").isValid());
+		assertTrue(EvaluatorUtilities.validate("max(a, -b) ^ 2 % 7", OperatorRegistry.standard()).isValid());
+		//Dividing by zero is well formed, it fails when evaluating.
+		assertTrue(EvaluatorUtilities.validate("10 / 0").isValid());
+	}
+
+	@Test
+	public void testInvalidExpressions(){
+		for (Object[] data : EvaluatorTestWithExceptions.paramaterizedData())
+		{
+			@SuppressWarnings("unchecked")
+			String infix = String.join(" ", (ArrayDeque<String>) data[0]);
+			if (!infix.equals("10 / 0"))
+				assertFalse(infix, EvaluatorUtilities.validate(infix).isValid());
+		}
+	}
+
+	@Test
+	public void testCodesAndPositions(){
+		assertInvalid(ErrorCode.EMPTY_EXPRESSION, 0, "   ");
+		assertInvalid(ErrorCode.UNEXPECTED_CHARACTER, 4, "1 + $");
+		assertInvalid(ErrorCode.MALFORMED_NUMBER, 4, "1 + .");
+		assertInvalid(ErrorCode.MISSING_OPERAND, 4, "5 + + 3");
+		assertInvalid(ErrorCode.MISSING_OPERAND, 3, "9 +");
+		assertInvalid(ErrorCode.MISSING_OPERATOR, 2, "5 6");
+		assertInvalid(ErrorCode.MISSING_OPERATOR, 1, "3(2)");
+		assertInvalid(ErrorCode.UNMATCHED_OPENING_PARENTHESIS, 0, "(1 + (2 * 3)");
+		assertInvalid(ErrorCode.UNMATCHED_CLOSING_PARENTHESIS, 5, "1 + 2) * 3");
+		assertInvalid(ErrorCode.MISPLACED_COMMA, 2, "(1, 2)");
+		assertInvalid(ErrorCode.WRONG_ARGUMENT_COUNT, 4, "sqrt(1, 2)");
+		assertInvalid(ErrorCode.MISSING_OPERAND, 4, "(   )");
+	}
+
+	@Test
+	public void testStacklessExceptions(){
+		try{
+			CompiledExpression.compile("(1 + 2");
+			fail("An unclosed parenthesis must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.UNMATCHED_OPENING_PARENTHESIS, ex.getCode());
+			assertEquals(0, ex.getPosition());
+			assertEquals("Missing matching parenthesis at position 0", ex.getMessage());
+			assertEquals(0, ex.getStackTrace().length);
+			assertNull(ex.getCause());
+		}
+		try{
+			EvaluatorUtilities.evaluatePostfix(new ArrayDeque<String>(Arrays.asList("1", "+")));
+			fail("A missing operand must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.MISSING_OPERAND, ex.getCode());
+			assertEquals(1, ex.getPosition());
+			assertEquals(0, ex.getStackTrace().length);
+			assertNull(ex.getCause());
+		}
+	}
+
+	@Test
+	public void testEvaluationCodes() throws InvalidExpressionFormatException{
+		CompiledExpression division = CompiledExpression.compile("1 + 10 / 0");
+		try{
+			division.evaluate();
+			fail("Division by zero must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.ARITHMETIC, ex.getCode());
+			//Instruction index of the division within 1 10 0 / +
+			assertEquals(3, ex.getPosition());
+		}
+		CompiledExpression malformed = CompiledExpression.compile(new ArrayDeque<String>(Arrays.asList("1", "2")));
+		try{
+			malformed.evaluate();
+			fail("Too many operands must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.TOO_MANY_OPERANDS, ex.getCode());
+			assertEquals("Too much operands", ex.getMessage());
+		}
+		try{
+			CompiledExpression.compile("a + 1").evaluate();
+			fail("Unbound variables must be reported");
+		}catch(InvalidExpressionFormatException ex){
+			assertEquals(ErrorCode.MISSING_VARIABLE, ex.getCode());
+		}
+	}
+
+	@Test
+	public void testLegacyConstructors(){
+		InvalidExpressionFormatException ex = new InvalidExpressionFormatException("legacy");
+		assertEquals(ErrorCode.UNSPECIFIED, ex.getCode());
+		assertEquals(-1, ex.getPosition());
+		assertTrue(ex.getStackTrace().length > 0);
+	}
+}
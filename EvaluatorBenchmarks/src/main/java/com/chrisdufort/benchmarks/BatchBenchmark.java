@@ -0,0 +1,74 @@
+package com.chrisdufort.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.BatchEvaluator;
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the columnar double evaluation of one formula over a million rows, on the scalar column kernel
+ * and on the SIMD one. The vector forks only use SIMD when the Evaluator was installed with the vector
+ * profile (mvn -Pvector install in ../Evaluator), otherwise both measure the scalar kernel, check the
+ * kernel printed by setUp.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchBenchmark {
+
+	@Param({ "1000000" })
+	public int rows;
+
+	@Param({ "(price - discount) * qty * (1 + tax) / 12", "a * b + c * d - a / d" })
+	public String formula;
+
+	private CompiledExpression expression;
+	private double[][] columns;
+	private double[] output;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		expression = CompiledExpression.compile(formula);
+		columns = new double[expression.variableCount()][rows];
+		for (int slot = 0; slot < columns.length; slot++)
+		{
+			for (int row = 0; row < rows; row++)
+				columns[slot][row] = (row % 997) * 0.25 + slot + 1;
+		}
+		output = new double[rows];
+		System.out.println("Column kernel: " + BatchEvaluator.columnKernel());
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = "-Dcom.chrisdufort.evaluator.vector=false")
+	public double[] scalar() throws InvalidExpressionFormatException {
+		BatchEvaluator.evaluate(expression, columns, output);
+		return output;
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+	public double[] vector() throws InvalidExpressionFormatException {
+		BatchEvaluator.evaluate(expression, columns, output);
+		return output;
+	}
+}
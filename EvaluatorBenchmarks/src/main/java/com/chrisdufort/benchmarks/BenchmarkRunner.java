@@ -0,0 +1,45 @@
+package com.chrisdufort.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark of the module with the GC profiler, so the report holds throughput, average time
+ * and the allocation rate (gc.alloc.rate.norm is the bytes allocated per operation).
+ * Results are written as JSON to compare between versions, for example with the JMH visualizer.
+ *
+ * Usage: java -cp target/benchmarks.jar com.chrisdufort.benchmarks.BenchmarkRunner [result file] [include regex]
+ * The result file defaults to jmh-result.json, the regex to every benchmark.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private BenchmarkRunner(){
+		/*This class is only a main entry point, therefore the constructor is private.*/
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String result = args.length > 0 ? args[0] : "jmh-result.json";
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(new File(result).getAbsolutePath());
+		if (args.length > 1)
+			options.include(args[1]);
+		else
+			options.include("com\\.chrisdufort\\..*Benchmark");
+		new Runner(options.build()).run();
+	}
+}
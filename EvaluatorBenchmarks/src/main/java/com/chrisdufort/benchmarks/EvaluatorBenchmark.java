@@ -0,0 +1,95 @@
+package com.chrisdufort.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the evaluation of already converted postfix expressions: the Queue based evaluatePostfix,
+ * and a CompiledExpression in each NumericMode, before and after constant folding,
+ * and as generated bytecode (LONG_CHAIN is too long to be generated and measures the interpreter fallback).
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+//The interpreted forms must not be promoted during the run, generated ones use jit().
+@Fork(value = 2, jvmArgsAppend = "-Dcom.chrisdufort.evaluator.jitThreshold=-1")
+public class EvaluatorBenchmark {
+
+	@Param({ "SHORT", "NESTED", "LONG_CHAIN", "DIVISION" })
+	public ExpressionCorpus corpus;
+
+	private Queue<String> postfix;
+	private CompiledExpression compiled;
+	private CompiledExpression optimized;
+	private CompiledExpression generated;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		compiled = CompiledExpression.compile(corpus.text());
+		postfix = compiled.toPostfix();
+		optimized = compiled.optimize();
+		generated = CompiledExpression.compile(corpus.text()).jit();
+	}
+
+	@Benchmark
+	public BigDecimal evaluatePostfix() throws InvalidExpressionFormatException {
+		//evaluatePostfix consumes its input, the copy is part of the measured cost for every corpus entry.
+		return EvaluatorUtilities.evaluatePostfix(new ArrayDeque<String>(postfix));
+	}
+
+	@Benchmark
+	public BigDecimal compiledBigDecimal() throws InvalidExpressionFormatException {
+		return compiled.evaluate();
+	}
+
+	@Benchmark
+	public BigDecimal optimizedBigDecimal() throws InvalidExpressionFormatException {
+		return optimized.evaluate();
+	}
+
+	@Benchmark
+	public BigDecimal generatedBigDecimal() throws InvalidExpressionFormatException {
+		return generated.evaluate();
+	}
+
+	@Benchmark
+	public double compiledDouble() throws InvalidExpressionFormatException {
+		return compiled.evaluateDouble();
+	}
+
+	@Benchmark
+	public double generatedDouble() throws InvalidExpressionFormatException {
+		return generated.evaluateDouble();
+	}
+
+	@Benchmark
+	public EvaluationResult compiledLong() throws InvalidExpressionFormatException {
+		return compiled.evaluate(NumericMode.LONG);
+	}
+}
@@ -0,0 +1,123 @@
+package com.chrisdufort.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Corpus of infix expressions used by the benchmarks.
+ * Each entry is available as a token list (for the Queue based methods) and as text (for the lexer).
+ * Expressions are generated deterministically so results are comparable between versions.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public enum ExpressionCorpus {
+
+	/**
+	 * Short arithmetic of the kind typed by users, taken from the EvaluatorTest data.
+	 */
+	SHORT {
+		@Override
+		List<String> tokens() {
+			return Arrays.asList("(","300","+","23",")","*","(","43","-","21",")","/","84","+","7");
+		}
+	},
+
+	/**
+	 * Two hundred levels of nested parenthesis around a small sum.
+	 */
+	NESTED {
+		@Override
+		List<String> tokens() {
+			List<String> tokens = new ArrayList<String>();
+			for (int depth = 0; depth < 200; depth++)
+			{
+				tokens.add("(");
+				tokens.add(String.valueOf(depth % 9 + 1));
+				tokens.add(depth % 2 == 0 ? "+" : "*");
+			}
+			tokens.add("1");
+			for (int depth = 0; depth < 200; depth++)
+				tokens.add(")");
+			return tokens;
+		}
+	},
+
+	/**
+	 * A flat chain of 10001 tokens mixing the four operators and decimals.
+	 */
+	LONG_CHAIN {
+		@Override
+		List<String> tokens() {
+			String[] operators = { "+", "*", "-", "+", "/" };
+			List<String> tokens = new ArrayList<String>();
+			tokens.add("1.5");
+			for (int index = 0; index < 5000; index++)
+			{
+				tokens.add(operators[index % operators.length]);
+				tokens.add(index % 3 == 0 ? "2.25" : String.valueOf(index % 7 + 1));
+			}
+			return tokens;
+		}
+	},
+
+	/**
+	 * Division heavy formula, every step rounds to 16 places.
+	 */
+	DIVISION {
+		@Override
+		List<String> tokens() {
+			List<String> tokens = new ArrayList<String>();
+			tokens.add("1000000");
+			for (int index = 0; index < 100; index++)
+			{
+				tokens.add("/");
+				tokens.add(index % 2 == 0 ? "3" : "0.7");
+			}
+			return tokens;
+		}
+	},
+
+	/**
+	 * Ledger like formula over amounts with two to four places, its values stay small enough for the
+	 * scaled long engine under a fixed scale policy.
+	 */
+	LEDGER {
+		@Override
+		List<String> tokens() {
+			String[] operators = { "/", "*", "+", "/", "-" };
+			String[] amounts = { "12", "1.0325", "250.75", "4", "15.50" };
+			List<String> tokens = new ArrayList<String>();
+			tokens.add("1250.75");
+			for (int index = 0; index < 100; index++)
+			{
+				tokens.add(operators[index % operators.length]);
+				tokens.add(amounts[index % amounts.length]);
+			}
+			return tokens;
+		}
+	};
+
+	/**
+	 * @return	The infix tokens of the expression.
+	 */
+	abstract List<String> tokens();
+
+	/**
+	 * @return	A fresh infix Queue, the Queue based methods consume their input.
+	 */
+	public Queue<String> infix() {
+		return new ArrayDeque<String>(tokens());
+	}
+
+	/**
+	 * @return	The infix expression as text, tokens separated by spaces.
+	 */
+	public String text() {
+		return String.join(" ", tokens());
+	}
+}
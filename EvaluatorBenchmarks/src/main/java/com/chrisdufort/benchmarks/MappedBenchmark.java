@@ -0,0 +1,98 @@
+package com.chrisdufort.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.MappedBatchEvaluator;
+import com.chrisdufort.evaluator.MappedBatchEvaluator.Column;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the evaluation of a formula over two columns held in files, written to a third file,
+ * in double arithmetic and in fixed point decimal arithmetic.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MappedBenchmark {
+
+	@Param({ "4000000" })
+	public int rows;
+
+	private Path directory;
+	private CompiledExpression expression;
+	private Column[] doubles;
+	private Column[] decimals;
+
+	@Setup
+	public void setUp() throws IOException, InvalidExpressionFormatException {
+		directory = Files.createTempDirectory("mapped");
+		ByteBuffer price = ByteBuffer.allocate(rows * 8).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer qty = ByteBuffer.allocate(rows * 8).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer unscaled = ByteBuffer.allocate(rows * 8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int row = 0; row < rows; row++)
+		{
+			price.putDouble(row % 10000 / 100.0);
+			unscaled.putLong(row % 10000);
+			qty.putLong(row % 50 + 1);
+		}
+		expression = CompiledExpression.compile("price * qty * 0.95 + 4.99");
+		doubles = new Column[] { Column.doubles(write("price.f64", price)), Column.longs(write("qty.i64", qty)) };
+		decimals = new Column[] { Column.decimals(write("price.d2", unscaled), 2), doubles[1] };
+	}
+
+	private Path write(String name, ByteBuffer buffer) throws IOException {
+		Path file = directory.resolve(name);
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+		{
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+		return file;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		for (Path file : Files.newDirectoryStream(directory))
+			Files.delete(file);
+		Files.delete(directory);
+	}
+
+	@Benchmark
+	public long doubles() throws IOException, InvalidExpressionFormatException {
+		return MappedBatchEvaluator.evaluate(expression, doubles, Column.doubles(directory.resolve("out.f64")));
+	}
+
+	@Benchmark
+	public long decimals() throws IOException, InvalidExpressionFormatException {
+		return MappedBatchEvaluator.evaluate(expression, decimals, Column.decimals(directory.resolve("out.d4"), 4));
+	}
+}
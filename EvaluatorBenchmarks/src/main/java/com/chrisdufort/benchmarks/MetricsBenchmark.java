@@ -0,0 +1,74 @@
+package com.chrisdufort.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorMetrics;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the cost of EvaluatorMetrics on the hot paths: a compiled evaluation and a single pass
+ * evaluation of text, with the metrics off and on.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dcom.chrisdufort.evaluator.jitThreshold=-1")
+public class MetricsBenchmark {
+
+	@Param({ "SHORT", "NESTED" })
+	public ExpressionCorpus corpus;
+
+	@Param({ "false", "true" })
+	public boolean metrics;
+
+	private CompiledExpression compiled;
+	private String text;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		compiled = CompiledExpression.compile(corpus.text());
+		text = corpus.text();
+		if (metrics)
+			EvaluatorMetrics.enable();
+		else
+			EvaluatorMetrics.disable();
+	}
+
+	@TearDown
+	public void tearDown() {
+		EvaluatorMetrics.disable();
+		EvaluatorMetrics.reset();
+	}
+
+	@Benchmark
+	public BigDecimal evaluateCompiled() throws InvalidExpressionFormatException {
+		return compiled.evaluate();
+	}
+
+	@Benchmark
+	public BigDecimal evaluateInfix() throws InvalidExpressionFormatException {
+		return EvaluatorUtilities.evaluateInfix(text);
+	}
+}
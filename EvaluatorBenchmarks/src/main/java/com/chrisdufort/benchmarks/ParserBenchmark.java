@@ -0,0 +1,104 @@
+package com.chrisdufort.benchmarks;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluatorUtilities;
+import com.chrisdufort.evaluator.OperatorRegistry;
+import com.chrisdufort.evaluator.ValidationResult;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the infix to postfix conversion, from a token Queue and from text through the lexer,
+ * the full compilation of text into a CompiledExpression and the validation of text without compiling it,
+ * for well formed text and for the same text missing its last operand.
+ * Decoding the binary form of the compiled expression (fromBytes) is measured against compiling the text.
+ * One-off evaluation of text is measured both in two steps (infixToPostfix then evaluatePostfix)
+ * and in a single pass (evaluateInfix), run with -prof gc to compare the allocations.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParserBenchmark {
+
+	@Param({ "SHORT", "NESTED", "LONG_CHAIN", "DIVISION" })
+	public ExpressionCorpus corpus;
+
+	private List<String> tokens;
+	private String text;
+	private String invalid;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		tokens = corpus.tokens();
+		text = corpus.text();
+		invalid = text + " +";
+		encoded = CompiledExpression.compile(text).toBytes();
+	}
+
+	@Benchmark
+	public Queue<String> infixToPostfixQueue() throws InvalidExpressionFormatException {
+		//The conversion consumes its input, the copy is part of the measured cost for every corpus entry.
+		return EvaluatorUtilities.infixToPostfix(new ArrayDeque<String>(tokens));
+	}
+
+	@Benchmark
+	public Queue<String> infixToPostfixText() throws InvalidExpressionFormatException {
+		return EvaluatorUtilities.infixToPostfix(text);
+	}
+
+	@Benchmark
+	public CompiledExpression compile() throws InvalidExpressionFormatException {
+		return CompiledExpression.compile(text);
+	}
+
+	@Benchmark
+	public CompiledExpression decode() throws IOException {
+		return CompiledExpression.fromBytes(encoded, OperatorRegistry.standard());
+	}
+
+	@Benchmark
+	public BigDecimal evaluateTwoSteps() throws InvalidExpressionFormatException {
+		return EvaluatorUtilities.evaluatePostfix(EvaluatorUtilities.infixToPostfix(text));
+	}
+
+	@Benchmark
+	public BigDecimal evaluateSinglePass() throws InvalidExpressionFormatException {
+		return EvaluatorUtilities.evaluateInfix(text);
+	}
+
+	@Benchmark
+	public ValidationResult validate() {
+		return EvaluatorUtilities.validate(text);
+	}
+
+	@Benchmark
+	public ValidationResult validateInvalid() {
+		return EvaluatorUtilities.validate(invalid);
+	}
+}
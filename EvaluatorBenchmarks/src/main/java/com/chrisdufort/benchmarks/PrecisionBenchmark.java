@@ -0,0 +1,75 @@
+package com.chrisdufort.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationResult;
+import com.chrisdufort.evaluator.NumericMode;
+import com.chrisdufort.evaluator.PrecisionPolicy;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures division heavy formulas under each PrecisionPolicy: the standard 16 place divisions,
+ * a fixed scale applied to every operation, in BigDecimal and in the SCALED_LONG engine,
+ * and a MathContext applied to divisions and the result.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dcom.chrisdufort.evaluator.jitThreshold=-1")
+public class PrecisionBenchmark {
+
+	@Param({ "DIVISION", "LEDGER" })
+	public ExpressionCorpus corpus;
+
+	private static final PrecisionPolicy FIXED = PrecisionPolicy.fixedScale(4, RoundingMode.HALF_EVEN);
+	private static final PrecisionPolicy DECIMAL64 = PrecisionPolicy.mathContext(MathContext.DECIMAL64);
+
+	private CompiledExpression compiled;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		compiled = CompiledExpression.compile(corpus.text());
+	}
+
+	@Benchmark
+	public BigDecimal standard() throws InvalidExpressionFormatException {
+		return compiled.evaluate();
+	}
+
+	@Benchmark
+	public BigDecimal fixedScale() throws InvalidExpressionFormatException {
+		return compiled.evaluate(FIXED);
+	}
+
+	@Benchmark
+	public EvaluationResult fixedScaleLong() throws InvalidExpressionFormatException {
+		return compiled.evaluate(NumericMode.SCALED_LONG, FIXED);
+	}
+
+	@Benchmark
+	public BigDecimal mathContext() throws InvalidExpressionFormatException {
+		return compiled.evaluate(DECIMAL64);
+	}
+}
@@ -0,0 +1,145 @@
+package com.chrisdufort.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.EvaluationService;
+import com.chrisdufort.evaluator.ServiceStats;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Load generator of the EvaluationService: client threads each submit a request, wait for its result and submit
+ * the next, spread over a few formulas, then the latency percentiles, throughput and batching are printed.
+ * The same clients evaluating the formulas directly give the baseline.
+ * A closed loop never offers more than one request per client, raise the clients to reach the admission limit.
+ *
+ * Usage: java -cp target/benchmarks.jar com.chrisdufort.benchmarks.ServiceLoadGenerator [clients] [seconds] [batch delay us]
+ * The clients default to 64, the seconds to 5, the batch delay to 100.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+public final class ServiceLoadGenerator {
+
+	private static final String[] FORMULAS = {
+		"price * qty * (1 - discount) + shipping",
+		"(a - b) / (a + b) * 100",
+		"rate * rate * 0.5 - rate / 3 + 1",
+		"((x1 + x2) * (x3 - x4) + x5) / 7"
+	};
+
+	/**
+	 * Private constructor used to prevent instantiation.
+	 */
+	private ServiceLoadGenerator(){
+		/*This class is only a main entry point, therefore the constructor is private.*/
+	}
+
+	public static void main(String[] args) throws InterruptedException, InvalidExpressionFormatException {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		long delay = args.length > 2 ? Long.parseLong(args[2]) : 100;
+		CompiledExpression[] expressions = new CompiledExpression[FORMULAS.length];
+		for (int index = 0; index < FORMULAS.length; index++)
+			expressions[index] = CompiledExpression.compile(FORMULAS[index]);
+
+		//Warms both paths up before measuring.
+		run(expressions, clients, 1, null);
+		try(EvaluationService service = service(clients, delay)){
+			run(expressions, clients, 1, service);
+		}
+
+		report("direct", run(expressions, clients, seconds, null), seconds, null);
+		try(EvaluationService service = service(clients, delay)){
+			report("service", run(expressions, clients, seconds, service), seconds, service.stats());
+		}
+	}
+
+	private static EvaluationService service(int clients, long delay) {
+		return EvaluationService.builder()
+				.queueCapacity(Math.max(1, clients / 2))
+				.batchDelay(delay, TimeUnit.MICROSECONDS)
+				.admissionTimeout(10, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	//Runs the clients for the given time, returning the latency in nanoseconds of every answered request.
+	private static long[] run(final CompiledExpression[] expressions, int clients, long seconds, final EvaluationService service)
+			throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		final long[][] latencies = new long[clients][];
+		final int[] counts = new int[clients];
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int client = 0; client < clients; client++)
+		{
+			final int id = client;
+			Thread thread = new Thread(() -> {
+				long[] own = new long[1024];
+				int count = 0;
+				BigDecimal[] values = new BigDecimal[5];
+				for (long request = id; System.nanoTime() < deadline; request++)
+				{
+					CompiledExpression expression = expressions[(int) (request % expressions.length)];
+					for (int slot = 0; slot < values.length; slot++)
+						values[slot] = BigDecimal.valueOf(request % 97 + slot * 3 + 1, 1);
+					long start = System.nanoTime();
+					try{
+						if (service == null)
+							expression.evaluate(values);
+						else
+							service.submit(expression, values.clone()).join();
+					}catch(InvalidExpressionFormatException ex){
+						throw new IllegalStateException(ex);
+					}catch(CompletionException ex){
+						if (ex.getCause() instanceof RejectedExecutionException)
+							continue;
+						throw ex;
+					}
+					if (count == own.length)
+						own = Arrays.copyOf(own, count * 2);
+					own[count++] = System.nanoTime() - start;
+				}
+				latencies[id] = own;
+				counts[id] = count;
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		int total = 0;
+		for (int client = 0; client < clients; client++)
+		{
+			threads.get(client).join();
+			total += counts[client];
+		}
+		long[] merged = new long[total];
+		int offset = 0;
+		for (int client = 0; client < clients; client++)
+		{
+			System.arraycopy(latencies[client], 0, merged, offset, counts[client]);
+			offset += counts[client];
+		}
+		Arrays.sort(merged);
+		return merged;
+	}
+
+	private static void report(String name, long[] latencies, long seconds, ServiceStats stats) {
+		System.out.printf("%-8s requests/s %10.0f  p50 %8.1f us  p99 %8.1f us  p99.9 %8.1f us  max %8.1f us%n", name,
+				(double) latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+				percentile(latencies, 0.999), latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1000.0);
+		if (stats != null)
+			System.out.printf("%-8s rejected %d  mean batch %.1f  %s%n", "", stats.rejectedCount(), stats.averageBatchSize(), stats);
+	}
+
+	private static double percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0)
+			return 0.0;
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)] / 1000.0;
+	}
+}
@@ -0,0 +1,71 @@
+package com.chrisdufort.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisdufort.evaluator.CompiledExpression;
+import com.chrisdufort.evaluator.ParallelBatchEvaluator;
+import com.chrisdufort.exceptions.InvalidExpressionFormatException;
+
+/**
+ * Measures the BigDecimal evaluation of one generated formula of many terms, sums of products as written,
+ * sequentially and with its rebalanced subtrees spread over the common pool.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SubtreeBenchmark {
+
+	@Param({ "100000" })
+	public int terms;
+
+	private CompiledExpression expression;
+	private CompiledExpression balanced;
+	private ParallelBatchEvaluator evaluator;
+	private BigDecimal[] values;
+
+	@Setup
+	public void setUp() throws InvalidExpressionFormatException {
+		StringBuilder text = new StringBuilder("0.5");
+		for (int term = 1; term < terms; term++)
+			text.append(term % 50 == 0 ? " - " : " + ").append(term % 17).append('.').append(term % 9).append(" * rate * qty");
+		expression = CompiledExpression.compile(text);
+		balanced = expression.rebalance();
+		evaluator = ParallelBatchEvaluator.builder().build();
+		values = new BigDecimal[] { new BigDecimal("1.25"), new BigDecimal("3") };
+	}
+
+	@Benchmark
+	public BigDecimal sequential() throws InvalidExpressionFormatException {
+		return expression.evaluate(values);
+	}
+
+	@Benchmark
+	public BigDecimal sequentialRebalanced() throws InvalidExpressionFormatException {
+		return balanced.evaluate(values);
+	}
+
+	@Benchmark
+	public BigDecimal subtrees() throws InvalidExpressionFormatException {
+		return evaluator.evaluateSubtrees(balanced, values);
+	}
+}
@@ -0,0 +1,73 @@
+package com.chrisdufort.evaluator;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the single operations of doMath in each numeric representation.
+ * Lives in the evaluator package because doMath is package level, it is not part of the public API.
+ *
+ * @author Christopher Dufort
+ * @since JDK 1.8
+ * @version 1.1.0 , last modified 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DoMathBenchmark {
+
+	@Param({ "+", "-", "*", "/" })
+	public String symbol;
+
+	private Operator operator;
+
+	//Not final so the JIT cannot fold the operations.
+	private BigDecimal bigLeft;
+	private BigDecimal bigRight;
+	private double doubleLeft;
+	private double doubleRight;
+	private long longLeft;
+	private long longRight;
+
+	@Setup
+	public void setUp() {
+		operator = Operator.of(symbol);
+		bigLeft = new BigDecimal("1234.5678");
+		bigRight = new BigDecimal("3");
+		doubleLeft = 1234.5678;
+		doubleRight = 3.0;
+		//Exact division so the long form does not throw.
+		longLeft = 123456;
+		longRight = 3;
+	}
+
+	@Benchmark
+	public BigDecimal bigDecimal() {
+		return EvaluatorUtilities.doMath(bigLeft, operator, bigRight);
+	}
+
+	@Benchmark
+	public double primitiveDouble() {
+		return EvaluatorUtilities.doMath(doubleLeft, operator, doubleRight);
+	}
+
+	@Benchmark
+	public long primitiveLong() {
+		return EvaluatorUtilities.doMath(longLeft, operator, longRight);
+	}
+}